@@ -2,6 +2,7 @@ package com.acantilado.core.resources.administrative;
 
 import com.acantilado.core.administrative.Ayuntamiento;
 import com.acantilado.core.administrative.AyuntamientoDAO;
+import com.acantilado.core.administrative.GeometryResolution;
 import io.dropwizard.hibernate.UnitOfWork;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
@@ -36,6 +37,23 @@ public class AyuntamientoResource {
     return findSafely(ayuntamientoId);
   }
 
+  @GET
+  @Path("/getGeometry/{ayuntamientoId}")
+  @UnitOfWork
+  public String getGeometry(
+      @PathParam("ayuntamientoId") String ayuntamientoId,
+      @QueryParam("resolution") @DefaultValue("MEDIUM") GeometryResolution resolution) {
+    return findSafely(ayuntamientoId).getGeometryJson(resolution);
+  }
+
+  @GET
+  @Path("/getExtent/{ayuntamientoId}")
+  @UnitOfWork
+  public GeometryExtent getExtent(@PathParam("ayuntamientoId") String ayuntamientoId) {
+    Ayuntamiento ayuntamiento = findSafely(ayuntamientoId);
+    return new GeometryExtent(ayuntamiento.getBounds(), ayuntamiento.getCentroid());
+  }
+
   @GET
   @Path("/getByProvinceId/{provinceId}")
   @UnitOfWork
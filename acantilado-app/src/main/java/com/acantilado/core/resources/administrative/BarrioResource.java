@@ -2,6 +2,7 @@ package com.acantilado.core.resources.administrative;
 
 import com.acantilado.core.administrative.Barrio;
 import com.acantilado.core.administrative.BarrioDAO;
+import com.acantilado.core.administrative.GeometryResolution;
 import io.dropwizard.hibernate.UnitOfWork;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
@@ -38,6 +39,31 @@ public class BarrioResource {
     return Response.status(Response.Status.NOT_FOUND).build();
   }
 
+  @GET
+  @Path("/{id}/geometry")
+  @UnitOfWork
+  public Response getGeometry(
+      @PathParam("id") Long id,
+      @QueryParam("resolution") @DefaultValue("MEDIUM") GeometryResolution resolution) {
+    Optional<Barrio> result = barrioDao.findById(id);
+    if (result.isPresent()) {
+      return Response.ok(result.get().getGeometryJson(resolution)).build();
+    }
+    return Response.status(Response.Status.NOT_FOUND).build();
+  }
+
+  @GET
+  @Path("/{id}/extent")
+  @UnitOfWork
+  public Response getExtent(@PathParam("id") Long id) {
+    Optional<Barrio> result = barrioDao.findById(id);
+    if (result.isPresent()) {
+      Barrio barrio = result.get();
+      return Response.ok(new GeometryExtent(barrio.getBounds(), barrio.getCentroid())).build();
+    }
+    return Response.status(Response.Status.NOT_FOUND).build();
+  }
+
   @GET
   @Path("/ayuntamiento/{ayuntamientoId}")
   @UnitOfWork
@@ -2,6 +2,7 @@ package com.acantilado.core.resources.administrative;
 
 import com.acantilado.core.administrative.CodigoPostal;
 import com.acantilado.core.administrative.CodigoPostalDAO;
+import com.acantilado.core.administrative.GeometryResolution;
 import io.dropwizard.hibernate.UnitOfWork;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
@@ -38,6 +39,32 @@ public class CodigoPostalResource {
     return Response.status(Response.Status.NOT_FOUND).build();
   }
 
+  @GET
+  @Path("/{codigoIne}/geometry")
+  @UnitOfWork
+  public Response getGeometry(
+      @PathParam("codigoIne") String codigoIne,
+      @QueryParam("resolution") @DefaultValue("MEDIUM") GeometryResolution resolution) {
+    Optional<CodigoPostal> result = codigoPostalDao.findById(codigoIne);
+    if (result.isPresent()) {
+      return Response.ok(result.get().getGeometryJson(resolution)).build();
+    }
+    return Response.status(Response.Status.NOT_FOUND).build();
+  }
+
+  @GET
+  @Path("/{codigoIne}/extent")
+  @UnitOfWork
+  public Response getExtent(@PathParam("codigoIne") String codigoIne) {
+    Optional<CodigoPostal> result = codigoPostalDao.findById(codigoIne);
+    if (result.isPresent()) {
+      CodigoPostal codigoPostal = result.get();
+      return Response.ok(new GeometryExtent(codigoPostal.getBounds(), codigoPostal.getCentroid()))
+          .build();
+    }
+    return Response.status(Response.Status.NOT_FOUND).build();
+  }
+
   @GET
   @Path("/ayuntamiento/{ayuntamientoId}")
   @UnitOfWork
@@ -0,0 +1,9 @@
+package com.acantilado.core.resources.administrative;
+
+import java.util.Map;
+
+/**
+ * The bounding box and centroid of a boundary. Both decode the full geometry, so they are served
+ * next to it rather than with every entity a list returns.
+ */
+public record GeometryExtent(Map<String, Double> bounds, Map<String, Double> centroid) {}
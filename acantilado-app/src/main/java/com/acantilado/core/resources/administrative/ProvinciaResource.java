@@ -1,5 +1,6 @@
 package com.acantilado.core.resources.administrative;
 
+import com.acantilado.core.administrative.GeometryResolution;
 import com.acantilado.core.administrative.Provincia;
 import com.acantilado.core.administrative.ProvinciaDAO;
 import io.dropwizard.hibernate.UnitOfWork;
@@ -29,6 +30,23 @@ public class ProvinciaResource {
     return findSafely(provinciaId);
   }
 
+  @GET
+  @Path("/getGeometry/{provinciaId}")
+  @UnitOfWork
+  public String getGeometry(
+      @PathParam("provinciaId") String provinciaId,
+      @QueryParam("resolution") @DefaultValue("MEDIUM") GeometryResolution resolution) {
+    return findSafely(provinciaId).getGeometryJson(resolution);
+  }
+
+  @GET
+  @Path("/getExtent/{provinciaId}")
+  @UnitOfWork
+  public GeometryExtent getExtent(@PathParam("provinciaId") String provinciaId) {
+    Provincia provincia = findSafely(provinciaId);
+    return new GeometryExtent(provincia.getBounds(), provincia.getCentroid());
+  }
+
   private Provincia findSafely(String provinciaId) {
     return provinciaDao
         .findById(provinciaId)
@@ -21,6 +21,10 @@ import org.slf4j.LoggerFactory;
 @Tag(name = "Amenities", description = "Endpoints for Google amenities")
 public class GoogleAmenityResource {
   private static final Logger LOGGER = LoggerFactory.getLogger(GoogleAmenityResource.class);
+
+  /** Wide enough for any neighbourhood question, small enough to keep results bounded. */
+  static final double MAX_NEARBY_RADIUS_METERS = 50_000;
+
   private final GoogleAmenityDAO amenityDAO;
 
   public GoogleAmenityResource(GoogleAmenityDAO amenityDAO) {
@@ -119,6 +123,45 @@ public class GoogleAmenityResource {
     return Response.ok(amenities).build();
   }
 
+  /**
+   * GET /amenities/nearby?lat={lat}&lng={lng}&radius={meters} Find amenities within a radius of a
+   * location, closest first Example: /amenities/nearby?lat=40.4168&lng=-3.7038&radius=500
+   */
+  @GET
+  @Path("/nearby")
+  @UnitOfWork
+  public Response getNearby(
+      @QueryParam("lat") Double latitude,
+      @QueryParam("lng") Double longitude,
+      @QueryParam("radius") @DefaultValue("1000") Double radiusMeters) {
+
+    if (latitude == null || longitude == null) {
+      return Response.status(Response.Status.BAD_REQUEST)
+          .entity(Map.of("error", "lat and lng parameters are required"))
+          .build();
+    }
+
+    if (!Double.isFinite(latitude)
+        || !Double.isFinite(longitude)
+        || Math.abs(latitude) > 90
+        || Math.abs(longitude) > 180) {
+      return Response.status(Response.Status.BAD_REQUEST)
+          .entity(Map.of("error", "lat and lng must be valid WGS84 coordinates"))
+          .build();
+    }
+
+    if (!(radiusMeters > 0 && radiusMeters <= MAX_NEARBY_RADIUS_METERS)) {
+      return Response.status(Response.Status.BAD_REQUEST)
+          .entity(
+              Map.of(
+                  "error",
+                  "radius must be above 0 and at most " + (long) MAX_NEARBY_RADIUS_METERS + " m"))
+          .build();
+    }
+
+    return Response.ok(amenityDAO.findWithinRadius(latitude, longitude, radiusMeters)).build();
+  }
+
   /**
    * GET /amenities/previous/{previousPlaceId} Find amenity by its previous Place ID (for tracking
    * migrations)
@@ -0,0 +1,102 @@
+package com.acantilado.core.resources.location;
+
+import com.acantilado.core.location.AcantiladoLocation;
+import com.acantilado.core.location.LocationResolver;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+
+/**
+ * Turns coordinates into Acantilado location identifiers ({@code
+ * [AYUNTAMIENTO]-[POSTCODE]-[BARRIO|XXX]}) against the in-memory location indexes, without
+ * touching the database once the provinces involved are loaded.
+ *
+ * <p>Requests carry either a JSON array of {@code {"lat": .., "lng": ..}} objects or, as {@code
+ * application/octet-stream}, consecutive big-endian float64 (latitude, longitude) pairs. Either
+ * way the response is a JSON array of identifiers in request order, with null for points that
+ * could not be resolved. Non-finite coordinates fail the whole request.
+ */
+@Path("/locations")
+@Produces(MediaType.APPLICATION_JSON)
+@Tag(name = "Locations", description = "Endpoints for resolving Acantilado locations")
+public class LocationResolveResource {
+  private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+  private static final int MAX_POINTS = 100_000;
+
+  private final LocationResolver locationResolver;
+
+  public LocationResolveResource(LocationResolver locationResolver) {
+    this.locationResolver = locationResolver;
+  }
+
+  public record LatLng(double lat, double lng) {}
+
+  @POST
+  @Path("/resolve")
+  @Consumes(MediaType.APPLICATION_JSON)
+  @Operation(summary = "Resolve a batch of coordinates into location identifiers")
+  public List<String> resolve(List<LatLng> coordinates) {
+    if (coordinates == null) {
+      throw new WebApplicationException(
+          "A list of coordinates is required", Response.Status.BAD_REQUEST);
+    }
+    checkBatchSize(coordinates.size());
+
+    List<Point> points = new ArrayList<>(coordinates.size());
+    coordinates.forEach(latLng -> points.add(toPoint(latLng.lat(), latLng.lng())));
+    return resolveIdentifiers(points);
+  }
+
+  @POST
+  @Path("/resolve")
+  @Consumes(MediaType.APPLICATION_OCTET_STREAM)
+  @Operation(summary = "Resolve a batch of binary-encoded coordinates into location identifiers")
+  public List<String> resolveBinary(byte[] body) {
+    if (body == null || body.length % (2 * Double.BYTES) != 0) {
+      throw new WebApplicationException(
+          "Body must consist of (latitude, longitude) float64 pairs", Response.Status.BAD_REQUEST);
+    }
+    checkBatchSize(body.length / (2 * Double.BYTES));
+
+    DoubleBuffer coordinates = ByteBuffer.wrap(body).asDoubleBuffer();
+    List<Point> points = new ArrayList<>(coordinates.remaining() / 2);
+    while (coordinates.hasRemaining()) {
+      points.add(toPoint(coordinates.get(), coordinates.get()));
+    }
+    return resolveIdentifiers(points);
+  }
+
+  private List<String> resolveIdentifiers(List<Point> points) {
+    List<AcantiladoLocation> locations = locationResolver.resolveAll(points);
+
+    List<String> identifiers = new ArrayList<>(locations.size());
+    locations.forEach(
+        location -> identifiers.add(location == null ? null : location.getIdentifier()));
+    return identifiers;
+  }
+
+  private static void checkBatchSize(int size) {
+    if (size > MAX_POINTS) {
+      throw new WebApplicationException(
+          "At most " + MAX_POINTS + " points can be resolved per request",
+          Response.Status.REQUEST_ENTITY_TOO_LARGE);
+    }
+  }
+
+  private static Point toPoint(double latitude, double longitude) {
+    if (!Double.isFinite(latitude) || !Double.isFinite(longitude)) {
+      throw new WebApplicationException(
+          "Coordinates must be finite numbers", Response.Status.BAD_REQUEST);
+    }
+    return GEOMETRY_FACTORY.createPoint(new Coordinate(longitude, latitude));
+  }
+}
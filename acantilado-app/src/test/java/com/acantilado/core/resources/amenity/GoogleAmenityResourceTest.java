@@ -0,0 +1,78 @@
+package com.acantilado.core.resources.amenity;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.*;
+
+import com.acantilado.core.amenity.GoogleAmenityDAO;
+import io.dropwizard.testing.junit5.DropwizardExtensionsSupport;
+import io.dropwizard.testing.junit5.ResourceExtension;
+import jakarta.ws.rs.core.Response;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(DropwizardExtensionsSupport.class)
+class GoogleAmenityResourceTest {
+  private static final GoogleAmenityDAO AMENITY_DAO = mock(GoogleAmenityDAO.class);
+  private static final ResourceExtension RESOURCES =
+      ResourceExtension.builder().addResource(new GoogleAmenityResource(AMENITY_DAO)).build();
+
+  @AfterEach
+  void tearDown() {
+    reset(AMENITY_DAO);
+  }
+
+  @Test
+  void nearby_withinRadiusLimit_searchesTheRadius() {
+    // Given
+    when(AMENITY_DAO.findWithinRadius(anyDouble(), anyDouble(), anyDouble())).thenReturn(List.of());
+
+    // When
+    Response response = nearby("40.4168", "-3.7038", "500");
+
+    // Then
+    assertEquals(200, response.getStatus());
+    verify(AMENITY_DAO).findWithinRadius(40.4168, -3.7038, 500);
+  }
+
+  @Test
+  void nearby_rejectsRadiusOutOfRange() {
+    for (String radius : List.of("-1", "0", "NaN", "Infinity", "50001", "1e12")) {
+      // When
+      Response response = nearby("40.4168", "-3.7038", radius);
+
+      // Then
+      assertEquals(400, response.getStatus(), radius);
+    }
+    verify(AMENITY_DAO, never()).findWithinRadius(anyDouble(), anyDouble(), anyDouble());
+  }
+
+  @Test
+  void nearby_rejectsInvalidCoordinates() {
+    for (String[] coordinates :
+        List.of(
+            new String[] {"NaN", "-3.7038"},
+            new String[] {"40.4168", "Infinity"},
+            new String[] {"91", "-3.7038"},
+            new String[] {"40.4168", "-181"})) {
+      // When
+      Response response = nearby(coordinates[0], coordinates[1], "500");
+
+      // Then
+      assertEquals(400, response.getStatus(), String.join(",", coordinates));
+    }
+    verify(AMENITY_DAO, never()).findWithinRadius(anyDouble(), anyDouble(), anyDouble());
+  }
+
+  private static Response nearby(String latitude, String longitude, String radius) {
+    return RESOURCES
+        .target("/amenities/nearby")
+        .queryParam("lat", latitude)
+        .queryParam("lng", longitude)
+        .queryParam("radius", radius)
+        .request()
+        .get();
+  }
+}
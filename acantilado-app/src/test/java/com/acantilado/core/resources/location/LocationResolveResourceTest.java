@@ -0,0 +1,144 @@
+package com.acantilado.core.resources.location;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+import com.acantilado.core.administrative.Ayuntamiento;
+import com.acantilado.core.administrative.CodigoPostal;
+import com.acantilado.core.location.AcantiladoLocation;
+import com.acantilado.core.location.LocationResolver;
+import io.dropwizard.testing.junit5.DropwizardExtensionsSupport;
+import io.dropwizard.testing.junit5.ResourceExtension;
+import jakarta.ws.rs.client.Entity;
+import jakarta.ws.rs.core.GenericType;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.locationtech.jts.geom.Point;
+
+@ExtendWith(DropwizardExtensionsSupport.class)
+class LocationResolveResourceTest {
+  private static final LocationResolver LOCATION_RESOLVER = mock(LocationResolver.class);
+  private static final ResourceExtension RESOURCES =
+      ResourceExtension.builder()
+          .addResource(new LocationResolveResource(LOCATION_RESOLVER))
+          .build();
+
+  private static final AcantiladoLocation LOCATION =
+      new AcantiladoLocation(
+          new Ayuntamiento("28079", "Madrid", "28", "13", null),
+          new CodigoPostal("28079-a", "28001", null));
+
+  @AfterEach
+  void tearDown() {
+    reset(LOCATION_RESOLVER);
+  }
+
+  @Test
+  void resolve_json_returnsIdentifiersInRequestOrder() {
+    // Given: the second point can't be resolved
+    when(LOCATION_RESOLVER.resolveAll(anyList())).thenReturn(Arrays.asList(LOCATION, null));
+
+    // When
+    List<String> identifiers =
+        RESOURCES
+            .target("/locations/resolve")
+            .request()
+            .post(
+                Entity.json("[{\"lat\": 40.4168, \"lng\": -3.7038}, {\"lat\": 0, \"lng\": 0}]"),
+                new GenericType<List<String>>() {});
+
+    // Then
+    assertEquals(Arrays.asList(LOCATION.getIdentifier(), null), identifiers);
+  }
+
+  @Test
+  void resolve_json_rejectsNonFiniteCoordinates() {
+    for (String body :
+        List.of(
+            "[{\"lat\": 40.4168, \"lng\": -3.7038}, {\"lat\": \"NaN\", \"lng\": -3.7038}]",
+            "[{\"lat\": 40.4168, \"lng\": \"-Infinity\"}]",
+            "[{\"lat\": 1e400, \"lng\": -3.7038}]")) {
+      // When
+      Response response = RESOURCES.target("/locations/resolve").request().post(Entity.json(body));
+
+      // Then
+      assertEquals(400, response.getStatus(), body);
+    }
+    verify(LOCATION_RESOLVER, never()).resolveAll(anyList());
+  }
+
+  @Test
+  void resolve_binary_returnsIdentifiersInRequestOrder() {
+    // Given
+    when(LOCATION_RESOLVER.resolveAll(anyList())).thenReturn(List.of(LOCATION));
+
+    // When
+    List<String> identifiers =
+        RESOURCES
+            .target("/locations/resolve")
+            .request()
+            .post(
+                Entity.entity(coordinates(40.4168, -3.7038), MediaType.APPLICATION_OCTET_STREAM),
+                new GenericType<List<String>>() {});
+
+    // Then: latitude comes first on the wire, but is y in the resolved point
+    assertEquals(List.of(LOCATION.getIdentifier()), identifiers);
+    verify(LOCATION_RESOLVER)
+        .resolveAll(
+            argThat(
+                (List<Point> points) ->
+                    points.size() == 1
+                        && points.get(0).getX() == -3.7038
+                        && points.get(0).getY() == 40.4168));
+  }
+
+  @Test
+  void resolve_binary_rejectsNonFiniteCoordinates() {
+    for (double[] coordinates :
+        List.of(
+            new double[] {40.4168, -3.7038, Double.NaN, -3.7038},
+            new double[] {Double.POSITIVE_INFINITY, -3.7038},
+            new double[] {40.4168, Double.NEGATIVE_INFINITY})) {
+      // When
+      Response response =
+          RESOURCES
+              .target("/locations/resolve")
+              .request()
+              .post(
+                  Entity.entity(coordinates(coordinates), MediaType.APPLICATION_OCTET_STREAM));
+
+      // Then
+      assertEquals(400, response.getStatus(), Arrays.toString(coordinates));
+    }
+    verify(LOCATION_RESOLVER, never()).resolveAll(anyList());
+  }
+
+  @Test
+  void resolve_binary_rejectsIncompletePairs() {
+    // When
+    Response response =
+        RESOURCES
+            .target("/locations/resolve")
+            .request()
+            .post(Entity.entity(new byte[Double.BYTES * 3], MediaType.APPLICATION_OCTET_STREAM));
+
+    // Then
+    assertEquals(400, response.getStatus());
+    verify(LOCATION_RESOLVER, never()).resolveAll(anyList());
+  }
+
+  private static byte[] coordinates(double... values) {
+    ByteBuffer buffer = ByteBuffer.allocate(values.length * Double.BYTES);
+    for (double value : values) {
+      buffer.putDouble(value);
+    }
+    return buffer.array();
+  }
+}
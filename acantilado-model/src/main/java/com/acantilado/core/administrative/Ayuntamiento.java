@@ -9,10 +9,10 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.Point;
-import org.locationtech.jts.io.geojson.GeoJsonReader;
 
 @Entity
 @Table(name = "ayuntamiento")
@@ -53,11 +53,26 @@ public class Ayuntamiento {
   @Column(name = "phone")
   private String phone;
 
+  /** GeoJSON encoding of rows that predate {@link #geometryWkb}; cleared once WKB is written. */
   @JsonIgnore // Don't expose the raw CLOB in API responses
-  @Column(name = "geometry", columnDefinition = "CLOB", nullable = false)
+  @Column(name = "geometry", columnDefinition = "CLOB")
   private String geometryJson;
 
-  @JsonIgnore @Transient private Geometry geometry;
+  @JsonIgnore
+  @Column(name = "geometry_wkb", columnDefinition = "BYTEA")
+  private byte[] geometryWkb;
+
+  @JsonIgnore
+  @Column(name = "geometry_simplified", columnDefinition = "BYTEA")
+  private byte[] simplifiedGeometries;
+
+  /** Decoded on first access, so loading an ayuntamiento doesn't pay for parsing its polygon. */
+  @JsonIgnore @Transient private volatile Geometry geometry;
+
+  /** Concurrent, as cached ayuntamientos are resolved against from parallel threads. */
+  @JsonIgnore @Transient
+  private final Map<GeometryResolution, Geometry> simplifiedGeometryCache =
+      new ConcurrentHashMap<>();
 
   @JsonIgnore
   @ManyToMany(mappedBy = "ayuntamientos", fetch = FetchType.LAZY)
@@ -100,11 +115,38 @@ public class Ayuntamiento {
   }
 
   public Geometry getGeometry() {
+    if (geometry == null) {
+      try {
+        geometry = GeometryCodec.decode(geometryWkb, geometryJson);
+      } catch (IllegalArgumentException e) {
+        throw new RuntimeException(
+            "Failed to parse geometry for ayuntamiento: " + ayuntamientoId, e);
+      }
+    }
     return geometry;
   }
 
   public String getGeometryJson() {
-    return geometryJson;
+    return getGeometryJson(GeometryResolution.FULL);
+  }
+
+  /** Returns the geometry simplified to the given resolution, decoded on first access. */
+  public Geometry getGeometry(GeometryResolution resolution) {
+    if (resolution == GeometryResolution.FULL) {
+      return getGeometry();
+    }
+    return simplifiedGeometryCache.computeIfAbsent(
+        resolution,
+        r ->
+            GeometryCodec.decodeSimplified(simplifiedGeometries, r)
+                .orElseGet(() -> r.simplify(getGeometry())));
+  }
+
+  public String getGeometryJson(GeometryResolution resolution) {
+    Geometry simplified = getGeometry(resolution);
+    return simplified == null
+        ? null
+        : GeometryCodec.toGeoJson(simplified, resolution.getGeoJsonDecimals());
   }
 
   public String getProvinciaId() {
@@ -127,11 +169,12 @@ public class Ayuntamiento {
     this.phone = phone;
   }
 
-  @JsonProperty("bounds")
+  @JsonIgnore // Decodes the geometry; served with it by the resources
   public Map<String, Double> getBounds() {
-    if (geometry == null) return null;
+    Geometry decoded = getGeometry();
+    if (decoded == null) return null;
 
-    Envelope envelope = geometry.getEnvelopeInternal();
+    Envelope envelope = decoded.getEnvelopeInternal();
     return Map.of(
         "minLon", envelope.getMinX(),
         "maxLon", envelope.getMaxX(),
@@ -139,11 +182,12 @@ public class Ayuntamiento {
         "maxLat", envelope.getMaxY());
   }
 
-  @JsonProperty("centroid")
+  @JsonIgnore
   public Map<String, Double> getCentroid() {
-    if (geometry == null) return null;
+    Geometry decoded = getGeometry();
+    if (decoded == null) return null;
 
-    Point centroid = geometry.getCentroid();
+    Point centroid = decoded.getCentroid();
     return Map.of(
         "lon", centroid.getX(),
         "lat", centroid.getY());
@@ -151,24 +195,29 @@ public class Ayuntamiento {
 
   public void setGeometry(Geometry geometry) {
     this.geometry = geometry;
+    this.geometryWkb = null; // Re-encoded on the next flush
+    this.geometryJson = null;
+    this.simplifiedGeometries = null;
+    simplifiedGeometryCache.clear();
   }
 
   public void setGeometryJson(String geometryJson) {
     this.geometryJson = geometryJson;
+    this.geometryWkb = null;
+    this.simplifiedGeometries = null;
+    simplifiedGeometryCache.clear();
     this.geometry = null; // Clear cached geometry so it gets re-parsed
   }
 
   @PrePersist
   @PreUpdate
   private void serializeGeometry() {
-    if (geometry != null) {
-      try {
-        org.locationtech.jts.io.geojson.GeoJsonWriter writer =
-            new org.locationtech.jts.io.geojson.GeoJsonWriter();
-        this.geometryJson = writer.write(geometry);
-      } catch (Exception e) {
-        throw new RuntimeException("Failed to serialize geometry", e);
-      }
+    if (geometryWkb == null && getGeometry() != null) {
+      this.geometryWkb = GeometryCodec.toWkb(geometry);
+      this.geometryJson = null;
+    }
+    if (simplifiedGeometries == null && getGeometry() != null) {
+      this.simplifiedGeometries = GeometryCodec.encodeSimplified(geometry);
     }
   }
 
@@ -180,19 +229,6 @@ public class Ayuntamiento {
     this.comunidadAutonomaId = comunidadAutonomaId;
   }
 
-  @PostLoad
-  private void parseGeometry() {
-    if (geometryJson != null && !geometryJson.isEmpty()) {
-      try {
-        GeoJsonReader reader = new GeoJsonReader();
-        this.geometry = reader.read(geometryJson);
-      } catch (Exception e) {
-        throw new RuntimeException(
-            "Failed to parse geometry for ayuntamiento: " + ayuntamientoId, e);
-      }
-    }
-  }
-
   @Override
   public int hashCode() {
     return Objects.hash(ayuntamientoId, name, phone);
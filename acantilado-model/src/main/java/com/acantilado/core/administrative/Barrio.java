@@ -7,11 +7,10 @@ import com.fasterxml.jackson.annotation.ObjectIdGenerators;
 import jakarta.persistence.*;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.Point;
-import org.locationtech.jts.io.geojson.GeoJsonReader;
-import org.locationtech.jts.io.geojson.GeoJsonWriter;
 
 @Entity
 @Table(name = "barrio")
@@ -43,10 +42,22 @@ public class Barrio {
   private String ayuntamientoId;
 
   @JsonIgnore
-  @Column(name = "geometry", columnDefinition = "CLOB", nullable = false)
+  @Column(name = "geometry", columnDefinition = "CLOB")
   private String geometryJson;
 
-  @Transient @JsonIgnore private Geometry geometry;
+  @JsonIgnore
+  @Column(name = "geometry_wkb", columnDefinition = "BYTEA")
+  private byte[] geometryWkb;
+
+  @JsonIgnore
+  @Column(name = "geometry_simplified", columnDefinition = "BYTEA")
+  private byte[] simplifiedGeometries;
+
+  @Transient @JsonIgnore private volatile Geometry geometry;
+
+  @JsonIgnore @Transient
+  private final Map<GeometryResolution, Geometry> simplifiedGeometryCache =
+      new ConcurrentHashMap<>();
 
   public Barrio() {}
 
@@ -56,28 +67,15 @@ public class Barrio {
     this.geometry = geometry;
   }
 
-  @PostLoad
-  private void parseGeometry() {
-    if (geometryJson != null && !geometryJson.isEmpty()) {
-      try {
-        GeoJsonReader reader = new GeoJsonReader();
-        this.geometry = reader.read(geometryJson);
-      } catch (Exception e) {
-        throw new RuntimeException("Failed to parse geometry for barrio: " + id, e);
-      }
-    }
-  }
-
   @PrePersist
   @PreUpdate
   private void serializeGeometry() {
-    if (geometry != null) {
-      try {
-        GeoJsonWriter writer = new GeoJsonWriter();
-        this.geometryJson = writer.write(geometry);
-      } catch (Exception e) {
-        throw new RuntimeException("Failed to serialize geometry for barrio: " + id, e);
-      }
+    if (geometryWkb == null && getGeometry() != null) {
+      this.geometryWkb = GeometryCodec.toWkb(geometry);
+      this.geometryJson = null;
+    }
+    if (simplifiedGeometries == null && getGeometry() != null) {
+      this.simplifiedGeometries = GeometryCodec.encodeSimplified(geometry);
     }
   }
 
@@ -106,26 +104,59 @@ public class Barrio {
   }
 
   public Geometry getGeometry() {
+    if (geometry == null) {
+      try {
+        geometry = GeometryCodec.decode(geometryWkb, geometryJson);
+      } catch (IllegalArgumentException e) {
+        throw new RuntimeException("Failed to parse geometry for barrio: " + id, e);
+      }
+    }
     return geometry;
   }
 
   public void setGeometry(Geometry geometry) {
     this.geometry = geometry;
+    this.geometryWkb = null;
+    this.geometryJson = null;
+    this.simplifiedGeometries = null;
+    simplifiedGeometryCache.clear();
   }
 
   public String getGeometryJson() {
-    return geometryJson;
+    return getGeometryJson(GeometryResolution.FULL);
+  }
+
+  public Geometry getGeometry(GeometryResolution resolution) {
+    if (resolution == GeometryResolution.FULL) {
+      return getGeometry();
+    }
+    return simplifiedGeometryCache.computeIfAbsent(
+        resolution,
+        r ->
+            GeometryCodec.decodeSimplified(simplifiedGeometries, r)
+                .orElseGet(() -> r.simplify(getGeometry())));
+  }
+
+  public String getGeometryJson(GeometryResolution resolution) {
+    Geometry simplified = getGeometry(resolution);
+    return simplified == null
+        ? null
+        : GeometryCodec.toGeoJson(simplified, resolution.getGeoJsonDecimals());
   }
 
   public void setGeometryJson(String geometryJson) {
     this.geometryJson = geometryJson;
+    this.geometryWkb = null;
+    this.simplifiedGeometries = null;
+    simplifiedGeometryCache.clear();
     this.geometry = null;
   }
 
-  @JsonProperty("bounds")
+  @JsonIgnore // Decodes the geometry; served with it by the resources
   public Map<String, Double> getBounds() {
-    if (geometry == null) return null;
-    Envelope envelope = geometry.getEnvelopeInternal();
+    Geometry decoded = getGeometry();
+    if (decoded == null) return null;
+    Envelope envelope = decoded.getEnvelopeInternal();
     return Map.of(
         "minLon", envelope.getMinX(),
         "maxLon", envelope.getMaxX(),
@@ -133,10 +164,11 @@ public class Barrio {
         "maxLat", envelope.getMaxY());
   }
 
-  @JsonProperty("centroid")
+  @JsonIgnore
   public Map<String, Double> getCentroid() {
-    if (geometry == null) return null;
-    Point centroid = geometry.getCentroid();
+    Geometry decoded = getGeometry();
+    if (decoded == null) return null;
+    Point centroid = decoded.getCentroid();
     return Map.of(
         "lon", centroid.getX(),
         "lat", centroid.getY());
@@ -168,7 +200,7 @@ public class Barrio {
         + ", ayuntamientoId="
         + ayuntamientoId
         + ", hasGeometry="
-        + (geometry != null)
+        + (geometry != null || geometryWkb != null || geometryJson != null)
         + '}';
   }
 }
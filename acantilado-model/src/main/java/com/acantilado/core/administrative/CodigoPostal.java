@@ -8,13 +8,12 @@ import jakarta.persistence.*;
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.Point;
-import org.locationtech.jts.io.geojson.GeoJsonReader;
-import org.locationtech.jts.io.geojson.GeoJsonWriter;
 
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Entity
 @Table(name = "codigo_postal")
@@ -40,10 +39,22 @@ public class CodigoPostal {
   private String codigoPostal;
 
   @JsonIgnore
-  @Column(name = "geometry", columnDefinition = "CLOB", nullable = false)
+  @Column(name = "geometry", columnDefinition = "CLOB")
   private String geometryJson;
 
-  @Transient @JsonIgnore private Geometry geometry;
+  @JsonIgnore
+  @Column(name = "geometry_wkb", columnDefinition = "BYTEA")
+  private byte[] geometryWkb;
+
+  @JsonIgnore
+  @Column(name = "geometry_simplified", columnDefinition = "BYTEA")
+  private byte[] simplifiedGeometries;
+
+  @Transient @JsonIgnore private volatile Geometry geometry;
+
+  @JsonIgnore @Transient
+  private final Map<GeometryResolution, Geometry> simplifiedGeometryCache =
+      new ConcurrentHashMap<>();
 
   @ManyToMany
   @JoinTable(
@@ -60,30 +71,15 @@ public class CodigoPostal {
     this.geometry = geometry;
   }
 
-  @PostLoad
-  private void parseGeometry() {
-    if (geometryJson != null && !geometryJson.isEmpty()) {
-      try {
-        GeoJsonReader reader = new GeoJsonReader();
-        this.geometry = reader.read(geometryJson);
-      } catch (Exception e) {
-        throw new RuntimeException(
-            "Failed to parse geometry for codigo postal: " + codigoPostal, e);
-      }
-    }
-  }
-
   @PrePersist
   @PreUpdate
   private void serializeGeometry() {
-    if (geometry != null) {
-      try {
-        GeoJsonWriter writer = new GeoJsonWriter();
-        this.geometryJson = writer.write(geometry);
-      } catch (Exception e) {
-        throw new RuntimeException(
-            "Failed to serialize geometry for codigo postal: " + codigoPostal, e);
-      }
+    if (geometryWkb == null && getGeometry() != null) {
+      this.geometryWkb = GeometryCodec.toWkb(geometry);
+      this.geometryJson = null;
+    }
+    if (simplifiedGeometries == null && getGeometry() != null) {
+      this.simplifiedGeometries = GeometryCodec.encodeSimplified(geometry);
     }
   }
 
@@ -105,19 +101,52 @@ public class CodigoPostal {
   }
 
   public Geometry getGeometry() {
+    if (geometry == null) {
+      try {
+        geometry = GeometryCodec.decode(geometryWkb, geometryJson);
+      } catch (IllegalArgumentException e) {
+        throw new RuntimeException(
+            "Failed to parse geometry for codigo postal: " + codigoPostal, e);
+      }
+    }
     return geometry;
   }
 
   public void setGeometry(Geometry geometry) {
     this.geometry = geometry;
+    this.geometryWkb = null;
+    this.geometryJson = null;
+    this.simplifiedGeometries = null;
+    simplifiedGeometryCache.clear();
   }
 
   public String getGeometryJson() {
-    return geometryJson;
+    return getGeometryJson(GeometryResolution.FULL);
+  }
+
+  public Geometry getGeometry(GeometryResolution resolution) {
+    if (resolution == GeometryResolution.FULL) {
+      return getGeometry();
+    }
+    return simplifiedGeometryCache.computeIfAbsent(
+        resolution,
+        r ->
+            GeometryCodec.decodeSimplified(simplifiedGeometries, r)
+                .orElseGet(() -> r.simplify(getGeometry())));
+  }
+
+  public String getGeometryJson(GeometryResolution resolution) {
+    Geometry simplified = getGeometry(resolution);
+    return simplified == null
+        ? null
+        : GeometryCodec.toGeoJson(simplified, resolution.getGeoJsonDecimals());
   }
 
   public void setGeometryJson(String geometryJson) {
     this.geometryJson = geometryJson;
+    this.geometryWkb = null;
+    this.simplifiedGeometries = null;
+    simplifiedGeometryCache.clear();
     this.geometry = null;
   }
 
@@ -129,10 +158,11 @@ public class CodigoPostal {
     this.ayuntamientos = ayuntamientos;
   }
 
-  @JsonProperty("bounds")
+  @JsonIgnore // Decodes the geometry; served with it by the resources
   public Map<String, Double> getBounds() {
-    if (geometry == null) return null;
-    Envelope envelope = geometry.getEnvelopeInternal();
+    Geometry decoded = getGeometry();
+    if (decoded == null) return null;
+    Envelope envelope = decoded.getEnvelopeInternal();
     return Map.of(
         "minLon", envelope.getMinX(),
         "maxLon", envelope.getMaxX(),
@@ -140,10 +170,11 @@ public class CodigoPostal {
         "maxLat", envelope.getMaxY());
   }
 
-  @JsonProperty("centroid")
+  @JsonIgnore
   public Map<String, Double> getCentroid() {
-    if (geometry == null) return null;
-    Point centroid = geometry.getCentroid();
+    Geometry decoded = getGeometry();
+    if (decoded == null) return null;
+    Point centroid = decoded.getCentroid();
     return Map.of(
         "lon", centroid.getX(),
         "lat", centroid.getY());
@@ -154,15 +185,13 @@ public class CodigoPostal {
     if (o == null || getClass() != o.getClass()) return false;
     CodigoPostal that = (CodigoPostal) o;
     return Objects.equals(codigoIne, that.codigoIne)
-        && Objects.equals(codigoPostal, that.codigoPostal)
-        && Objects.equals(geometryJson, that.geometryJson)
-        && Objects.equals(geometry, that.geometry)
-        && Objects.equals(ayuntamientos, that.ayuntamientos);
+        && Objects.equals(codigoPostal, that.codigoPostal);
   }
 
+  /** Identity only, so that hashing a postcode neither decodes its geometry nor loads links. */
   @Override
   public int hashCode() {
-    return Objects.hash(codigoIne, codigoPostal, geometryJson, geometry, ayuntamientos);
+    return Objects.hash(codigoIne, codigoPostal);
   }
 
   @Override
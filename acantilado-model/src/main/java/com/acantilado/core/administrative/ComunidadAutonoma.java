@@ -1,14 +1,12 @@
 package com.acantilado.core.administrative;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
-import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import java.util.Map;
 import java.util.Objects;
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.Point;
-import org.locationtech.jts.io.geojson.GeoJsonReader;
 
 @Entity
 @Table(name = "comunidad_autonoma")
@@ -31,6 +29,10 @@ public class ComunidadAutonoma {
   @Column(name = "geometry", columnDefinition = "CLOB")
   private String geometryJson;
 
+  @JsonIgnore
+  @Column(name = "geometry_wkb", columnDefinition = "BYTEA")
+  private byte[] geometryWkb;
+
   @JsonIgnore @Transient private Geometry geometry;
 
   public ComunidadAutonoma() {}
@@ -60,27 +62,40 @@ public class ComunidadAutonoma {
   /* ---------------- GEOMETRY GETTERS ---------------- */
 
   public Geometry getGeometry() {
+    if (geometry == null) {
+      try {
+        geometry = GeometryCodec.decode(geometryWkb, geometryJson);
+      } catch (IllegalArgumentException e) {
+        throw new RuntimeException(
+            "Failed to parse geometry for comunidad: " + comunidadAutonomaId, e);
+      }
+    }
     return geometry;
   }
 
   public String getGeometryJson() {
-    return geometryJson;
+    Geometry decoded = getGeometry();
+    return decoded == null ? null : GeometryCodec.toGeoJson(decoded);
   }
 
   public void setGeometry(Geometry geometry) {
     this.geometry = geometry;
+    this.geometryWkb = null;
+    this.geometryJson = null;
   }
 
   public void setGeometryJson(String geometryJson) {
     this.geometryJson = geometryJson;
+    this.geometryWkb = null;
     this.geometry = null; // force re-parse on load
   }
 
   /** Geometry-derived properties for JSON exposure */
-  @JsonProperty("bounds")
+  @JsonIgnore // Decodes the geometry; served with it by the resources
   public Map<String, Double> getBounds() {
-    if (geometry == null) return null;
-    Envelope e = geometry.getEnvelopeInternal();
+    Geometry decoded = getGeometry();
+    if (decoded == null) return null;
+    Envelope e = decoded.getEnvelopeInternal();
     return Map.of(
         "minLon", e.getMinX(),
         "maxLon", e.getMaxX(),
@@ -88,10 +103,11 @@ public class ComunidadAutonoma {
         "maxLat", e.getMaxY());
   }
 
-  @JsonProperty("centroid")
+  @JsonIgnore
   public Map<String, Double> getCentroid() {
-    if (geometry == null) return null;
-    Point p = geometry.getCentroid();
+    Geometry decoded = getGeometry();
+    if (decoded == null) return null;
+    Point p = decoded.getCentroid();
     return Map.of(
         "lon", p.getX(),
         "lat", p.getY());
@@ -101,28 +117,9 @@ public class ComunidadAutonoma {
   @PrePersist
   @PreUpdate
   private void serializeGeometry() {
-    if (geometry != null) {
-      try {
-        org.locationtech.jts.io.geojson.GeoJsonWriter writer =
-            new org.locationtech.jts.io.geojson.GeoJsonWriter();
-        this.geometryJson = writer.write(geometry);
-      } catch (Exception e) {
-        throw new RuntimeException(
-            "Failed to serialize geometry for comunidad: " + comunidadAutonomaId, e);
-      }
-    }
-  }
-
-  @PostLoad
-  private void parseGeometry() {
-    if (geometryJson != null && !geometryJson.isEmpty()) {
-      try {
-        GeoJsonReader reader = new GeoJsonReader();
-        this.geometry = reader.read(geometryJson);
-      } catch (Exception e) {
-        throw new RuntimeException(
-            "Failed to parse geometry for comunidad: " + comunidadAutonomaId, e);
-      }
+    if (geometryWkb == null && getGeometry() != null) {
+      this.geometryWkb = GeometryCodec.toWkb(geometry);
+      this.geometryJson = null;
     }
   }
 
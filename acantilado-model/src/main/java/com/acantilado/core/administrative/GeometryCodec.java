@@ -0,0 +1,116 @@
+package com.acantilado.core.administrative;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKBReader;
+import org.locationtech.jts.io.WKBWriter;
+import org.locationtech.jts.io.geojson.GeoJsonReader;
+import org.locationtech.jts.io.geojson.GeoJsonWriter;
+
+/**
+ * Encodes and decodes the geometries of administrative entities. Geometries are persisted as 2D
+ * WKB; GeoJSON is only read for rows written before the WKB column existed, and written for
+ * callers that send geometries to external APIs.
+ *
+ * <p>JTS readers and writers are not thread-safe, so a fresh one is created per call.
+ */
+public final class GeometryCodec {
+  private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+
+  private GeometryCodec() {}
+
+  public static byte[] toWkb(Geometry geometry) {
+    return new WKBWriter(2).write(geometry);
+  }
+
+  public static Geometry fromWkb(byte[] wkb) {
+    try {
+      return new WKBReader(GEOMETRY_FACTORY).read(wkb);
+    } catch (ParseException e) {
+      throw new IllegalArgumentException("Invalid WKB geometry", e);
+    }
+  }
+
+  public static String toGeoJson(Geometry geometry) {
+    return new GeoJsonWriter().write(geometry);
+  }
+
+  public static String toGeoJson(Geometry geometry, int decimals) {
+    return new GeoJsonWriter(decimals).write(geometry);
+  }
+
+  public static Geometry fromGeoJson(String geoJson) {
+    try {
+      return new GeoJsonReader(GEOMETRY_FACTORY).read(geoJson);
+    } catch (ParseException e) {
+      throw new IllegalArgumentException("Invalid GeoJSON geometry", e);
+    }
+  }
+
+  /**
+   * Decodes whichever encoding is present, preferring WKB. Returns null when the entity has no
+   * geometry at all.
+   */
+  public static Geometry decode(byte[] wkb, String legacyGeoJson) {
+    if (wkb != null) {
+      return fromWkb(wkb);
+    }
+    if (legacyGeoJson != null && !legacyGeoJson.isEmpty()) {
+      return fromGeoJson(legacyGeoJson);
+    }
+    return null;
+  }
+
+  /**
+   * Encodes the simplified variant of the geometry at every {@link GeometryResolution} below
+   * {@link GeometryResolution#FULL} as a sequence of (resolution name, WKB length, WKB) entries.
+   */
+  public static byte[] encodeSimplified(Geometry geometry) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      for (GeometryResolution resolution : GeometryResolution.values()) {
+        if (resolution == GeometryResolution.FULL) {
+          continue;
+        }
+        byte[] wkb = toWkb(resolution.simplify(geometry));
+        out.writeUTF(resolution.name());
+        out.writeInt(wkb.length);
+        out.write(wkb);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /** Decodes one resolution from {@link #encodeSimplified}, or empty if it isn't present. */
+  public static Optional<Geometry> decodeSimplified(byte[] encoded, GeometryResolution resolution) {
+    if (encoded == null) {
+      return Optional.empty();
+    }
+
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded))) {
+      while (in.available() > 0) {
+        String name = in.readUTF();
+        int length = in.readInt();
+        if (name.equals(resolution.name())) {
+          byte[] wkb = new byte[length];
+          in.readFully(wkb);
+          return Optional.of(fromWkb(wkb));
+        }
+        in.skipBytes(length);
+      }
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Invalid simplified geometries", e);
+    }
+    return Optional.empty();
+  }
+}
@@ -0,0 +1,43 @@
+package com.acantilado.core.administrative;
+
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.simplify.TopologyPreservingSimplifier;
+
+/**
+ * Resolutions at which administrative geometries are available. Every resolution below {@link
+ * #FULL} is a topology-preserving simplification that is precomputed when the entity is persisted,
+ * so serving or sending a coarse boundary never touches the full polygon.
+ */
+public enum GeometryResolution {
+  FULL(0, 8),
+  /** Roughly 10 m tolerance, for detailed maps. */
+  FINE(0.0001, 6),
+  /** Roughly 100 m tolerance, for search polygons and regional maps. */
+  MEDIUM(0.001, 5),
+  /** Roughly 1 km tolerance, for country-wide overviews. */
+  COARSE(0.01, 4);
+
+  private final double toleranceDegrees;
+  private final int geoJsonDecimals;
+
+  GeometryResolution(double toleranceDegrees, int geoJsonDecimals) {
+    this.toleranceDegrees = toleranceDegrees;
+    this.geoJsonDecimals = geoJsonDecimals;
+  }
+
+  public double getToleranceDegrees() {
+    return toleranceDegrees;
+  }
+
+  /** Decimals worth writing at this resolution; anything beyond the tolerance is noise. */
+  public int getGeoJsonDecimals() {
+    return geoJsonDecimals;
+  }
+
+  public Geometry simplify(Geometry geometry) {
+    if (geometry == null || this == FULL) {
+      return geometry;
+    }
+    return TopologyPreservingSimplifier.simplify(geometry, toleranceDegrees);
+  }
+}
@@ -1,13 +1,12 @@
 package com.acantilado.core.administrative;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
-import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.Point;
-import org.locationtech.jts.io.geojson.GeoJsonReader;
 
 @Entity
 @Table(name = "provincia")
@@ -34,7 +33,19 @@ public class Provincia {
   @Column(name = "geometry", columnDefinition = "CLOB")
   private String geometryJson;
 
-  @JsonIgnore @Transient private Geometry geometry;
+  @JsonIgnore
+  @Column(name = "geometry_wkb", columnDefinition = "BYTEA")
+  private byte[] geometryWkb;
+
+  @JsonIgnore
+  @Column(name = "geometry_simplified", columnDefinition = "BYTEA")
+  private byte[] simplifiedGeometries;
+
+  @JsonIgnore @Transient private volatile Geometry geometry;
+
+  @JsonIgnore @Transient
+  private final Map<GeometryResolution, Geometry> simplifiedGeometryCache =
+      new ConcurrentHashMap<>();
 
   public Provincia() {}
 
@@ -76,27 +87,60 @@ public class Provincia {
   /* ------------ GEOMETRY GETTERS ------------- */
 
   public Geometry getGeometry() {
+    if (geometry == null) {
+      try {
+        geometry = GeometryCodec.decode(geometryWkb, geometryJson);
+      } catch (IllegalArgumentException e) {
+        throw new RuntimeException("Failed to parse geometry for provincia: " + provinciaId, e);
+      }
+    }
     return geometry;
   }
 
   public String getGeometryJson() {
-    return geometryJson;
+    return getGeometryJson(GeometryResolution.FULL);
+  }
+
+  public Geometry getGeometry(GeometryResolution resolution) {
+    if (resolution == GeometryResolution.FULL) {
+      return getGeometry();
+    }
+    return simplifiedGeometryCache.computeIfAbsent(
+        resolution,
+        r ->
+            GeometryCodec.decodeSimplified(simplifiedGeometries, r)
+                .orElseGet(() -> r.simplify(getGeometry())));
+  }
+
+  public String getGeometryJson(GeometryResolution resolution) {
+    Geometry simplified = getGeometry(resolution);
+    return simplified == null
+        ? null
+        : GeometryCodec.toGeoJson(simplified, resolution.getGeoJsonDecimals());
   }
 
   public void setGeometry(Geometry geometry) {
     this.geometry = geometry;
+    this.geometryWkb = null;
+    this.geometryJson = null;
+    this.simplifiedGeometries = null;
+    simplifiedGeometryCache.clear();
   }
 
   public void setGeometryJson(String geometryJson) {
     this.geometryJson = geometryJson;
+    this.geometryWkb = null;
+    this.simplifiedGeometries = null;
+    simplifiedGeometryCache.clear();
     this.geometry = null; // force re-parse
   }
 
   /** Geometry-derived properties exposed as JSON */
-  @JsonProperty("bounds")
+  @JsonIgnore // Decodes the geometry; served with it by the resources
   public Map<String, Double> getBounds() {
-    if (geometry == null) return null;
-    Envelope e = geometry.getEnvelopeInternal();
+    Geometry decoded = getGeometry();
+    if (decoded == null) return null;
+    Envelope e = decoded.getEnvelopeInternal();
     return Map.of(
         "minLon", e.getMinX(),
         "maxLon", e.getMaxX(),
@@ -104,10 +148,11 @@ public class Provincia {
         "maxLat", e.getMaxY());
   }
 
-  @JsonProperty("centroid")
+  @JsonIgnore
   public Map<String, Double> getCentroid() {
-    if (geometry == null) return null;
-    Point p = geometry.getCentroid();
+    Geometry decoded = getGeometry();
+    if (decoded == null) return null;
+    Point p = decoded.getCentroid();
     return Map.of(
         "lon", p.getX(),
         "lat", p.getY());
@@ -117,26 +162,12 @@ public class Provincia {
   @PrePersist
   @PreUpdate
   private void serializeGeometry() {
-    if (geometry != null) {
-      try {
-        org.locationtech.jts.io.geojson.GeoJsonWriter writer =
-            new org.locationtech.jts.io.geojson.GeoJsonWriter();
-        this.geometryJson = writer.write(geometry);
-      } catch (Exception e) {
-        throw new RuntimeException("Failed to serialize geometry for provincia: " + provinciaId, e);
-      }
+    if (geometryWkb == null && getGeometry() != null) {
+      this.geometryWkb = GeometryCodec.toWkb(geometry);
+      this.geometryJson = null;
     }
-  }
-
-  @PostLoad
-  private void parseGeometry() {
-    if (geometryJson != null && !geometryJson.isEmpty()) {
-      try {
-        GeoJsonReader reader = new GeoJsonReader();
-        this.geometry = reader.read(geometryJson);
-      } catch (Exception e) {
-        throw new RuntimeException("Failed to parse geometry for provincia: " + provinciaId, e);
-      }
+    if (simplifiedGeometries == null && getGeometry() != null) {
+      this.simplifiedGeometries = GeometryCodec.encodeSimplified(geometry);
     }
   }
 
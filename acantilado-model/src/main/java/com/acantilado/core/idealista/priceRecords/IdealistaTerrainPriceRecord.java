@@ -5,7 +5,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "idealist_terrain_price_records")
+@Table(name = "idealista_terrain_price_records")
 @NamedQueries({
   @NamedQuery(
       name =
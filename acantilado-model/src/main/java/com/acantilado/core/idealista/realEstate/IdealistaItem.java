@@ -0,0 +1,86 @@
+package com.acantilado.core.idealista.realEstate;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+
+/**
+ * A single Idealista listing as returned by the Apify actor, holding only the fields that end up
+ * in {@link IdealistaProperty} or {@link IdealistaTerrain}. Bound directly from the JSON stream,
+ * so no intermediate tree is built; the entities are constructed from it in a separate step.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record IdealistaItem(
+    Long propertyCode,
+    Long price,
+    String operation,
+    String description,
+    Long size,
+    DetailedType detailedType,
+    String address,
+    String municipality,
+    String locationId,
+    Double latitude,
+    Double longitude,
+    ContactInfo contactInfo,
+    String propertyType,
+    String status,
+    Boolean newDevelopment,
+    Boolean newProperty,
+    Integer rooms,
+    Integer bathrooms,
+    String floor,
+    Features features,
+    ParkingSpace parkingSpace,
+    Boolean hasLift,
+    String energyCertificate) {
+
+  /** Reads one item from a parser positioned at its start, or from a {@link JsonNode}. */
+  public static final ObjectReader READER =
+      new ObjectMapper().registerModule(new BlackbirdModule()).readerFor(IdealistaItem.class);
+
+  public IdealistaItem {
+    Objects.requireNonNull(propertyCode, "propertyCode");
+    Objects.requireNonNull(price, "price");
+    Objects.requireNonNull(latitude, "latitude");
+    Objects.requireNonNull(longitude, "longitude");
+    Objects.requireNonNull(detailedType, "detailedType");
+    Objects.requireNonNull(contactInfo, "contactInfo");
+  }
+
+  public static IdealistaItem fromJson(JsonNode jsonNode) {
+    try {
+      return READER.readValue(jsonNode);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @JsonIgnoreProperties(ignoreUnknown = true)
+  public record DetailedType(String subTypology) {}
+
+  @JsonIgnoreProperties(ignoreUnknown = true)
+  public record ContactInfo(String contactName, String userType, Phone phone1) {}
+
+  @JsonIgnoreProperties(ignoreUnknown = true)
+  public record Phone(long prefix, long phoneNumber) {}
+
+  @JsonIgnoreProperties(ignoreUnknown = true)
+  public record Features(
+      Boolean hasSwimmingPool,
+      Boolean hasTerrace,
+      Boolean hasAirConditioning,
+      Boolean hasBoxRoom,
+      Boolean hasGarden) {}
+
+  @JsonIgnoreProperties(ignoreUnknown = true)
+  public record ParkingSpace(
+      Boolean hasParkingSpace,
+      @JsonProperty("isParkingSpaceIncludedInPrice") Boolean parkingSpaceIncludedInPrice) {}
+}
@@ -152,7 +152,11 @@ public class IdealistaProperty extends IdealistaRealEstate<IdealistaPropertyPric
   }
 
   public static IdealistaProperty constructFromJson(JsonNode jsonNode) {
-    IdealistaRealEstateBase base = IdealistaRealEstate.construct(jsonNode);
+    return constructFromItem(IdealistaItem.fromJson(jsonNode));
+  }
+
+  public static IdealistaProperty constructFromItem(IdealistaItem item) {
+    IdealistaRealEstateBase base = IdealistaRealEstate.construct(item);
 
     IdealistaProperty property =
         new IdealistaProperty(
@@ -170,37 +174,35 @@ public class IdealistaProperty extends IdealistaRealEstate<IdealistaPropertyPric
             base.firstSeen(),
             base.lastSeen());
 
-    property.setPropertyType(jsonNode.get("propertyType").textValue());
-    property.setStatus(getTextValue(jsonNode, "status"));
-    property.setNewDevelopment(getBooleanValue(jsonNode, "newDevelopment"));
-    property.setNewProperty(getBooleanValue(jsonNode, "newProperty"));
+    property.setPropertyType(item.propertyType());
+    property.setStatus(item.status());
+    property.setNewDevelopment(item.newDevelopment());
+    property.setNewProperty(item.newProperty());
 
-    property.setRooms(getIntValue(jsonNode, "rooms"));
-    property.setBathrooms(getIntValue(jsonNode, "bathrooms"));
-    property.setFloor(getTextValue(jsonNode, "floor"));
+    property.setRooms(item.rooms());
+    property.setBathrooms(item.bathrooms());
+    property.setFloor(item.floor());
 
-    JsonNode features = jsonNode.get("features");
+    IdealistaItem.Features features = item.features();
     if (!Objects.isNull(features)) {
-      property.setHasPool(getBooleanValue(features, "hasSwimmingPool"));
-      property.setHasTerrace(getBooleanValue(features, "hasTerrace"));
-      property.setHasAirConditioning(getBooleanValue(features, "hasAirConditioning"));
-      property.setHasBoxRoom(getBooleanValue(features, "hasBoxRoom"));
-      property.setHasGarden(getBooleanValue(features, "hasGarden"));
+      property.setHasPool(features.hasSwimmingPool());
+      property.setHasTerrace(features.hasTerrace());
+      property.setHasAirConditioning(features.hasAirConditioning());
+      property.setHasBoxRoom(features.hasBoxRoom());
+      property.setHasGarden(features.hasGarden());
     }
 
-    JsonNode parkingSpace = jsonNode.get("parkingSpace");
+    IdealistaItem.ParkingSpace parkingSpace = item.parkingSpace();
     if (!Objects.isNull(parkingSpace)) {
-      property.setHasParkingSpace(getBooleanValue(parkingSpace, "hasParkingSpace"));
-      property.setParkingIncludedInPrice(
-          getBooleanValue(parkingSpace, "isParkingSpaceIncludedInPrice"));
+      property.setHasParkingSpace(parkingSpace.hasParkingSpace());
+      property.setParkingIncludedInPrice(parkingSpace.parkingSpaceIncludedInPrice());
     }
 
-    property.setHasLift(getBooleanValue(jsonNode, "hasLift"));
-    property.setEnergyCertificate(getTextValue(jsonNode, "energyCertificate"));
+    property.setHasLift(item.hasLift());
+    property.setEnergyCertificate(item.energyCertificate());
 
     IdealistaPropertyPriceRecord priceRecord =
-        new IdealistaPropertyPriceRecord(
-            base.propertyCode(), jsonNode.get("price").longValue(), base.firstSeen());
+        new IdealistaPropertyPriceRecord(base.propertyCode(), base.price(), base.firstSeen());
     priceRecord.setProperty(property);
     property.getPriceRecords().add(priceRecord);
 
@@ -478,19 +480,4 @@ public class IdealistaProperty extends IdealistaRealEstate<IdealistaPropertyPric
         + bathrooms
         + '}';
   }
-
-  private static String getTextValue(JsonNode node, String fieldName) {
-    JsonNode field = node.get(fieldName);
-    return Objects.isNull(field) || field.isNull() ? null : field.textValue();
-  }
-
-  private static Integer getIntValue(JsonNode node, String fieldName) {
-    JsonNode field = node.get(fieldName);
-    return Objects.isNull(field) || field.isNull() ? null : field.asInt();
-  }
-
-  private static Boolean getBooleanValue(JsonNode node, String fieldName) {
-    JsonNode field = node.get(fieldName);
-    return Objects.isNull(field) || field.isNull() ? null : field.asBoolean();
-  }
 }
@@ -1,7 +1,6 @@
 package com.acantilado.core.idealista.realEstate;
 
 import com.acantilado.core.idealista.IdealistaContactInformation;
-import com.fasterxml.jackson.databind.JsonNode;
 import java.time.Instant;
 import java.util.List;
 import java.util.Objects;
@@ -95,56 +94,44 @@ public abstract class IdealistaRealEstate<P> {
 
   */
 
-  public static IdealistaRealEstateBase construct(JsonNode jsonNode) {
-    final long propertyCode = jsonNode.get("propertyCode").asLong();
+  public static IdealistaRealEstateBase construct(IdealistaItem item) {
     final long currentTimestamp = Instant.now().toEpochMilli();
 
     String subTypology =
-        Objects.isNull(jsonNode.get("detailedType").get("subTypology"))
+        Objects.isNull(item.detailedType().subTypology())
             ? SUB_TYPOLOGY_FALLBACK
-            : jsonNode.get("detailedType").get("subTypology").textValue();
-    String description =
-        Objects.isNull(jsonNode.get("description")) ? "" : jsonNode.get("description").textValue();
-    String contactName =
-        Objects.isNull(jsonNode.get("contactInfo").get("contactName"))
-            ? ""
-            : jsonNode.get("contactInfo").get("contactName").textValue();
-
-    double latitude = jsonNode.get("latitude").asDouble();
-    double longitude = jsonNode.get("longitude").asDouble();
-    String ayuntamiento = jsonNode.get("municipality").textValue();
-    String idealistaLocationId = jsonNode.get("locationId").textValue();
-
-    Optional<IdealistaContactInformation.PhoneContact> phoneContact =
-        constructPhone(jsonNode.get("contactInfo"));
+            : item.detailedType().subTypology();
+    String description = Objects.isNull(item.description()) ? "" : item.description();
+    IdealistaItem.ContactInfo contactJson = item.contactInfo();
+    String contactName = Objects.isNull(contactJson.contactName()) ? "" : contactJson.contactName();
+
+    Optional<IdealistaContactInformation.PhoneContact> phoneContact = constructPhone(contactJson);
     IdealistaContactInformation contactInfo =
-        new IdealistaContactInformation(
-            phoneContact, contactName, jsonNode.get("contactInfo").get("userType").textValue());
+        new IdealistaContactInformation(phoneContact, contactName, contactJson.userType());
 
     return new IdealistaRealEstateBase(
-        jsonNode.get("price").longValue(),
-        propertyCode,
-        jsonNode.get("operation").textValue(),
+        item.price(),
+        item.propertyCode(),
+        item.operation(),
         description,
-        jsonNode.get("size").longValue(),
+        item.size(),
         subTypology,
-        jsonNode.get("address").textValue(),
-        ayuntamiento,
-        idealistaLocationId,
-        latitude,
-        longitude,
+        item.address(),
+        item.municipality(),
+        item.locationId(),
+        item.latitude(),
+        item.longitude(),
         currentTimestamp,
         currentTimestamp,
         contactInfo);
   }
 
   private static Optional<IdealistaContactInformation.PhoneContact> constructPhone(
-      JsonNode contactJson) {
-    if (!Objects.isNull(contactJson.get("phone1"))) {
+      IdealistaItem.ContactInfo contactJson) {
+    if (!Objects.isNull(contactJson.phone1())) {
       return Optional.of(
           new IdealistaContactInformation.PhoneContact(
-              contactJson.get("phone1").get("prefix").longValue(),
-              contactJson.get("phone1").get("phoneNumber").longValue()));
+              contactJson.phone1().prefix(), contactJson.phone1().phoneNumber()));
     }
     return Optional.empty();
   }
@@ -101,7 +101,11 @@ public class IdealistaTerrain extends IdealistaRealEstate<IdealistaTerrainPriceR
   }
 
   public static IdealistaTerrain constructFromJson(JsonNode jsonNode) {
-    IdealistaRealEstateBase base = IdealistaRealEstate.construct(jsonNode);
+    return constructFromItem(IdealistaItem.fromJson(jsonNode));
+  }
+
+  public static IdealistaTerrain constructFromItem(IdealistaItem item) {
+    IdealistaRealEstateBase base = IdealistaRealEstate.construct(item);
     IdealistaTerrain terrain =
         new IdealistaTerrain(
             base.propertyCode(),
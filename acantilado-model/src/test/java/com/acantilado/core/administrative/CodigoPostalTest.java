@@ -0,0 +1,52 @@
+package com.acantilado.core.administrative;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+
+class CodigoPostalTest {
+  private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+
+  @Test
+  public void equalityIgnoresGeometry() {
+    CodigoPostal first =
+        new CodigoPostal("28079-a", "28001", GEOMETRY_FACTORY.toGeometry(new Envelope(0, 1, 0, 1)));
+    CodigoPostal second =
+        new CodigoPostal("28079-a", "28001", GEOMETRY_FACTORY.toGeometry(new Envelope(0, 2, 0, 2)));
+
+    Assertions.assertEquals(first, second);
+    Assertions.assertEquals(first.hashCode(), second.hashCode());
+    Assertions.assertNotEquals(first, new CodigoPostal("28079-b", "28001", null));
+  }
+
+  @Test
+  public void hashingDoesNotDecodeGeometry() {
+    CodigoPostal codigoPostal = new CodigoPostal();
+    codigoPostal.setCodigoIne("28079-a");
+    codigoPostal.setCodigoPostal("28001");
+    codigoPostal.setGeometryJson("not a geometry");
+
+    Set<CodigoPostal> postcodes = new HashSet<>();
+    Assertions.assertTrue(postcodes.add(codigoPostal));
+    Assertions.assertTrue(postcodes.contains(codigoPostal));
+    Assertions.assertThrows(RuntimeException.class, codigoPostal::getGeometry);
+  }
+
+  @Test
+  public void serializationDoesNotDecodeGeometry() throws Exception {
+    CodigoPostal codigoPostal = new CodigoPostal();
+    codigoPostal.setCodigoIne("28079-a");
+    codigoPostal.setCodigoPostal("28001");
+    codigoPostal.setGeometryJson("not a geometry");
+
+    String json = new ObjectMapper().writeValueAsString(codigoPostal);
+
+    Assertions.assertTrue(json.contains("28079-a"));
+    Assertions.assertFalse(json.contains("bounds"));
+    Assertions.assertFalse(json.contains("centroid"));
+  }
+}
@@ -0,0 +1,102 @@
+package com.acantilado.core.administrative;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.algorithm.distance.DiscreteHausdorffDistance;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.util.GeometricShapeFactory;
+
+class GeometryCodecTest {
+  private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+
+  /** A 0.2 degree wide circle traced with far more points than any simplification keeps. */
+  private static Geometry detailedPolygon() {
+    GeometricShapeFactory shapeFactory = new GeometricShapeFactory(GEOMETRY_FACTORY);
+    shapeFactory.setCentre(new Coordinate(-3.7, 40.4));
+    shapeFactory.setSize(0.2);
+    shapeFactory.setNumPoints(4_000);
+    return shapeFactory.createCircle();
+  }
+
+  @Test
+  public void wkbRoundTripsExactly() {
+    Geometry geometry = detailedPolygon();
+    Geometry decoded = GeometryCodec.fromWkb(GeometryCodec.toWkb(geometry));
+
+    Assertions.assertTrue(geometry.equalsExact(decoded));
+  }
+
+  @Test
+  public void simplifiedRoundTripsEveryResolution() {
+    Geometry geometry = detailedPolygon();
+    byte[] encoded = GeometryCodec.encodeSimplified(geometry);
+
+    for (GeometryResolution resolution : GeometryResolution.values()) {
+      if (resolution == GeometryResolution.FULL) {
+        Assertions.assertTrue(GeometryCodec.decodeSimplified(encoded, resolution).isEmpty());
+        continue;
+      }
+      Geometry decoded = GeometryCodec.decodeSimplified(encoded, resolution).orElseThrow();
+      Assertions.assertTrue(resolution.simplify(geometry).equalsExact(decoded), resolution.name());
+    }
+  }
+
+  @Test
+  public void simplifiedStaysWithinTolerance() {
+    Geometry geometry = detailedPolygon();
+    byte[] encoded = GeometryCodec.encodeSimplified(geometry);
+
+    int previousPoints = geometry.getNumPoints();
+    for (GeometryResolution resolution :
+        List.of(GeometryResolution.FINE, GeometryResolution.MEDIUM, GeometryResolution.COARSE)) {
+      Geometry decoded = GeometryCodec.decodeSimplified(encoded, resolution).orElseThrow();
+
+      Assertions.assertTrue(decoded.isValid(), resolution.name());
+      Assertions.assertTrue(decoded.getNumPoints() < previousPoints, resolution.name());
+      Assertions.assertTrue(
+          DiscreteHausdorffDistance.distance(geometry, decoded)
+              <= resolution.getToleranceDegrees() + 1e-12,
+          resolution.name());
+      previousPoints = decoded.getNumPoints();
+    }
+  }
+
+  @Test
+  public void decodeSimplifiedWithoutEncodingIsEmpty() {
+    Assertions.assertTrue(
+        GeometryCodec.decodeSimplified(null, GeometryResolution.MEDIUM).isEmpty());
+  }
+
+  @Test
+  public void decodeSimplifiedThrowsForTruncatedEncoding() {
+    byte[] encoded = GeometryCodec.encodeSimplified(detailedPolygon());
+    byte[] truncated = Arrays.copyOf(encoded, encoded.length - 5);
+
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> GeometryCodec.decodeSimplified(truncated, GeometryResolution.COARSE));
+  }
+
+  @Test
+  public void simplifiedGeometryIsDecodedOnceAcrossThreads() {
+    Provincia provincia = new Provincia("28", "Madrid", "13", detailedPolygon());
+
+    Set<Geometry> instances =
+        IntStream.range(0, 256)
+            .parallel()
+            .mapToObj(i -> provincia.getGeometry(GeometryResolution.values()[1 + i % 3]))
+            .collect(
+                Collectors.toCollection(() -> Collections.newSetFromMap(new IdentityHashMap<>())));
+
+    Assertions.assertEquals(3, instances.size());
+  }
+}
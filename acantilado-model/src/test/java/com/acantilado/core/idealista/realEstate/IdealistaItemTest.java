@@ -0,0 +1,50 @@
+package com.acantilado.core.idealista.realEstate;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class IdealistaItemTest {
+  private static final String ITEM =
+      """
+      {"propertyCode": "101", "price": 250000.0, "operation": "sale", "size": 80.0,
+       "detailedType": {"typology": "flat"}, "address": "Calle Mayor", "municipality": "Madrid",
+       "locationId": "0-EU-ES-28-07-001-079", "latitude": 40.41, "longitude": -3.70,
+       "contactInfo": {"userType": "private", "phone1": {"prefix": 34, "phoneNumber": 600000000}},
+       "propertyType": "flat", "rooms": 3, "unused": {"nested": [1, 2, 3]},
+       "parkingSpace": {"hasParkingSpace": true, "isParkingSpaceIncludedInPrice": false}}
+      """;
+
+  @Test
+  public void streamedItemMatchesTree() throws Exception {
+    ObjectMapper objectMapper = new ObjectMapper();
+    IdealistaProperty fromTree = IdealistaProperty.constructFromJson(objectMapper.readTree(ITEM));
+
+    IdealistaItem item;
+    try (JsonParser parser = objectMapper.createParser(ITEM)) {
+      parser.nextToken();
+      item = IdealistaItem.READER.readValue(parser);
+    }
+    IdealistaProperty fromItem = IdealistaProperty.constructFromItem(item);
+
+    Assertions.assertEquals(101L, fromItem.getPropertyCode());
+    Assertions.assertEquals(fromTree.getPropertyCode(), fromItem.getPropertyCode());
+    Assertions.assertEquals(250000L, fromItem.getPriceRecords().get(0).getPrice());
+    Assertions.assertEquals("Indeterminate", fromItem.getSubTypology());
+    Assertions.assertEquals("", fromItem.getDescription());
+    Assertions.assertEquals(3, fromItem.getRooms());
+    Assertions.assertEquals(true, fromItem.getHasParkingSpace());
+    Assertions.assertEquals(false, fromItem.getParkingIncludedInPrice());
+    Assertions.assertEquals(600000000L, fromItem.getContactInfo().getPhoneNumber());
+  }
+
+  @Test
+  public void throwsForMissingPropertyCode() {
+    Assertions.assertThrows(
+        RuntimeException.class,
+        () ->
+            IdealistaItem.fromJson(
+                new ObjectMapper().readTree(ITEM.replace("\"propertyCode\": \"101\",", ""))));
+  }
+}
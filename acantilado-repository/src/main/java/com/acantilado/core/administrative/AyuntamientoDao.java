@@ -1,14 +1,27 @@
 package com.acantilado.core.administrative;
 
+import com.acantilado.core.spatial.SpatialQueries;
 import io.dropwizard.hibernate.AbstractDAO;
 import org.hibernate.SessionFactory;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
 
 import java.util.List;
 import java.util.Optional;
 
 public class AyuntamientoDAO extends AbstractDAO<Ayuntamiento> {
+  private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+
+  private final boolean postgis;
+
   public AyuntamientoDAO(SessionFactory sessionFactory) {
+    this(sessionFactory, false);
+  }
+
+  public AyuntamientoDAO(SessionFactory sessionFactory, boolean postgis) {
     super(sessionFactory);
+    this.postgis = postgis;
   }
 
   public Optional<Ayuntamiento> findById(String ayuntamientoId) {
@@ -44,4 +57,27 @@ public class AyuntamientoDAO extends AbstractDAO<Ayuntamiento> {
         .createQuery("SELECT a.ayuntamientoId FROM Ayuntamiento a", String.class)
         .getResultList();
   }
+
+  /**
+   * Finds the ayuntamientos whose boundary covers the given WGS84 coordinate. Without PostGIS,
+   * every stored boundary is decoded and tested in Java.
+   */
+  public List<Ayuntamiento> findContaining(double latitude, double longitude) {
+    if (postgis) {
+      return currentSession()
+          .createNativeQuery(
+              "SELECT a.* FROM ayuntamiento a WHERE ST_Covers(a.boundary, "
+                  + SpatialQueries.POINT
+                  + ")",
+              Ayuntamiento.class)
+          .setParameter("latitude", latitude)
+          .setParameter("longitude", longitude)
+          .getResultList();
+    }
+
+    Point point = GEOMETRY_FACTORY.createPoint(new Coordinate(longitude, latitude));
+    return findAll().stream()
+        .filter(a -> a.getGeometry() != null && a.getGeometry().covers(point))
+        .toList();
+  }
 }
@@ -1,14 +1,26 @@
 package com.acantilado.core.administrative;
 
+import com.acantilado.core.spatial.SpatialQueries;
 import io.dropwizard.hibernate.AbstractDAO;
 import java.util.List;
 import java.util.Optional;
 import org.hibernate.SessionFactory;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
 
 public class BarrioDAO extends AbstractDAO<Barrio> {
+  private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+
+  private final boolean postgis;
 
   public BarrioDAO(SessionFactory sessionFactory) {
+    this(sessionFactory, false);
+  }
+
+  public BarrioDAO(SessionFactory sessionFactory, boolean postgis) {
     super(sessionFactory);
+    this.postgis = postgis;
   }
 
   public Barrio create(Barrio barrio) {
@@ -45,4 +57,27 @@ public class BarrioDAO extends AbstractDAO<Barrio> {
   public void delete(Barrio barrio) {
     currentSession().delete(barrio);
   }
+
+  /**
+   * Finds the barrios whose boundary covers the given WGS84 coordinate. Without PostGIS, every
+   * stored boundary is decoded and tested in Java.
+   */
+  public List<Barrio> findContaining(double latitude, double longitude) {
+    if (postgis) {
+      return currentSession()
+          .createNativeQuery(
+              "SELECT b.* FROM barrio b WHERE ST_Covers(b.boundary, "
+                  + SpatialQueries.POINT
+                  + ")",
+              Barrio.class)
+          .setParameter("latitude", latitude)
+          .setParameter("longitude", longitude)
+          .getResultList();
+    }
+
+    Point point = GEOMETRY_FACTORY.createPoint(new Coordinate(longitude, latitude));
+    return findAll().stream()
+        .filter(b -> b.getGeometry() != null && b.getGeometry().covers(point))
+        .toList();
+  }
 }
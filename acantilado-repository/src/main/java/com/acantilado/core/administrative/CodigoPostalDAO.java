@@ -1,14 +1,26 @@
 package com.acantilado.core.administrative;
 
+import com.acantilado.core.spatial.SpatialQueries;
 import io.dropwizard.hibernate.AbstractDAO;
 import java.util.List;
 import java.util.Optional;
 import org.hibernate.SessionFactory;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
 
 public class CodigoPostalDAO extends AbstractDAO<CodigoPostal> {
+  private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+
+  private final boolean postgis;
 
   public CodigoPostalDAO(SessionFactory sessionFactory) {
+    this(sessionFactory, false);
+  }
+
+  public CodigoPostalDAO(SessionFactory sessionFactory, boolean postgis) {
     super(sessionFactory);
+    this.postgis = postgis;
   }
 
   public CodigoPostal create(CodigoPostal codigoPostal) {
@@ -40,4 +52,27 @@ public class CodigoPostalDAO extends AbstractDAO<CodigoPostal> {
         .createQuery("SELECT c.codigoIne FROM CodigoPostal c", String.class)
         .getResultList();
   }
+
+  /**
+   * Finds the postcodes whose boundary covers the given WGS84 coordinate. Without PostGIS, every
+   * stored boundary is decoded and tested in Java.
+   */
+  public List<CodigoPostal> findContaining(double latitude, double longitude) {
+    if (postgis) {
+      return currentSession()
+          .createNativeQuery(
+              "SELECT c.* FROM codigo_postal c WHERE ST_Covers(c.boundary, "
+                  + SpatialQueries.POINT
+                  + ")",
+              CodigoPostal.class)
+          .setParameter("latitude", latitude)
+          .setParameter("longitude", longitude)
+          .getResultList();
+    }
+
+    Point point = GEOMETRY_FACTORY.createPoint(new Coordinate(longitude, latitude));
+    return findAll().stream()
+        .filter(c -> c.getGeometry() != null && c.getGeometry().covers(point))
+        .toList();
+  }
 }
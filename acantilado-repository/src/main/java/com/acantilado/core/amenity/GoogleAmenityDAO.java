@@ -2,18 +2,28 @@ package com.acantilado.core.amenity;
 
 import com.acantilado.core.amenity.fields.AcantiladoAmenityChain;
 import com.acantilado.core.amenity.fields.GoogleAmenityCategory;
+import com.acantilado.core.spatial.SpatialQueries;
 import io.dropwizard.hibernate.AbstractDAO;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import org.hibernate.SessionFactory;
+import org.hibernate.query.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class GoogleAmenityDAO extends AbstractDAO<GoogleAmenity> {
   private static final Logger LOGGER = LoggerFactory.getLogger(GoogleAmenityDAO.class);
 
+  private final boolean postgis;
+
   public GoogleAmenityDAO(SessionFactory sessionFactory) {
+    this(sessionFactory, false);
+  }
+
+  public GoogleAmenityDAO(SessionFactory sessionFactory, boolean postgis) {
     super(sessionFactory);
+    this.postgis = postgis;
   }
 
   public Optional<GoogleAmenity> findByPlaceId(String placeId) {
@@ -51,34 +61,93 @@ public class GoogleAmenityDAO extends AbstractDAO<GoogleAmenity> {
    */
   public List<GoogleAmenity> findByLocationAndChain(
       double latitude, double longitude, double delta, AcantiladoAmenityChain chain) {
-    return currentSession()
-        .createQuery(
-            "SELECT a FROM GoogleAmenity a "
-                + "WHERE a.latitude BETWEEN :minLat AND :maxLat "
-                + "AND a.longitude BETWEEN :minLon AND :maxLon "
-                + "AND a.chain = :chain",
-            GoogleAmenity.class)
-        .setParameter("minLat", latitude - delta)
-        .setParameter("maxLat", latitude + delta)
-        .setParameter("minLon", longitude - delta)
-        .setParameter("maxLon", longitude + delta)
-        .setParameter("chain", chain)
+    // Native queries bind the enum by its stored name
+    Object chainParameter = postgis ? chain.name() : chain;
+    return boundsQuery(latitude, longitude, delta, " AND a.chain = :chain")
+        .setParameter("chain", chainParameter)
         .getResultList();
   }
 
   /** Find amenities within a bounding box (any chain) */
   public List<GoogleAmenity> findByLocation(double latitude, double longitude, double delta) {
+    return boundsQuery(latitude, longitude, delta, "").getResultList();
+  }
+
+  /** Find amenities within a radius in meters, closest first */
+  public List<GoogleAmenity> findWithinRadius(
+      double latitude, double longitude, double radiusMeters) {
+    if (postgis) {
+      return currentSession()
+          .createNativeQuery(
+              "SELECT a.* FROM google_amenity a "
+                  + "WHERE ST_DWithin(a.location::geography, "
+                  + SpatialQueries.POINT
+                  + "::geography, :radius) "
+                  + "ORDER BY a.location::geography <-> "
+                  + SpatialQueries.POINT
+                  + "::geography",
+              GoogleAmenity.class)
+          .setParameter("latitude", latitude)
+          .setParameter("longitude", longitude)
+          .setParameter("radius", radiusMeters)
+          .getResultList();
+    }
+
+    double latitudeDelta = SpatialQueries.latitudeDegrees(radiusMeters);
+    double longitudeDelta = SpatialQueries.longitudeDegrees(radiusMeters, latitude);
     return currentSession()
         .createQuery(
             "SELECT a FROM GoogleAmenity a "
                 + "WHERE a.latitude BETWEEN :minLat AND :maxLat "
                 + "AND a.longitude BETWEEN :minLon AND :maxLon",
             GoogleAmenity.class)
+        .setParameter("minLat", latitude - latitudeDelta)
+        .setParameter("maxLat", latitude + latitudeDelta)
+        .setParameter("minLon", longitude - longitudeDelta)
+        .setParameter("maxLon", longitude + longitudeDelta)
+        .getResultStream()
+        .filter(amenity -> distanceTo(amenity, latitude, longitude) <= radiusMeters)
+        .sorted(Comparator.comparingDouble(amenity -> distanceTo(amenity, latitude, longitude)))
+        .toList();
+  }
+
+  private Query<GoogleAmenity> boundsQuery(
+      double latitude, double longitude, double delta, String additionalPredicate) {
+    Query<GoogleAmenity> query;
+    if (postgis) {
+      // The GiST index on location narrows down candidates; the column checks keep exactly the
+      // same bounds as the JPQL variant
+      query =
+          currentSession()
+              .createNativeQuery(
+                  "SELECT a.* FROM google_amenity a "
+                      + "WHERE a.location && "
+                      + SpatialQueries.ENVELOPE
+                      + " AND a.latitude BETWEEN :minLat AND :maxLat "
+                      + "AND a.longitude BETWEEN :minLon AND :maxLon"
+                      + additionalPredicate,
+                  GoogleAmenity.class);
+    } else {
+      query =
+          currentSession()
+              .createQuery(
+                  "SELECT a FROM GoogleAmenity a "
+                      + "WHERE a.latitude BETWEEN :minLat AND :maxLat "
+                      + "AND a.longitude BETWEEN :minLon AND :maxLon"
+                      + additionalPredicate,
+                  GoogleAmenity.class);
+    }
+
+    return query
         .setParameter("minLat", latitude - delta)
         .setParameter("maxLat", latitude + delta)
         .setParameter("minLon", longitude - delta)
-        .setParameter("maxLon", longitude + delta)
-        .getResultList();
+        .setParameter("maxLon", longitude + delta);
+  }
+
+  private static double distanceTo(GoogleAmenity amenity, double latitude, double longitude) {
+    return SpatialQueries.distanceMeters(
+        latitude, longitude, amenity.getLatitude(), amenity.getLongitude());
   }
 
   /** Find amenity by previous Place ID (for migration tracking) */
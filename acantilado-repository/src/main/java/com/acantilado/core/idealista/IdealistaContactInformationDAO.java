@@ -1,22 +1,69 @@
 package com.acantilado.core.idealista;
 
+import com.acantilado.core.idealista.IdealistaContactInformation.PhoneContact;
 import io.dropwizard.hibernate.AbstractDAO;
+import jakarta.persistence.Table;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Root;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import org.hibernate.SessionFactory;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
 import org.hibernate.query.Query;
 
 public class IdealistaContactInformationDAO extends AbstractDAO<IdealistaContactInformation> {
+  private static final int IN_CLAUSE_CHUNK_SIZE = 1000;
 
   public IdealistaContactInformationDAO(SessionFactory sessionFactory) {
     super(sessionFactory);
   }
 
-  public Optional<IdealistaContactInformation> findByPhoneNumber(Long phoneNumber) {
-    return Optional.ofNullable(get(phoneNumber));
+  public Optional<IdealistaContactInformation> findByPhoneContact(PhoneContact phoneContact) {
+    return Optional.ofNullable(findByPhoneContacts(List.of(phoneContact)).get(phoneContact));
+  }
+
+  /**
+   * The stored contacts with the given prefixes and phone numbers, in one query per chunk. Should
+   * a phone contact have been stored more than once, the earliest contact is returned.
+   */
+  public Map<PhoneContact, IdealistaContactInformation> findByPhoneContacts(
+      Collection<PhoneContact> phoneContacts) {
+    Set<PhoneContact> wanted = new HashSet<>(phoneContacts);
+    List<Long> phoneNumbers = wanted.stream().map(PhoneContact::phoneNumber).distinct().toList();
+
+    Map<PhoneContact, IdealistaContactInformation> found = new HashMap<>();
+    for (int start = 0; start < phoneNumbers.size(); start += IN_CLAUSE_CHUNK_SIZE) {
+      List<IdealistaContactInformation> contacts =
+          currentSession()
+              .createQuery(
+                  "SELECT c FROM IdealistaContactInformation c"
+                      + " WHERE c.phone_number IN :phoneNumbers ORDER BY c.id",
+                  IdealistaContactInformation.class)
+              .setParameterList(
+                  "phoneNumbers",
+                  phoneNumbers.subList(
+                      start, Math.min(start + IN_CLAUSE_CHUNK_SIZE, phoneNumbers.size())))
+              .getResultList();
+
+      for (IdealistaContactInformation contact : contacts) {
+        PhoneContact phoneContact = phoneContactOf(contact);
+        if (wanted.contains(phoneContact)) {
+          found.putIfAbsent(phoneContact, contact);
+        }
+      }
+    }
+    return found;
   }
 
   public List<IdealistaContactInformation> findAll() {
@@ -29,6 +76,74 @@ public class IdealistaContactInformationDAO extends AbstractDAO<IdealistaContact
     return persist(contactInfo);
   }
 
+  /**
+   * Stores the phone contacts that are not stored yet, and returns the stored contact of each,
+   * whoever stored it. On PostgreSQL, contacts that clash on the unique prefix and phone number
+   * index are skipped by {@code ON CONFLICT DO NOTHING} and read back, so a contact inserted
+   * concurrently by another transaction does not roll back this one. Elsewhere, e.g. on H2, which
+   * has no such index, they are persisted one by one.
+   */
+  public Map<PhoneContact, IdealistaContactInformation> createIfAbsent(
+      Collection<IdealistaContactInformation> contacts) {
+    if (contacts.isEmpty()) {
+      return Map.of();
+    }
+
+    Dialect dialect =
+        currentSession()
+            .getSessionFactory()
+            .unwrap(SessionFactoryImplementor.class)
+            .getJdbcServices()
+            .getDialect();
+    if (!(dialect instanceof PostgreSQLDialect)) {
+      Map<PhoneContact, IdealistaContactInformation> created = new HashMap<>();
+      contacts.forEach(contact -> created.putIfAbsent(phoneContactOf(contact), persist(contact)));
+      return created;
+    }
+
+    currentSession().flush();
+    currentSession().doWork(connection -> insertIgnoringConflicts(connection, contacts));
+    return findByPhoneContacts(
+        contacts.stream().map(IdealistaContactInformationDAO::phoneContactOf).toList());
+  }
+
+  private static PhoneContact phoneContactOf(IdealistaContactInformation contact) {
+    return new PhoneContact(contact.getPrefix(), contact.getPhoneNumber());
+  }
+
+  private static void insertIgnoringConflicts(
+      Connection connection, Collection<IdealistaContactInformation> contacts)
+      throws SQLException {
+    List<IdealistaContactInformation> toInsert = List.copyOf(contacts);
+    try (PreparedStatement insert =
+        connection.prepareStatement(
+            "INSERT INTO "
+                + IdealistaContactInformation.class.getAnnotation(Table.class).name()
+                + " (prefix, phone_number, contact_name, user_type)"
+                + " SELECT * FROM unnest(?::int8[], ?::int8[], ?::text[], ?::text[])"
+                + " ON CONFLICT (prefix, phone_number) WHERE phone_number <> 0 DO NOTHING")) {
+      insert.setArray(
+          1,
+          connection.createArrayOf(
+              "int8", toInsert.stream().map(IdealistaContactInformation::getPrefix).toArray()));
+      insert.setArray(
+          2,
+          connection.createArrayOf(
+              "int8",
+              toInsert.stream().map(IdealistaContactInformation::getPhoneNumber).toArray()));
+      insert.setArray(
+          3,
+          connection.createArrayOf(
+              "text",
+              toInsert.stream().map(IdealistaContactInformation::getContactName).toArray()));
+      insert.setArray(
+          4,
+          connection.createArrayOf(
+              "text", toInsert.stream().map(IdealistaContactInformation::getUserType).toArray()));
+      insert.executeUpdate();
+    }
+  }
+
   public IdealistaContactInformation merge(IdealistaContactInformation contactInfo) {
     currentSession().merge(contactInfo);
     return contactInfo;
@@ -1,5 +1,6 @@
 package com.acantilado.core.idealista;
 
+import com.acantilado.core.idealista.priceRecords.IdealistaPropertyPriceRecord;
 import com.acantilado.core.idealista.realEstate.IdealistaProperty;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
@@ -14,11 +15,20 @@ public class IdealistaPropertyDAO extends IdealistaRealEstateDAO<IdealistaProper
     super(sessionFactory);
   }
 
+  public IdealistaPropertyDAO(SessionFactory sessionFactory, boolean postgis) {
+    super(sessionFactory, postgis);
+  }
+
   @Override
   public Optional<IdealistaProperty> findByPropertyCode(Long propertyCode) {
     return Optional.ofNullable(get(propertyCode));
   }
 
+  @Override
+  protected Class<IdealistaPropertyPriceRecord> getPriceRecordClass() {
+    return IdealistaPropertyPriceRecord.class;
+  }
+
   @Override
   public List<IdealistaProperty> findAll() {
     return namedTypedQuery("com.schouten.core.properties.idealista.IdealistaProperty.findAll")
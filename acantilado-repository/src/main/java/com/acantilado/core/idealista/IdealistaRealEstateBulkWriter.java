@@ -0,0 +1,263 @@
+package com.acantilado.core.idealista;
+
+import com.acantilado.core.idealista.priceRecords.IdealistaPriceRecordBase;
+import com.acantilado.core.idealista.priceRecords.IdealistaPropertyPriceRecord;
+import com.acantilado.core.idealista.priceRecords.IdealistaTerrainPriceRecord;
+import com.acantilado.core.idealista.realEstate.IdealistaProperty;
+import com.acantilado.core.idealista.realEstate.IdealistaRealEstate;
+import com.acantilado.core.idealista.realEstate.IdealistaTerrain;
+import jakarta.persistence.Table;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+/**
+ * Writes a chunk of listings with two set-based PostgreSQL statements rather than a lookup and a
+ * merge per listing. Listings are passed as one array per column and unnested server side:
+ *
+ * <ul>
+ *   <li>an {@code INSERT ... ON CONFLICT (property_code) DO UPDATE} inserts new listings and, for
+ *       known ones, only refreshes what a per-listing merge would: last seen and contact;
+ *   <li>a price record is inserted for every listing whose price differs from its latest recorded
+ *       one, which also covers new listings.
+ * </ul>
+ *
+ * Runs in the current session's transaction, after flushing it, so the listings' contacts must
+ * have been persisted.
+ */
+public final class IdealistaRealEstateBulkWriter<
+    T extends IdealistaRealEstate<? extends IdealistaPriceRecordBase>> {
+
+  /** Property codes of the written listings that were new, and of those whose price changed. */
+  public record Outcome(Set<Long> inserted, Set<Long> priceChanged) {
+    public int changed() {
+      return inserted.size() + priceChanged.size();
+    }
+  }
+
+  private record Column<T>(String name, String sqlType, Class<?> javaType, Function<T, ?> value) {}
+
+  private final SessionFactory sessionFactory;
+  private final String realEstateTable;
+  private final String priceRecordTable;
+  private final List<Column<T>> columns;
+  private final String upsertSql;
+  private final String priceRecordSql;
+
+  private IdealistaRealEstateBulkWriter(
+      SessionFactory sessionFactory,
+      String realEstateTable,
+      String priceRecordTable,
+      List<Column<T>> columns) {
+    this.sessionFactory = sessionFactory;
+    this.realEstateTable = realEstateTable;
+    this.priceRecordTable = priceRecordTable;
+    this.columns = List.copyOf(columns);
+    this.upsertSql = upsertSql();
+    this.priceRecordSql = priceRecordSql();
+  }
+
+  public static IdealistaRealEstateBulkWriter<IdealistaProperty> forProperties(
+      SessionFactory sessionFactory) {
+    List<Column<IdealistaProperty>> columns = new ArrayList<>();
+    columns.addAll(commonColumns());
+    columns.add(text("property_type", IdealistaProperty::getPropertyType));
+    columns.add(text("status", IdealistaProperty::getStatus));
+    columns.add(bool("new_development", IdealistaProperty::getNewDevelopment));
+    columns.add(bool("new_property", IdealistaProperty::getNewProperty));
+    columns.add(integer("rooms", IdealistaProperty::getRooms));
+    columns.add(integer("bathrooms", IdealistaProperty::getBathrooms));
+    columns.add(text("floor", IdealistaProperty::getFloor));
+    columns.add(bool("has_lift", IdealistaProperty::getHasLift));
+    columns.add(bool("has_parking_space", IdealistaProperty::getHasParkingSpace));
+    columns.add(bool("parking_included_in_price", IdealistaProperty::getParkingIncludedInPrice));
+    columns.add(bool("has_terrace", IdealistaProperty::getHasTerrace));
+    columns.add(bool("has_garden", IdealistaProperty::getHasGarden));
+    columns.add(bool("has_pool", IdealistaProperty::getHasPool));
+    columns.add(bool("has_air_conditioning", IdealistaProperty::getHasAirConditioning));
+    columns.add(bool("has_box_room", IdealistaProperty::getHasBoxRoom));
+    columns.add(text("energy_certificate", IdealistaProperty::getEnergyCertificate));
+
+    return new IdealistaRealEstateBulkWriter<>(
+        sessionFactory,
+        tableOf(IdealistaProperty.class),
+        tableOf(IdealistaPropertyPriceRecord.class),
+        columns);
+  }
+
+  public static IdealistaRealEstateBulkWriter<IdealistaTerrain> forTerrains(
+      SessionFactory sessionFactory) {
+    return new IdealistaRealEstateBulkWriter<>(
+        sessionFactory,
+        tableOf(IdealistaTerrain.class),
+        tableOf(IdealistaTerrainPriceRecord.class),
+        commonColumns());
+  }
+
+  /** The table the entity is mapped to, so the statements always match the ORM mapping. */
+  private static String tableOf(Class<?> entityClass) {
+    return entityClass.getAnnotation(Table.class).name();
+  }
+
+  private static <T extends IdealistaRealEstate<?>> List<Column<T>> commonColumns() {
+    return List.of(
+        int8("property_code", IdealistaRealEstate::getPropertyCode),
+        text("operation", IdealistaRealEstate::getOperation),
+        text("description", IdealistaRealEstate::getDescription),
+        int8("size", IdealistaRealEstate::getSize),
+        text("sub_typology", IdealistaRealEstate::getSubTypology),
+        text("address", IdealistaRealEstate::getAddress),
+        text("municipality", IdealistaRealEstate::getMunicipality),
+        text("location_id", IdealistaRealEstate::getLocationId),
+        text("acantilado_location_id", IdealistaRealEstate::getAcantiladoLocationId),
+        float8("latitude", IdealistaRealEstate::getLatitude),
+        float8("longitude", IdealistaRealEstate::getLongitude),
+        int8(
+            "contact_phone_number",
+            realEstate ->
+                Objects.isNull(realEstate.getContactInfo())
+                    ? null
+                    : realEstate.getContactInfo().getId()),
+        int8("first_seen", IdealistaRealEstate::getFirstSeen),
+        int8("last_seen", IdealistaRealEstate::getLastSeen));
+  }
+
+  /**
+   * Upserts the listings and records their changed prices. Of listings sharing a property code
+   * only the last is written, since a statement cannot update the same row twice.
+   */
+  public Outcome write(Collection<T> realEstates) {
+    Map<Long, T> byPropertyCode = new LinkedHashMap<>();
+    realEstates.forEach(realEstate -> byPropertyCode.put(realEstate.getPropertyCode(), realEstate));
+    if (byPropertyCode.isEmpty()) {
+      return new Outcome(Set.of(), Set.of());
+    }
+
+    Session session = sessionFactory.getCurrentSession();
+    session.flush();
+    return session.doReturningWork(
+        connection -> write(connection, List.copyOf(byPropertyCode.values())));
+  }
+
+  private Outcome write(Connection connection, List<T> realEstates) throws SQLException {
+    Set<Long> inserted = new HashSet<>();
+    try (PreparedStatement upsert = connection.prepareStatement(upsertSql)) {
+      for (int i = 0; i < columns.size(); i++) {
+        upsert.setArray(i + 1, toArray(connection, columns.get(i), realEstates));
+      }
+      try (ResultSet rows = upsert.executeQuery()) {
+        while (rows.next()) {
+          if (rows.getBoolean(2)) {
+            inserted.add(rows.getLong(1));
+          }
+        }
+      }
+    }
+
+    Set<Long> priceChanged = new HashSet<>();
+    try (PreparedStatement priceRecords = connection.prepareStatement(priceRecordSql)) {
+      List<Column<T>> priceColumns =
+          List.of(
+              int8("property_code", IdealistaRealEstate::getPropertyCode),
+              int8("price", IdealistaRealEstateBulkWriter::priceOf),
+              int8("recorded_at", IdealistaRealEstateBulkWriter::recordedAtOf));
+      for (int i = 0; i < priceColumns.size(); i++) {
+        priceRecords.setArray(i + 1, toArray(connection, priceColumns.get(i), realEstates));
+      }
+      try (ResultSet rows = priceRecords.executeQuery()) {
+        while (rows.next()) {
+          long propertyCode = rows.getLong(1);
+          if (!inserted.contains(propertyCode)) {
+            priceChanged.add(propertyCode);
+          }
+        }
+      }
+    }
+    return new Outcome(inserted, priceChanged);
+  }
+
+  private String upsertSql() {
+    String columnNames = columns.stream().map(Column::name).collect(Collectors.joining(", "));
+    String arrays =
+        columns.stream()
+            .map(column -> "?::" + column.sqlType() + "[]")
+            .collect(Collectors.joining(", "));
+
+    // xmax is only zero for rows this statement inserted rather than updated
+    return "INSERT INTO "
+        + realEstateTable
+        + " ("
+        + columnNames
+        + ") SELECT * FROM unnest("
+        + arrays
+        + ") ON CONFLICT (property_code) DO UPDATE SET last_seen = EXCLUDED.last_seen,"
+        + " contact_phone_number = EXCLUDED.contact_phone_number"
+        + " RETURNING property_code, (xmax = 0) AS inserted";
+  }
+
+  private String priceRecordSql() {
+    return "INSERT INTO "
+        + priceRecordTable
+        + " (property_code, price, recorded_at)"
+        + " SELECT s.property_code, s.price, s.recorded_at"
+        + " FROM unnest(?::int8[], ?::int8[], ?::int8[]) AS s(property_code, price, recorded_at)"
+        + " WHERE s.price IS DISTINCT FROM (SELECT p.price FROM "
+        + priceRecordTable
+        + " p WHERE p.property_code = s.property_code"
+        + " ORDER BY p.recorded_at DESC, p.id DESC LIMIT 1)"
+        + " RETURNING property_code";
+  }
+
+  private static Long priceOf(IdealistaRealEstate<? extends IdealistaPriceRecordBase> realEstate) {
+    return realEstate.getPriceRecords().get(0).getPrice();
+  }
+
+  private static Long recordedAtOf(
+      IdealistaRealEstate<? extends IdealistaPriceRecordBase> realEstate) {
+    return realEstate.getPriceRecords().get(0).getRecordedAt();
+  }
+
+  private static <T> Array toArray(
+      Connection connection, Column<T> column, List<T> realEstates) throws SQLException {
+    Object[] values =
+        (Object[]) java.lang.reflect.Array.newInstance(column.javaType(), realEstates.size());
+    for (int i = 0; i < realEstates.size(); i++) {
+      values[i] = column.value().apply(realEstates.get(i));
+    }
+    return connection.createArrayOf(column.sqlType(), values);
+  }
+
+  private static <T> Column<T> int8(String name, Function<T, Long> value) {
+    return new Column<>(name, "int8", Long.class, value);
+  }
+
+  private static <T> Column<T> integer(String name, Function<T, Integer> value) {
+    return new Column<>(name, "int4", Integer.class, value);
+  }
+
+  private static <T> Column<T> float8(String name, Function<T, Double> value) {
+    return new Column<>(name, "float8", Double.class, value);
+  }
+
+  private static <T> Column<T> bool(String name, Function<T, Boolean> value) {
+    return new Column<>(name, "bool", Boolean.class, value);
+  }
+
+  private static <T> Column<T> text(String name, Function<T, String> value) {
+    return new Column<>(name, "text", String.class, value);
+  }
+}
@@ -1,18 +1,93 @@
 package com.acantilado.core.idealista;
 
+import com.acantilado.core.idealista.priceRecords.IdealistaPriceRecordBase;
 import com.acantilado.core.idealista.realEstate.IdealistaRealEstate;
+import com.acantilado.core.spatial.SpatialQueries;
 import io.dropwizard.hibernate.AbstractDAO;
+import jakarta.persistence.Table;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import org.hibernate.SessionFactory;
 
 public abstract class IdealistaRealEstateDAO<T extends IdealistaRealEstate> extends AbstractDAO<T> {
+  /** Keeps IN lists well below the bind parameter limits of PostgreSQL and H2. */
+  private static final int IN_CLAUSE_CHUNK_SIZE = 1000;
+
+  private final boolean postgis;
+
   public IdealistaRealEstateDAO(SessionFactory sessionFactory) {
+    this(sessionFactory, false);
+  }
+
+  public IdealistaRealEstateDAO(SessionFactory sessionFactory, boolean postgis) {
     super(sessionFactory);
+    this.postgis = postgis;
   }
 
   public abstract Optional<T> findByPropertyCode(Long propertyCode);
 
+  /** The table holding this kind of listing's price records. */
+  protected abstract Class<? extends IdealistaPriceRecordBase> getPriceRecordClass();
+
+  /** The stored listings among the property codes, in one query per chunk of codes. */
+  public List<T> findByPropertyCodes(Collection<Long> propertyCodes) {
+    List<T> found = new ArrayList<>();
+    for (List<Long> chunk : chunks(propertyCodes)) {
+      found.addAll(
+          currentSession()
+              .createQuery(
+                  "SELECT r FROM "
+                      + getEntityClass().getSimpleName()
+                      + " r WHERE r.propertyCode IN :propertyCodes",
+                  getEntityClass())
+              .setParameterList("propertyCodes", chunk)
+              .getResultList());
+    }
+    return found;
+  }
+
+  /**
+   * The most recently recorded price of each of the listings that has one, by property code. A
+   * window function picks the latest record per listing, so price records are neither loaded as
+   * entities nor fetched per listing.
+   */
+  public Map<Long, Long> findLatestPrices(Collection<Long> propertyCodes) {
+    String priceRecordTable = getPriceRecordClass().getAnnotation(Table.class).name();
+    Map<Long, Long> latestPrices = new HashMap<>();
+
+    for (List<Long> chunk : chunks(propertyCodes)) {
+      List<Object[]> rows =
+          currentSession()
+              .createNativeQuery(
+                  "SELECT property_code, price FROM (SELECT property_code, price, ROW_NUMBER()"
+                      + " OVER (PARTITION BY property_code ORDER BY recorded_at DESC, id DESC)"
+                      + " AS recency FROM "
+                      + priceRecordTable
+                      + " WHERE property_code IN (:propertyCodes)) latest WHERE recency = 1",
+                  Object[].class)
+              .setParameterList("propertyCodes", chunk)
+              .getResultList();
+      rows.forEach(
+          row -> latestPrices.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue()));
+    }
+    return latestPrices;
+  }
+
+  private static List<List<Long>> chunks(Collection<Long> propertyCodes) {
+    List<Long> distinct = List.copyOf(new LinkedHashSet<>(propertyCodes));
+    List<List<Long>> chunks = new ArrayList<>();
+    for (int start = 0; start < distinct.size(); start += IN_CLAUSE_CHUNK_SIZE) {
+      chunks.add(distinct.subList(start, Math.min(start + IN_CLAUSE_CHUNK_SIZE, distinct.size())));
+    }
+    return chunks;
+  }
+
   public abstract List<T> findAll();
 
   public abstract List<T> findByMunicipality(String municipality);
@@ -26,4 +101,81 @@ public abstract class IdealistaRealEstateDAO<T extends IdealistaRealEstate> exte
   public abstract void delete(T realEstate);
 
   public abstract void deleteByPropertyCode(Long propertyCode);
+
+  public List<T> findWithinBounds(
+      double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+    String boundsPredicate =
+        "r.latitude BETWEEN :minLat AND :maxLat AND r.longitude BETWEEN :minLon AND :maxLon";
+
+    if (postgis) {
+      return currentSession()
+          .createNativeQuery(
+              "SELECT r.* FROM "
+                  + getTableName()
+                  + " r WHERE r.location && "
+                  + SpatialQueries.ENVELOPE
+                  + " AND "
+                  + boundsPredicate,
+              getEntityClass())
+          .setParameter("minLat", minLatitude)
+          .setParameter("maxLat", maxLatitude)
+          .setParameter("minLon", minLongitude)
+          .setParameter("maxLon", maxLongitude)
+          .getResultList();
+    }
+
+    return currentSession()
+        .createQuery(
+            "SELECT r FROM " + getEntityClass().getSimpleName() + " r WHERE " + boundsPredicate,
+            getEntityClass())
+        .setParameter("minLat", minLatitude)
+        .setParameter("maxLat", maxLatitude)
+        .setParameter("minLon", minLongitude)
+        .setParameter("maxLon", maxLongitude)
+        .getResultList();
+  }
+
+  /** Listings within a radius in meters, closest first. */
+  public List<T> findWithinRadius(double latitude, double longitude, double radiusMeters) {
+    if (postgis) {
+      return currentSession()
+          .createNativeQuery(
+              "SELECT r.* FROM "
+                  + getTableName()
+                  + " r WHERE ST_DWithin(r.location::geography, "
+                  + SpatialQueries.POINT
+                  + "::geography, :radius) "
+                  + "ORDER BY r.location::geography <-> "
+                  + SpatialQueries.POINT
+                  + "::geography",
+              getEntityClass())
+          .setParameter("latitude", latitude)
+          .setParameter("longitude", longitude)
+          .setParameter("radius", radiusMeters)
+          .getResultList();
+    }
+
+    double latitudeDelta = SpatialQueries.latitudeDegrees(radiusMeters);
+    double longitudeDelta = SpatialQueries.longitudeDegrees(radiusMeters, latitude);
+    return findWithinBounds(
+            latitude - latitudeDelta,
+            longitude - longitudeDelta,
+            latitude + latitudeDelta,
+            longitude + longitudeDelta)
+        .stream()
+        .filter(realEstate -> distanceTo(realEstate, latitude, longitude) <= radiusMeters)
+        .sorted(
+            Comparator.comparingDouble(realEstate -> distanceTo(realEstate, latitude, longitude)))
+        .toList();
+  }
+
+  private String getTableName() {
+    return getEntityClass().getAnnotation(Table.class).name();
+  }
+
+  private static double distanceTo(
+      IdealistaRealEstate<?> realEstate, double latitude, double longitude) {
+    return SpatialQueries.distanceMeters(
+        latitude, longitude, realEstate.getLatitude(), realEstate.getLongitude());
+  }
 }
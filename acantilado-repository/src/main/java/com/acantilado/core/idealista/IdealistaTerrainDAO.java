@@ -1,5 +1,6 @@
 package com.acantilado.core.idealista;
 
+import com.acantilado.core.idealista.priceRecords.IdealistaTerrainPriceRecord;
 import com.acantilado.core.idealista.realEstate.IdealistaTerrain;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
@@ -14,11 +15,20 @@ public class IdealistaTerrainDAO extends IdealistaRealEstateDAO<IdealistaTerrain
     super(sessionFactory);
   }
 
+  public IdealistaTerrainDAO(SessionFactory sessionFactory, boolean postgis) {
+    super(sessionFactory, postgis);
+  }
+
   @Override
   public Optional<IdealistaTerrain> findByPropertyCode(Long propertyCode) {
     return Optional.ofNullable(get(propertyCode));
   }
 
+  @Override
+  protected Class<IdealistaTerrainPriceRecord> getPriceRecordClass() {
+    return IdealistaTerrainPriceRecord.class;
+  }
+
   @Override
   public List<IdealistaTerrain> findAll() {
     return namedTypedQuery("com.schouten.core.properties.idealista.IdealistaTerrain.findAll")
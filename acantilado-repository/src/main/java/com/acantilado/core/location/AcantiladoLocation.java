@@ -1,4 +1,4 @@
-package com.acantilado.collection.location;
+package com.acantilado.core.location;
 
 import com.acantilado.core.administrative.*;
 import java.util.Arrays;
@@ -1,4 +1,4 @@
-package com.acantilado.collection.location;
+package com.acantilado.core.location;
 
 public enum CityAyuntamientoCode {
   MADRID("28", "079"),
@@ -0,0 +1,128 @@
+package com.acantilado.core.location;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.locationtech.jts.index.strtree.ItemBoundable;
+import org.locationtech.jts.index.strtree.ItemDistance;
+import org.locationtech.jts.index.strtree.STRtree;
+
+/**
+ * Immutable envelope index (STRtree) over prepared geometries. Point-in-polygon lookups only run
+ * the exact geometric predicate against candidates whose envelope intersects the query, and
+ * nearest-neighbour lookups use branch-and-bound over the same tree rather than a full scan.
+ *
+ * <p>The tree is built eagerly on construction, after which the index is safe to share between
+ * threads.
+ */
+public final class GeometryIndex<T> {
+  private static final ItemDistance EXACT_DISTANCE =
+      (ItemBoundable first, ItemBoundable second) ->
+          ((IndexedGeometry<?>) first.getItem())
+              .geometry()
+              .distance(((IndexedGeometry<?>) second.getItem()).geometry());
+
+  private record IndexedGeometry<T>(T value, Geometry geometry, PreparedGeometry prepared) {}
+
+  private final STRtree tree;
+  private final int size;
+
+  public GeometryIndex(Collection<T> values, Function<T, Geometry> geometryFunction) {
+    this.tree = new STRtree();
+    this.size = values.size();
+
+    for (T value : values) {
+      Geometry geometry = geometryFunction.apply(value);
+      tree.insert(
+          geometry.getEnvelopeInternal(),
+          new IndexedGeometry<>(value, geometry, PreparedGeometryFactory.prepare(geometry)));
+    }
+
+    tree.build();
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /** Returns the first indexed value whose geometry contains the given geometry. */
+  public Optional<T> findContaining(Geometry geometry) {
+    return findFirst(geometry, prepared -> prepared.contains(geometry));
+  }
+
+  /** Returns the first indexed value whose geometry covers the given geometry. */
+  public Optional<T> findCovering(Geometry geometry) {
+    return findFirst(geometry, prepared -> prepared.covers(geometry));
+  }
+
+  /**
+   * Returns the first indexed value whose interior contains the given geometry, i.e. the geometry
+   * does not touch its boundary.
+   */
+  public Optional<T> findContainingProperly(Geometry geometry) {
+    return findFirst(geometry, prepared -> prepared.containsProperly(geometry));
+  }
+
+  /** Returns whether any indexed geometry intersects the given geometry. */
+  public boolean intersectsAny(Geometry geometry) {
+    return findFirst(geometry, prepared -> prepared.intersects(geometry)).isPresent();
+  }
+
+  /**
+   * Returns every indexed value whose geometry lies within the given distance of the geometry.
+   * Only candidates whose envelope is within that distance are measured exactly.
+   */
+  public List<T> findWithinDistance(Geometry geometry, double distance) {
+    Envelope searchEnvelope = new Envelope(geometry.getEnvelopeInternal());
+    searchEnvelope.expandBy(distance);
+
+    return query(searchEnvelope).stream()
+        .filter(
+            candidate ->
+                candidate.prepared().intersects(geometry)
+                    || candidate.geometry().isWithinDistance(geometry, distance))
+        .map(IndexedGeometry::value)
+        .toList();
+  }
+
+  /** Returns the indexed value whose geometry is closest to the given geometry. */
+  @SuppressWarnings("unchecked")
+  public Optional<T> findNearest(Geometry geometry) {
+    if (isEmpty()) {
+      return Optional.empty();
+    }
+
+    IndexedGeometry<T> nearest =
+        (IndexedGeometry<T>)
+            tree.nearestNeighbour(
+                geometry.getEnvelopeInternal(),
+                new IndexedGeometry<>(null, geometry, null),
+                EXACT_DISTANCE);
+
+    return Optional.ofNullable(nearest).map(IndexedGeometry::value);
+  }
+
+  private Optional<T> findFirst(Geometry geometry, Predicate<PreparedGeometry> predicate) {
+    for (IndexedGeometry<T> candidate : query(geometry.getEnvelopeInternal())) {
+      if (predicate.test(candidate.prepared())) {
+        return Optional.of(candidate.value());
+      }
+    }
+    return Optional.empty();
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<IndexedGeometry<T>> query(Envelope envelope) {
+    return (List<IndexedGeometry<T>>) tree.query(envelope);
+  }
+}
@@ -0,0 +1,213 @@
+package com.acantilado.core.location;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+
+/**
+ * Fixed-resolution lat/lng raster over a province. Every cell that lies strictly inside a single
+ * ayuntamiento, a single postcode and either a single barrio or no barrio at all maps directly to
+ * its {@link Entry}; any other cell is a boundary cell and callers fall back to exact polygon
+ * tests.
+ *
+ * <p>Grids serialize to a gzip-compressed, run-length encoded binary form so they can be persisted
+ * once and loaded at startup without touching the polygons.
+ */
+public final class LocationGrid {
+  private static final int MAGIC = 0x41434752;
+  private static final int VERSION = 1;
+  private static final int BOUNDARY = -1;
+  private static final long ABSENT_BARRIO = -1L;
+
+  /** Identifiers a point in an interior cell resolves to. */
+  public record Entry(String ayuntamientoId, String codigoIne, Optional<Long> barrioId) {}
+
+  private final long fingerprint;
+  private final double minX;
+  private final double minY;
+  private final double cellSize;
+  private final int columns;
+  private final int rows;
+  private final Entry[] entries;
+  private final int[] cells;
+
+  private LocationGrid(
+      long fingerprint,
+      double minX,
+      double minY,
+      double cellSize,
+      int columns,
+      int rows,
+      Entry[] entries,
+      int[] cells) {
+    this.fingerprint = fingerprint;
+    this.minX = minX;
+    this.minY = minY;
+    this.cellSize = cellSize;
+    this.columns = columns;
+    this.rows = rows;
+    this.entries = entries;
+    this.cells = cells;
+  }
+
+  public static LocationGrid build(ProvinceLocationIndex index, double cellSize) {
+    Envelope envelope = index.getEnvelope();
+    GeometryFactory geometryFactory = new GeometryFactory();
+
+    int columns = Math.max(1, (int) Math.ceil(envelope.getWidth() / cellSize));
+    int rows = Math.max(1, (int) Math.ceil(envelope.getHeight() / cellSize));
+    int[] cells = new int[Math.multiplyExact(columns, rows)];
+
+    Map<Entry, Integer> entryIndexes = new HashMap<>();
+    List<Entry> entries = new ArrayList<>();
+
+    for (int row = 0; row < rows; row++) {
+      double cellMinY = envelope.getMinY() + row * cellSize;
+      for (int column = 0; column < columns; column++) {
+        double cellMinX = envelope.getMinX() + column * cellSize;
+        Geometry cell =
+            geometryFactory.toGeometry(
+                new Envelope(cellMinX, cellMinX + cellSize, cellMinY, cellMinY + cellSize));
+
+        cells[row * columns + column] =
+            index
+                .classifyInteriorCell(cell)
+                .map(
+                    entry ->
+                        entryIndexes.computeIfAbsent(
+                            entry,
+                            newEntry -> {
+                              entries.add(newEntry);
+                              return entries.size() - 1;
+                            }))
+                .orElse(BOUNDARY);
+      }
+    }
+
+    return new LocationGrid(
+        index.getFingerprint(),
+        envelope.getMinX(),
+        envelope.getMinY(),
+        cellSize,
+        columns,
+        rows,
+        entries.toArray(new Entry[0]),
+        cells);
+  }
+
+  /**
+   * Returns the entry for the cell holding the coordinate, or empty for boundary cells and
+   * non-finite coordinates, which would otherwise be cast to cell 0.
+   */
+  public Optional<Entry> lookup(double x, double y) {
+    if (!Double.isFinite(x) || !Double.isFinite(y)) {
+      return Optional.empty();
+    }
+
+    int column = (int) Math.floor((x - minX) / cellSize);
+    int row = (int) Math.floor((y - minY) / cellSize);
+    if (column < 0 || row < 0 || column >= columns || row >= rows) {
+      return Optional.empty();
+    }
+
+    int entryIndex = cells[row * columns + column];
+    return entryIndex == BOUNDARY ? Optional.empty() : Optional.of(entries[entryIndex]);
+  }
+
+  /** Fingerprint of the {@link ProvinceLocationIndex} the grid was computed from. */
+  public long getFingerprint() {
+    return fingerprint;
+  }
+
+  public double getCellSize() {
+    return cellSize;
+  }
+
+  /** Share of cells that resolve without polygon tests. */
+  public double getInteriorRatio() {
+    return (double) Arrays.stream(cells).filter(cell -> cell != BOUNDARY).count() / cells.length;
+  }
+
+  public void write(OutputStream outputStream) throws IOException {
+    GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream);
+    DataOutputStream out = new DataOutputStream(gzipOutputStream);
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    out.writeLong(fingerprint);
+    out.writeDouble(minX);
+    out.writeDouble(minY);
+    out.writeDouble(cellSize);
+    out.writeInt(columns);
+    out.writeInt(rows);
+
+    out.writeInt(entries.length);
+    for (Entry entry : entries) {
+      out.writeUTF(entry.ayuntamientoId());
+      out.writeUTF(entry.codigoIne());
+      out.writeLong(entry.barrioId().orElse(ABSENT_BARRIO));
+    }
+
+    int position = 0;
+    while (position < cells.length) {
+      int value = cells[position];
+      int runLength = 1;
+      while (position + runLength < cells.length && cells[position + runLength] == value) {
+        runLength++;
+      }
+      out.writeInt(runLength);
+      out.writeInt(value);
+      position += runLength;
+    }
+
+    out.flush();
+    gzipOutputStream.finish();
+    outputStream.flush();
+  }
+
+  public static LocationGrid read(InputStream inputStream) throws IOException {
+    DataInputStream in =
+        new DataInputStream(new BufferedInputStream(new GZIPInputStream(inputStream)));
+    if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+      throw new IOException("Not a location grid or unsupported version");
+    }
+
+    long fingerprint = in.readLong();
+    double minX = in.readDouble();
+    double minY = in.readDouble();
+    double cellSize = in.readDouble();
+    int columns = in.readInt();
+    int rows = in.readInt();
+
+    Entry[] entries = new Entry[in.readInt()];
+    for (int i = 0; i < entries.length; i++) {
+      String ayuntamientoId = in.readUTF();
+      String codigoIne = in.readUTF();
+      long barrioId = in.readLong();
+      entries[i] =
+          new Entry(
+              ayuntamientoId,
+              codigoIne,
+              barrioId == ABSENT_BARRIO ? Optional.empty() : Optional.of(barrioId));
+    }
+
+    int[] cells = new int[Math.multiplyExact(columns, rows)];
+    int position = 0;
+    while (position < cells.length) {
+      int runLength = in.readInt();
+      int value = in.readInt();
+      Arrays.fill(cells, position, position + runLength, value);
+      position += runLength;
+    }
+
+    return new LocationGrid(fingerprint, minX, minY, cellSize, columns, rows, entries, cells);
+  }
+}
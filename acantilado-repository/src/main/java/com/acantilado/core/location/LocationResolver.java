@@ -0,0 +1,290 @@
+package com.acantilado.core.location;
+
+import com.acantilado.core.administrative.*;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.context.internal.ManagedSessionContext;
+import org.locationtech.jts.geom.Point;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Process-wide entry point for turning a point in Spain into an {@link AcantiladoLocation}.
+ *
+ * <p>Province indexes are loaded lazily the first time they are needed and kept while they fit
+ * within the configured coordinate budget; the least recently used provinces are evicted beyond
+ * that. Indexes are immutable, so callers may keep hold of one for the duration of a collection
+ * run even if it is evicted or rebuilt in the meantime.
+ *
+ * <p>Each province index is paired with a {@link LocationGrid} so that most points resolve without
+ * polygon tests. Grids are persisted to the configured directory and reused across restarts for
+ * as long as their fingerprint matches the geometries in the database.
+ */
+public class LocationResolver {
+  private static final Logger LOGGER = LoggerFactory.getLogger(LocationResolver.class);
+  private static final int BATCH_CHUNK_SIZE = 4096;
+
+  private final SessionFactory sessionFactory;
+  private final ProvinciaDAO provinciaDAO;
+  private final AyuntamientoDAO ayuntamientoDAO;
+  private final CodigoPostalDAO codigoPostalDAO;
+  private final BarrioDAO barrioDAO;
+  private final double gridCellDegrees;
+  private final Optional<Path> maybeGridDirectory;
+
+  private final LoadingCache<String, ProvinceLocationIndex> provinceIndexes;
+  private volatile GeometryIndex<Provincia> provinciaIndex;
+
+  public LocationResolver(
+      ProvinciaDAO provinciaDAO,
+      AyuntamientoDAO ayuntamientoDAO,
+      CodigoPostalDAO codigoPostalDAO,
+      BarrioDAO barrioDAO,
+      SessionFactory sessionFactory,
+      LocationResolverConfig config) {
+    this.sessionFactory = sessionFactory;
+    this.provinciaDAO = provinciaDAO;
+    this.ayuntamientoDAO = ayuntamientoDAO;
+    this.codigoPostalDAO = codigoPostalDAO;
+    this.barrioDAO = barrioDAO;
+    this.gridCellDegrees = config.getGridCellDegrees();
+    this.maybeGridDirectory = Optional.ofNullable(config.getGridDirectory()).map(Path::of);
+
+    this.provinceIndexes =
+        Caffeine.newBuilder()
+            // Evicting only drops references, so do it on the loading thread and keep the budget
+            // exact rather than deferring it to the common pool
+            .executor(Runnable::run)
+            .maximumWeight(config.getMaxCoordinates())
+            .weigher(
+                (String provinciaId, ProvinceLocationIndex index) ->
+                    (int) Math.min(Integer.MAX_VALUE, index.getCoordinateCount()))
+            .build(this::loadProvinceIndex);
+  }
+
+  public ProvinceLocationIndex getProvinceIndex(String provinciaId) {
+    return provinceIndexes.get(provinciaId);
+  }
+
+  /**
+   * Resolves a point anywhere in Spain. The province is chosen by containment, falling back to
+   * the closest province for points just outside every boundary (e.g. on the coastline).
+   */
+  public Optional<AcantiladoLocation> resolve(Point locationPoint) {
+    return findProvinceIndex(locationPoint).map(index -> index.resolve(locationPoint));
+  }
+
+  /**
+   * Resolves a batch of points, returning null for every point that could not be resolved. The
+   * batch is split into chunks that resolve in parallel. Within a chunk, each point is first
+   * looked up in the grid of the province the previous point fell in. Batches tend to be
+   * geographically clustered, so most points skip the province containment test entirely.
+   */
+  public List<AcantiladoLocation> resolveAll(List<Point> locationPoints) {
+    AcantiladoLocation[] locations = new AcantiladoLocation[locationPoints.size()];
+    int chunks = (locationPoints.size() + BATCH_CHUNK_SIZE - 1) / BATCH_CHUNK_SIZE;
+
+    IntStream.range(0, chunks)
+        .parallel()
+        .forEach(
+            chunk -> {
+              int end = Math.min(locationPoints.size(), (chunk + 1) * BATCH_CHUNK_SIZE);
+              ProvinceLocationIndex previousIndex = null;
+
+              for (int i = chunk * BATCH_CHUNK_SIZE; i < end; i++) {
+                Point locationPoint = locationPoints.get(i);
+                Optional<AcantiladoLocation> maybeLocation =
+                    previousIndex == null
+                        ? Optional.empty()
+                        : previousIndex.resolveInterior(locationPoint);
+                if (maybeLocation.isPresent()) {
+                  locations[i] = maybeLocation.get();
+                  continue;
+                }
+
+                Optional<ProvinceLocationIndex> maybeIndex = findProvinceIndex(locationPoint);
+                if (maybeIndex.isEmpty()) {
+                  continue;
+                }
+                previousIndex = maybeIndex.get();
+                try {
+                  locations[i] = previousIndex.resolve(locationPoint);
+                } catch (RuntimeException e) {
+                  LOGGER.debug("Unable to resolve location {}", locationPoint, e);
+                }
+              }
+            });
+
+    return Arrays.asList(locations);
+  }
+
+  private Optional<ProvinceLocationIndex> findProvinceIndex(Point locationPoint) {
+    GeometryIndex<Provincia> provincias = getProvinciaIndex();
+
+    return provincias
+        .findContaining(locationPoint)
+        .or(() -> provincias.findNearest(locationPoint))
+        .map(provincia -> getProvinceIndex(provincia.getId()));
+  }
+
+  /**
+   * Drops every loaded index so that subsequent lookups rebuild from the database. Intended to be
+   * called once seeding has changed the underlying geographic data.
+   */
+  public void rebuild() {
+    LOGGER.info(
+        "Rebuilding location indexes, discarding {} loaded provinces",
+        provinceIndexes.estimatedSize());
+    provinciaIndex = null;
+    provinceIndexes.invalidateAll();
+
+    maybeGridDirectory
+        .filter(Files::isDirectory)
+        .ifPresent(
+            gridDirectory -> {
+              try (var gridFiles = Files.newDirectoryStream(gridDirectory, "*.grid")) {
+                for (Path gridFile : gridFiles) {
+                  Files.deleteIfExists(gridFile);
+                }
+              } catch (IOException e) {
+                LOGGER.warn("Unable to clear location grids in {}", gridDirectory, e);
+              }
+            });
+  }
+
+  private GeometryIndex<Provincia> getProvinciaIndex() {
+    GeometryIndex<Provincia> index = provinciaIndex;
+    if (index == null) {
+      synchronized (this) {
+        index = provinciaIndex;
+        if (index == null) {
+          index =
+              new GeometryIndex<>(
+                  inSession(provinciaDAO::findAll).stream()
+                      .filter(provincia -> provincia.getGeometry() != null)
+                      .toList(),
+                  Provincia::getGeometry);
+          provinciaIndex = index;
+        }
+      }
+    }
+    return index;
+  }
+
+  private ProvinceLocationIndex loadProvinceIndex(String provinciaId) {
+    long start = System.currentTimeMillis();
+
+    ProvinceLocationIndex index =
+        inSession(
+            () -> {
+              Provincia provincia = provinciaDAO.findById(provinciaId).orElseThrow();
+              Set<Ayuntamiento> ayuntamientos =
+                  ayuntamientoDAO.findByProvinceId(provinciaId).stream()
+                      .filter(ayuntamiento -> !ayuntamiento.getId().startsWith("53"))
+                      .collect(Collectors.toSet());
+
+              Map<String, Set<CodigoPostal>> postcodesByAyuntamiento = new HashMap<>();
+              for (Ayuntamiento ayuntamiento : ayuntamientos) {
+                postcodesByAyuntamiento.put(
+                    ayuntamiento.getId(),
+                    new HashSet<>(codigoPostalDAO.findByAyuntamiento(ayuntamiento.getId())));
+              }
+
+              Set<Barrio> barrios = new HashSet<>();
+              for (CityAyuntamientoCode city : CityAyuntamientoCode.values()) {
+                if (Objects.equals(city.getProvinceCode(), provincia.getId())) {
+                  barrios.addAll(barrioDAO.findByAyuntamiento(city.getCityCode()));
+                }
+              }
+
+              return new ProvinceLocationIndex(
+                  provinciaId, ayuntamientos, postcodesByAyuntamiento, barrios);
+            });
+
+    LOGGER.info(
+        "Built location index for province {} with {} coordinates in {} ms",
+        provinciaId,
+        index.getCoordinateCount(),
+        System.currentTimeMillis() - start);
+
+    return gridCellDegrees > 0 ? index.withGrid(loadOrBuildGrid(index)) : index;
+  }
+
+  private LocationGrid loadOrBuildGrid(ProvinceLocationIndex index) {
+    Optional<Path> maybeGridFile =
+        maybeGridDirectory.map(directory -> directory.resolve(index.getProvinciaId() + ".grid"));
+
+    if (maybeGridFile.isPresent() && Files.exists(maybeGridFile.get())) {
+      try (InputStream inputStream = Files.newInputStream(maybeGridFile.get())) {
+        LocationGrid grid = LocationGrid.read(inputStream);
+        if (grid.getFingerprint() == index.getFingerprint()
+            && grid.getCellSize() == gridCellDegrees) {
+          LOGGER.info("Loaded location grid for province {}", index.getProvinciaId());
+          return grid;
+        }
+        LOGGER.info("Location grid for province {} is stale", index.getProvinciaId());
+      } catch (IOException e) {
+        LOGGER.warn("Unable to read location grid {}", maybeGridFile.get(), e);
+      }
+    }
+
+    long start = System.currentTimeMillis();
+    LocationGrid grid = LocationGrid.build(index, gridCellDegrees);
+    LOGGER.info(
+        "Built location grid for province {} with {}% interior cells in {} ms",
+        index.getProvinciaId(),
+        Math.round(grid.getInteriorRatio() * 100),
+        System.currentTimeMillis() - start);
+
+    maybeGridFile.ifPresent(gridFile -> writeGrid(grid, gridFile));
+    return grid;
+  }
+
+  /**
+   * Indexes are loaded on whichever thread first needs them, outside any request's unit of work, so
+   * each load opens a session of its own.
+   */
+  private <T> T inSession(Supplier<T> query) {
+    Session session = sessionFactory.openSession();
+    ManagedSessionContext.bind(session);
+
+    try {
+      return query.get();
+    } finally {
+      ManagedSessionContext.unbind(sessionFactory);
+      session.close();
+    }
+  }
+
+  private static void writeGrid(LocationGrid grid, Path gridFile) {
+    try {
+      Files.createDirectories(gridFile.getParent());
+      Path temporaryFile = gridFile.resolveSibling(gridFile.getFileName() + ".tmp");
+      try (OutputStream outputStream = Files.newOutputStream(temporaryFile)) {
+        grid.write(outputStream);
+      }
+      Files.move(temporaryFile, gridFile, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      LOGGER.warn("Unable to persist location grid {}", gridFile, e);
+    }
+  }
+}
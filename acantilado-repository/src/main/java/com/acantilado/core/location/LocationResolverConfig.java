@@ -0,0 +1,49 @@
+package com.acantilado.core.location;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+
+public class LocationResolverConfig {
+
+  /** Upper bound on the coordinates held by loaded province indexes. */
+  @Min(1)
+  private long maxCoordinates = 20_000_000;
+
+  /** Edge length of a location grid cell in degrees; 0 disables the grid. */
+  @DecimalMin("0")
+  private double gridCellDegrees = 0.002;
+
+  /** Directory location grids are persisted to; grids are rebuilt on every start when unset. */
+  private String gridDirectory;
+
+  @JsonProperty
+  public long getMaxCoordinates() {
+    return maxCoordinates;
+  }
+
+  @JsonProperty
+  public void setMaxCoordinates(long maxCoordinates) {
+    this.maxCoordinates = maxCoordinates;
+  }
+
+  @JsonProperty
+  public double getGridCellDegrees() {
+    return gridCellDegrees;
+  }
+
+  @JsonProperty
+  public void setGridCellDegrees(double gridCellDegrees) {
+    this.gridCellDegrees = gridCellDegrees;
+  }
+
+  @JsonProperty
+  public String getGridDirectory() {
+    return gridDirectory;
+  }
+
+  @JsonProperty
+  public void setGridDirectory(String gridDirectory) {
+    this.gridDirectory = gridDirectory;
+  }
+}
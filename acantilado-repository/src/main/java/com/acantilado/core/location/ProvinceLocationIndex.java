@@ -0,0 +1,340 @@
+package com.acantilado.core.location;
+
+import com.acantilado.core.administrative.Ayuntamiento;
+import com.acantilado.core.administrative.Barrio;
+import com.acantilado.core.administrative.CodigoPostal;
+import com.acantilado.core.administrative.GeometryCodec;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Point;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Immutable geometric index over the ayuntamientos, postcodes and barrios of a single province.
+ * Once built it holds no session state and can be shared between collectors, request threads and
+ * scheduled runs.
+ *
+ * <p>When a {@link LocationGrid} is attached, points in interior cells are resolved by a single
+ * array lookup and only points in boundary cells go through the polygon tests.
+ */
+public final class ProvinceLocationIndex {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ProvinceLocationIndex.class);
+
+  private final String provinciaId;
+  private final Set<Ayuntamiento> ayuntamientos;
+  private final GeometryIndex<Ayuntamiento> ayuntamientoIndex;
+  private final Map<String, GeometryIndex<CodigoPostal>> postcodeIndexByAyuntamiento;
+  private final Map<String, GeometryIndex<Barrio>> barrioIndexByAyuntamiento;
+  private final Map<String, Set<CodigoPostal>> postcodesByAyuntamiento;
+  private final Map<String, Ayuntamiento> ayuntamientosById;
+  private final Map<String, CodigoPostal> postcodesByCodigoIne;
+  private final Map<Long, Barrio> barriosById;
+  private final Envelope envelope;
+  private final long coordinateCount;
+  private final long fingerprint;
+  private final LocationGrid grid;
+
+  public ProvinceLocationIndex(
+      String provinciaId,
+      Set<Ayuntamiento> ayuntamientos,
+      Map<String, Set<CodigoPostal>> postcodesByAyuntamiento,
+      Set<Barrio> barrios) {
+
+    if (barrios.isEmpty()) {
+      LOGGER.info("Found no barrios for province {}", provinciaId);
+    }
+
+    this.provinciaId = provinciaId;
+    this.ayuntamientos = Set.copyOf(ayuntamientos);
+    this.postcodesByAyuntamiento = Map.copyOf(postcodesByAyuntamiento);
+
+    this.ayuntamientoIndex = new GeometryIndex<>(ayuntamientos, Ayuntamiento::getGeometry);
+
+    Map<String, GeometryIndex<CodigoPostal>> postcodeIndexes = new HashMap<>();
+    postcodesByAyuntamiento.forEach(
+        (ayuntamientoId, postcodes) ->
+            postcodeIndexes.put(
+                ayuntamientoId, new GeometryIndex<>(postcodes, CodigoPostal::getGeometry)));
+    this.postcodeIndexByAyuntamiento = Map.copyOf(postcodeIndexes);
+
+    Map<String, GeometryIndex<Barrio>> barrioIndexes = new HashMap<>();
+    barrios.stream()
+        .collect(Collectors.groupingBy(Barrio::getAyuntamientoId, Collectors.toSet()))
+        .forEach(
+            (ayuntamientoId, barriosForAyuntamiento) ->
+                barrioIndexes.put(
+                    ayuntamientoId,
+                    new GeometryIndex<>(barriosForAyuntamiento, Barrio::getGeometry)));
+    this.barrioIndexByAyuntamiento = Map.copyOf(barrioIndexes);
+
+    Set<CodigoPostal> postcodes =
+        postcodesByAyuntamiento.values().stream()
+            .flatMap(Set::stream)
+            .collect(Collectors.toSet());
+
+    this.ayuntamientosById =
+        ayuntamientos.stream().collect(Collectors.toMap(Ayuntamiento::getId, Function.identity()));
+    this.postcodesByCodigoIne =
+        postcodes.stream()
+            .collect(
+                Collectors.toMap(
+                    CodigoPostal::getCodigoIne, Function.identity(), (first, second) -> first));
+    this.barriosById =
+        barrios.stream()
+            .filter(barrio -> barrio.getId() != null)
+            .collect(Collectors.toMap(Barrio::getId, Function.identity()));
+
+    this.envelope = new Envelope();
+    ayuntamientos.forEach(
+        ayuntamiento -> envelope.expandToInclude(ayuntamiento.getGeometry().getEnvelopeInternal()));
+
+    this.coordinateCount =
+        countCoordinates(ayuntamientos, Ayuntamiento::getGeometry)
+            + countCoordinates(postcodes, CodigoPostal::getGeometry)
+            + countCoordinates(barrios, Barrio::getGeometry);
+    this.fingerprint = computeFingerprint(ayuntamientos, postcodes, barrios);
+    this.grid = null;
+  }
+
+  private ProvinceLocationIndex(ProvinceLocationIndex index, LocationGrid grid) {
+    this.provinciaId = index.provinciaId;
+    this.ayuntamientos = index.ayuntamientos;
+    this.ayuntamientoIndex = index.ayuntamientoIndex;
+    this.postcodeIndexByAyuntamiento = index.postcodeIndexByAyuntamiento;
+    this.barrioIndexByAyuntamiento = index.barrioIndexByAyuntamiento;
+    this.postcodesByAyuntamiento = index.postcodesByAyuntamiento;
+    this.ayuntamientosById = index.ayuntamientosById;
+    this.postcodesByCodigoIne = index.postcodesByCodigoIne;
+    this.barriosById = index.barriosById;
+    this.envelope = index.envelope;
+    this.coordinateCount = index.coordinateCount;
+    this.fingerprint = index.fingerprint;
+    this.grid = grid;
+  }
+
+  /** Returns a copy of this index that consults the given grid before testing polygons. */
+  public ProvinceLocationIndex withGrid(LocationGrid grid) {
+    if (grid.getFingerprint() != fingerprint) {
+      throw new IllegalArgumentException(
+          "Location grid was computed from different geometries than province " + provinciaId);
+    }
+    return new ProvinceLocationIndex(this, grid);
+  }
+
+  public String getProvinciaId() {
+    return provinciaId;
+  }
+
+  public Set<Ayuntamiento> getAyuntamientos() {
+    return ayuntamientos;
+  }
+
+  public Map<String, Set<CodigoPostal>> getPostcodesByAyuntamiento() {
+    return postcodesByAyuntamiento;
+  }
+
+  /** Approximate size of the index, used to keep the set of loaded provinces within budget. */
+  public long getCoordinateCount() {
+    return coordinateCount;
+  }
+
+  /** Changes whenever the identifiers or boundaries of the indexed geometries change. */
+  public long getFingerprint() {
+    return fingerprint;
+  }
+
+  Envelope getEnvelope() {
+    return envelope;
+  }
+
+  public AcantiladoLocation resolve(Point locationPoint) {
+    Optional<LocationGrid.Entry> maybeGridEntry = lookupGrid(locationPoint);
+    if (maybeGridEntry.isPresent()) {
+      return fromGridEntry(maybeGridEntry.get());
+    }
+
+    return resolve(findAyuntamiento(locationPoint), locationPoint);
+  }
+
+  /** Resolves the point through the grid alone; empty without a grid or in a boundary cell. */
+  Optional<AcantiladoLocation> resolveInterior(Point locationPoint) {
+    return lookupGrid(locationPoint).map(this::fromGridEntry);
+  }
+
+  public AcantiladoLocation resolve(Ayuntamiento ayuntamiento, Point locationPoint) {
+    Optional<LocationGrid.Entry> maybeGridEntry = lookupGrid(locationPoint);
+    if (maybeGridEntry.isPresent()
+        && maybeGridEntry.get().ayuntamientoId().equals(ayuntamiento.getId())) {
+      return fromGridEntry(maybeGridEntry.get());
+    }
+
+    CodigoPostal codigoPostal = findCodigoPostal(ayuntamiento, locationPoint);
+    Optional<Barrio> maybeBarrio = findBarrio(ayuntamiento, locationPoint);
+
+    return maybeBarrio
+        .map(barrio -> new AcantiladoLocation(ayuntamiento, codigoPostal, barrio))
+        .orElseGet(() -> new AcantiladoLocation(ayuntamiento, codigoPostal));
+  }
+
+  public Ayuntamiento findAyuntamiento(Point locationPoint) {
+    Optional<LocationGrid.Entry> maybeGridEntry = lookupGrid(locationPoint);
+    if (maybeGridEntry.isPresent()) {
+      return ayuntamientosById.get(maybeGridEntry.get().ayuntamientoId());
+    }
+
+    Optional<Ayuntamiento> maybeContainingAyuntamiento =
+        ayuntamientoIndex.findContaining(locationPoint);
+    if (maybeContainingAyuntamiento.isPresent()) {
+      LOGGER.debug("Point is inside ayuntamiento {}", maybeContainingAyuntamiento.get().getName());
+      return maybeContainingAyuntamiento.get();
+    }
+
+    Optional<Ayuntamiento> maybeClosestAyuntamiento =
+        ayuntamientoIndex
+            .findNearest(locationPoint)
+            .map(
+                closest -> {
+                  LOGGER.debug(
+                      "Selecting closest ayuntamiento {} for location {}",
+                      closest.getName(),
+                      locationPoint);
+                  return closest;
+                });
+
+    return maybeClosestAyuntamiento.orElseThrow();
+  }
+
+  private CodigoPostal findCodigoPostal(Ayuntamiento ayuntamiento, Point locationPoint) {
+    GeometryIndex<CodigoPostal> postcodesForAyuntamiento =
+        this.postcodeIndexByAyuntamiento.get(ayuntamiento.getId());
+
+    if (postcodesForAyuntamiento == null || postcodesForAyuntamiento.isEmpty()) {
+      LOGGER.warn(
+          "No postcodes found for ayuntamiento {} - location may be outside province boundaries",
+          ayuntamiento.getId());
+      throw new IllegalStateException(
+          "No postcodes available for ayuntamiento "
+              + ayuntamiento.getName()
+              + " ("
+              + ayuntamiento.getId()
+              + ")");
+    }
+
+    Optional<CodigoPostal> maybeCoveringPostcode =
+        postcodesForAyuntamiento.findCovering(locationPoint);
+    if (maybeCoveringPostcode.isPresent()) {
+      return maybeCoveringPostcode.get();
+    }
+
+    Optional<CodigoPostal> maybeClosestPostcode =
+        postcodesForAyuntamiento
+            .findNearest(locationPoint)
+            .map(
+                closest -> {
+                  LOGGER.debug(
+                      "Selecting closest postcode {} for location {}",
+                      closest.getCodigoPostal(),
+                      locationPoint);
+                  return closest;
+                });
+
+    return maybeClosestPostcode.orElseThrow();
+  }
+
+  private Optional<Barrio> findBarrio(Ayuntamiento ayuntamiento, Point point) {
+    GeometryIndex<Barrio> barriosForAyuntamiento =
+        barrioIndexByAyuntamiento.get(ayuntamiento.getId());
+
+    return barriosForAyuntamiento == null
+        ? Optional.empty()
+        : barriosForAyuntamiento.findContaining(point);
+  }
+
+  /**
+   * Returns the identifiers every point of the cell resolves to, or empty if the cell touches the
+   * boundary of an ayuntamiento, postcode or barrio and therefore needs exact tests.
+   */
+  Optional<LocationGrid.Entry> classifyInteriorCell(Geometry cell) {
+    Optional<Ayuntamiento> maybeAyuntamiento = ayuntamientoIndex.findContainingProperly(cell);
+    if (maybeAyuntamiento.isEmpty()) {
+      return Optional.empty();
+    }
+    String ayuntamientoId = maybeAyuntamiento.get().getId();
+
+    GeometryIndex<CodigoPostal> postcodes = postcodeIndexByAyuntamiento.get(ayuntamientoId);
+    Optional<CodigoPostal> maybePostcode =
+        postcodes == null ? Optional.empty() : postcodes.findContainingProperly(cell);
+    if (maybePostcode.isEmpty()) {
+      return Optional.empty();
+    }
+
+    GeometryIndex<Barrio> barrios = barrioIndexByAyuntamiento.get(ayuntamientoId);
+    Optional<Long> maybeBarrioId = Optional.empty();
+    if (barrios != null) {
+      Optional<Barrio> maybeBarrio = barrios.findContainingProperly(cell);
+      if (maybeBarrio.isPresent() && maybeBarrio.get().getId() != null) {
+        maybeBarrioId = Optional.of(maybeBarrio.get().getId());
+      } else if (barrios.intersectsAny(cell)) {
+        return Optional.empty();
+      }
+    }
+
+    return Optional.of(
+        new LocationGrid.Entry(ayuntamientoId, maybePostcode.get().getCodigoIne(), maybeBarrioId));
+  }
+
+  private Optional<LocationGrid.Entry> lookupGrid(Point locationPoint) {
+    return grid == null
+        ? Optional.empty()
+        : grid.lookup(locationPoint.getX(), locationPoint.getY());
+  }
+
+  private AcantiladoLocation fromGridEntry(LocationGrid.Entry entry) {
+    Ayuntamiento ayuntamiento = ayuntamientosById.get(entry.ayuntamientoId());
+    CodigoPostal codigoPostal = postcodesByCodigoIne.get(entry.codigoIne());
+
+    return entry
+        .barrioId()
+        .map(
+            barrioId ->
+                new AcantiladoLocation(ayuntamiento, codigoPostal, barriosById.get(barrioId)))
+        .orElseGet(() -> new AcantiladoLocation(ayuntamiento, codigoPostal));
+  }
+
+  private static long computeFingerprint(
+      Set<Ayuntamiento> ayuntamientos, Set<CodigoPostal> postcodes, Set<Barrio> barrios) {
+    Hasher hasher = Hashing.murmur3_128().newHasher();
+    ayuntamientos.stream()
+        .sorted(Comparator.comparing(Ayuntamiento::getId))
+        .forEach(a -> putGeometry(hasher, a.getId(), a.getGeometry()));
+    postcodes.stream()
+        .sorted(Comparator.comparing(CodigoPostal::getCodigoIne))
+        .forEach(p -> putGeometry(hasher, p.getCodigoIne(), p.getGeometry()));
+    barrios.stream()
+        .sorted(Comparator.comparing(Barrio::getAyuntamientoId).thenComparing(Barrio::getName))
+        .forEach(b -> putGeometry(hasher, String.valueOf(b.getId()), b.getGeometry()));
+    return hasher.hash().asLong();
+  }
+
+  private static void putGeometry(Hasher hasher, String id, Geometry geometry) {
+    byte[] wkb = GeometryCodec.toWkb(geometry);
+    hasher.putString(id, StandardCharsets.UTF_8).putInt(wkb.length).putBytes(wkb);
+  }
+
+  private static <T> long countCoordinates(
+      Collection<T> values, Function<T, Geometry> geometryFunction) {
+    return values.stream().mapToLong(value -> geometryFunction.apply(value).getNumPoints()).sum();
+  }
+}
@@ -0,0 +1,46 @@
+package com.acantilado.core.spatial;
+
+/**
+ * SQL fragments and plain-Java fallbacks shared by DAOs that support spatial predicates.
+ *
+ * <p>With PostGIS enabled, the {@code postgis} changesets add a generated {@code location} point
+ * column to tables with latitude/longitude and a generated {@code boundary} column to tables with
+ * WKB geometries, each with a GiST index, so DAOs can push predicates into SQL. Without PostGIS,
+ * DAOs narrow down with plain column filters where they can and finish the predicate in Java.
+ */
+public final class SpatialQueries {
+  private static final double EARTH_RADIUS_METERS = 6_371_008.8;
+  private static final double METERS_PER_DEGREE = Math.toRadians(EARTH_RADIUS_METERS);
+
+  /** WGS84 point built from the {@code :latitude} and {@code :longitude} parameters. */
+  public static final String POINT = "ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326)";
+
+  /** WGS84 envelope built from the {@code :minLat}, {@code :minLon}, ... parameters. */
+  public static final String ENVELOPE =
+      "ST_MakeEnvelope(:minLon, :minLat, :maxLon, :maxLat, 4326)";
+
+  private SpatialQueries() {}
+
+  /** Great-circle distance in meters between two WGS84 coordinates. */
+  public static double distanceMeters(
+      double latitude, double longitude, double otherLatitude, double otherLongitude) {
+    double latitudeDelta = Math.toRadians(otherLatitude - latitude);
+    double longitudeDelta = Math.toRadians(otherLongitude - longitude);
+    double a =
+        Math.pow(Math.sin(latitudeDelta / 2), 2)
+            + Math.cos(Math.toRadians(latitude))
+                * Math.cos(Math.toRadians(otherLatitude))
+                * Math.pow(Math.sin(longitudeDelta / 2), 2);
+    return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+  }
+
+  /** Latitude span in degrees covering the given distance. */
+  public static double latitudeDegrees(double meters) {
+    return meters / METERS_PER_DEGREE;
+  }
+
+  /** Longitude span in degrees covering the given distance at the given latitude. */
+  public static double longitudeDegrees(double meters, double latitude) {
+    return meters / (METERS_PER_DEGREE * Math.max(0.01, Math.cos(Math.toRadians(latitude))));
+  }
+}
@@ -0,0 +1,244 @@
+package com.acantilado.core.idealista;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.acantilado.core.idealista.priceRecords.IdealistaPropertyPriceRecord;
+import com.acantilado.core.idealista.priceRecords.IdealistaTerrainPriceRecord;
+import com.acantilado.core.idealista.realEstate.IdealistaProperty;
+import com.acantilado.core.idealista.realEstate.IdealistaTerrain;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.Environment;
+import org.hibernate.context.internal.ManagedSessionContext;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+@Testcontainers(disabledWithoutDocker = true)
+class IdealistaRealEstateBulkWriterTest {
+  @Container
+  private static final PostgreSQLContainer<?> POSTGRES =
+      new PostgreSQLContainer<>("postgres:16-alpine");
+
+  private static StandardServiceRegistry serviceRegistry;
+  private static SessionFactory sessionFactory;
+
+  @BeforeAll
+  static void setUp() {
+    serviceRegistry =
+        new StandardServiceRegistryBuilder()
+            .applySetting(Environment.URL, POSTGRES.getJdbcUrl())
+            .applySetting(Environment.USER, POSTGRES.getUsername())
+            .applySetting(Environment.PASS, POSTGRES.getPassword())
+            .applySetting(Environment.HBM2DDL_AUTO, "create-drop")
+            .applySetting(Environment.CURRENT_SESSION_CONTEXT_CLASS, "managed")
+            .build();
+    sessionFactory =
+        new MetadataSources(serviceRegistry)
+            .addAnnotatedClass(IdealistaProperty.class)
+            .addAnnotatedClass(IdealistaPropertyPriceRecord.class)
+            .addAnnotatedClass(IdealistaTerrain.class)
+            .addAnnotatedClass(IdealistaTerrainPriceRecord.class)
+            .addAnnotatedClass(IdealistaContactInformation.class)
+            .buildMetadata()
+            .buildSessionFactory();
+  }
+
+  @AfterAll
+  static void tearDown() {
+    sessionFactory.close();
+    StandardServiceRegistryBuilder.destroy(serviceRegistry);
+  }
+
+  @AfterEach
+  void clearListings() {
+    inTransaction(
+        () ->
+            sessionFactory
+                .getCurrentSession()
+                .createNativeMutationQuery("TRUNCATE idealista_terrain, idealista_property CASCADE")
+                .executeUpdate());
+  }
+
+  @Test
+  void write_newTerrains_areInsertedWithTheirPrice() {
+    // Given
+    IdealistaRealEstateBulkWriter<IdealistaTerrain> writer =
+        IdealistaRealEstateBulkWriter.forTerrains(sessionFactory);
+
+    // When
+    IdealistaRealEstateBulkWriter.Outcome outcome =
+        inTransaction(
+            () -> writer.write(List.of(terrain(1L, 100_000L, 10L), terrain(2L, 5L, 10L))));
+
+    // Then
+    assertEquals(Set.of(1L, 2L), outcome.inserted());
+    assertTrue(outcome.priceChanged().isEmpty());
+    assertEquals(List.of(100_000L), prices("idealista_terrain_price_records", 1L));
+    assertEquals(List.of(5L), prices("idealista_terrain_price_records", 2L));
+  }
+
+  @Test
+  void write_knownTerrain_refreshesLastSeenAndRecordsChangedPrice() {
+    // Given
+    IdealistaRealEstateBulkWriter<IdealistaTerrain> writer =
+        IdealistaRealEstateBulkWriter.forTerrains(sessionFactory);
+    inTransaction(() -> writer.write(List.of(terrain(1L, 100_000L, 10L))));
+
+    // When
+    IdealistaRealEstateBulkWriter.Outcome outcome =
+        inTransaction(() -> writer.write(List.of(terrain(1L, 90_000L, 20L))));
+
+    // Then: first seen is kept, and the new price is recorded next to the old one
+    assertTrue(outcome.inserted().isEmpty());
+    assertEquals(Set.of(1L), outcome.priceChanged());
+    assertEquals(List.of(10L, 20L), seen("idealista_terrain", 1L));
+    assertEquals(List.of(90_000L, 100_000L), prices("idealista_terrain_price_records", 1L));
+  }
+
+  @Test
+  void write_unchangedPrice_recordsNothing() {
+    // Given
+    IdealistaRealEstateBulkWriter<IdealistaTerrain> writer =
+        IdealistaRealEstateBulkWriter.forTerrains(sessionFactory);
+    inTransaction(() -> writer.write(List.of(terrain(1L, 100_000L, 10L))));
+
+    // When
+    IdealistaRealEstateBulkWriter.Outcome outcome =
+        inTransaction(() -> writer.write(List.of(terrain(1L, 100_000L, 20L))));
+
+    // Then
+    assertEquals(0, outcome.changed());
+    assertEquals(List.of(10L, 20L), seen("idealista_terrain", 1L));
+    assertEquals(List.of(100_000L), prices("idealista_terrain_price_records", 1L));
+  }
+
+  @Test
+  void write_properties_upsertsThroughTheirOwnTables() {
+    // Given
+    IdealistaRealEstateBulkWriter<IdealistaProperty> writer =
+        IdealistaRealEstateBulkWriter.forProperties(sessionFactory);
+    inTransaction(() -> writer.write(List.of(property(1L, 250_000L, 10L))));
+
+    // When: the same listing comes back twice in one chunk, the last one repriced
+    IdealistaRealEstateBulkWriter.Outcome outcome =
+        inTransaction(
+            () ->
+                writer.write(
+                    List.of(
+                        property(1L, 250_000L, 20L),
+                        property(1L, 240_000L, 30L),
+                        property(2L, 300_000L, 30L))));
+
+    // Then
+    assertEquals(Set.of(2L), outcome.inserted());
+    assertEquals(Set.of(1L), outcome.priceChanged());
+    assertEquals(List.of(10L, 30L), seen("idealista_property", 1L));
+    assertEquals(List.of(240_000L, 250_000L), prices("idealista_property_price_records", 1L));
+    assertEquals(List.of(300_000L), prices("idealista_property_price_records", 2L));
+  }
+
+  private static IdealistaTerrain terrain(long propertyCode, long price, long seenAt) {
+    IdealistaTerrain terrain =
+        new IdealistaTerrain(
+            propertyCode,
+            "sale",
+            "A plot",
+            500,
+            "land",
+            "Calle Mayor 1",
+            null,
+            "Madrid",
+            "0-EU-ES-28-07-001-079",
+            40.4168,
+            -3.7038,
+            seenAt,
+            seenAt);
+    terrain.setAcantiladoLocationId("28079-28001");
+    terrain.getPriceRecords().add(new IdealistaTerrainPriceRecord(propertyCode, price, seenAt));
+    return terrain;
+  }
+
+  private static IdealistaProperty property(long propertyCode, long price, long seenAt) {
+    IdealistaProperty property =
+        new IdealistaProperty(
+            propertyCode,
+            "sale",
+            "A flat",
+            90,
+            "flat",
+            "Calle Mayor 2",
+            null,
+            "Madrid",
+            "0-EU-ES-28-07-001-079",
+            40.4168,
+            -3.7038,
+            seenAt,
+            seenAt);
+    property.setAcantiladoLocationId("28079-28001");
+    property.setPropertyType("flat");
+    property.getPriceRecords().add(new IdealistaPropertyPriceRecord(propertyCode, price, seenAt));
+    return property;
+  }
+
+  /** First and last seen of the stored listing. */
+  private static List<Long> seen(String table, long propertyCode) {
+    Object[] row =
+        inTransaction(
+            () ->
+                sessionFactory
+                    .getCurrentSession()
+                    .createNativeQuery(
+                        "SELECT first_seen, last_seen FROM "
+                            + table
+                            + " WHERE property_code = :propertyCode",
+                        Object[].class)
+                    .setParameter("propertyCode", propertyCode)
+                    .getSingleResult());
+    return List.of(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+  }
+
+  /** Recorded prices of the listing, newest first. */
+  private static List<Long> prices(String table, long propertyCode) {
+    return inTransaction(
+        () ->
+            sessionFactory
+                .getCurrentSession()
+                .createNativeQuery(
+                    "SELECT price FROM "
+                        + table
+                        + " WHERE property_code = :propertyCode ORDER BY recorded_at DESC, id DESC",
+                    Long.class)
+                .setParameter("propertyCode", propertyCode)
+                .getResultList());
+  }
+
+  private static <T> T inTransaction(Supplier<T> work) {
+    Session session = sessionFactory.openSession();
+    Transaction transaction = session.beginTransaction();
+    ManagedSessionContext.bind(session);
+
+    try {
+      T result = work.get();
+      transaction.commit();
+      return result;
+    } catch (RuntimeException e) {
+      transaction.rollback();
+      throw e;
+    } finally {
+      ManagedSessionContext.unbind(sessionFactory);
+      session.close();
+    }
+  }
+}
@@ -0,0 +1,13 @@
+package com.acantilado.core.idealista;
+
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.Environment;
+
+class IdealistaRealEstateDAOH2Test extends IdealistaRealEstateDAOTest {
+  @Override
+  StandardServiceRegistryBuilder connect(StandardServiceRegistryBuilder builder) {
+    return builder
+        .applySetting(Environment.URL, "jdbc:h2:mem:real-estate;DB_CLOSE_DELAY=-1")
+        .applySetting(Environment.USER, "sa");
+  }
+}
@@ -0,0 +1,22 @@
+package com.acantilado.core.idealista;
+
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.Environment;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+@Testcontainers(disabledWithoutDocker = true)
+class IdealistaRealEstateDAOPostgresTest extends IdealistaRealEstateDAOTest {
+  @Container
+  private static final PostgreSQLContainer<?> POSTGRES =
+      new PostgreSQLContainer<>("postgres:16-alpine");
+
+  @Override
+  StandardServiceRegistryBuilder connect(StandardServiceRegistryBuilder builder) {
+    return builder
+        .applySetting(Environment.URL, POSTGRES.getJdbcUrl())
+        .applySetting(Environment.USER, POSTGRES.getUsername())
+        .applySetting(Environment.PASS, POSTGRES.getPassword());
+  }
+}
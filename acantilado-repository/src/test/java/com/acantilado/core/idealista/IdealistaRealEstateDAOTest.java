@@ -0,0 +1,215 @@
+package com.acantilado.core.idealista;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.acantilado.core.idealista.priceRecords.IdealistaPropertyPriceRecord;
+import com.acantilado.core.idealista.priceRecords.IdealistaTerrainPriceRecord;
+import com.acantilado.core.idealista.realEstate.IdealistaProperty;
+import com.acantilado.core.idealista.realEstate.IdealistaTerrain;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.Environment;
+import org.hibernate.context.internal.ManagedSessionContext;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+/**
+ * The batch lookups of {@link IdealistaRealEstateDAO}, run against every database the collector
+ * stores listings in, since the latest prices come from a native query.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+abstract class IdealistaRealEstateDAOTest {
+  private StandardServiceRegistry serviceRegistry;
+  private SessionFactory sessionFactory;
+  private IdealistaPropertyDAO propertyDAO;
+
+  /** Points the registry at the database under test. */
+  abstract StandardServiceRegistryBuilder connect(StandardServiceRegistryBuilder builder);
+
+  @BeforeAll
+  void setUp() {
+    serviceRegistry =
+        connect(new StandardServiceRegistryBuilder())
+            .applySetting(Environment.HBM2DDL_AUTO, "create-drop")
+            .applySetting(Environment.CURRENT_SESSION_CONTEXT_CLASS, "managed")
+            .build();
+    sessionFactory =
+        new MetadataSources(serviceRegistry)
+            .addAnnotatedClass(IdealistaProperty.class)
+            .addAnnotatedClass(IdealistaPropertyPriceRecord.class)
+            .addAnnotatedClass(IdealistaTerrain.class)
+            .addAnnotatedClass(IdealistaTerrainPriceRecord.class)
+            .addAnnotatedClass(IdealistaContactInformation.class)
+            .buildMetadata()
+            .buildSessionFactory();
+    propertyDAO = new IdealistaPropertyDAO(sessionFactory);
+  }
+
+  @AfterAll
+  void tearDown() {
+    sessionFactory.close();
+    StandardServiceRegistryBuilder.destroy(serviceRegistry);
+  }
+
+  @AfterEach
+  void clearListings() {
+    inTransaction(
+        () -> {
+          Session session = sessionFactory.getCurrentSession();
+          session.createMutationQuery("DELETE FROM IdealistaPropertyPriceRecord").executeUpdate();
+          return session.createMutationQuery("DELETE FROM IdealistaProperty").executeUpdate();
+        });
+  }
+
+  @Test
+  void findByPropertyCodes_returnsTheStoredListingsAcrossChunks() {
+    // Given: stored listings at both ends of more codes than fit in one IN list
+    inTransaction(
+        () -> {
+          propertyDAO.create(property(1L, Map.of(10L, 250_000L)));
+          propertyDAO.create(property(2_500L, Map.of(10L, 300_000L)));
+          return null;
+        });
+    List<Long> propertyCodes = LongStream.rangeClosed(1, 2_500).boxed().toList();
+
+    // When
+    List<IdealistaProperty> found =
+        inTransaction(() -> propertyDAO.findByPropertyCodes(propertyCodes));
+
+    // Then
+    assertEquals(
+        Set.of(1L, 2_500L),
+        found.stream().map(IdealistaProperty::getPropertyCode).collect(Collectors.toSet()));
+  }
+
+  @Test
+  void findByPropertyCodes_withNoCodes_findsNothing() {
+    // When
+    List<IdealistaProperty> found = inTransaction(() -> propertyDAO.findByPropertyCodes(List.of()));
+
+    // Then
+    assertTrue(found.isEmpty());
+  }
+
+  @Test
+  void findLatestPrices_picksTheMostRecentRecordOfEachListing() {
+    // Given
+    inTransaction(
+        () -> {
+          propertyDAO.create(property(1L, Map.of(10L, 250_000L, 30L, 240_000L, 20L, 245_000L)));
+          propertyDAO.create(property(2L, Map.of(10L, 300_000L)));
+          propertyDAO.create(property(3L, Map.of()));
+          return null;
+        });
+
+    // When
+    Map<Long, Long> latestPrices =
+        inTransaction(() -> propertyDAO.findLatestPrices(List.of(1L, 2L, 3L, 4L, 1L)));
+
+    // Then: listings without price records, and unknown codes, are left out
+    assertEquals(Map.of(1L, 240_000L, 2L, 300_000L), latestPrices);
+  }
+
+  @Test
+  void findLatestPrices_breaksTiesByTheLastRecordStored() {
+    // Given: two records with the same timestamp, the second one stored later
+    inTransaction(
+        () -> {
+          IdealistaProperty property = property(1L, Map.of(10L, 250_000L));
+          property.getPriceRecords().add(priceRecord(property, 10L, 240_000L));
+          return propertyDAO.create(property);
+        });
+
+    // When
+    Map<Long, Long> latestPrices = inTransaction(() -> propertyDAO.findLatestPrices(List.of(1L)));
+
+    // Then
+    assertEquals(Map.of(1L, 240_000L), latestPrices);
+  }
+
+  @Test
+  void findLatestPrices_acrossChunks_coversEveryListing() {
+    // Given
+    inTransaction(
+        () -> {
+          propertyDAO.create(property(1L, Map.of(10L, 250_000L)));
+          propertyDAO.create(property(2_500L, Map.of(10L, 300_000L)));
+          return null;
+        });
+    List<Long> propertyCodes = LongStream.rangeClosed(1, 2_500).boxed().toList();
+
+    // When
+    Map<Long, Long> latestPrices = inTransaction(() -> propertyDAO.findLatestPrices(propertyCodes));
+
+    // Then
+    assertEquals(Map.of(1L, 250_000L, 2_500L, 300_000L), latestPrices);
+  }
+
+  /** A listing with a price record per timestamp, stored in timestamp order. */
+  private static IdealistaProperty property(long propertyCode, Map<Long, Long> pricesBySeenAt) {
+    IdealistaProperty property =
+        new IdealistaProperty(
+            propertyCode,
+            "sale",
+            "A flat",
+            90,
+            "flat",
+            "Calle Mayor 2",
+            null,
+            "Madrid",
+            "0-EU-ES-28-07-001-079",
+            40.4168,
+            -3.7038,
+            10L,
+            10L);
+    property.setAcantiladoLocationId("28079-28001");
+    property.setPropertyType("flat");
+    pricesBySeenAt.entrySet().stream()
+        .sorted(Map.Entry.comparingByKey())
+        .forEach(
+            entry ->
+                property
+                    .getPriceRecords()
+                    .add(priceRecord(property, entry.getKey(), entry.getValue())));
+    return property;
+  }
+
+  private static IdealistaPropertyPriceRecord priceRecord(
+      IdealistaProperty property, long seenAt, long price) {
+    IdealistaPropertyPriceRecord priceRecord =
+        new IdealistaPropertyPriceRecord(property.getPropertyCode(), price, seenAt);
+    priceRecord.setProperty(property);
+    return priceRecord;
+  }
+
+  private <T> T inTransaction(Supplier<T> work) {
+    Session session = sessionFactory.openSession();
+    Transaction transaction = session.beginTransaction();
+    ManagedSessionContext.bind(session);
+
+    try {
+      T result = work.get();
+      transaction.commit();
+      return result;
+    } catch (RuntimeException e) {
+      transaction.rollback();
+      throw e;
+    } finally {
+      ManagedSessionContext.unbind(sessionFactory);
+      session.close();
+    }
+  }
+}
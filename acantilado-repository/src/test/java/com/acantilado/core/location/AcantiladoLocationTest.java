@@ -1,8 +1,7 @@
-package location;
+package com.acantilado.core.location;
 
 import static org.mockito.Mockito.when;
 
-import com.acantilado.collection.location.AcantiladoLocation;
 import com.acantilado.core.administrative.*;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
@@ -0,0 +1,51 @@
+package com.acantilado.core.location;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+
+class GeometryIndexTest {
+  private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+  private static final double PROXIMITY = 0.005;
+
+  private final Random random = new Random(11);
+
+  @Test
+  void findWithinDistance_matchesExactDistanceScan() {
+    // Given: boxes scattered so that some overlap, some nearly touch and most are far apart
+    List<Geometry> geometries = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      geometries.add(randomBox(10));
+    }
+    GeometryIndex<Geometry> index = new GeometryIndex<>(geometries, geometry -> geometry);
+
+    for (int i = 0; i < 500; i++) {
+      // When
+      Geometry query = randomBox(10);
+      Set<Geometry> found = new HashSet<>(index.findWithinDistance(query, PROXIMITY));
+
+      // Then
+      for (Geometry geometry : geometries) {
+        assertEquals(
+            query.distance(geometry) <= PROXIMITY,
+            found.contains(geometry),
+            "Different result for " + geometry + " near " + query);
+      }
+    }
+  }
+
+  private Geometry randomBox(double extent) {
+    double minX = random.nextDouble() * extent;
+    double minY = random.nextDouble() * extent;
+    return GEOMETRY_FACTORY.toGeometry(
+        new Envelope(
+            minX,
+            minX + random.nextDouble() * 0.3,
+            minY,
+            minY + random.nextDouble() * 0.3));
+  }
+}
@@ -0,0 +1,152 @@
+package com.acantilado.core.location;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.acantilado.core.administrative.Ayuntamiento;
+import com.acantilado.core.administrative.Barrio;
+import com.acantilado.core.administrative.CodigoPostal;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+
+class LocationGridTest {
+  private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+  private static final double CELL_SIZE = 0.05;
+
+  private final Random random = new Random(7);
+
+  private ProvinceLocationIndex index;
+
+  @BeforeEach
+  void setUp() {
+    // Given: four ayuntamientos in a 2x2 layout, each split into two postcodes, with a barrio in
+    // one of them
+    Set<Ayuntamiento> ayuntamientos = new HashSet<>();
+    Map<String, Set<CodigoPostal>> postcodes = new HashMap<>();
+    for (int x = 0; x < 2; x++) {
+      for (int y = 0; y < 2; y++) {
+        String id = "0" + x + y;
+        ayuntamientos.add(new Ayuntamiento(id, id, "01", "01", box(x, y, x + 1, y + 1)));
+        postcodes.put(
+            id,
+            Set.of(
+                new CodigoPostal(id + "-a", id + "a", box(x, y, x + 0.5, y + 1)),
+                new CodigoPostal(id + "-b", id + "b", box(x + 0.5, y, x + 1, y + 1))));
+      }
+    }
+
+    Barrio barrio = new Barrio("someBarrio", "000", box(0.1, 0.1, 0.3, 0.4));
+    barrio.setId(1L);
+
+    index = new ProvinceLocationIndex("01", ayuntamientos, postcodes, Set.of(barrio));
+  }
+
+  @Test
+  void build_interiorCellsResolveLikePolygonTests() {
+    // Given
+    LocationGrid grid = LocationGrid.build(index, CELL_SIZE);
+    ProvinceLocationIndex gridIndex = index.withGrid(grid);
+
+    // Then: most cells are interior, and every point resolves exactly as without the grid
+    assertTrue(grid.getInteriorRatio() > 0.5);
+    for (int i = 0; i < 10_000; i++) {
+      Point point =
+          GEOMETRY_FACTORY.createPoint(
+              new Coordinate(random.nextDouble() * 2.2 - 0.1, random.nextDouble() * 2.2 - 0.1));
+
+      assertEquals(
+          index.resolve(point).getIdentifier(),
+          gridIndex.resolve(point).getIdentifier(),
+          "Different location for " + point);
+    }
+  }
+
+  @Test
+  void writeAndRead_roundTripsEveryCell() throws IOException {
+    // Given
+    LocationGrid grid = LocationGrid.build(index, CELL_SIZE);
+
+    // When
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    grid.write(outputStream);
+    LocationGrid readGrid = LocationGrid.read(new ByteArrayInputStream(outputStream.toByteArray()));
+
+    // Then
+    assertEquals(grid.getFingerprint(), readGrid.getFingerprint());
+    for (double x = 0; x < 2; x += CELL_SIZE / 3) {
+      for (double y = 0; y < 2; y += CELL_SIZE / 3) {
+        assertEquals(grid.lookup(x, y), readGrid.lookup(x, y));
+      }
+    }
+  }
+
+  @Test
+  void lookup_ofNonFiniteCoordinates_isEmpty() {
+    // Given
+    LocationGrid grid = LocationGrid.build(index, CELL_SIZE);
+
+    // Then: none of them is cast into a cell
+    assertTrue(grid.lookup(Double.NaN, 0.75).isEmpty());
+    assertTrue(grid.lookup(0.75, Double.NaN).isEmpty());
+    assertTrue(grid.lookup(Double.POSITIVE_INFINITY, 0.75).isEmpty());
+    assertTrue(grid.lookup(0.75, Double.NEGATIVE_INFINITY).isEmpty());
+    assertTrue(grid.lookup(0.75, 0.75).isPresent());
+  }
+
+  @Test
+  void withGrid_rejectsGridFromOtherGeometries() {
+    // Given: a grid computed for a province with different boundaries
+    ProvinceLocationIndex otherIndex =
+        new ProvinceLocationIndex(
+            "02",
+            Set.of(new Ayuntamiento("100", "100", "02", "01", box(0, 0, 3, 3))),
+            Map.of("100", Set.of(new CodigoPostal("100-a", "100a", box(0, 0, 3, 3)))),
+            Set.of());
+    LocationGrid otherGrid = LocationGrid.build(otherIndex, CELL_SIZE);
+
+    // When / Then
+    assertThrows(IllegalArgumentException.class, () -> index.withGrid(otherGrid));
+  }
+
+  @Test
+  void fingerprint_changesWhenAVertexMoves() {
+    // Given: the same square, with its top edge split at a different point, so point count, area
+    // and envelope all stay the same
+    ProvinceLocationIndex split = squareSplitAt(0.5);
+    ProvinceLocationIndex moved = squareSplitAt(0.3);
+
+    // Then
+    assertEquals(split.getFingerprint(), squareSplitAt(0.5).getFingerprint());
+    assertNotEquals(split.getFingerprint(), moved.getFingerprint());
+  }
+
+  private static ProvinceLocationIndex squareSplitAt(double x) {
+    Geometry square =
+        GEOMETRY_FACTORY.createPolygon(
+            new Coordinate[] {
+              new Coordinate(0, 0),
+              new Coordinate(1, 0),
+              new Coordinate(1, 1),
+              new Coordinate(x, 1),
+              new Coordinate(0, 1),
+              new Coordinate(0, 0)
+            });
+    return new ProvinceLocationIndex(
+        "03",
+        Set.of(new Ayuntamiento("200", "200", "03", "01", square)),
+        Map.of("200", Set.of(new CodigoPostal("200-a", "200a", box(0, 0, 1, 1)))),
+        Set.of());
+  }
+
+  private static Geometry box(double minX, double minY, double maxX, double maxY) {
+    return GEOMETRY_FACTORY.toGeometry(new Envelope(minX, maxX, minY, maxY));
+  }
+}
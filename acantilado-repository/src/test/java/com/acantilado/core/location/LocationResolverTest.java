@@ -0,0 +1,156 @@
+package com.acantilado.core.location;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.acantilado.core.administrative.Ayuntamiento;
+import com.acantilado.core.administrative.AyuntamientoDAO;
+import com.acantilado.core.administrative.BarrioDAO;
+import com.acantilado.core.administrative.CodigoPostal;
+import com.acantilado.core.administrative.CodigoPostalDAO;
+import com.acantilado.core.administrative.Provincia;
+import com.acantilado.core.administrative.ProvinciaDAO;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+
+class LocationResolverTest {
+  private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+
+  /** Each province is one ayuntamiento with one postcode: two boxes of five coordinates. */
+  private static final long COORDINATES_PER_PROVINCE = 10;
+
+  private final ProvinciaDAO provinciaDAO = mock(ProvinciaDAO.class);
+  private final AyuntamientoDAO ayuntamientoDAO = mock(AyuntamientoDAO.class);
+  private final CodigoPostalDAO codigoPostalDAO = mock(CodigoPostalDAO.class);
+  private final BarrioDAO barrioDAO = mock(BarrioDAO.class);
+  private final SessionFactory sessionFactory = mock(SessionFactory.class, RETURNS_DEEP_STUBS);
+
+  @TempDir Path gridDirectory;
+
+  @BeforeEach
+  void setUp() {
+    // Given: two provinces side by side, 01 west of 02
+    List<Provincia> provincias = List.of(province("01", 0), province("02", 2));
+    when(provinciaDAO.findAll()).thenReturn(provincias);
+    for (Provincia provincia : provincias) {
+      String id = provincia.getId();
+      Geometry geometry = provincia.getGeometry();
+      when(provinciaDAO.findById(id)).thenReturn(Optional.of(provincia));
+      when(ayuntamientoDAO.findByProvinceId(id))
+          .thenReturn(List.of(new Ayuntamiento(id + "001", id + "001", id, "01", geometry)));
+      when(codigoPostalDAO.findByAyuntamiento(id + "001"))
+          .thenReturn(List.of(new CodigoPostal(id + "001-a", id + "000", geometry)));
+    }
+  }
+
+  @Test
+  void resolve_loadsEachProvinceOnce() {
+    // Given
+    LocationResolver resolver = resolver(1_000);
+
+    // When
+    AcantiladoLocation first = resolver.resolve(point(0.5, 0.5)).orElseThrow();
+    AcantiladoLocation second = resolver.resolve(point(1.5, 1.5)).orElseThrow();
+
+    // Then: the second lookup is served by the cached index
+    assertEquals("01001", first.getAyuntamiento().getId());
+    assertEquals("01001", second.getAyuntamiento().getId());
+    verify(provinciaDAO, times(1)).findById("01");
+    verify(provinciaDAO, never()).findById("02");
+  }
+
+  @Test
+  void resolve_outsideEveryProvince_usesNearestProvince() {
+    // Given
+    LocationResolver resolver = resolver(1_000);
+
+    // When
+    Optional<AcantiladoLocation> location = resolver.resolve(point(4.2, 1));
+
+    // Then
+    assertEquals("02001", location.orElseThrow().getAyuntamiento().getId());
+  }
+
+  @Test
+  void provinceIndexes_areEvicted_beyondCoordinateBudget() {
+    // Given: room for a single province
+    LocationResolver resolver = resolver(COORDINATES_PER_PROVINCE + 1);
+
+    // When
+    resolver.resolve(point(0.5, 0.5));
+    resolver.resolve(point(2.5, 0.5));
+    resolver.resolve(point(0.5, 0.5));
+    resolver.resolve(point(2.5, 0.5));
+
+    // Then: both never fit at once, so at least one of them had to be loaded again
+    verify(provinciaDAO, atLeast(3)).findById(anyString());
+  }
+
+  @Test
+  void rebuild_discardsIndexesAndPersistedGrids() {
+    // Given
+    LocationResolver resolver = resolver(1_000);
+    resolver.resolve(point(0.5, 0.5));
+    assertTrue(Files.exists(gridDirectory.resolve("01.grid")));
+
+    // When
+    resolver.rebuild();
+    AcantiladoLocation location = resolver.resolve(point(0.5, 0.5)).orElseThrow();
+
+    // Then: provinces and the province index are read from the database again
+    assertEquals("01001", location.getAyuntamiento().getId());
+    verify(provinciaDAO, times(2)).findAll();
+    verify(provinciaDAO, times(2)).findById("01");
+  }
+
+  @Test
+  void resolveAll_matchesResolve_acrossProvinces() {
+    // Given
+    LocationResolver resolver = resolver(1_000);
+    List<Point> points =
+        Arrays.asList(point(0.5, 0.5), point(0.7, 1.2), point(3.1, 0.4), point(1.9, 1.9));
+
+    // When
+    List<AcantiladoLocation> locations = resolver.resolveAll(points);
+
+    // Then
+    for (int i = 0; i < points.size(); i++) {
+      assertEquals(
+          resolver.resolve(points.get(i)).orElseThrow().getAyuntamiento().getId(),
+          locations.get(i).getAyuntamiento().getId());
+    }
+  }
+
+  private LocationResolver resolver(long maxCoordinates) {
+    LocationResolverConfig config = new LocationResolverConfig();
+    config.setMaxCoordinates(maxCoordinates);
+    config.setGridCellDegrees(0.1);
+    config.setGridDirectory(gridDirectory.toString());
+    return new LocationResolver(
+        provinciaDAO, ayuntamientoDAO, codigoPostalDAO, barrioDAO, sessionFactory, config);
+  }
+
+  private static Provincia province(String id, double minX) {
+    return new Provincia(id, "provincia-" + id, "01", box(minX, 0, minX + 2, 2));
+  }
+
+  private static Geometry box(double minX, double minY, double maxX, double maxY) {
+    return GEOMETRY_FACTORY.toGeometry(new Envelope(minX, maxX, minY, maxY));
+  }
+
+  private static Point point(double x, double y) {
+    return GEOMETRY_FACTORY.createPoint(new Coordinate(x, y));
+  }
+}
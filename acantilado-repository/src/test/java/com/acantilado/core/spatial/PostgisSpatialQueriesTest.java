@@ -0,0 +1,391 @@
+package com.acantilado.core.spatial;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.acantilado.core.administrative.Ayuntamiento;
+import com.acantilado.core.administrative.AyuntamientoDAO;
+import com.acantilado.core.administrative.Barrio;
+import com.acantilado.core.administrative.BarrioDAO;
+import com.acantilado.core.administrative.CodigoPostal;
+import com.acantilado.core.administrative.CodigoPostalDAO;
+import com.acantilado.core.amenity.GoogleAmenity;
+import com.acantilado.core.amenity.GoogleAmenityDAO;
+import com.acantilado.core.amenity.fields.AcantiladoAmenityChain;
+import com.acantilado.core.idealista.IdealistaContactInformation;
+import com.acantilado.core.idealista.IdealistaPropertyDAO;
+import com.acantilado.core.idealista.priceRecords.IdealistaPropertyPriceRecord;
+import com.acantilado.core.idealista.priceRecords.IdealistaTerrainPriceRecord;
+import com.acantilado.core.idealista.realEstate.IdealistaProperty;
+import com.acantilado.core.idealista.realEstate.IdealistaTerrain;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.Environment;
+import org.hibernate.context.internal.ManagedSessionContext;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * Runs the PostGIS variants of the spatial DAO queries against a PostGIS server with the spatial
+ * columns added by the changelog's own {@code postgis} changesets, and checks that they agree
+ * with the plain variants.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class PostgisSpatialQueriesTest {
+  /** Relative to the module directory, which Gradle runs tests from. */
+  private static final Path CHANGELOG =
+      Path.of("..", "src", "main", "resources", "schema", "seed.xml");
+
+  private static final Set<String> POSTGIS_CHANGESETS =
+      Set.of(
+          "add-postgis-location-columns",
+          "add-postgis-listing-location-columns",
+          "add-postgis-boundary-columns");
+
+  private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+
+  /** Puerta del Sol; a thousandth of a degree of latitude is about 111 m. */
+  private static final double LATITUDE = 40.4168;
+  private static final double LONGITUDE = -3.7038;
+
+  @Container
+  private static final PostgreSQLContainer<?> POSTGIS =
+      new PostgreSQLContainer<>(
+          DockerImageName.parse("postgis/postgis:16-3.4-alpine")
+              .asCompatibleSubstituteFor("postgres"));
+
+  private static StandardServiceRegistry serviceRegistry;
+  private static SessionFactory sessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    // The entities declare their GeoJSON columns as CLOB, which only the changelog maps for
+    // PostgreSQL
+    execute(List.of("CREATE EXTENSION IF NOT EXISTS postgis", "CREATE DOMAIN clob AS text"));
+
+    serviceRegistry =
+        new StandardServiceRegistryBuilder()
+            .applySetting(Environment.URL, POSTGIS.getJdbcUrl())
+            .applySetting(Environment.USER, POSTGIS.getUsername())
+            .applySetting(Environment.PASS, POSTGIS.getPassword())
+            .applySetting(Environment.HBM2DDL_AUTO, "create-drop")
+            .applySetting(Environment.CURRENT_SESSION_CONTEXT_CLASS, "managed")
+            .build();
+    sessionFactory =
+        new MetadataSources(serviceRegistry)
+            .addAnnotatedClass(GoogleAmenity.class)
+            .addAnnotatedClass(Ayuntamiento.class)
+            .addAnnotatedClass(CodigoPostal.class)
+            .addAnnotatedClass(Barrio.class)
+            .addAnnotatedClass(IdealistaProperty.class)
+            .addAnnotatedClass(IdealistaPropertyPriceRecord.class)
+            .addAnnotatedClass(IdealistaTerrain.class)
+            .addAnnotatedClass(IdealistaTerrainPriceRecord.class)
+            .addAnnotatedClass(IdealistaContactInformation.class)
+            .buildMetadata()
+            .buildSessionFactory();
+
+    execute(postgisChangesetStatements());
+  }
+
+  @AfterAll
+  static void tearDown() {
+    sessionFactory.close();
+    StandardServiceRegistryBuilder.destroy(serviceRegistry);
+  }
+
+  @AfterEach
+  void clearTables() {
+    inTransaction(
+        () ->
+            sessionFactory
+                .getCurrentSession()
+                .createNativeMutationQuery(
+                    "TRUNCATE google_amenity, idealista_property, barrio, codigo_postal,"
+                        + " ayuntamiento CASCADE")
+                .executeUpdate());
+  }
+
+  @Test
+  void amenityFindWithinRadius_returnsAmenitiesInRange_closestFirst() {
+    // Given: amenities about 100 m, 400 m and 2 km north
+    inTransaction(
+        () -> {
+          GoogleAmenityDAO amenityDAO = new GoogleAmenityDAO(sessionFactory);
+          amenityDAO.merge(amenity("far", 0.018, AcantiladoAmenityChain.DIA));
+          amenityDAO.merge(amenity("near", 0.0009, AcantiladoAmenityChain.DIA));
+          amenityDAO.merge(amenity("middle", 0.0036, AcantiladoAmenityChain.MERCADONA));
+          return null;
+        });
+
+    // When
+    List<String> inPostgis =
+        inTransaction(
+            () ->
+                placeIds(
+                    new GoogleAmenityDAO(sessionFactory, true)
+                        .findWithinRadius(LATITUDE, LONGITUDE, 500)));
+    List<String> inJava =
+        inTransaction(
+            () ->
+                placeIds(
+                    new GoogleAmenityDAO(sessionFactory, false)
+                        .findWithinRadius(LATITUDE, LONGITUDE, 500)));
+
+    // Then
+    assertEquals(List.of("near", "middle"), inPostgis);
+    assertEquals(inJava, inPostgis);
+  }
+
+  @Test
+  void amenityFindByLocationAndChain_filtersBoundsAndChain() {
+    // Given
+    inTransaction(
+        () -> {
+          GoogleAmenityDAO amenityDAO = new GoogleAmenityDAO(sessionFactory);
+          amenityDAO.merge(amenity("dia", 0.0009, AcantiladoAmenityChain.DIA));
+          amenityDAO.merge(amenity("mercadona", 0.0009, AcantiladoAmenityChain.MERCADONA));
+          amenityDAO.merge(amenity("farDia", 0.018, AcantiladoAmenityChain.DIA));
+          return null;
+        });
+
+    // When
+    List<String> inPostgis =
+        inTransaction(
+            () ->
+                placeIds(
+                    new GoogleAmenityDAO(sessionFactory, true)
+                        .findByLocationAndChain(
+                            LATITUDE, LONGITUDE, 0.01, AcantiladoAmenityChain.DIA)));
+    List<String> withinBounds =
+        inTransaction(
+            () ->
+                placeIds(
+                    new GoogleAmenityDAO(sessionFactory, true)
+                        .findByLocation(LATITUDE, LONGITUDE, 0.01)));
+
+    // Then
+    assertEquals(List.of("dia"), inPostgis);
+    assertEquals(Set.of("dia", "mercadona"), Set.copyOf(withinBounds));
+  }
+
+  @Test
+  void propertyFindWithinRadius_matchesJavaFallback() {
+    // Given
+    inTransaction(
+        () -> {
+          IdealistaPropertyDAO propertyDAO = new IdealistaPropertyDAO(sessionFactory);
+          propertyDAO.create(property(1L, 0.018));
+          propertyDAO.create(property(2L, 0.0036));
+          propertyDAO.create(property(3L, 0.0009));
+          return null;
+        });
+
+    // When
+    List<Long> inPostgis =
+        inTransaction(
+            () ->
+                propertyCodes(
+                    new IdealistaPropertyDAO(sessionFactory, true)
+                        .findWithinRadius(LATITUDE, LONGITUDE, 500)));
+    List<Long> inJava =
+        inTransaction(
+            () ->
+                propertyCodes(
+                    new IdealistaPropertyDAO(sessionFactory, false)
+                        .findWithinRadius(LATITUDE, LONGITUDE, 500)));
+    List<Long> withinBounds =
+        inTransaction(
+            () ->
+                propertyCodes(
+                    new IdealistaPropertyDAO(sessionFactory, true)
+                        .findWithinBounds(
+                            LATITUDE - 0.001,
+                            LONGITUDE - 0.001,
+                            LATITUDE + 0.001,
+                            LONGITUDE + 0.001)));
+
+    // Then
+    assertEquals(List.of(3L, 2L), inPostgis);
+    assertEquals(inJava, inPostgis);
+    assertEquals(List.of(3L), withinBounds);
+  }
+
+  @Test
+  void findContaining_returnsTheBoundariesCoveringThePoint() {
+    // Given: two side by side ayuntamientos, one postcode each, and a barrio in the western one
+    inTransaction(
+        () -> {
+          AyuntamientoDAO ayuntamientoDAO = new AyuntamientoDAO(sessionFactory);
+          ayuntamientoDAO.create(
+              new Ayuntamiento("28079", "Madrid", "28", "13", box(-3.8, 40.3, -3.7, 40.5)));
+          ayuntamientoDAO.create(
+              new Ayuntamiento("28006", "Alcobendas", "28", "13", box(-3.7, 40.3, -3.6, 40.5)));
+          new CodigoPostalDAO(sessionFactory)
+              .create(new CodigoPostal("28079-a", "28013", box(-3.8, 40.3, -3.7, 40.5)));
+          new CodigoPostalDAO(sessionFactory)
+              .create(new CodigoPostal("28006-a", "28100", box(-3.7, 40.3, -3.6, 40.5)));
+          new BarrioDAO(sessionFactory)
+              .create(new Barrio("Sol", "28079", box(-3.71, 40.41, -3.70, 40.42)));
+          return null;
+        });
+
+    for (boolean postgis : List.of(true, false)) {
+      // When
+      List<String> ayuntamientos =
+          inTransaction(
+              () ->
+                  new AyuntamientoDAO(sessionFactory, postgis)
+                      .findContaining(LATITUDE, LONGITUDE).stream()
+                          .map(Ayuntamiento::getId)
+                          .toList());
+      List<String> postcodes =
+          inTransaction(
+              () ->
+                  new CodigoPostalDAO(sessionFactory, postgis)
+                      .findContaining(LATITUDE, LONGITUDE).stream()
+                          .map(CodigoPostal::getCodigoIne)
+                          .toList());
+      List<String> barrios =
+          inTransaction(
+              () ->
+                  new BarrioDAO(sessionFactory, postgis)
+                      .findContaining(LATITUDE, LONGITUDE).stream()
+                          .map(Barrio::getName)
+                          .toList());
+
+      // Then
+      assertEquals(List.of("28079"), ayuntamientos, "postgis " + postgis);
+      assertEquals(List.of("28079-a"), postcodes, "postgis " + postgis);
+      assertEquals(List.of("Sol"), barrios, "postgis " + postgis);
+    }
+  }
+
+  /** An amenity north of Puerta del Sol by the given number of degrees. */
+  private static GoogleAmenity amenity(
+      String placeId, double latitudeOffset, AcantiladoAmenityChain chain) {
+    return GoogleAmenity.builder()
+        .placeId(placeId)
+        .name(placeId)
+        .latitude(LATITUDE + latitudeOffset)
+        .longitude(LONGITUDE)
+        .chain(chain)
+        .category("supermarket")
+        .acantiladoLocationId("28079-28013")
+        .build();
+  }
+
+  /** A listing north of Puerta del Sol by the given number of degrees. */
+  private static IdealistaProperty property(long propertyCode, double latitudeOffset) {
+    IdealistaProperty property =
+        new IdealistaProperty(
+            propertyCode,
+            "sale",
+            "A flat",
+            90,
+            "flat",
+            "Calle Mayor 2",
+            null,
+            "Madrid",
+            "0-EU-ES-28-07-001-079",
+            LATITUDE + latitudeOffset,
+            LONGITUDE,
+            10L,
+            10L);
+    property.setAcantiladoLocationId("28079-28013");
+    property.setPropertyType("flat");
+    return property;
+  }
+
+  private static Geometry box(double minX, double minY, double maxX, double maxY) {
+    return GEOMETRY_FACTORY.toGeometry(new Envelope(minX, maxX, minY, maxY));
+  }
+
+  private static List<String> placeIds(List<GoogleAmenity> amenities) {
+    return amenities.stream().map(GoogleAmenity::getPlaceId).toList();
+  }
+
+  private static List<Long> propertyCodes(List<IdealistaProperty> properties) {
+    return properties.stream().map(IdealistaProperty::getPropertyCode).toList();
+  }
+
+  /** The statements of the changelog's PostGIS column changesets, in changelog order. */
+  private static List<String> postgisChangesetStatements() throws Exception {
+    NodeList changeSets =
+        DocumentBuilderFactory.newInstance()
+            .newDocumentBuilder()
+            .parse(CHANGELOG.toFile())
+            .getElementsByTagName("changeSet");
+
+    List<String> statements = new ArrayList<>();
+    Set<String> found = new HashSet<>();
+    for (int i = 0; i < changeSets.getLength(); i++) {
+      Element changeSet = (Element) changeSets.item(i);
+      if (POSTGIS_CHANGESETS.contains(changeSet.getAttribute("id"))) {
+        found.add(changeSet.getAttribute("id"));
+        String sql = changeSet.getElementsByTagName("sql").item(0).getTextContent();
+        for (String statement : sql.split(";")) {
+          if (!statement.isBlank()) {
+            statements.add(statement.trim());
+          }
+        }
+      }
+    }
+    assertEquals(POSTGIS_CHANGESETS, found);
+    return statements;
+  }
+
+  private static void execute(List<String> statements) throws SQLException {
+    try (Connection connection =
+            DriverManager.getConnection(
+                POSTGIS.getJdbcUrl(), POSTGIS.getUsername(), POSTGIS.getPassword());
+        Statement statement = connection.createStatement()) {
+      for (String sql : statements) {
+        statement.execute(sql);
+      }
+    }
+  }
+
+  private static <T> T inTransaction(Supplier<T> work) {
+    Session session = sessionFactory.openSession();
+    Transaction transaction = session.beginTransaction();
+    ManagedSessionContext.bind(session);
+
+    try {
+      T result = work.get();
+      transaction.commit();
+      return result;
+    } catch (RuntimeException e) {
+      transaction.rollback();
+      throw e;
+    } finally {
+      ManagedSessionContext.unbind(sessionFactory);
+      session.close();
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package com.acantilado.core.spatial;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class SpatialQueriesTest {
+  private static final double MADRID_LATITUDE = 40.4168;
+  private static final double MADRID_LONGITUDE = -3.7038;
+
+  @Test
+  void distanceMeters_ofSamePoint_isZero() {
+    // When
+    double distance =
+        SpatialQueries.distanceMeters(
+            MADRID_LATITUDE, MADRID_LONGITUDE, MADRID_LATITUDE, MADRID_LONGITUDE);
+
+    // Then
+    assertEquals(0, distance, 1e-9);
+  }
+
+  @Test
+  void distanceMeters_matchesKnownDistance() {
+    // Given: Puerta del Sol and Barcelona's Placa de Catalunya, about 505 km apart
+    double barcelonaLatitude = 41.3870;
+    double barcelonaLongitude = 2.1701;
+
+    // When
+    double distance =
+        SpatialQueries.distanceMeters(
+            MADRID_LATITUDE, MADRID_LONGITUDE, barcelonaLatitude, barcelonaLongitude);
+
+    // Then
+    assertEquals(505_000, distance, 2_000);
+    assertEquals(
+        distance,
+        SpatialQueries.distanceMeters(
+            barcelonaLatitude, barcelonaLongitude, MADRID_LATITUDE, MADRID_LONGITUDE),
+        1e-6);
+  }
+
+  @Test
+  void degreeSpans_coverTheRadius() {
+    // Given
+    double radiusMeters = 1_000;
+
+    // When
+    double latitudeDelta = SpatialQueries.latitudeDegrees(radiusMeters);
+    double longitudeDelta = SpatialQueries.longitudeDegrees(radiusMeters, MADRID_LATITUDE);
+
+    // Then: the edges of the bounding box lie at the radius along each axis
+    assertEquals(
+        radiusMeters,
+        SpatialQueries.distanceMeters(
+            MADRID_LATITUDE, MADRID_LONGITUDE, MADRID_LATITUDE + latitudeDelta, MADRID_LONGITUDE),
+        1);
+    assertEquals(
+        radiusMeters,
+        SpatialQueries.distanceMeters(
+            MADRID_LATITUDE, MADRID_LONGITUDE, MADRID_LATITUDE, MADRID_LONGITUDE + longitudeDelta),
+        1);
+  }
+
+  @Test
+  void longitudeDegrees_staysFinite_atThePoles() {
+    // When
+    double longitudeDelta = SpatialQueries.longitudeDegrees(1_000, 90);
+
+    // Then
+    assertTrue(Double.isFinite(longitudeDelta));
+  }
+}
@@ -6,6 +6,7 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.http.HttpRequest;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 import org.eclipse.jetty.http.HttpScheme;
 import org.slf4j.Logger;
@@ -14,27 +15,28 @@ import org.slf4j.LoggerFactory;
 public abstract class Collector<T> {
   private static final Logger LOGGER = LoggerFactory.getLogger(Collector.class);
 
-  private final String authority;
+  private final URI baseUri;
 
   public Collector(String authority) {
-    this.authority = authority;
+    this(URI.create(HttpScheme.HTTPS + "://" + authority));
+  }
+
+  /** Requests go to the scheme and authority of the base URI, e.g. a local stand-in. */
+  public Collector(URI baseUri) {
+    this.baseUri = baseUri;
   }
 
   protected abstract Optional<T> constructObject(JsonNode jsonNode);
 
   protected final JsonNode makePostHttpRequest(
       URI uri, HttpRequest.BodyPublisher body, String authorizationHeader) {
-    LOGGER.debug("Constructing HTTP POST request for URI: {} with body: {}", uri, body);
-
-    HttpRequest request =
-        HttpRequest.newBuilder()
-            .POST(body)
-            .header("Authorization", authorizationHeader)
-            .header("Content-Type", "application/json")
-            .uri(uri)
-            .build();
+    return HttpUtils.makeApiCall(postRequest(uri, body, authorizationHeader));
+  }
 
-    return HttpUtils.makeApiCall(request);
+  /** Sends the request without holding a thread while it is in flight. */
+  protected final CompletableFuture<JsonNode> makePostHttpRequestAsync(
+      URI uri, HttpRequest.BodyPublisher body, String authorizationHeader) {
+    return HttpUtils.makeApiCallAsync(postRequest(uri, body, authorizationHeader));
   }
 
   protected final JsonNode makeGetHttpRequest(URI uri) {
@@ -42,17 +44,42 @@ public abstract class Collector<T> {
   }
 
   protected final JsonNode makeGetHttpRequest(URI uri, String authorizationHeader) {
-    LOGGER.debug("Constructing HTTP GET request for URI: {}", uri);
+    return HttpUtils.makeApiCall(getRequest(uri, authorizationHeader));
+  }
+
+  /** Streams the JSON array returned for the URI; see {@link HttpUtils#streamApiCall}. */
+  protected final int streamGetHttpRequest(
+      URI uri, String authorizationHeader, HttpUtils.ElementReader elementReader) {
+    return HttpUtils.streamApiCall(getRequest(uri, authorizationHeader), elementReader);
+  }
+
+  /** Sends the request without holding a thread while it is in flight. */
+  protected final CompletableFuture<JsonNode> makeGetHttpRequestAsync(
+      URI uri, String authorizationHeader) {
+    return HttpUtils.makeApiCallAsync(getRequest(uri, authorizationHeader));
+  }
 
-    HttpRequest request =
-        HttpRequest.newBuilder()
-            .GET()
-            .header("Authorization", authorizationHeader)
-            .header("Content-Type", "application/json")
-            .uri(uri)
-            .build();
+  private static HttpRequest postRequest(
+      URI uri, HttpRequest.BodyPublisher body, String authorizationHeader) {
+    LOGGER.debug("Constructing HTTP POST request for URI: {} with body: {}", uri, body);
+
+    return HttpRequest.newBuilder()
+        .POST(body)
+        .header("Authorization", authorizationHeader)
+        .header("Content-Type", "application/json")
+        .uri(uri)
+        .build();
+  }
+
+  private static HttpRequest getRequest(URI uri, String authorizationHeader) {
+    LOGGER.debug("Constructing HTTP GET request for URI: {}", uri);
 
-    return HttpUtils.makeApiCall(request);
+    return HttpRequest.newBuilder()
+        .GET()
+        .header("Authorization", authorizationHeader)
+        .header("Content-Type", "application/json")
+        .uri(uri)
+        .build();
   }
 
   protected final URI constructUri(String path) {
@@ -65,8 +92,8 @@ public abstract class Collector<T> {
       Function<Optional<URI>, String> queryTransformer) {
     try {
       return new URI(
-          HttpScheme.HTTPS.toString(),
-          authority,
+          baseUri.getScheme(),
+          baseUri.getRawAuthority(),
           path,
           queryTransformer.apply(maybeExistingUri),
           null);
@@ -2,7 +2,9 @@ package com.acantilado.collection;
 
 import com.acantilado.collection.administration.AdministrativeCollectorConfig;
 import com.acantilado.collection.amenity.AmenityCollectorConfig;
+import com.acantilado.collection.apify.ApifyConfig;
 import com.acantilado.collection.properties.IdealistaCollectorConfig;
+import com.acantilado.core.location.LocationResolverConfig;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.dropwizard.util.Duration;
 import jakarta.validation.Valid;
@@ -22,6 +24,10 @@ public class CollectorConfiguration {
   @Valid @NotNull
   private IdealistaCollectorConfig idealistaCollector = new IdealistaCollectorConfig();
 
+  @Valid @NotNull private LocationResolverConfig locationResolver = new LocationResolverConfig();
+
+  @Valid @NotNull private ApifyConfig apify = new ApifyConfig();
+
   @JsonProperty
   public static Duration getInitialDelay() {
     return initialDelay;
@@ -57,6 +63,26 @@ public class CollectorConfiguration {
     this.idealistaCollector = idealistaCollector;
   }
 
+  @JsonProperty
+  public LocationResolverConfig getLocationResolver() {
+    return locationResolver;
+  }
+
+  @JsonProperty
+  public void setLocationResolver(LocationResolverConfig locationResolver) {
+    this.locationResolver = locationResolver;
+  }
+
+  @JsonProperty
+  public ApifyConfig getApify() {
+    return apify;
+  }
+
+  @JsonProperty
+  public void setApify(ApifyConfig apify) {
+    this.apify = apify;
+  }
+
   public static Set<String> getProvinces(Set<Integer> provinceIds) {
     return provinceIds.stream()
         .map(CollectorConfiguration::toStringWithMaybeLeadingZero)
@@ -1,9 +1,15 @@
 package com.acantilado.collection.administration;
 
 import com.acantilado.core.administrative.*;
+import com.acantilado.core.location.GeometryIndex;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
@@ -16,6 +22,7 @@ public final class CodigoPostalToAyuntamientoLinkingService extends CollectorSer
   private static final Logger LOGGER =
       LoggerFactory.getLogger(CodigoPostalToAyuntamientoLinkingService.class);
   private static final double PROXIMITY_DEGREES_THRESHOLD = 0.005;
+  private static final int JDBC_BATCH_SIZE = 100;
 
   private final AyuntamientoDAO ayuntamientoDAO;
   private final CodigoPostalDAO codigoPostalDAO;
@@ -46,10 +53,36 @@ public final class CodigoPostalToAyuntamientoLinkingService extends CollectorSer
   @Override
   public void seed() {
     LOGGER.info("Linking  postal codes to ayuntamientos");
-    collectPostCodesByProvinceIds(sessionFactory, codigoPostalDAO)
-        .forEach(
-            (provinciaId, postalCodes) -> linkPostCodesToAyuntamientos(postalCodes, provinciaId));
-    LOGGER.info("Finished linking postal codes to ayuntamientos");
+    long start = System.currentTimeMillis();
+
+    // Provinces are linked independently, each in its own session; the work is CPU-bound
+    // geometry, so one thread per core
+    ExecutorService executorService =
+        Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    try {
+      List<Future<?>> provinceLinks = new ArrayList<>();
+      collectPostCodesByProvinceIds(sessionFactory, codigoPostalDAO)
+          .forEach(
+              (provinciaId, postalCodes) ->
+                  provinceLinks.add(
+                      executorService.submit(
+                          () -> linkPostCodesToAyuntamientos(postalCodes, provinciaId))));
+
+      for (Future<?> provinceLink : provinceLinks) {
+        provinceLink.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while linking postal codes to municipalities", e);
+    } catch (ExecutionException e) {
+      throw new RuntimeException("Failed to link postal codes to municipalities", e.getCause());
+    } finally {
+      executorService.shutdownNow();
+    }
+
+    LOGGER.info(
+        "Finished linking postal codes to ayuntamientos in {} ms",
+        System.currentTimeMillis() - start);
   }
 
   /**
@@ -64,6 +97,7 @@ public final class CodigoPostalToAyuntamientoLinkingService extends CollectorSer
 
     try {
       ManagedSessionContext.bind(session);
+      session.setJdbcBatchSize(JDBC_BATCH_SIZE);
       transaction = session.beginTransaction();
 
       List<Ayuntamiento> ayuntamientos = ayuntamientoDAO.findByProvinceId(provinciaId);
@@ -73,30 +107,30 @@ public final class CodigoPostalToAyuntamientoLinkingService extends CollectorSer
           ayuntamientos.size(),
           provinciaId);
 
+      GeometryIndex<Ayuntamiento> ayuntamientoIndex =
+          new GeometryIndex<>(
+              ayuntamientos.stream().filter(a -> a.getGeometry() != null).toList(),
+              Ayuntamiento::getGeometry);
+
       for (String postalCodeId : postalCodeIds) {
         int linksForThisPostalCode = 0;
         List<CodigoPostal> codigosPostales = getCodigosPostales(postalCodeId, codigoPostalDAO);
 
         for (CodigoPostal cp : codigosPostales) {
-          for (Ayuntamiento ayuntamiento : ayuntamientos) {
-            try {
-              double distance = cp.getGeometry().distance(ayuntamiento.getGeometry());
-              if (distance > PROXIMITY_DEGREES_THRESHOLD) {
-                continue;
-              }
-
-              cp.getAyuntamientos().add(ayuntamiento);
-              ayuntamiento.getCodigosPostales().add(cp);
-              linksForThisPostalCode++;
-            } catch (Exception e) {
-              LOGGER.error(
-                  "Error linking postal code {} to municipality {} ({})",
-                  postalCodeId,
-                  ayuntamiento.getName(),
-                  ayuntamiento.getId(),
-                  e);
-            }
+          List<Ayuntamiento> nearbyAyuntamientos;
+          try {
+            nearbyAyuntamientos =
+                ayuntamientoIndex.findWithinDistance(
+                    cp.getGeometry(), PROXIMITY_DEGREES_THRESHOLD);
+          } catch (Exception e) {
+            LOGGER.error("Error finding municipalities near postal code {}", postalCodeId, e);
+            continue;
           }
+
+          // Only the owning side is updated; the inverse collection would be loaded per
+          // ayuntamiento without being persisted
+          cp.getAyuntamientos().addAll(nearbyAyuntamientos);
+          linksForThisPostalCode += nearbyAyuntamientos.size();
         }
 
         if (linksForThisPostalCode == 0) {
@@ -7,6 +7,8 @@ import com.acantilado.core.administrative.AyuntamientoDAO;
 import com.acantilado.core.administrative.BarrioDAO;
 import com.acantilado.core.administrative.CodigoPostalDAO;
 import com.acantilado.core.administrative.ProvinciaDAO;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import org.hibernate.SessionFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,6 +21,8 @@ public class GeographicCollectorService extends CollectorService {
   private final BarrioCollectorService barrioCollectorService;
   private final CodigoPostalToAyuntamientoLinkingService codigoPostalToAyuntamientoLinkingService;
 
+  private final List<Runnable> seedListeners = new CopyOnWriteArrayList<>();
+
   public GeographicCollectorService(
       CodigoPostalDAO codigoPostalDAO,
       AyuntamientoDAO ayuntamientoDAO,
@@ -36,6 +40,11 @@ public class GeographicCollectorService extends CollectorService {
             ayuntamientoDAO, codigoPostalDAO, sessionFactory);
   }
 
+  /** Registers a callback that runs every time {@link #seed()} has finished changing the data. */
+  public void addSeedListener(Runnable listener) {
+    seedListeners.add(listener);
+  }
+
   public boolean isSeedingNecessary() {
     boolean forAyuntamiento = administrativeCollectorService.isSeedingNecessary();
     boolean forCodigoPostal = codigoPostalCollectorService.isSeedingNecessary();
@@ -53,5 +62,7 @@ public class GeographicCollectorService extends CollectorService {
     codigoPostalToAyuntamientoLinkingService.seed();
 
     LOGGER.info("Finished administrative unit collection with second durations");
+
+    seedListeners.forEach(Runnable::run);
   }
 }
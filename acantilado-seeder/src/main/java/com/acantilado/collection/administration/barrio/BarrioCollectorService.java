@@ -1,8 +1,8 @@
 package com.acantilado.collection.administration.barrio;
 
 import com.acantilado.collection.administration.CollectorService;
-import com.acantilado.collection.location.CityAyuntamientoCode;
 import com.acantilado.core.administrative.BarrioDAO;
+import com.acantilado.core.location.CityAyuntamientoCode;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.hibernate.Session;
@@ -1,6 +1,7 @@
 package com.acantilado.collection.amenity;
 
 import com.acantilado.collection.CollectorConfiguration;
+import com.acantilado.core.administrative.GeometryResolution;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.dropwizard.util.Duration;
 import jakarta.validation.constraints.Min;
@@ -18,6 +19,8 @@ public class AmenityCollectorConfig {
   @Min(1)
   private int threadPoolSize = 10;
 
+  @NotNull private GeometryResolution searchGeometryResolution = GeometryResolution.MEDIUM;
+
   private boolean enabled = true;
 
   @JsonProperty
@@ -65,6 +68,16 @@ public class AmenityCollectorConfig {
     this.threadPoolSize = ThreadPoolSize;
   }
 
+  @JsonProperty
+  public GeometryResolution getSearchGeometryResolution() {
+    return searchGeometryResolution;
+  }
+
+  @JsonProperty
+  public void setSearchGeometryResolution(GeometryResolution searchGeometryResolution) {
+    this.searchGeometryResolution = searchGeometryResolution;
+  }
+
   @JsonProperty
   public boolean isEnabled() {
     return enabled;
@@ -1,37 +1,42 @@
 package com.acantilado.collection.amenity;
 
+import com.acantilado.collection.apify.ApifyRuntime;
 import com.acantilado.core.administrative.*;
 import com.acantilado.core.amenity.GoogleAmenityDAO;
 import com.acantilado.core.amenity.GoogleAmenitySnapshotDAO;
+import com.acantilado.core.location.LocationResolver;
 import org.hibernate.SessionFactory;
 
 public final class AmenityCollectorServiceFactory {
   private final GoogleAmenityDAO amenityDAO;
   private final GoogleAmenitySnapshotDAO snapshotDAO;
   private final ProvinciaDAO provinciaDAO;
-  private final CodigoPostalDAO codigoPostalDAO;
   private final AyuntamientoDAO ayuntamientoDAO;
-  private final BarrioDAO barrioDAO;
   private final IdealistaLocationMappingDAO mappingDAO;
+  private final LocationResolver locationResolver;
   private final SessionFactory sessionFactory;
+  private final GeometryResolution searchGeometryResolution;
+  private final ApifyRuntime apifyRuntime;
 
   public AmenityCollectorServiceFactory(
       GoogleAmenityDAO amenityDAO,
       GoogleAmenitySnapshotDAO snapshotDAO,
       ProvinciaDAO provinciaDAO,
-      CodigoPostalDAO codigoPostalDAO,
       AyuntamientoDAO ayuntamientoDAO,
-      BarrioDAO barrioDAO,
       IdealistaLocationMappingDAO mappingDAO,
-      SessionFactory sessionFactory) {
+      LocationResolver locationResolver,
+      SessionFactory sessionFactory,
+      GeometryResolution searchGeometryResolution,
+      ApifyRuntime apifyRuntime) {
     this.amenityDAO = amenityDAO;
     this.snapshotDAO = snapshotDAO;
     this.provinciaDAO = provinciaDAO;
-    this.codigoPostalDAO = codigoPostalDAO;
     this.ayuntamientoDAO = ayuntamientoDAO;
-    this.barrioDAO = barrioDAO;
     this.mappingDAO = mappingDAO;
+    this.locationResolver = locationResolver;
     this.sessionFactory = sessionFactory;
+    this.searchGeometryResolution = searchGeometryResolution;
+    this.apifyRuntime = apifyRuntime;
   }
 
   public AmenityProvinceCollectorService getCollectorService(String provinceToCollectFor) {
@@ -41,9 +46,10 @@ public final class AmenityCollectorServiceFactory {
         snapshotDAO,
         sessionFactory,
         provinciaDAO,
-        codigoPostalDAO,
         ayuntamientoDAO,
-        barrioDAO,
-        mappingDAO);
+        mappingDAO,
+        locationResolver,
+        searchGeometryResolution,
+        apifyRuntime);
   }
 }
@@ -1,11 +1,14 @@
 package com.acantilado.collection.amenity;
 
+import com.acantilado.collection.apify.ApifyRuntime;
 import com.acantilado.collection.apify.ApifySearchResults;
 import com.acantilado.collection.location.AcantiladoLocationEstablisher;
 import com.acantilado.core.administrative.*;
 import com.acantilado.core.amenity.GoogleAmenityDAO;
 import com.acantilado.core.amenity.GoogleAmenitySnapshotDAO;
 import com.acantilado.core.amenity.fields.GoogleAmenityCategory;
+import com.acantilado.core.location.LocationResolver;
+import com.acantilado.core.location.ProvinceLocationIndex;
 import com.acantilado.utils.ProvinceCollectionUtils;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
@@ -23,13 +26,12 @@ public class AmenityProvinceCollectorService {
   private final SessionFactory sessionFactory;
   private final ExecutorService executorService = Executors.newFixedThreadPool(10);
 
-  private final CodigoPostalDAO codigoPostalDAO;
-
   private final Provincia provinceToCollectFor;
+  private final GeometryResolution searchGeometryResolution;
 
   private final GoogleAmenityCollector amenityCollector;
   private final Set<String> postcodeIdsForProvince;
-  private final Set<String> ayuntamientoIdsForProvince;
+  private final ProvinceLocationIndex locationIndex;
 
   public AmenityProvinceCollectorService(
       String provinceId,
@@ -37,37 +39,31 @@ public class AmenityProvinceCollectorService {
       GoogleAmenitySnapshotDAO snapshotDAO,
       SessionFactory sessionFactory,
       ProvinciaDAO provinciaDAO,
-      CodigoPostalDAO codigoPostalDAO,
       AyuntamientoDAO ayuntamientoDAO,
-      BarrioDAO barrioDAO,
-      IdealistaLocationMappingDAO mappingDAO) {
+      IdealistaLocationMappingDAO mappingDAO,
+      LocationResolver locationResolver,
+      GeometryResolution searchGeometryResolution,
+      ApifyRuntime apifyRuntime) {
     this.sessionFactory = sessionFactory;
+    this.searchGeometryResolution = searchGeometryResolution;
     this.provinceToCollectFor =
         ProvinceCollectionUtils.getProvinceFromId(sessionFactory, provinciaDAO, provinceId);
     this.postcodeIdsForProvince =
         ProvinceCollectionUtils.getPostcodeIdsForProvince(
             sessionFactory, ayuntamientoDAO, provinceId);
 
-    this.codigoPostalDAO = codigoPostalDAO;
-
-    Set<Ayuntamiento> ayuntamientosForProvince =
-        ProvinceCollectionUtils.getAyuntamientosForProvince(
-            sessionFactory, ayuntamientoDAO, provinceToCollectFor);
+    this.locationIndex = locationResolver.getProvinceIndex(provinceId);
     AcantiladoLocationEstablisher locationEstablisher =
-        new AcantiladoLocationEstablisher(
-            ProvinceCollectionUtils.getBarriosForProvince(
-                sessionFactory, barrioDAO, provinceToCollectFor),
-            ayuntamientosForProvince,
-            ProvinceCollectionUtils.getPostcodesForAyuntamientos(
-                sessionFactory, codigoPostalDAO, ayuntamientosForProvince),
-            ayuntamientoDAO,
-            mappingDAO);
+        new AcantiladoLocationEstablisher(locationIndex, ayuntamientoDAO, mappingDAO);
 
-    this.ayuntamientoIdsForProvince =
-        ayuntamientosForProvince.stream().map(Ayuntamiento::getId).collect(Collectors.toSet());
     this.amenityCollector =
         new GoogleAmenityCollector(
-            amenityDAO, snapshotDAO, executorService, sessionFactory, locationEstablisher);
+            amenityDAO,
+            snapshotDAO,
+            executorService,
+            sessionFactory,
+            locationEstablisher,
+            apifyRuntime);
   }
 
   public void shutdownExecutor() {
@@ -83,14 +79,17 @@ public class AmenityProvinceCollectorService {
 
   public boolean collectAmenitiesForProvince(GoogleAmenityCategory category) {
     Set<CodigoPostal> postcodesForProvince =
-        ProvinceCollectionUtils.getPostcodesForAyuntamientoIds(
-            sessionFactory, codigoPostalDAO, ayuntamientoIdsForProvince);
+        locationIndex.getPostcodesByAyuntamiento().values().stream()
+            .flatMap(Set::stream)
+            .collect(Collectors.toSet());
 
     Set<GoogleAmenitySearchRequest> searchRequests;
     if (category.getCriticality() == GoogleAmenityCategory.Criticality.URBAN) {
       LOGGER.info("Collecting amenities at the province level for {}", category);
       searchRequests =
-          Set.of(new GoogleAmenitySearchRequest(provinceToCollectFor.getGeometryJson(), category));
+          Set.of(
+              new GoogleAmenitySearchRequest(
+                  provinceToCollectFor.getGeometryJson(searchGeometryResolution), category));
     } else {
       LOGGER.info("Collecting amenities at the postcode level for {}", category);
       searchRequests =
@@ -98,7 +97,8 @@ public class AmenityProvinceCollectorService {
               .map(
                   cp ->
                       new GoogleAmenitySearchRequest(
-                          cp.getGeometryJson(), GoogleAmenityCategory.SUPERMARKET))
+                          cp.getGeometryJson(searchGeometryResolution),
+                          GoogleAmenityCategory.SUPERMARKET))
               .limit(3)
               .collect(Collectors.toSet());
     }
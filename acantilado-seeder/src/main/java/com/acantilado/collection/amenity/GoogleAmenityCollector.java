@@ -1,7 +1,7 @@
 package com.acantilado.collection.amenity;
 
 import com.acantilado.collection.apify.ApifyCollector;
-import com.acantilado.collection.location.AcantiladoLocation;
+import com.acantilado.collection.apify.ApifyRuntime;
 import com.acantilado.collection.location.AcantiladoLocationEstablisher;
 import com.acantilado.core.amenity.GoogleAmenity;
 import com.acantilado.core.amenity.GoogleAmenityDAO;
@@ -11,6 +11,7 @@ import com.acantilado.core.amenity.fields.AcantiladoAmenityChain;
 import com.acantilado.core.amenity.fields.GoogleAmenityStatus;
 import com.acantilado.core.amenity.fields.OpeningHour;
 import com.acantilado.core.amenity.fields.OpeningHours;
+import com.acantilado.core.location.AcantiladoLocation;
 import com.fasterxml.jackson.databind.JsonNode;
 import org.hibernate.SessionFactory;
 import org.locationtech.jts.geom.Coordinate;
@@ -39,8 +40,9 @@ public class GoogleAmenityCollector
       GoogleAmenitySnapshotDAO snapshotDAO,
       ExecutorService executorService,
       SessionFactory sessionFactory,
-      AcantiladoLocationEstablisher locationEstablisher) {
-    super(executorService, sessionFactory);
+      AcantiladoLocationEstablisher locationEstablisher,
+      ApifyRuntime apifyRuntime) {
+    super(executorService, sessionFactory, apifyRuntime);
 
     this.amenityDAO = amenityDAO;
     this.snapshotDAO = snapshotDAO;
@@ -6,7 +6,6 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import java.net.http.HttpRequest;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -125,9 +124,9 @@ public class GoogleAmenitySearchRequest implements RequestBodyData {
   }
 
   @Override
-  public HttpRequest.BodyPublisher toRequestBodyString() {
+  public String toRequestBodyJson() {
     try {
-      return HttpRequest.BodyPublishers.ofString(MAPPER.writeValueAsString(this));
+      return MAPPER.writeValueAsString(this);
     } catch (JsonProcessingException exception) {
       LOGGER.error("Failed to serialize GoogleAmenitySearchRequest", exception);
       throw new RuntimeException(exception);
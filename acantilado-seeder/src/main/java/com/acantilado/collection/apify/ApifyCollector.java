@@ -1,125 +1,346 @@
 package com.acantilado.collection.apify;
 
 import com.acantilado.collection.Collector;
+import com.acantilado.collection.utils.HttpUtils;
 import com.acantilado.collection.utils.RequestBodyData;
+import com.acantilado.utils.AdaptiveLimiter;
 import com.acantilado.utils.RetryableBatchedExecutor;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.codahale.metrics.Timer;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
 import org.apache.commons.lang3.StringUtils;
 import org.hibernate.SessionFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.net.URI;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 public abstract class ApifyCollector<S extends RequestBodyData, T> extends Collector<T> {
   private static final Logger LOGGER = LoggerFactory.getLogger(ApifyCollector.class);
 
-  private static final String AUTHORITY = "api.apify.com";
   private static final String DELIMITER = "/";
   private static final String ERROR = "error";
   private static final String MESSAGE = "message";
+  private static final String TYPE = "type";
+  private static final String RATE_LIMIT_ERROR_TYPE = "rate-limit-exceeded";
+  private static final String MEMORY_LIMIT_MESSAGE = "By launching this job you will";
   private static final String RUN_FIELD = "id";
-  private static final String STATUS_FIELD = "status";
   private static final String DATASET_FIELD = "defaultDatasetId";
   private static final String DATA_FIELD = "data";
   private static final String ACTS_PATH = "/v2/acts";
   private static final String DATASETS_PATH = "/v2/datasets";
   private static final String ITEMS = "items";
+  private static final int DATASET_PAGE_SIZE = 250;
+  /** Datasets larger than this are assumed to have hit the actor's item cap. */
+  private static final int FRAGMENTATION_THRESHOLD = 2300;
 
-  private static final String AUTH_HEADER = "";
+  private static final Duration RUN_COMPLETION_TIMEOUT = Duration.ofHours(2);
+  private static final int FINISHED_SEARCH_QUEUE_CAPACITY = 4;
+  private static final Duration HAND_OVER_POLL_INTERVAL = Duration.ofSeconds(1);
+
+  static final String AUTH_HEADER = "";
 
   private final ExecutorService executorService;
   private final SessionFactory sessionFactory;
+  private final ApifyRunCompletionSource completionSource;
+  private final AdaptiveLimiter runLimiter;
+  private final ApifyDatasetSpool datasetSpool;
+  private final int storeChunkSize;
 
-  public ApifyCollector(ExecutorService executorService, SessionFactory sessionFactory) {
-    super(AUTHORITY);
+  public ApifyCollector(
+      ExecutorService executorService, SessionFactory sessionFactory, ApifyRuntime apifyRuntime) {
+    super(apifyRuntime.apiUri());
 
     this.executorService = executorService;
     this.sessionFactory = sessionFactory;
+    this.completionSource = apifyRuntime.completionSource();
+    this.runLimiter = apifyRuntime.runLimiter();
+    this.datasetSpool = apifyRuntime.datasetSpool();
+    this.storeChunkSize = apifyRuntime.storeChunkSize();
   }
 
   protected abstract String getActorId();
 
   protected abstract int getRetryCount();
 
+  /** Caps this collector's share of the runs the shared limiter allows. */
   protected abstract int getConcurrentRunCount();
 
   protected abstract void storeResult(T result);
 
+  /**
+   * Stores a chunk of the objects of one search or spooled dataset in the open transaction, one
+   * {@link #storeResult} call each unless overridden by a collector that can write them set-based.
+   */
+  protected void storeResultBatch(Collection<T> results) {
+    results.forEach(this::storeResult);
+  }
+
+  /**
+   * Called on the storing thread once the transaction holding a chunk of {@link #storeResult}
+   * calls has committed, or failed and rolled back.
+   */
+  protected void onChunkStored(boolean committed) {}
+
+  /**
+   * Called on the storing thread once all chunks of a search or spooled dataset have been stored;
+   * committed only if every one of them committed.
+   */
+  protected void onResultsStored(boolean committed) {}
+
+  /**
+   * Called with the objects constructed from a successful search before they are stored, and
+   * whether the search returned more items than fit in one run.
+   */
+  protected void onSearchResults(S request, Set<T> objects, boolean overLimit) {}
+
+  /**
+   * Runs the searches as a pipeline: every run is awaited from the moment it is started, and every
+   * finished run is handed over a bounded queue to a single store thread, which fetches, parses
+   * and persists it while other runs are still executing. When the store thread falls behind, the
+   * full queue holds back further hand-overs until it catches up.
+   *
+   * <p>Should triggering fail, runs not yet finished are given up on, and every run is either
+   * handed over or given up on before the store thread is told to stop, so that no hand-over is
+   * left waiting on a queue nobody consumes.
+   */
   public ApifySearchResults<S> startCollection(Set<S> requests) {
-    LOGGER.info("Triggering {} search requests", requests.size());
-    Set<ApifyRunningSearch<S>> pendingSearches = triggerSearches(requests);
-    LOGGER.info("Submitted {} search requests", pendingSearches.size());
+    BlockingQueue<FinishedSearch<S>> finishedSearches =
+        new ArrayBlockingQueue<>(FINISHED_SEARCH_QUEUE_CAPACITY);
+    Queue<CompletableFuture<Void>> awaitedSearches = new ConcurrentLinkedQueue<>();
+    Queue<CompletableFuture<ApifySearchStatus>> runCompletions = new ConcurrentLinkedQueue<>();
+    Set<S> unfinishedRequests = ConcurrentHashMap.newKeySet();
+
+    // Stores run on one thread since location establishers keep unsynchronized state
+    ExecutorService storeExecutor = Executors.newSingleThreadExecutor();
+    Future<ApifySearchResults<S>> storedResults =
+        storeExecutor.submit(() -> storeFinishedSearches(finishedSearches));
 
-    Set<ApifyRunningSearch<S>> finishedSearches = awaitSearchesFinishing(pendingSearches);
-    LOGGER.info("Confirmed {} searches have finished", finishedSearches.size());
+    try {
+      LOGGER.info("Triggering {} search requests", requests.size());
+      Set<ApifyRunningSearch<S>> startedSearches =
+          triggerSearches(
+              requests,
+              search -> {
+                CompletableFuture<ApifySearchStatus> runCompletion =
+                    completionSource.awaitCompletion(search.getRunId()).copy();
+                runCompletions.add(runCompletion);
+                CompletableFuture<Void> awaitedSearch =
+                    awaitSearch(
+                        search, runCompletion, finishedSearches, storedResults, unfinishedRequests);
+                awaitedSearches.add(awaitedSearch);
+                return awaitedSearch;
+              });
+      LOGGER.info("Submitted {} search requests", startedSearches.size());
+
+      CompletableFuture.allOf(awaitedSearches.toArray(new CompletableFuture[0])).join();
+      LOGGER.info("All {} searches have finished", startedSearches.size());
+    } catch (RuntimeException e) {
+      LOGGER.error("Triggering searches failed, giving up on runs still in progress", e);
+      runCompletions.forEach(runCompletion -> runCompletion.cancel(false));
+      throw e;
+    } finally {
+      // Awaited searches never complete exceptionally, and hand over only while the store runs
+      CompletableFuture.allOf(awaitedSearches.toArray(new CompletableFuture[0])).join();
+      // An interrupted trigger must still stop the store thread
+      boolean interrupted = Thread.interrupted();
+      handOver(finishedSearches, FinishedSearch.endOfSearches(), storedResults);
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+      storeExecutor.shutdown();
+    }
+
+    ApifySearchResults<S> results;
+    try {
+      results =
+          ApifySearchResults.combine(
+              List.of(
+                  storedResults.get(),
+                  new ApifySearchResults<>(Set.of(), Set.of(), unfinishedRequests, Set.of())));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      throw new RuntimeException("Storing search results failed", e.getCause());
+    }
 
-    ApifySearchResults<S> results = storeSearchResults(finishedSearches);
     LOGGER.info("Search results: {}", results);
     return results;
   }
 
-  private Set<ApifyRunningSearch<S>> triggerSearches(Set<S> toRun) {
-    return RetryableBatchedExecutor.executeUntilAllSuccessful(
-        toRun,
-        getConcurrentRunCount(),
-        getRetryCount(),
-        executorService,
-        request -> {
-          JsonNode requestStarted =
-              makePostHttpRequest(constructActsUri(""), request.toRequestBodyString(), AUTH_HEADER);
-
-          if (Objects.isNull(requestStarted.get(DATA_FIELD))) {
-            String error = requestStarted.get(ERROR).get(MESSAGE).textValue();
-            if (!error.startsWith("By launching this job you will")) {
-              LOGGER.info("Request start failed with error {}", error);
+  private record FinishedSearch<S>(ApifyRunningSearch<S> search, long finishedAtNanos) {
+    static <S> FinishedSearch<S> endOfSearches() {
+      return new FinishedSearch<>(null, 0);
+    }
+  }
+
+  /**
+   * Starts every request as soon as both this collector's run cap and the shared limiter allow it.
+   * Both stay taken until the search has been handed to the store thread, since it is running
+   * actors that use up the account's memory. A failed start is retried after a jittered backoff,
+   * and the request is given up after {@link #getRetryCount()} failed starts.
+   */
+  private Set<ApifyRunningSearch<S>> triggerSearches(
+      Set<S> toRun, Function<ApifyRunningSearch<S>, CompletableFuture<Void>> onStarted) {
+    Semaphore collectorRuns = new Semaphore(getConcurrentRunCount());
+    RetryableBatchedExecutor.AttemptWindow runs =
+        new RetryableBatchedExecutor.AttemptWindow() {
+          @Override
+          public void acquire() throws InterruptedException {
+            collectorRuns.acquire();
+            try {
+              runLimiter.acquire();
+            } catch (InterruptedException e) {
+              collectorRuns.release();
+              throw e;
             }
-            return null;
           }
 
-          return new ApifyRunningSearch<>(
-              request,
-              requestStarted.get(DATA_FIELD).get(RUN_FIELD).textValue(),
-              requestStarted.get(DATA_FIELD).get(DATASET_FIELD).textValue());
-        });
-  }
+          @Override
+          public void release() {
+            runLimiter.release();
+            collectorRuns.release();
+          }
+        };
 
-  private Set<ApifyRunningSearch<S>> awaitSearchesFinishing(
-      Set<ApifyRunningSearch<S>> pendingSearches) {
     return RetryableBatchedExecutor.executeUntilAllSuccessful(
-        pendingSearches,
-        getConcurrentRunCount(),
+        toRun,
         getRetryCount(),
         executorService,
-        (ApifyRunningSearch<S> pendingSearch) -> {
-          ApifySearchStatus searchStatus = this.getSearchStatus(pendingSearch);
-          if (searchStatus.hasFinished()) {
-            return pendingSearch.withStatus(searchStatus);
-          }
-          return null;
-        });
+        runs,
+        request -> startSearch(request).orElse(null),
+        onStarted);
   }
 
-  private ApifySearchResults<S> storeSearchResults(Set<ApifyRunningSearch<S>> finishedSearches) {
+  private Optional<ApifyRunningSearch<S>> startSearch(S request) {
+    JsonNode requestStarted;
     try {
-      return RetryableBatchedExecutor.executeCallableInSessionWithTransaction(
-          sessionFactory, () -> this.storeResults(finishedSearches));
+      requestStarted =
+          makePostHttpRequest(constructRunStartUri(), request.toRequestBodyString(), AUTH_HEADER);
     } catch (Exception e) {
-      LOGGER.error("Failed to store results for search: {}", finishedSearches, e);
-      return new ApifySearchResults<>(Set.of(), Set.of(), Set.of(), Set.of());
+      LOGGER.debug("Request {} threw exception and will be retried", request, e);
+      return Optional.empty();
+    }
+
+    if (Objects.isNull(requestStarted.get(DATA_FIELD))) {
+      JsonNode error = requestStarted.path(ERROR);
+      if (isOverloaded(error)) {
+        runLimiter.onOverload();
+        LOGGER.debug("Account overloaded, limiting runs to {}", runLimiter.getLimit());
+      } else {
+        LOGGER.info("Request start failed with error {}", error.path(MESSAGE).asText());
+      }
+      return Optional.empty();
     }
+
+    runLimiter.onSuccess();
+    return Optional.of(
+        new ApifyRunningSearch<>(
+            request,
+            requestStarted.get(DATA_FIELD).get(RUN_FIELD).textValue(),
+            requestStarted.get(DATA_FIELD).get(DATASET_FIELD).textValue()));
   }
 
-  public ApifySearchStatus getSearchStatus(ApifyRunningSearch runningSearch) {
-    JsonNode requestStatus =
-        makeGetHttpRequest(constructActsUri(runningSearch.getRunId()), AUTH_HEADER);
-    String status = requestStatus.get(DATA_FIELD).get(STATUS_FIELD).textValue();
+  /** Apify rejects starts with a 429 when rate limited and with this message when out of memory. */
+  private static boolean isOverloaded(JsonNode error) {
+    return RATE_LIMIT_ERROR_TYPE.equals(error.path(TYPE).asText())
+        || error.path(MESSAGE).asText().startsWith(MEMORY_LIMIT_MESSAGE);
+  }
 
-    return ApifySearchStatus.valueOf(status.replace("-", "_"));
+  /**
+   * Hands the search to the store thread once its run has finished. Searches whose run cannot be
+   * awaited, or that the store thread is no longer there to take, are reported as failed so that
+   * they are retried.
+   */
+  private CompletableFuture<Void> awaitSearch(
+      ApifyRunningSearch<S> search,
+      CompletableFuture<ApifySearchStatus> runCompletion,
+      BlockingQueue<FinishedSearch<S>> finishedSearches,
+      Future<?> storeThread,
+      Set<S> unfinishedRequests) {
+    return runCompletion
+        .orTimeout(RUN_COMPLETION_TIMEOUT.toMinutes(), TimeUnit.MINUTES)
+        .thenApply(status -> new FinishedSearch<>(search.withStatus(status), System.nanoTime()))
+        .thenAcceptAsync(
+            finished -> {
+              if (!handOver(finishedSearches, finished, storeThread)) {
+                throw new IllegalStateException("Store thread stopped before taking the search");
+              }
+            },
+            executorService)
+        .exceptionally(
+            throwable -> {
+              LOGGER.warn("Unable to await run {}", search.getRunId(), throwable);
+              unfinishedRequests.add(search.getRequest());
+              return null;
+            });
+  }
+
+  private ApifySearchResults<S> storeFinishedSearches(
+      BlockingQueue<FinishedSearch<S>> finishedSearches) throws InterruptedException {
+    Timer finishToCommit =
+        SharedMetricRegistries.getOrCreate(HttpUtils.METRIC_REGISTRY)
+            .timer(MetricRegistry.name(getClass(), "finish-to-commit"));
+    List<ApifySearchResults<S>> results = new ArrayList<>();
+
+    while (true) {
+      FinishedSearch<S> finished = finishedSearches.take();
+      if (finished.search() == null) {
+        LOGGER.info("Stored {} finished searches", results.size());
+        return ApifySearchResults.combine(results);
+      }
+
+      try {
+        ApifySearchResults<S> stored = storeResults(Set.of(finished.search()));
+        results.add(stored);
+        onResultsStored(stored.requestsToRetryDueToFailure().isEmpty());
+        finishToCommit.update(System.nanoTime() - finished.finishedAtNanos(), TimeUnit.NANOSECONDS);
+      } catch (Exception e) {
+        LOGGER.error("Failed to store results for search: {}", finished.search().getRunId(), e);
+        onResultsStored(false);
+      }
+    }
+  }
+
+  /**
+   * Waits for room on the queue for as long as the store thread is consuming it, so that a store
+   * thread that stopped early cannot leave the hand-over blocked for good. Returns false if the
+   * store thread stopped first.
+   */
+  private static <E> boolean handOver(BlockingQueue<E> queue, E element, Future<?> storeThread) {
+    try {
+      while (!queue.offer(element, HAND_OVER_POLL_INTERVAL.toMillis(), TimeUnit.MILLISECONDS)) {
+        if (storeThread.isDone()) {
+          return false;
+        }
+      }
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    }
   }
 
   public ApifySearchResults<S> storeResults(Set<ApifyRunningSearch<S>> finishedSearches) {
@@ -140,23 +361,25 @@ public abstract class ApifyCollector<S extends RequestBodyData, T> extends Colle
             return;
           }
 
-          Iterator<JsonNode> iterator = getSuccessfulSearchResults(search);
           AtomicInteger objectsProcessed = new AtomicInteger();
           Set<T> jsonObjects = new HashSet<>();
 
-          while (iterator.hasNext()) {
-            Optional<T> translatedObject = constructObject(iterator.next());
-            if (translatedObject.isEmpty()) {
-              return;
-            }
-
-            objectsProcessed.incrementAndGet();
-            jsonObjects.add(translatedObject.get());
+          boolean allItemsConstructed =
+              consumeSuccessfulSearchResults(
+                  search,
+                  translatedObject -> {
+                    objectsProcessed.incrementAndGet();
+                    jsonObjects.add(translatedObject);
+                  });
+          if (!allItemsConstructed) {
+            return;
           }
 
-          if (objectsProcessed.get() > 2300) {
+          boolean overLimit = objectsProcessed.get() > FRAGMENTATION_THRESHOLD;
+          if (overLimit) {
             requestsToFragment.add(request);
           }
+          onSearchResults(request, jsonObjects, overLimit);
 
           if (jsonObjects.isEmpty()) {
             requestsToRetryDueToProxy.add(request);
@@ -164,32 +387,170 @@ public abstract class ApifyCollector<S extends RequestBodyData, T> extends Colle
             return;
           }
 
-          jsonObjects.forEach(this::storeResult);
+          if (storeInChunks(jsonObjects) < jsonObjects.size()) {
+            requestsToRetryDueToFailure.add(request);
+            return;
+          }
           requestsSucceeded.add(request);
 
           LOGGER.debug("Stored batch of {} results", jsonObjects.size());
         });
 
-    return new ApifySearchResults(
+    return new ApifySearchResults<>(
         requestsSucceeded,
         requestsToFragment,
         requestsToRetryDueToFailure,
         requestsToRetryDueToProxy);
   }
 
-  private Iterator<JsonNode> getSuccessfulSearchResults(ApifyRunningSearch finishedSearch) {
-    URI uri = constructDatasetsUri(finishedSearch.getDatasetId());
-    JsonNode node = makeGetHttpRequest(uri, AUTH_HEADER);
-    return node.elements();
+  /**
+   * Stores the objects in transactions of at most {@code storeChunkSize} objects each, or of all
+   * of them when it is zero. Every chunk gets a session of its own, so the persistence context
+   * never holds more than one chunk's entities however large the dataset, and a chunk that fails
+   * is rolled back on its own. Returns how many objects were stored in chunks that committed.
+   */
+  private int storeInChunks(Collection<T> objects) {
+    List<T> toStore = new ArrayList<>(objects);
+    int chunkSize = storeChunkSize == 0 ? toStore.size() : storeChunkSize;
+    int stored = 0;
+
+    for (int start = 0; start < toStore.size(); start += chunkSize) {
+      List<T> chunk = toStore.subList(start, Math.min(start + chunkSize, toStore.size()));
+      try {
+        RetryableBatchedExecutor.executeRunnableInSessionWithTransaction(
+            sessionFactory, () -> storeResultBatch(chunk));
+        onChunkStored(true);
+        stored += chunk.size();
+      } catch (RuntimeException e) {
+        LOGGER.error("Failed to store chunk of {} objects at offset {}", chunk.size(), start, e);
+        onChunkStored(false);
+      }
+    }
+    return stored;
+  }
+
+  /**
+   * Reads one dataset item from a parser positioned at its start. By default the item is
+   * materialized as a tree and handed to {@link #constructObject}; collectors with a typed item
+   * binding override this to skip the tree.
+   */
+  protected Optional<T> readObject(JsonParser parser) throws IOException {
+    return constructObject(parser.readValueAsTree());
+  }
+
+  /**
+   * Streams the dataset of a finished search page by page, so memory use does not grow with the
+   * size of the dataset, and spools it along the way. Returns false if an item could not be
+   * constructed. The remaining items are then only fetched while the dataset is being spooled, so
+   * that it can be replayed once the item can be constructed.
+   */
+  private boolean consumeSuccessfulSearchResults(
+      ApifyRunningSearch<S> finishedSearch, Consumer<T> objectConsumer) {
+    try (ApifyDatasetSpool.DatasetWriter spoolWriter =
+        datasetSpool.openWriter(
+            getActorId(),
+            finishedSearch.getRequest().toRequestBodyJson(),
+            finishedSearch.getRunId())) {
+      AtomicBoolean rejected = new AtomicBoolean(false);
+      HttpUtils.ElementReader objectReader =
+          parser -> {
+            JsonParser item = spoolWriter.tee(parser);
+            if (rejected.get()) {
+              return spoolWriter.isSpooling();
+            }
+
+            Optional<T> object = readObjectOfRun(item, finishedSearch.getRunId());
+            if (object.isEmpty()) {
+              rejected.set(true);
+              return spoolWriter.isSpooling();
+            }
+            objectConsumer.accept(object.get());
+            return true;
+          };
+
+      for (int offset = 0; ; offset += DATASET_PAGE_SIZE) {
+        URI uri = constructDatasetsUri(finishedSearch.getDatasetId(), offset);
+        int itemsRead = streamGetHttpRequest(uri, AUTH_HEADER, objectReader);
+        if (rejected.get() && !spoolWriter.isSpooling()) {
+          return false;
+        }
+        if (itemsRead < DATASET_PAGE_SIZE) {
+          spoolWriter.commit();
+          return !rejected.get();
+        }
+      }
+    }
+  }
+
+  /** Reads an item of the run, treating an item that cannot be read as unconstructable. */
+  private Optional<T> readObjectOfRun(JsonParser item, String runId) {
+    try {
+      return readObject(item);
+    } catch (IOException | RuntimeException e) {
+      LOGGER.warn("Unable to read an item of run {}", runId, e);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Feeds the spooled datasets whose request matches the filter through {@link #readObject} and
+   * {@link #storeResult} without touching the network, in chunked transactions as live results
+   * are. As with live results, a dataset with an item that cannot be constructed is skipped as a
+   * whole. Returns the number of objects stored.
+   */
+  public int replaySpooledDatasets(Predicate<JsonNode> requestFilter) {
+    int objectsStored = 0;
+    int datasetsReplayed = 0;
+
+    for (ApifyDatasetSpool.SpooledDataset dataset : datasetSpool.list(getActorId())) {
+      if (!requestFilter.test(dataset.request())) {
+        continue;
+      }
+
+      try {
+        ReplayedDataset replayed = replaySpooledDataset(dataset);
+        objectsStored += replayed.stored();
+        onResultsStored(replayed.stored() == replayed.read());
+        datasetsReplayed++;
+      } catch (Exception e) {
+        LOGGER.error("Failed to replay spooled dataset {}", dataset.file(), e);
+        onResultsStored(false);
+      }
+    }
+
+    LOGGER.info("Replayed {} objects from {} spooled datasets", objectsStored, datasetsReplayed);
+    return objectsStored;
+  }
+
+  private record ReplayedDataset(int read, int stored) {}
+
+  private ReplayedDataset replaySpooledDataset(ApifyDatasetSpool.SpooledDataset dataset)
+      throws IOException {
+    Set<T> objects = new HashSet<>();
+    AtomicBoolean rejected = new AtomicBoolean(false);
+    datasetSpool.replay(
+        dataset,
+        parser -> {
+          Optional<T> object = readObjectOfRun(parser, dataset.runId());
+          object.ifPresentOrElse(objects::add, () -> rejected.set(true));
+          return object.isPresent();
+        });
+
+    if (rejected.get()) {
+      LOGGER.warn("Skipping spooled dataset {} with unconstructable items", dataset.file());
+      return new ReplayedDataset(0, 0);
+    }
+    return new ReplayedDataset(objects.size(), storeInChunks(objects));
   }
 
-  private URI constructActsUri(String extension) {
-    String path = StringUtils.joinWith(DELIMITER, ACTS_PATH, getActorId(), "runs", extension);
-    return constructUri(path);
+  private URI constructRunStartUri() {
+    String path = StringUtils.joinWith(DELIMITER, ACTS_PATH, getActorId(), "runs", "");
+    return constructUri(path, Optional.empty(), _ignored -> completionSource.getRunStartQuery());
   }
 
-  private URI constructDatasetsUri(String datasetId) {
+  private URI constructDatasetsUri(String datasetId, int offset) {
     String path = StringUtils.joinWith(DELIMITER, DATASETS_PATH, datasetId, ITEMS);
-    return constructUri(path);
+    return constructUri(
+        path, Optional.empty(), _ignored -> "offset=" + offset + "&limit=" + DATASET_PAGE_SIZE);
   }
 }
@@ -0,0 +1,187 @@
+package com.acantilado.collection.apify;
+
+import com.acantilado.utils.AdaptiveLimiter;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.dropwizard.util.Duration;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import java.net.URI;
+import java.nio.file.Path;
+
+public class ApifyConfig {
+  public enum CompletionMode {
+    LONG_POLL,
+    WEBHOOK
+  }
+
+  /** Base URL of the Apify API, which can point at a local stand-in such as FakeApifyServer. */
+  @NotNull private String apiUrl = "https://api.apify.com";
+
+  /** How collectors learn that a run finished; WEBHOOK requires {@link #webhookUrl}. */
+  @NotNull private CompletionMode completionMode = CompletionMode.LONG_POLL;
+
+  /**
+   * Publicly reachable URL of the webhook receiver, i.e. ending in /apify/webhooks. A secret the
+   * receiver checks is appended when registering webhooks.
+   */
+  private String webhookUrl;
+
+  /** How long to wait for a webhook before asking Apify directly. */
+  @NotNull private Duration webhookFallbackAfter = Duration.minutes(30);
+
+  /** Bounds for the number of runs all collectors together keep going on the account. */
+  @Min(1)
+  private int initialConcurrentRuns = 8;
+
+  @Min(1)
+  private int maxConcurrentRuns = 64;
+
+  /** Sustained and burst rate at which runs are started. */
+  @Positive private double runStartsPerSecond = 2;
+
+  @Min(1)
+  private int runStartBurst = 10;
+
+  /** Where fetched datasets are kept for replay; nothing is spooled when unset. */
+  private String spoolDirectory;
+
+  /** Objects stored per transaction; 0 stores each dataset in a single transaction. */
+  @Min(0)
+  private int storeChunkSize = 500;
+
+  @JsonProperty
+  public String getApiUrl() {
+    return apiUrl;
+  }
+
+  @JsonProperty
+  public void setApiUrl(String apiUrl) {
+    this.apiUrl = apiUrl;
+  }
+
+  @JsonProperty
+  public CompletionMode getCompletionMode() {
+    return completionMode;
+  }
+
+  @JsonProperty
+  public void setCompletionMode(CompletionMode completionMode) {
+    this.completionMode = completionMode;
+  }
+
+  @JsonProperty
+  public String getWebhookUrl() {
+    return webhookUrl;
+  }
+
+  @JsonProperty
+  public void setWebhookUrl(String webhookUrl) {
+    this.webhookUrl = webhookUrl;
+  }
+
+  @JsonProperty
+  public Duration getWebhookFallbackAfter() {
+    return webhookFallbackAfter;
+  }
+
+  @JsonProperty
+  public void setWebhookFallbackAfter(Duration webhookFallbackAfter) {
+    this.webhookFallbackAfter = webhookFallbackAfter;
+  }
+
+  @JsonProperty
+  public int getInitialConcurrentRuns() {
+    return initialConcurrentRuns;
+  }
+
+  @JsonProperty
+  public void setInitialConcurrentRuns(int initialConcurrentRuns) {
+    this.initialConcurrentRuns = initialConcurrentRuns;
+  }
+
+  @JsonProperty
+  public int getMaxConcurrentRuns() {
+    return maxConcurrentRuns;
+  }
+
+  @JsonProperty
+  public void setMaxConcurrentRuns(int maxConcurrentRuns) {
+    this.maxConcurrentRuns = maxConcurrentRuns;
+  }
+
+  @JsonProperty
+  public double getRunStartsPerSecond() {
+    return runStartsPerSecond;
+  }
+
+  @JsonProperty
+  public void setRunStartsPerSecond(double runStartsPerSecond) {
+    this.runStartsPerSecond = runStartsPerSecond;
+  }
+
+  @JsonProperty
+  public int getRunStartBurst() {
+    return runStartBurst;
+  }
+
+  @JsonProperty
+  public void setRunStartBurst(int runStartBurst) {
+    this.runStartBurst = runStartBurst;
+  }
+
+  @JsonProperty
+  public String getSpoolDirectory() {
+    return spoolDirectory;
+  }
+
+  @JsonProperty
+  public void setSpoolDirectory(String spoolDirectory) {
+    this.spoolDirectory = spoolDirectory;
+  }
+
+  @JsonProperty
+  public int getStoreChunkSize() {
+    return storeChunkSize;
+  }
+
+  @JsonProperty
+  public void setStoreChunkSize(int storeChunkSize) {
+    this.storeChunkSize = storeChunkSize;
+  }
+
+  /** Build once per process, so that collectors for different provinces share the run budget. */
+  public ApifyRuntime buildRuntime() {
+    ApifyDatasetSpool datasetSpool =
+        spoolDirectory == null
+            ? ApifyDatasetSpool.disabled()
+            : new ApifyDatasetSpool(Path.of(spoolDirectory));
+    return new ApifyRuntime(
+        URI.create(apiUrl),
+        buildCompletionSource(),
+        buildRunLimiter(),
+        datasetSpool,
+        storeChunkSize);
+  }
+
+  private AdaptiveLimiter buildRunLimiter() {
+    return new AdaptiveLimiter(
+        initialConcurrentRuns, 1, maxConcurrentRuns, runStartsPerSecond, runStartBurst);
+  }
+
+  private ApifyRunCompletionSource buildCompletionSource() {
+    ApifyRunCompletionSource longPoll =
+        new ApifyLongPollCompletionSource(URI.create(apiUrl), ApifyCollector.AUTH_HEADER);
+
+    return switch (completionMode) {
+      case LONG_POLL -> longPoll;
+      case WEBHOOK -> {
+        if (webhookUrl == null) {
+          throw new IllegalStateException("WEBHOOK completion mode requires a webhookUrl");
+        }
+        yield new ApifyWebhookCompletionSource(
+            webhookUrl, longPoll, webhookFallbackAfter.toJavaDuration());
+      }
+    };
+  }
+}
@@ -0,0 +1,265 @@
+package com.acantilado.collection.apify;
+
+import com.acantilado.collection.utils.HttpUtils;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only local copy of the datasets collectors fetch, so that they can be processed again
+ * without paying for new runs. Each dataset is a gzip-compressed NDJSON file under {@code
+ * <directory>/<actorId>/}, named after the time it was fetched, a hash of the request and the run
+ * id. Its first line holds the request, run id and fetch time; every further line is one item
+ * exactly as Apify returned it.
+ *
+ * <p>A dataset is written under a temporary name and only moved into place once it has been read
+ * in full, so spooled datasets are always complete. Spooling failures are logged and otherwise
+ * ignored, since losing the copy should never fail a collection.
+ */
+public final class ApifyDatasetSpool {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ApifyDatasetSpool.class);
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+  private static final ApifyDatasetSpool DISABLED = new ApifyDatasetSpool(null);
+
+  private static final String EXTENSION = ".ndjson.gz";
+  private static final String PARTIAL_EXTENSION = ".partial";
+  private static final String RUN_ID_FIELD = "runId";
+  private static final String REQUEST_FIELD = "request";
+  private static final String FETCHED_AT_FIELD = "fetchedAt";
+  private static final int REQUEST_KEY_LENGTH = 16;
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final Path directory;
+
+  public ApifyDatasetSpool(Path directory) {
+    this.directory = directory;
+  }
+
+  public static ApifyDatasetSpool disabled() {
+    return DISABLED;
+  }
+
+  public record SpooledDataset(Path file, String runId, JsonNode request, Instant fetchedAt) {}
+
+  /** Spools the items of one dataset while they are being read. */
+  public interface DatasetWriter extends AutoCloseable {
+    /**
+     * Copies the item the parser is positioned at into the spool, and returns a parser over the
+     * copy positioned at the same item, since the original parser has moved past it.
+     */
+    JsonParser tee(JsonParser parser) throws IOException;
+
+    /** Marks the dataset as read in full; without this it is discarded on close. */
+    void commit();
+
+    /** Whether items are still being copied, i.e. whether reading on would complete a copy. */
+    boolean isSpooling();
+
+    @Override
+    void close();
+  }
+
+  private static final DatasetWriter NO_OP_WRITER =
+      new DatasetWriter() {
+        @Override
+        public JsonParser tee(JsonParser parser) {
+          return parser;
+        }
+
+        @Override
+        public void commit() {}
+
+        @Override
+        public boolean isSpooling() {
+          return false;
+        }
+
+        @Override
+        public void close() {}
+      };
+
+  public DatasetWriter openWriter(String actorId, String requestJson, String runId) {
+    if (directory == null) {
+      return NO_OP_WRITER;
+    }
+
+    String requestKey =
+        Hashing.sha256()
+            .hashString(requestJson, StandardCharsets.UTF_8)
+            .toString()
+            .substring(0, REQUEST_KEY_LENGTH);
+    Instant fetchedAt = Instant.now();
+    Path file =
+        directory
+            .resolve(actorId)
+            .resolve(fetchedAt.toEpochMilli() + "-" + requestKey + "-" + runId + EXTENSION);
+    try {
+      return new FileDatasetWriter(file, requestJson, runId, fetchedAt);
+    } catch (IOException e) {
+      LOGGER.warn("Unable to spool dataset of run {} to {}", runId, file, e);
+      return NO_OP_WRITER;
+    }
+  }
+
+  /**
+   * Lists the complete datasets spooled for the actor, oldest fetch first. Datasets spooled before
+   * the fetch time was recorded count as fetched when their file was last modified. Files whose
+   * header cannot be read are logged and left out.
+   */
+  public List<SpooledDataset> list(String actorId) {
+    if (directory == null || !Files.isDirectory(directory.resolve(actorId))) {
+      return List.of();
+    }
+
+    List<SpooledDataset> datasets = new ArrayList<>();
+    try (Stream<Path> files = Files.list(directory.resolve(actorId))) {
+      files
+          .filter(file -> file.toString().endsWith(EXTENSION))
+          .forEach(file -> readHeader(file).ifPresent(datasets::add));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to list spooled datasets for " + actorId, e);
+    }
+
+    datasets.sort(Comparator.comparing(SpooledDataset::fetchedAt));
+    return datasets;
+  }
+
+  private static Optional<SpooledDataset> readHeader(Path file) {
+    try (JsonParser parser = openReader(file)) {
+      JsonNode header = parser.readValueAsTree();
+      Instant fetchedAt =
+          header.has(FETCHED_AT_FIELD)
+              ? Instant.ofEpochMilli(header.get(FETCHED_AT_FIELD).asLong())
+              : Files.getLastModifiedTime(file).toInstant();
+      return Optional.of(
+          new SpooledDataset(
+              file, header.path(RUN_ID_FIELD).asText(), header.path(REQUEST_FIELD), fetchedAt));
+    } catch (IOException | RuntimeException e) {
+      LOGGER.warn("Skipping unreadable spooled dataset {}", file, e);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Hands every item of the dataset to the reader, the same way {@link HttpUtils#streamApiCall}
+   * does for a live dataset, and returns how many items were read.
+   */
+  public int replay(SpooledDataset dataset, HttpUtils.ElementReader itemReader)
+      throws IOException {
+    int itemsRead = 0;
+    try (JsonParser parser = openReader(dataset.file())) {
+      parser.nextToken();
+      parser.skipChildren();
+
+      while (parser.nextToken() != null) {
+        itemsRead++;
+        if (!itemReader.read(parser)) {
+          break;
+        }
+      }
+    }
+    return itemsRead;
+  }
+
+  private static JsonParser openReader(Path file) throws IOException {
+    return OBJECT_MAPPER.createParser(new GZIPInputStream(Files.newInputStream(file), BUFFER_SIZE));
+  }
+
+  private static final class FileDatasetWriter implements DatasetWriter {
+    private final Path file;
+    private final Path partialFile;
+    private final JsonGenerator generator;
+    private boolean failed;
+    private boolean committed;
+
+    FileDatasetWriter(Path file, String requestJson, String runId, Instant fetchedAt)
+        throws IOException {
+      this.file = file;
+      this.partialFile = file.resolveSibling(file.getFileName() + PARTIAL_EXTENSION);
+
+      Files.createDirectories(file.getParent());
+      generator =
+          OBJECT_MAPPER.createGenerator(
+              new GZIPOutputStream(Files.newOutputStream(partialFile), BUFFER_SIZE));
+      generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+
+      ObjectNode header = OBJECT_MAPPER.createObjectNode();
+      header.put(RUN_ID_FIELD, runId);
+      header.put(FETCHED_AT_FIELD, fetchedAt.toEpochMilli());
+      header.set(REQUEST_FIELD, OBJECT_MAPPER.readTree(requestJson));
+      generator.writeTree(header);
+    }
+
+    @Override
+    public JsonParser tee(JsonParser parser) throws IOException {
+      TokenBuffer item = new TokenBuffer(parser);
+      item.copyCurrentStructure(parser);
+
+      if (!failed) {
+        try {
+          item.serialize(generator);
+        } catch (IOException e) {
+          LOGGER.warn("Unable to spool item to {}, discarding the dataset", partialFile, e);
+          failed = true;
+        }
+      }
+      return item.asParserOnFirstToken();
+    }
+
+    @Override
+    public void commit() {
+      if (failed) {
+        return;
+      }
+
+      try {
+        generator.writeRaw('\n');
+        generator.close();
+        Files.move(partialFile, file, StandardCopyOption.ATOMIC_MOVE);
+        committed = true;
+      } catch (IOException e) {
+        LOGGER.warn("Unable to complete spooled dataset {}", file, e);
+      }
+    }
+
+    @Override
+    public boolean isSpooling() {
+      return !failed;
+    }
+
+    @Override
+    public void close() {
+      if (committed) {
+        return;
+      }
+
+      try {
+        generator.close();
+        Files.deleteIfExists(partialFile);
+      } catch (IOException e) {
+        LOGGER.warn("Unable to discard partially spooled dataset {}", partialFile, e);
+      }
+    }
+  }
+}
@@ -0,0 +1,73 @@
+package com.acantilado.collection.apify;
+
+import com.acantilado.collection.utils.HttpUtils;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Waits for runs with Apify's {@code waitForFinish} long-poll: every request blocks server-side
+ * until the run finishes or the wait expires, so a run is noticed within moments of finishing
+ * while only one request per minute is made for it otherwise.
+ */
+public final class ApifyLongPollCompletionSource implements ApifyRunCompletionSource {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ApifyLongPollCompletionSource.class);
+
+  // Apify caps waitForFinish at 60 seconds
+  private static final int WAIT_FOR_FINISH_SECONDS = 60;
+  private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(WAIT_FOR_FINISH_SECONDS + 30);
+  private static final long RETRY_DELAY_SECONDS = 10;
+  private static final int MAX_CONSECUTIVE_FAILURES = 10;
+
+  private final URI apiUri;
+  private final String authorizationHeader;
+
+  public ApifyLongPollCompletionSource(URI apiUri, String authorizationHeader) {
+    this.apiUri = apiUri;
+    this.authorizationHeader = authorizationHeader;
+  }
+
+  @Override
+  public CompletableFuture<ApifySearchStatus> awaitCompletion(String runId) {
+    return poll(runId, 0);
+  }
+
+  private CompletableFuture<ApifySearchStatus> poll(String runId, int consecutiveFailures) {
+    HttpRequest request =
+        HttpRequest.newBuilder()
+            .GET()
+            .uri(
+                apiUri.resolve(
+                    "/v2/actor-runs/" + runId + "?waitForFinish=" + WAIT_FOR_FINISH_SECONDS))
+            .header("Authorization", authorizationHeader)
+            .timeout(REQUEST_TIMEOUT)
+            .build();
+
+    return HttpUtils.makeApiCallAsync(request)
+        .thenApply(run -> ApifySearchStatus.fromApify(run.get("data").get("status").textValue()))
+        .handle(
+            (status, throwable) -> {
+              if (throwable == null) {
+                return status.hasFinished()
+                    ? CompletableFuture.completedFuture(status)
+                    : poll(runId, 0);
+              }
+
+              if (consecutiveFailures + 1 >= MAX_CONSECUTIVE_FAILURES) {
+                LOGGER.warn("Giving up waiting for run {}", runId, throwable);
+                return CompletableFuture.<ApifySearchStatus>failedFuture(throwable);
+              }
+              LOGGER.debug("Failed to poll run {}, retrying", runId, throwable);
+              return CompletableFuture.supplyAsync(
+                      () -> null,
+                      CompletableFuture.delayedExecutor(RETRY_DELAY_SECONDS, TimeUnit.SECONDS))
+                  .thenCompose(ignored -> poll(runId, consecutiveFailures + 1));
+            })
+        .thenCompose(Function.identity());
+  }
+}
@@ -0,0 +1,18 @@
+package com.acantilado.collection.apify;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Tells {@link ApifyCollector} when an actor run has finished, so that each run is stored as soon
+ * as it completes instead of once every run in the batch has.
+ */
+public interface ApifyRunCompletionSource {
+
+  /** Completes with the terminal status of the run once it has finished. */
+  CompletableFuture<ApifySearchStatus> awaitCompletion(String runId);
+
+  /** Query string to append when starting a run, e.g. to register an ad-hoc webhook. */
+  default String getRunStartQuery() {
+    return "";
+  }
+}
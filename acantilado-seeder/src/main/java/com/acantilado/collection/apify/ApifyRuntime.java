@@ -0,0 +1,16 @@
+package com.acantilado.collection.apify;
+
+import com.acantilado.utils.AdaptiveLimiter;
+import java.net.URI;
+
+/**
+ * What all Apify collectors in the process share: the API they talk to, how they learn that runs
+ * finished, the limiter on how many runs they keep going, where fetched datasets are spooled and
+ * how many fetched objects they store per transaction, zero meaning a whole dataset at once.
+ */
+public record ApifyRuntime(
+    URI apiUri,
+    ApifyRunCompletionSource completionSource,
+    AdaptiveLimiter runLimiter,
+    ApifyDatasetSpool datasetSpool,
+    int storeChunkSize) {}
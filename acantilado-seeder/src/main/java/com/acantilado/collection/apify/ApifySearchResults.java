@@ -1,5 +1,7 @@
 package com.acantilado.collection.apify;
 
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.Set;
 
 public record ApifySearchResults<T>(
@@ -8,6 +10,22 @@ public record ApifySearchResults<T>(
     Set<T> requestsToRetryDueToFailure,
     Set<T> requestsToRetryDueToEmptyResults) {
 
+  public static <T> ApifySearchResults<T> combine(Collection<ApifySearchResults<T>> results) {
+    ApifySearchResults<T> combined =
+        new ApifySearchResults<>(
+            new HashSet<>(), new HashSet<>(), new HashSet<>(), new HashSet<>());
+    results.forEach(
+        result -> {
+          combined.requestsSucceeded().addAll(result.requestsSucceeded());
+          combined.requestsToFragment().addAll(result.requestsToFragment());
+          combined.requestsToRetryDueToFailure().addAll(result.requestsToRetryDueToFailure());
+          combined
+              .requestsToRetryDueToEmptyResults()
+              .addAll(result.requestsToRetryDueToEmptyResults());
+        });
+    return combined;
+  }
+
   @Override
   public String toString() {
     return "requestsSucceeded "
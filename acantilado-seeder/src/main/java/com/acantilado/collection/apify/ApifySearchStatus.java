@@ -6,6 +6,8 @@ public enum ApifySearchStatus {
   STARTED(false, false),
   READY(false, false),
   RUNNING(false, false),
+  ABORTING(false, false),
+  TIMING_OUT(false, false),
   SUCCEEDED(true, false),
   FAILED(true, true),
   ABORTED(true, true),
@@ -19,6 +21,11 @@ public enum ApifySearchStatus {
     this.failed = failed;
   }
 
+  /** Parses a status as Apify reports it, e.g. {@code TIMED-OUT}. */
+  public static ApifySearchStatus fromApify(String status) {
+    return valueOf(status.replace("-", "_"));
+  }
+
   public boolean hasFinished() {
     return finished;
   }
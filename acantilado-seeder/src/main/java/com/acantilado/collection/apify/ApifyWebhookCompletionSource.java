@@ -0,0 +1,136 @@
+package com.acantilado.collection.apify;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Learns about finished runs from Apify webhooks. Every run is started with an ad-hoc webhook
+ * pointing at {@code webhookUrl}, whose receiver calls {@link #onRunFinished}.
+ *
+ * <p>The receiver is publicly reachable, so the webhook URL carries a secret generated per
+ * source, and a webhook is only taken as a hint: the run's status is always read from Apify
+ * through the fallback source, which answers at once for a run that has really finished.
+ *
+ * <p>Webhooks can get lost, e.g. while the application restarts, so runs that have not been
+ * reported within {@code fallbackAfter} are handed to the fallback source too. Webhooks can also
+ * arrive before the run is awaited, in which case they are kept for as long.
+ */
+public final class ApifyWebhookCompletionSource implements ApifyRunCompletionSource {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ApifyWebhookCompletionSource.class);
+
+  private static final List<String> TERMINAL_EVENT_TYPES =
+      List.of(
+          "ACTOR.RUN.SUCCEEDED", "ACTOR.RUN.FAILED", "ACTOR.RUN.ABORTED", "ACTOR.RUN.TIMED_OUT");
+
+  private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+  private static final int SECRET_BYTES = 32;
+
+  private final byte[] secret;
+  private final String runStartQuery;
+  private final ApifyRunCompletionSource fallback;
+  private final Duration fallbackAfter;
+  private final ConcurrentMap<String, CompletableFuture<Void>> pendingRuns =
+      new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Instant> earlyNotifications = new ConcurrentHashMap<>();
+
+  public ApifyWebhookCompletionSource(
+      String webhookUrl, ApifyRunCompletionSource fallback, Duration fallbackAfter) {
+    byte[] secretBytes = new byte[SECRET_BYTES];
+    SECURE_RANDOM.nextBytes(secretBytes);
+    String encodedSecret = Base64.getUrlEncoder().withoutPadding().encodeToString(secretBytes);
+
+    this.secret = encodedSecret.getBytes(StandardCharsets.US_ASCII);
+    this.runStartQuery =
+        "webhooks="
+            + encodeWebhooks(
+                webhookUrl + (webhookUrl.contains("?") ? "&" : "?") + "secret=" + encodedSecret);
+    this.fallback = fallback;
+    this.fallbackAfter = fallbackAfter;
+  }
+
+  @Override
+  public CompletableFuture<ApifySearchStatus> awaitCompletion(String runId) {
+    CompletableFuture<Void> notification = new CompletableFuture<>();
+    pendingRuns.put(runId, notification);
+    if (earlyNotifications.remove(runId) != null) {
+      notification.complete(null);
+    }
+
+    return notification
+        .orTimeout(fallbackAfter.toMillis(), TimeUnit.MILLISECONDS)
+        .handle(
+            (ignored, throwable) -> {
+              if (throwable != null) {
+                LOGGER.info("No webhook received for run {}, falling back", runId);
+              }
+              return null;
+            })
+        .thenCompose(ignored -> fallback.awaitCompletion(runId))
+        .whenComplete((status, throwable) -> pendingRuns.remove(runId, notification));
+  }
+
+  @Override
+  public String getRunStartQuery() {
+    return runStartQuery;
+  }
+
+  /** Whether a webhook carries the secret this source registered its webhooks with. */
+  public boolean isAuthentic(String presentedSecret) {
+    return presentedSecret != null
+        && MessageDigest.isEqual(secret, presentedSecret.getBytes(StandardCharsets.US_ASCII));
+  }
+
+  /**
+   * Called by the webhook receiver once it has checked {@link #isAuthentic}. The reported status
+   * is not trusted beyond telling terminal events apart; the awaited run is checked with Apify.
+   * Notifications for runs nobody is waiting for yet are kept until they are awaited or expire.
+   */
+  public void onRunFinished(String runId, ApifySearchStatus status) {
+    if (!status.hasFinished()) {
+      LOGGER.debug("Ignoring webhook for run {} with status {}", runId, status);
+      return;
+    }
+
+    CompletableFuture<Void> notification = pendingRuns.get(runId);
+    if (notification == null) {
+      Instant now = Instant.now();
+      earlyNotifications.values().removeIf(received -> received.plus(fallbackAfter).isBefore(now));
+      earlyNotifications.put(runId, now);
+
+      // The run may have been awaited in the meantime, without seeing this notification
+      notification = pendingRuns.get(runId);
+      if (notification == null || earlyNotifications.remove(runId) == null) {
+        LOGGER.debug("Keeping webhook for run {} that is not awaited yet", runId);
+        return;
+      }
+    }
+    notification.complete(null);
+  }
+
+  private static String encodeWebhooks(String webhookUrl) {
+    ObjectMapper objectMapper = new ObjectMapper();
+    ArrayNode webhooks = objectMapper.createArrayNode();
+    webhooks
+        .addObject()
+        .put("requestUrl", webhookUrl)
+        .set("eventTypes", objectMapper.valueToTree(TERMINAL_EVENT_TYPES));
+
+    // URL-safe so the encoded webhooks can go into the query string as they are
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(webhooks.toString().getBytes(StandardCharsets.UTF_8));
+  }
+}
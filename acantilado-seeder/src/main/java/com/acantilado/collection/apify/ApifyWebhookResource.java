@@ -0,0 +1,50 @@
+package com.acantilado.collection.apify;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Receives the ad-hoc webhooks Apify calls when an actor run started by a collector finishes. Only
+ * webhooks carrying the secret the collector registered them with are accepted.
+ */
+@Path("/apify/webhooks")
+@Consumes(MediaType.APPLICATION_JSON)
+@Tag(name = "Apify", description = "Endpoints called by Apify")
+public class ApifyWebhookResource {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ApifyWebhookResource.class);
+
+  private final ApifyWebhookCompletionSource completionSource;
+
+  public ApifyWebhookResource(ApifyWebhookCompletionSource completionSource) {
+    this.completionSource = completionSource;
+  }
+
+  @POST
+  @Operation(summary = "Notify that an actor run has finished")
+  public Response runFinished(@QueryParam("secret") String secret, JsonNode payload) {
+    if (!completionSource.isAuthentic(secret)) {
+      LOGGER.warn("Rejected webhook without the registered secret");
+      return Response.status(Response.Status.FORBIDDEN).build();
+    }
+
+    JsonNode run = payload == null ? null : payload.get("resource");
+    if (run == null || !run.hasNonNull("id") || !run.hasNonNull("status")) {
+      return Response.status(Response.Status.BAD_REQUEST).build();
+    }
+
+    try {
+      completionSource.onRunFinished(
+          run.get("id").textValue(), ApifySearchStatus.fromApify(run.get("status").textValue()));
+    } catch (IllegalArgumentException e) {
+      LOGGER.warn("Received webhook with unknown run status {}", run.get("status"));
+      return Response.status(Response.Status.BAD_REQUEST).build();
+    }
+    return Response.noContent().build();
+  }
+}
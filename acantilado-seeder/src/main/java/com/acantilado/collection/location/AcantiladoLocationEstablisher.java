@@ -1,6 +1,8 @@
 package com.acantilado.collection.location;
 
 import com.acantilado.core.administrative.*;
+import com.acantilado.core.location.AcantiladoLocation;
+import com.acantilado.core.location.ProvinceLocationIndex;
 import org.locationtech.jts.geom.Point;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -8,17 +10,13 @@ import org.slf4j.LoggerFactory;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
 
 public class AcantiladoLocationEstablisher {
   private static final Logger LOGGER = LoggerFactory.getLogger(AcantiladoLocationEstablisher.class);
 
   private final ExistingLocationEstablisher existingLocationEstablisher;
 
-  private final Set<Ayuntamiento> ayuntamientosForProvince;
-  private final Set<Barrio> barriosForProvince;
-  private final Set<String> ayuntamientosWithBarrios;
-  private final Map<String, Set<CodigoPostal>> postCodesForProvince;
+  private final ProvinceLocationIndex locationIndex;
 
   private final IdealistaLocationMappingDAO mappingDAO;
 
@@ -27,31 +25,18 @@ public class AcantiladoLocationEstablisher {
   private final AtomicBoolean isBootstrapMode = new AtomicBoolean(false);
 
   public AcantiladoLocationEstablisher(
-      Set<Barrio> barriosForProvince,
-      Set<Ayuntamiento> ayuntamientosForProvince,
-      Map<String, Set<CodigoPostal>> postCodesForProvince,
+      ProvinceLocationIndex locationIndex,
       AyuntamientoDAO ayuntamientoDAO,
       IdealistaLocationMappingDAO mappingDAO) {
-
-    if (barriosForProvince.isEmpty()) {
-      LOGGER.info("Found no barrios for province");
-    }
-
-    this.ayuntamientosForProvince = ayuntamientosForProvince;
-    this.barriosForProvince = barriosForProvince;
-    this.postCodesForProvince = postCodesForProvince;
+    this.locationIndex = locationIndex;
     this.mappingDAO = mappingDAO;
 
-    this.ayuntamientosWithBarrios =
-        barriosForProvince.stream().map(Barrio::getAyuntamientoId).collect(Collectors.toSet());
-
     this.existingLocationEstablisher =
-        new ExistingLocationEstablisher(ayuntamientoDAO, mappingDAO, this::buildAcantiladoLocation);
+        new ExistingLocationEstablisher(ayuntamientoDAO, mappingDAO, locationIndex::resolve);
   }
 
   public AcantiladoLocation establishForLocation(Point locationPoint) {
-    Ayuntamiento ayuntamiento = establishAyuntamientoByCoordinates(locationPoint);
-    return buildAcantiladoLocation(ayuntamiento, locationPoint);
+    return locationIndex.resolve(locationPoint);
   }
 
   public AcantiladoLocation establish(
@@ -63,13 +48,13 @@ public class AcantiladoLocationEstablisher {
 
   private AcantiladoLocation establishForIdealista(
       String idealistaAyuntamiento, String locationId, Point locationPoint) {
-    Ayuntamiento ayuntamiento = establishAyuntamientoByCoordinates(locationPoint);
+    Ayuntamiento ayuntamiento = locationIndex.findAyuntamiento(locationPoint);
     IdealistaLocationMapping mapping =
         new IdealistaLocationMapping(
             locationId, idealistaAyuntamiento, ayuntamiento.getId(), ayuntamiento.getName());
 
     updateInMemoryMapping(mapping);
-    return buildAcantiladoLocation(ayuntamiento, locationPoint);
+    return locationIndex.resolve(ayuntamiento, locationPoint);
   }
 
   public void storeMapping(IdealistaLocationMapping mapping) {
@@ -99,16 +84,6 @@ public class AcantiladoLocationEstablisher {
     this.isBootstrapMode.set(shouldBootstrap);
   }
 
-  private AcantiladoLocation buildAcantiladoLocation(
-      Ayuntamiento ayuntamiento, Point locationPoint) {
-    CodigoPostal codigoPostal = findCodigoPostal(ayuntamiento, locationPoint);
-    Optional<Barrio> maybeBarrio = findBarrio(ayuntamiento, locationPoint);
-
-    return maybeBarrio
-        .map(barrio -> new AcantiladoLocation(ayuntamiento, codigoPostal, barrio))
-        .orElseGet(() -> new AcantiladoLocation(ayuntamiento, codigoPostal));
-  }
-
   private void updateInMemoryMapping(IdealistaLocationMapping mapping) {
     if (mappingsByCounts.containsKey(mapping)) {
       mappingsByCounts.compute(mapping, (k, existingCount) -> existingCount + 1);
@@ -116,76 +91,4 @@ public class AcantiladoLocationEstablisher {
       mappingsByCounts.put(mapping, 1);
     }
   }
-
-  private Ayuntamiento establishAyuntamientoByCoordinates(Point locationPoint) {
-    for (Ayuntamiento ayuntamiento : ayuntamientosForProvince) {
-      if (ayuntamiento.getGeometry().contains(locationPoint)) {
-        LOGGER.debug("Point is inside ayuntamiento {}", ayuntamiento.getName());
-        return ayuntamiento;
-      }
-    }
-
-    Optional<Ayuntamiento> maybeClosestAyuntamiento =
-        ayuntamientosForProvince.stream()
-            .min(Comparator.comparingDouble(a -> a.getGeometry().distance(locationPoint)))
-            .map(
-                closest -> {
-                  LOGGER.debug(
-                      "Selecting closest ayuntamiento {} for location {}",
-                      closest.getName(),
-                      locationPoint);
-                  return closest;
-                });
-
-    return maybeClosestAyuntamiento.orElseThrow();
-  }
-
-  private CodigoPostal findCodigoPostal(Ayuntamiento ayuntamiento, Point locationPoint) {
-    Set<CodigoPostal> postcodesForAyuntamiento =
-        this.postCodesForProvince.get(ayuntamiento.getId());
-
-    if (postcodesForAyuntamiento == null || postcodesForAyuntamiento.isEmpty()) {
-      LOGGER.warn(
-          "No postcodes found for ayuntamiento {} - location may be outside province boundaries",
-          ayuntamiento.getId());
-      throw new IllegalStateException(
-          "No postcodes available for ayuntamiento "
-              + ayuntamiento.getName()
-              + " ("
-              + ayuntamiento.getId()
-              + ")");
-    }
-
-    for (CodigoPostal codigoPostal : postcodesForAyuntamiento) {
-      if (codigoPostal.getGeometry().covers(locationPoint)) {
-        return codigoPostal;
-      }
-    }
-
-    Optional<CodigoPostal> maybeClosestPostcode =
-        postcodesForAyuntamiento.stream()
-            .min(Comparator.comparingDouble(p -> p.getGeometry().distance(locationPoint)))
-            .map(
-                closest -> {
-                  LOGGER.debug(
-                      "Selecting closest postcode {} for location {}",
-                      closest.getCodigoPostal(),
-                      locationPoint);
-                  return closest;
-                });
-
-    return maybeClosestPostcode.orElseThrow();
-  }
-
-  private Optional<Barrio> findBarrio(Ayuntamiento ayuntamiento, Point point) {
-    if (ayuntamientosWithBarrios.contains(ayuntamiento.getId())) {
-      for (Barrio barrio : barriosForProvince) {
-        if (barrio.getGeometry().contains(point)) {
-          return Optional.of(barrio);
-        }
-      }
-    }
-
-    return Optional.empty();
-  }
 }
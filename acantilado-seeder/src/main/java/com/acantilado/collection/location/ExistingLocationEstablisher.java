@@ -4,6 +4,7 @@ import com.acantilado.core.administrative.Ayuntamiento;
 import com.acantilado.core.administrative.AyuntamientoDAO;
 import com.acantilado.core.administrative.IdealistaLocationMapping;
 import com.acantilado.core.administrative.IdealistaLocationMappingDAO;
+import com.acantilado.core.location.AcantiladoLocation;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import java.util.Comparator;
@@ -16,9 +16,25 @@ public class IdealistaCollectorConfig {
 
   @NotNull private Duration collectionInterval = Duration.days(1);
 
+  /**
+   * How often every location is searched in full. Collections in between only crawl each
+   * location's most recent listings until they reach ones already known; zero disables them.
+   */
+  @NotNull private Duration fullSweepInterval = Duration.days(7);
+
+  /** Listings fetched by the first search of a location in an incremental collection. */
+  @Min(1)
+  private int recencyPageSize = 100;
+
   @Min(1)
   private int threadPoolSize = 4;
 
+  /**
+   * Whether listings are upserted a search at a time with set-based SQL rather than merged one by
+   * one. Requires PostgreSQL.
+   */
+  private boolean bulkWrites = false;
+
   private boolean enabled = true;
 
   @JsonProperty
@@ -56,6 +72,26 @@ public class IdealistaCollectorConfig {
     this.collectionInterval = collectionInterval;
   }
 
+  @JsonProperty
+  public Duration getFullSweepInterval() {
+    return fullSweepInterval;
+  }
+
+  @JsonProperty
+  public void setFullSweepInterval(Duration fullSweepInterval) {
+    this.fullSweepInterval = fullSweepInterval;
+  }
+
+  @JsonProperty
+  public int getRecencyPageSize() {
+    return recencyPageSize;
+  }
+
+  @JsonProperty
+  public void setRecencyPageSize(int recencyPageSize) {
+    this.recencyPageSize = recencyPageSize;
+  }
+
   @JsonProperty
   public int getThreadPoolSize() {
     return threadPoolSize;
@@ -66,6 +102,16 @@ public class IdealistaCollectorConfig {
     this.threadPoolSize = threadPoolSize;
   }
 
+  @JsonProperty
+  public boolean isBulkWrites() {
+    return bulkWrites;
+  }
+
+  @JsonProperty
+  public void setBulkWrites(boolean bulkWrites) {
+    this.bulkWrites = bulkWrites;
+  }
+
   @JsonProperty
   public boolean isEnabled() {
     return enabled;
@@ -2,7 +2,6 @@ package com.acantilado.collection.properties;
 
 import com.acantilado.collection.properties.idealista.IdealistaPropertyType;
 import io.dropwizard.lifecycle.Managed;
-import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.Executors;
@@ -18,7 +17,6 @@ public class IdealistaCollectorScheduler implements Managed {
   private final ScheduledExecutorService scheduler;
   private final IdealistaCollectorServiceFactory collectorServiceFactory;
   private final IdealistaCollectorConfig config;
-  private final Set<IdealistaProvinceCollectorService> provinceCollectorServices = new HashSet<>();
 
   public IdealistaCollectorScheduler(
       IdealistaCollectorServiceFactory collectorServiceFactory, IdealistaCollectorConfig config) {
@@ -51,7 +49,7 @@ public class IdealistaCollectorScheduler implements Managed {
     LOGGER.info("Stopping property collector");
 
     scheduler.shutdown();
-    provinceCollectorServices.forEach(IdealistaProvinceCollectorService::shutdownExecutor);
+    collectorServiceFactory.shutdownCollectorServices();
 
     if (!scheduler.awaitTermination(10, TimeUnit.SECONDS)) {
       LOGGER.warn("Scheduler did not terminate gracefully, forcing shutdown");
@@ -67,7 +65,6 @@ public class IdealistaCollectorScheduler implements Managed {
         provinceId -> {
           IdealistaProvinceCollectorService collectorService =
               collectorServiceFactory.getCollectorService(provinceId);
-          provinceCollectorServices.add(collectorService);
 
           propertyTypes.forEach(
               propertyType -> {
@@ -95,7 +92,6 @@ public class IdealistaCollectorScheduler implements Managed {
                       e);
                 }
               });
-          provinceCollectorServices.remove(collectorService);
         });
   }
 
@@ -1,10 +1,14 @@
 package com.acantilado.collection.properties;
 
+import com.acantilado.collection.apify.ApifyRuntime;
 import com.acantilado.core.administrative.*;
 import com.acantilado.core.idealista.IdealistaContactInformationDAO;
 import com.acantilado.core.idealista.IdealistaLocationDAO;
 import com.acantilado.core.idealista.IdealistaPropertyDAO;
 import com.acantilado.core.idealista.IdealistaTerrainDAO;
+import com.acantilado.core.location.LocationResolver;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.hibernate.SessionFactory;
 
 public class IdealistaCollectorServiceFactory {
@@ -12,51 +16,67 @@ public class IdealistaCollectorServiceFactory {
   private final AyuntamientoDAO ayuntamientoDAO;
   private final IdealistaLocationMappingDAO mappingDAO;
   private final IdealistaLocationDAO locationDAO;
-  private final BarrioDAO barrioDAO;
   private final IdealistaTerrainDAO terrainDAO;
   private final IdealistaContactInformationDAO contactInformationDAO;
   private final IdealistaPropertyDAO propertyDAO;
-  private final CodigoPostalDAO codigoPostalDAO;
+  private final LocationResolver locationResolver;
+  private final ApifyRuntime apifyRuntime;
+  private final IdealistaCollectorConfig collectorConfig;
 
   private final SessionFactory sessionFactory;
 
+  /** One service per province, so what it learns carries over between collections. */
+  private final Map<String, IdealistaProvinceCollectorService> collectorServices =
+      new ConcurrentHashMap<>();
+
   public IdealistaCollectorServiceFactory(
       IdealistaContactInformationDAO contactDAO,
       IdealistaPropertyDAO propertyDAO,
       IdealistaTerrainDAO terrainDAO,
       IdealistaLocationDAO locationDAO,
       ProvinciaDAO provinciaDAO,
-      CodigoPostalDAO codigoPostalDAO,
       AyuntamientoDAO ayuntamientoDAO,
-      BarrioDAO barrioDAO,
       IdealistaLocationMappingDAO mappingDAO,
-      SessionFactory sessionFactory) {
+      LocationResolver locationResolver,
+      SessionFactory sessionFactory,
+      IdealistaCollectorConfig collectorConfig,
+      ApifyRuntime apifyRuntime) {
 
     this.contactInformationDAO = contactDAO;
     this.propertyDAO = propertyDAO;
     this.terrainDAO = terrainDAO;
-    this.codigoPostalDAO = codigoPostalDAO;
     this.provinciaDAO = provinciaDAO;
     this.ayuntamientoDAO = ayuntamientoDAO;
     this.mappingDAO = mappingDAO;
     this.locationDAO = locationDAO;
-    this.barrioDAO = barrioDAO;
+    this.locationResolver = locationResolver;
+    this.apifyRuntime = apifyRuntime;
+    this.collectorConfig = collectorConfig;
 
     this.sessionFactory = sessionFactory;
   }
 
   public IdealistaProvinceCollectorService getCollectorService(String provinceToCollectFor) {
-    return new IdealistaProvinceCollectorService(
+    return collectorServices.computeIfAbsent(
         provinceToCollectFor,
-        contactInformationDAO,
-        propertyDAO,
-        terrainDAO,
-        locationDAO,
-        provinciaDAO,
-        codigoPostalDAO,
-        ayuntamientoDAO,
-        barrioDAO,
-        mappingDAO,
-        sessionFactory);
+        provinceId ->
+            new IdealistaProvinceCollectorService(
+                provinceId,
+                contactInformationDAO,
+                propertyDAO,
+                terrainDAO,
+                locationDAO,
+                provinciaDAO,
+                ayuntamientoDAO,
+                mappingDAO,
+                locationResolver,
+                sessionFactory,
+                collectorConfig,
+                apifyRuntime));
+  }
+
+  /** Shuts down the executors of every service handed out so far. */
+  public void shutdownCollectorServices() {
+    collectorServices.values().forEach(IdealistaProvinceCollectorService::shutdownExecutor);
   }
 }
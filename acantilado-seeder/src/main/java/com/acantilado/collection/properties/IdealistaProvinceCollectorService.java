@@ -1,21 +1,26 @@
 package com.acantilado.collection.properties;
 
 import com.acantilado.collection.apify.ApifyCollector;
+import com.acantilado.collection.apify.ApifyRuntime;
 import com.acantilado.collection.apify.ApifySearchResults;
-import com.acantilado.collection.location.AcantiladoLocation;
 import com.acantilado.collection.location.AcantiladoLocationEstablisher;
 import com.acantilado.collection.properties.collectors.IdealistaLocationCollector;
 import com.acantilado.collection.properties.collectors.IdealistaRealEstateCollector;
+import com.acantilado.collection.properties.idealista.IdealistaFragmentationPlanner;
 import com.acantilado.collection.properties.idealista.IdealistaPropertyType;
 import com.acantilado.collection.properties.idealista.IdealistaSearchRequest;
 import com.acantilado.core.administrative.*;
 import com.acantilado.core.idealista.IdealistaContactInformationDAO;
 import com.acantilado.core.idealista.IdealistaLocationDAO;
 import com.acantilado.core.idealista.IdealistaPropertyDAO;
+import com.acantilado.core.idealista.IdealistaRealEstateBulkWriter;
 import com.acantilado.core.idealista.IdealistaTerrainDAO;
 import com.acantilado.core.idealista.realEstate.IdealistaAyuntamientoLocation;
 import com.acantilado.core.idealista.realEstate.IdealistaProperty;
 import com.acantilado.core.idealista.realEstate.IdealistaTerrain;
+import com.acantilado.core.location.AcantiladoLocation;
+import com.acantilado.core.location.LocationResolver;
+import com.acantilado.core.location.ProvinceLocationIndex;
 import com.acantilado.export.LocationMappingMerchant;
 import com.acantilado.utils.ProvinceCollectionUtils;
 import com.acantilado.utils.RetryableBatchedExecutor;
@@ -24,11 +29,17 @@ import org.hibernate.SessionFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 import static com.acantilado.utils.RetryableBatchedExecutor.executeCallableInSessionWithoutTransaction;
@@ -49,11 +60,23 @@ public final class IdealistaProvinceCollectorService {
   private final IdealistaRealEstateCollector<IdealistaTerrain> terrainCollector;
   private final IdealistaRealEstateCollector<IdealistaProperty> propertyCollector;
   private final IdealistaLocationCollector locationCollector;
+  private final IdealistaFragmentationPlanner fragmentationPlanner =
+      new IdealistaFragmentationPlanner();
   private final LocationMappingMerchant locationMappingMerchant;
 
   private final Provincia provinceToCollectFor;
   private final Set<Ayuntamiento> ayuntamientosForProvince;
 
+  private final Duration fullSweepInterval;
+  private final IdealistaRecencyCrawler recencyCrawler;
+  private final Map<IdealistaPropertyType, Instant> lastFullSweeps = new ConcurrentHashMap<>();
+
+  /**
+   * Held while collecting or replaying, since both go through the same collectors and location
+   * establisher, which keep unsynchronized state between searches.
+   */
+  private final ReentrantLock collectionLock = new ReentrantLock();
+
   public IdealistaProvinceCollectorService(
       String provinceId,
       IdealistaContactInformationDAO contactDAO,
@@ -61,53 +84,59 @@ public final class IdealistaProvinceCollectorService {
       IdealistaTerrainDAO terrainDAO,
       IdealistaLocationDAO locationDAO,
       ProvinciaDAO provinciaDAO,
-      CodigoPostalDAO codigoPostalDAO,
       AyuntamientoDAO ayuntamientoDAO,
-      BarrioDAO barrioDAO,
       IdealistaLocationMappingDAO mappingDAO,
-      SessionFactory sessionFactory) {
+      LocationResolver locationResolver,
+      SessionFactory sessionFactory,
+      IdealistaCollectorConfig collectorConfig,
+      ApifyRuntime apifyRuntime) {
     this.mappingDAO = mappingDAO;
     this.locationDAO = locationDAO;
     this.ayuntamientoDAO = ayuntamientoDAO;
 
     this.sessionFactory = sessionFactory;
+    this.fullSweepInterval = collectorConfig.getFullSweepInterval().toJavaDuration();
+    this.recencyCrawler = new IdealistaRecencyCrawler(collectorConfig.getRecencyPageSize());
 
     this.provinceToCollectFor =
         ProvinceCollectionUtils.getProvinceFromId(sessionFactory, provinciaDAO, provinceId);
-    this.ayuntamientosForProvince =
-        ProvinceCollectionUtils.getAyuntamientosForProvince(
-            sessionFactory, ayuntamientoDAO, provinceToCollectFor);
+
+    ProvinceLocationIndex locationIndex = locationResolver.getProvinceIndex(provinceId);
+    this.ayuntamientosForProvince = locationIndex.getAyuntamientos();
 
     locationEstablisher =
-        new AcantiladoLocationEstablisher(
-            ProvinceCollectionUtils.getBarriosForProvince(
-                sessionFactory, barrioDAO, provinceToCollectFor),
-            ayuntamientosForProvince,
-            ProvinceCollectionUtils.getPostcodesForAyuntamientos(
-                sessionFactory, codigoPostalDAO, ayuntamientosForProvince),
-            ayuntamientoDAO,
-            mappingDAO);
+        new AcantiladoLocationEstablisher(locationIndex, ayuntamientoDAO, mappingDAO);
 
     terrainCollector =
         new IdealistaRealEstateCollector<>(
             locationEstablisher,
             contactDAO,
             terrainDAO,
-            IdealistaTerrain::constructFromJson,
+            IdealistaTerrain::constructFromItem,
+            fragmentationPlanner,
+            collectorConfig.isBulkWrites()
+                ? Optional.of(IdealistaRealEstateBulkWriter.forTerrains(sessionFactory))
+                : Optional.empty(),
             executorService,
-            sessionFactory);
+            sessionFactory,
+            apifyRuntime);
 
     propertyCollector =
         new IdealistaRealEstateCollector<>(
             locationEstablisher,
             contactDAO,
             propertyDAO,
-            IdealistaProperty::constructFromJson,
+            IdealistaProperty::constructFromItem,
+            fragmentationPlanner,
+            collectorConfig.isBulkWrites()
+                ? Optional.of(IdealistaRealEstateBulkWriter.forProperties(sessionFactory))
+                : Optional.empty(),
             executorService,
-            sessionFactory);
+            sessionFactory,
+            apifyRuntime);
 
     locationCollector =
-        new IdealistaLocationCollector(locationDAO, executorService, sessionFactory);
+        new IdealistaLocationCollector(locationDAO, executorService, sessionFactory, apifyRuntime);
     locationMappingMerchant = new LocationMappingMerchant(mappingDAO, sessionFactory);
   }
 
@@ -288,13 +317,15 @@ public final class IdealistaProvinceCollectorService {
     return true;
   }
 
-  /** Phase 3: Collect real estate listings using the complete mappings */
+  /**
+   * Phase 3: Collect real estate listings using the complete mappings. Every location is searched
+   * in full once per full sweep interval; in between, only its most recent listings are crawled.
+   */
   private boolean collectRealEstateListings(IdealistaPropertyType propertyType) {
-    Set<IdealistaSearchRequest> searchRequests =
+    Set<String> locations =
         executeCallableInSessionWithoutTransaction(sessionFactory, mappingDAO::findAll).stream()
             .map(IdealistaLocationMapping::getIdealistaLocationId)
             .filter(location -> location.contains(provinceToCollectFor.getIdealistaLocationId()))
-            .map(location -> IdealistaSearchRequest.saleSearch(location, propertyType))
             .collect(Collectors.toSet());
 
     IdealistaRealEstateCollector<?> collector =
@@ -303,57 +334,120 @@ public final class IdealistaProvinceCollectorService {
           case LANDS -> terrainCollector;
         };
 
-    return startRealEstateCollectionForProvince(searchRequests, collector);
+    Instant lastFullSweep = lastFullSweeps.get(propertyType);
+    boolean fullSweepDue =
+        lastFullSweep == null || !Instant.now().isBefore(lastFullSweep.plus(fullSweepInterval));
+
+    collector.startDeduplicationRun();
+    try {
+      if (!fullSweepDue) {
+        Set<String> locationsToSweep = recencyCrawler.crawl(locations, propertyType, collector);
+        return locationsToSweep.isEmpty()
+            || startRealEstateCollectionForProvince(
+                saleSearches(locationsToSweep, propertyType), collector);
+      }
+
+      Instant sweepStart = Instant.now();
+      boolean completed =
+          startRealEstateCollectionForProvince(saleSearches(locations, propertyType), collector);
+      if (completed) {
+        lastFullSweeps.put(propertyType, sweepStart);
+      }
+      return completed;
+    } finally {
+      collector.finishDeduplicationRun();
+    }
+  }
+
+  private static Set<IdealistaSearchRequest> saleSearches(
+      Set<String> locations, IdealistaPropertyType propertyType) {
+    return locations.stream()
+        .map(location -> IdealistaSearchRequest.saleSearch(location, propertyType))
+        .collect(Collectors.toSet());
+  }
+
+  /**
+   * Stores this province's spooled datasets of the property type again, e.g. after a fix to
+   * location establishment, without starting any runs. Returns the number of listings stored.
+   */
+  public int replaySpooledRealEstate(IdealistaPropertyType propertyType) {
+    String provinceLocationId = provinceToCollectFor.getIdealistaLocationId();
+    IdealistaRealEstateCollector<?> collector =
+        switch (propertyType) {
+          case HOMES -> propertyCollector;
+          case LANDS -> terrainCollector;
+        };
+
+    collectionLock.lock();
+    try {
+      return collector.replaySpooledDatasets(
+          request -> {
+            String location = request.path("location").asText();
+            return propertyType.getName().equals(request.path("propertyType").asText())
+                && (location.equals(provinceLocationId)
+                    || location.startsWith(provinceLocationId + "-"));
+          });
+    } finally {
+      collectionLock.unlock();
+    }
   }
 
   public boolean collectRealEstateForProvince(IdealistaPropertyType propertyType) {
+    collectionLock.lock();
+    try {
+      return collectRealEstateForProvinceLocked(propertyType);
+    } finally {
+      collectionLock.unlock();
+    }
+  }
+
+  private boolean collectRealEstateForProvinceLocked(IdealistaPropertyType propertyType) {
     LOGGER.info(
         "Starting full collection workflow for province {} and property type {}",
         provinceToCollectFor.getName(),
         propertyType);
 
-    //    Set<String> missingLocationMappings = getLocationIdsMissingFromMappings();
-    //    Set<String> missingAyuntamientoMappings = getAyuntamientoIdsMissingFromMappings();
-    //    boolean mappingsComplete =
-    //        missingLocationMappings.isEmpty() && missingAyuntamientoMappings.isEmpty();
-    //
-    //    if (mappingsComplete) {
-    //      LOGGER.info("All mappings complete, skipping import and bootstrap phases");
-    //      return collectRealEstateListings(propertyType);
-    //    } else if (locationMappingMerchant.importMappings(provinceToCollectFor)) {
-    //      LOGGER.info("Imported mappings from disk, starting collection");
-    //      return collectRealEstateListings(propertyType);
-    //    }
-    //
-    //    LOGGER.info(
-    //        "Mappings incomplete: {} location IDs and {} ayuntamientos need mapping",
-    //        missingLocationMappings.size(),
-    //        missingAyuntamientoMappings.size());
-    //    LOGGER.info("Missing ayuntamiento IDs: {}", missingAyuntamientoMappings);
-    //
-    //    // Phase 1: Location IDs
-    //    if (!ensureLocationIdsComplete()) {
-    //      LOGGER.error(
-    //          "Phase 1 failed: Could not collect all location IDs. Manual intervention
-    // required.");
-    //      return false;
-    //    }
-    //
-    //    // Phase 2: Bootstrap location mappings
-    //    if (!bootstrapLocationMappings()) {
-    //      LOGGER.error(
-    //          "Phase 2 failed: Could not create mappings for all locations. Manual intervention
-    // required.");
-    //      return false;
-    //    }
-    //
-    //    // Phase 3: Bootstrap ayuntamiento mappings
-    //    if (!bootstrapAyuntamientoMappings()) {
-    //      LOGGER.error(
-    //          "Phase 3 failed: Could not create mappings for all ayuntamientos. Manual
-    // intervention required.");
-    //      return false;
-    //    }
+    Set<String> missingLocationMappings = getLocationIdsMissingFromMappings();
+    Set<String> missingAyuntamientoMappings = getAyuntamientoIdsMissingFromMappings();
+    boolean mappingsComplete =
+        missingLocationMappings.isEmpty() && missingAyuntamientoMappings.isEmpty();
+
+    if (mappingsComplete) {
+      LOGGER.info("All mappings complete, skipping import and bootstrap phases");
+      return collectRealEstateListings(propertyType);
+    } else if (locationMappingMerchant.importMappings(provinceToCollectFor)) {
+      LOGGER.info("Imported mappings from disk, starting collection");
+      return collectRealEstateListings(propertyType);
+    }
+
+    LOGGER.info(
+        "Mappings incomplete: {} location IDs and {} ayuntamientos need mapping",
+        missingLocationMappings.size(),
+        missingAyuntamientoMappings.size());
+    LOGGER.info("Missing ayuntamiento IDs: {}", missingAyuntamientoMappings);
+
+    // Phase 1: Location IDs
+    if (!ensureLocationIdsComplete()) {
+      LOGGER.error(
+          "Phase 1 failed: Could not collect all location IDs. Manual intervention required.");
+      return false;
+    }
+
+    // Phase 2: Bootstrap location mappings
+    if (!bootstrapLocationMappings()) {
+      LOGGER.error(
+          "Phase 2 failed: Could not create mappings for all locations."
+              + " Manual intervention required.");
+      return false;
+    }
+
+    // Phase 3: Bootstrap ayuntamiento mappings
+    if (!bootstrapAyuntamientoMappings()) {
+      LOGGER.error(
+          "Phase 3 failed: Could not create mappings for all ayuntamientos."
+              + " Manual intervention required.");
+      return false;
+    }
 
     // Phase 4: Export mappings since they were generated
     LOGGER.info("Exporting mappings to disk since they were generated on the fly.");
@@ -425,7 +519,7 @@ public final class IdealistaProvinceCollectorService {
     return true;
   }
 
-  private static Set<IdealistaSearchRequest> calculateRequestsToRetry(
+  private Set<IdealistaSearchRequest> calculateRequestsToRetry(
       ApifySearchResults<IdealistaSearchRequest> results) {
     Set<IdealistaSearchRequest> residentialProxyRequests =
         Sets.union(
@@ -433,6 +527,6 @@ public final class IdealistaProvinceCollectorService {
             IdealistaSearchRequest.withResidentialProxy(results.requestsToRetryDueToFailure()));
 
     return Sets.union(
-        residentialProxyRequests, IdealistaSearchRequest.fragment(results.requestsToFragment()));
+        residentialProxyRequests, fragmentationPlanner.plan(results.requestsToFragment()));
   }
 }
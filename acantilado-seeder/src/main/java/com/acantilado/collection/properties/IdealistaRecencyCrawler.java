@@ -0,0 +1,92 @@
+package com.acantilado.collection.properties;
+
+import com.acantilado.collection.apify.ApifySearchResults;
+import com.acantilado.collection.properties.collectors.IdealistaRealEstateCollector;
+import com.acantilado.collection.properties.idealista.IdealistaPropertyType;
+import com.acantilado.collection.properties.idealista.IdealistaSearchRequest;
+import com.google.common.collect.Sets;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Crawls the newest listings of every location, starting with a page of {@code recencyPageSize}
+ * and searching again with a page four times larger for as long as the last page held new or
+ * repriced listings. A location stops as soon as a page is entirely known, or holds every listing
+ * the location has. Locations that still change at the actor's item cap, or that the actor asks to
+ * fragment, are handed back to be searched in full, as in a full sweep.
+ */
+final class IdealistaRecencyCrawler {
+  private static final Logger LOGGER = LoggerFactory.getLogger(IdealistaRecencyCrawler.class);
+
+  /** Enough to grow a recency page to the item cap, with room for proxy retries. */
+  static final int MAX_RECENCY_ROUNDS = 6;
+
+  private final int recencyPageSize;
+
+  IdealistaRecencyCrawler(int recencyPageSize) {
+    this.recencyPageSize = recencyPageSize;
+  }
+
+  /** Returns the locations that need a full search. */
+  Set<String> crawl(
+      Set<String> locations,
+      IdealistaPropertyType propertyType,
+      IdealistaRealEstateCollector<?> collector) {
+    Set<IdealistaSearchRequest> searchRequests =
+        locations.stream()
+            .map(
+                location ->
+                    IdealistaSearchRequest.recencySaleSearch(
+                        location, propertyType, recencyPageSize))
+            .collect(Collectors.toSet());
+    Set<String> locationsToSweep = new HashSet<>();
+    int runs = 0;
+
+    for (int round = 0; !searchRequests.isEmpty() && round < MAX_RECENCY_ROUNDS; round++) {
+      runs += searchRequests.size();
+      ApifySearchResults<IdealistaSearchRequest> results =
+          collector.startCollection(searchRequests);
+
+      Set<IdealistaSearchRequest> nextRequests =
+          new HashSet<>(
+              Sets.union(
+                  IdealistaSearchRequest.withResidentialProxy(
+                      results.requestsToRetryDueToEmptyResults()),
+                  IdealistaSearchRequest.withResidentialProxy(
+                      results.requestsToRetryDueToFailure())));
+      results.requestsToFragment().forEach(request -> locationsToSweep.add(request.getLocation()));
+
+      for (IdealistaSearchRequest request : results.requestsSucceeded()) {
+        Optional<IdealistaRealEstateCollector.SearchFreshness> freshness =
+            collector.takeSearchFreshness(request);
+        boolean pageExhausted =
+            freshness.isEmpty()
+                || freshness.get().allKnown()
+                || freshness.get().listings() < request.getMaxItems();
+        if (pageExhausted) {
+          continue;
+        }
+
+        if (request.getMaxItems() >= IdealistaSearchRequest.MAX_ITEMS) {
+          locationsToSweep.add(request.getLocation());
+        } else {
+          nextRequests.add(
+              request.withMaxItems(
+                  Math.min(IdealistaSearchRequest.MAX_ITEMS, request.getMaxItems() * 4)));
+        }
+      }
+      searchRequests = nextRequests;
+    }
+
+    LOGGER.info(
+        "Incremental collection of {} locations took {} runs, {} locations need a full search",
+        locations.size(),
+        runs,
+        locationsToSweep.size());
+    return locationsToSweep;
+  }
+}
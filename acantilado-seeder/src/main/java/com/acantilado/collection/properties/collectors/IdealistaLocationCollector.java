@@ -1,10 +1,11 @@
 package com.acantilado.collection.properties.collectors;
 
 import com.acantilado.collection.apify.ApifyCollector;
-import com.acantilado.collection.location.AcantiladoLocation;
+import com.acantilado.collection.apify.ApifyRuntime;
 import com.acantilado.collection.properties.idealista.IdealistaSearchRequest;
 import com.acantilado.core.idealista.IdealistaLocationDAO;
 import com.acantilado.core.idealista.realEstate.IdealistaAyuntamientoLocation;
+import com.acantilado.core.location.AcantiladoLocation;
 import com.fasterxml.jackson.databind.JsonNode;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
@@ -21,8 +22,9 @@ public class IdealistaLocationCollector
   public IdealistaLocationCollector(
       IdealistaLocationDAO locationDAO,
       ExecutorService executorService,
-      SessionFactory sessionFactory) {
-    super(executorService, sessionFactory);
+      SessionFactory sessionFactory,
+      ApifyRuntime apifyRuntime) {
+    super(executorService, sessionFactory, apifyRuntime);
 
     this.locationDAO = locationDAO;
   }
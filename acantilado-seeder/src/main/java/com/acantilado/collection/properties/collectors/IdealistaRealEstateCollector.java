@@ -1,22 +1,39 @@
 package com.acantilado.collection.properties.collectors;
 
 import com.acantilado.collection.apify.ApifyCollector;
-import com.acantilado.collection.location.AcantiladoLocation;
+import com.acantilado.collection.apify.ApifyRuntime;
 import com.acantilado.collection.location.AcantiladoLocationEstablisher;
+import com.acantilado.collection.properties.idealista.IdealistaContactRegistry;
+import com.acantilado.collection.properties.idealista.IdealistaFragmentationPlanner;
 import com.acantilado.collection.properties.idealista.IdealistaSearchRequest;
+import com.acantilado.collection.utils.HttpUtils;
 import com.acantilado.core.idealista.IdealistaContactInformation;
 import com.acantilado.core.idealista.IdealistaContactInformationDAO;
+import com.acantilado.core.idealista.IdealistaRealEstateBulkWriter;
 import com.acantilado.core.idealista.IdealistaRealEstateDAO;
 import com.acantilado.core.idealista.priceRecords.IdealistaPriceRecordBase;
 import com.acantilado.core.idealista.priceRecords.IdealistaPropertyPriceRecord;
 import com.acantilado.core.idealista.priceRecords.IdealistaTerrainPriceRecord;
+import com.acantilado.core.idealista.realEstate.IdealistaItem;
 import com.acantilado.core.idealista.realEstate.IdealistaProperty;
 import com.acantilado.core.idealista.realEstate.IdealistaRealEstate;
 import com.acantilado.core.idealista.realEstate.IdealistaTerrain;
+import com.acantilado.core.location.AcantiladoLocation;
+import com.acantilado.utils.LongPairHashSet;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.function.Function;
 import org.hibernate.SessionFactory;
@@ -32,23 +49,139 @@ public class IdealistaRealEstateCollector<
   private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
 
   private final AcantiladoLocationEstablisher locationEstablisher;
-  private final IdealistaContactInformationDAO contactInformationDAO;
+  private final IdealistaContactRegistry contactRegistry;
   private final IdealistaRealEstateDAO<T> realEstateDAO;
-  private final Function<JsonNode, T> constructObjectFunction;
+  private final Function<IdealistaItem, T> constructObjectFunction;
+  private final IdealistaFragmentationPlanner fragmentationPlanner;
+  private final Optional<IdealistaRealEstateBulkWriter<T>> bulkWriter;
+
+  private final Counter listingsStored;
+  private final Counter duplicatesSkipped;
+
+  /**
+   * Listings, as property code and price, stored in a committed transaction during the current
+   * run; null outside of a run.
+   */
+  private volatile LongPairHashSet listingsStoredThisRun;
+
+  /** Listings stored in the transaction that is still open. */
+  private final LongPairHashSet listingsPendingCommit = new LongPairHashSet();
+
+  private long runDuplicatesSkipped;
+
+  /** How many listings the search being stored returned, and how many of them changed. */
+  private final Map<IdealistaSearchRequest, SearchFreshness> freshnessPendingCommit =
+      new HashMap<>();
+
+  private final Map<IdealistaSearchRequest, SearchFreshness> searchFreshness =
+      new ConcurrentHashMap<>();
+
+  private IdealistaSearchRequest searchBeingStored;
+
+  /** The listings a search returned, and how many of them were new or had a new price. */
+  public record SearchFreshness(int listings, int changed) {
+    public boolean allKnown() {
+      return changed == 0;
+    }
+  }
 
   public IdealistaRealEstateCollector(
       AcantiladoLocationEstablisher locationEstablisher,
       IdealistaContactInformationDAO contactInformationDAO,
       IdealistaRealEstateDAO<T> realEstateDAO,
-      Function<JsonNode, T> constructObjectFunction,
+      Function<IdealistaItem, T> constructObjectFunction,
+      IdealistaFragmentationPlanner fragmentationPlanner,
+      Optional<IdealistaRealEstateBulkWriter<T>> bulkWriter,
       ExecutorService executorService,
-      SessionFactory sessionFactory) {
-    super(executorService, sessionFactory);
+      SessionFactory sessionFactory,
+      ApifyRuntime apifyRuntime) {
+    super(executorService, sessionFactory, apifyRuntime);
 
     this.locationEstablisher = locationEstablisher;
-    this.contactInformationDAO = contactInformationDAO;
+    this.contactRegistry = new IdealistaContactRegistry(contactInformationDAO);
     this.realEstateDAO = realEstateDAO;
     this.constructObjectFunction = constructObjectFunction;
+    this.fragmentationPlanner = fragmentationPlanner;
+    this.bulkWriter = bulkWriter;
+
+    MetricRegistry metrics = SharedMetricRegistries.getOrCreate(HttpUtils.METRIC_REGISTRY);
+    this.listingsStored = metrics.counter(MetricRegistry.name(getClass(), "listings-stored"));
+    this.duplicatesSkipped =
+        metrics.counter(MetricRegistry.name(getClass(), "duplicates-skipped"));
+  }
+
+  /**
+   * Starts skipping listings already stored with the same price earlier in the run. Fragmented
+   * requests, proxy retries and overlapping locations return the same listing many times; a
+   * repeat would only refresh its last-seen timestamp, which the first sighting already did.
+   */
+  public void startDeduplicationRun() {
+    listingsPendingCommit.clear();
+    searchFreshness.clear();
+    contactRegistry.clear();
+    runDuplicatesSkipped = 0;
+    listingsStoredThisRun = new LongPairHashSet();
+  }
+
+  /** Stops deduplicating and releases the run's listings. */
+  public void finishDeduplicationRun() {
+    LongPairHashSet stored = listingsStoredThisRun;
+    listingsStoredThisRun = null;
+    listingsPendingCommit.clear();
+    searchFreshness.clear();
+    if (stored != null) {
+      LOGGER.info(
+          "Run stored {} distinct listings and {} distinct contacts, and skipped {} duplicates",
+          stored.size(),
+          contactRegistry.size(),
+          runDuplicatesSkipped);
+    }
+    contactRegistry.clear();
+  }
+
+  @Override
+  protected void onSearchResults(
+      IdealistaSearchRequest request, Set<T> realEstates, boolean overLimit) {
+    fragmentationPlanner.observe(
+        request,
+        realEstates.stream()
+            .map(
+                realEstate ->
+                    new IdealistaFragmentationPlanner.Listing(
+                        realEstate.getSize(), realEstate.getPriceRecords().get(0).getPrice()))
+            .toList(),
+        overLimit);
+
+    searchBeingStored = request;
+    freshnessPendingCommit.put(request, new SearchFreshness(realEstates.size(), 0));
+  }
+
+  /**
+   * Returns, and forgets, how fresh the listings of a search stored during the current run were.
+   * Empty if the search was not stored.
+   */
+  public Optional<SearchFreshness> takeSearchFreshness(IdealistaSearchRequest request) {
+    return Optional.ofNullable(searchFreshness.remove(request));
+  }
+
+  @Override
+  protected void onChunkStored(boolean committed) {
+    LongPairHashSet stored = listingsStoredThisRun;
+    if (committed && stored != null) {
+      stored.addAll(listingsPendingCommit);
+    }
+    listingsPendingCommit.clear();
+    contactRegistry.onTransactionFinished(committed);
+  }
+
+  /** A search only counts as fresh, or as all known, once every chunk of it has committed. */
+  @Override
+  protected void onResultsStored(boolean committed) {
+    if (committed && listingsStoredThisRun != null) {
+      searchFreshness.putAll(freshnessPendingCommit);
+    }
+    freshnessPendingCommit.clear();
+    searchBeingStored = null;
   }
 
   @Override
@@ -69,15 +202,106 @@ public class IdealistaRealEstateCollector<
   @Override
   protected Optional<T> constructObject(JsonNode jsonNode) {
     try {
-      return Optional.of(constructObjectFunction.apply(jsonNode));
+      return Optional.of(constructObjectFunction.apply(IdealistaItem.fromJson(jsonNode)));
     } catch (Exception e) {
       LOGGER.error("Failed to construct JSON object: {}", jsonNode, e);
       throw new RuntimeException(e);
     }
   }
 
+  /** Binds the item straight into an {@link IdealistaItem}, without building a tree first. */
+  @Override
+  protected Optional<T> readObject(JsonParser parser) {
+    try {
+      IdealistaItem item = IdealistaItem.READER.readValue(parser);
+      return Optional.of(constructObjectFunction.apply(item));
+    } catch (Exception e) {
+      LOGGER.error("Failed to construct JSON object at {}", parser.currentLocation(), e);
+      throw new RuntimeException(e);
+    }
+  }
+
   @Override
   public void storeResult(T realEstate) {
+    storeListings(List.of(realEstate));
+  }
+
+  /**
+   * With a bulk writer, resolves locations and contacts and then upserts the whole batch and
+   * detects its price changes in SQL. Without one, merges the listings one by one against a
+   * prefetch of the batch's stored listings and latest prices.
+   */
+  @Override
+  protected void storeResultBatch(Collection<T> realEstates) {
+    if (bulkWriter.isEmpty()) {
+      storeListings(realEstates);
+      return;
+    }
+
+    List<T> toWrite = new ArrayList<>();
+    for (T realEstate : realEstates) {
+      if (!skipIfDuplicateInRun(realEstate)) {
+        establishLocation(realEstate);
+        toWrite.add(realEstate);
+      }
+    }
+    contactRegistry.resolve(toWrite);
+
+    IdealistaRealEstateBulkWriter.Outcome outcome = bulkWriter.get().write(toWrite);
+    recordChanged(outcome.changed());
+    listingsStored.inc(toWrite.size());
+  }
+
+  /**
+   * Looks up the stored listings and their latest prices for the whole batch in two queries, so
+   * merging a listing no longer loads it and its entire price history on its own.
+   */
+  private void storeListings(Collection<T> realEstates) {
+    List<T> toStore = new ArrayList<>();
+    for (T realEstate : realEstates) {
+      if (!skipIfDuplicateInRun(realEstate)) {
+        toStore.add(realEstate);
+      }
+    }
+    if (toStore.isEmpty()) {
+      return;
+    }
+
+    List<Long> propertyCodes = toStore.stream().map(IdealistaRealEstate::getPropertyCode).toList();
+    Map<Long, T> existingByCode = new HashMap<>();
+    realEstateDAO
+        .findByPropertyCodes(propertyCodes)
+        .forEach(existing -> existingByCode.put(existing.getPropertyCode(), existing));
+    Map<Long, Long> latestPrices = realEstateDAO.findLatestPrices(propertyCodes);
+    contactRegistry.resolve(toStore);
+
+    for (T realEstate : toStore) {
+      establishLocation(realEstate);
+
+      IdealistaContactInformation definitiveContactInformation = realEstate.getContactInfo();
+      long code = realEstate.getPropertyCode();
+      Optional<T> existing = Optional.ofNullable(existingByCode.get(code));
+      if (existing.isEmpty() && latestPrices.containsKey(code)) {
+        // Stored earlier in this batch, so the session already holds it
+        existing = realEstateDAO.findByPropertyCode(code);
+      }
+      IdealistaRealEstateResult<T> idealistaRealEstateResult =
+          establishProperty(realEstate, existing, Optional.ofNullable(latestPrices.get(code)));
+
+      if (idealistaRealEstateResult.result()
+          != IdealistaRealEstateResult.Result.EXISTING_IDENTICAL) {
+        recordChanged(1);
+      }
+      latestPrices.put(code, realEstate.getPriceRecords().get(0).getPrice());
+
+      T definitiveIdealistaRealEstate = idealistaRealEstateResult.idealistaRealEstate();
+      definitiveIdealistaRealEstate.setContactInfo(definitiveContactInformation);
+      realEstateDAO.merge(definitiveIdealistaRealEstate);
+      listingsStored.inc();
+    }
+  }
+
+  private void establishLocation(T realEstate) {
     Coordinate coordinate = new Coordinate(realEstate.getLongitude(), realEstate.getLatitude());
     AcantiladoLocation location =
         locationEstablisher.establish(
@@ -86,15 +310,41 @@ public class IdealistaRealEstateCollector<
             GEOMETRY_FACTORY.createPoint(coordinate));
 
     realEstate.setAcantiladoLocationId(location.getIdentifier());
+  }
+
+  /** Counts listings of the search being stored that were new or had a new price. */
+  private void recordChanged(int changed) {
+    if (changed > 0 && searchBeingStored != null) {
+      freshnessPendingCommit.computeIfPresent(
+          searchBeingStored,
+          (request, freshness) ->
+              new SearchFreshness(freshness.listings(), freshness.changed() + changed));
+    }
+  }
 
-    IdealistaContactInformation definitiveContactInformation =
-        establishContactInformation(realEstate.getContactInfo(), contactInformationDAO);
-    IdealistaRealEstateResult<T> idealistaRealEstateResult =
-        establishProperty(realEstate, realEstateDAO);
+  private boolean skipIfDuplicateInRun(T realEstate) {
+    if (!isDuplicateInRun(realEstate)) {
+      return false;
+    }
+    duplicatesSkipped.inc();
+    runDuplicatesSkipped++;
+    return true;
+  }
 
-    T definitiveIdealistaRealEstate = idealistaRealEstateResult.idealistaRealEstate();
-    definitiveIdealistaRealEstate.setContactInfo(definitiveContactInformation);
-    realEstateDAO.merge(definitiveIdealistaRealEstate);
+  /**
+   * Records the listing as stored in the open transaction, returning true if it was already
+   * stored at this price during the run. Listings only count as seen once their transaction has
+   * committed, so a rolled back search does not hide them from later ones.
+   */
+  private boolean isDuplicateInRun(T realEstate) {
+    LongPairHashSet stored = listingsStoredThisRun;
+    if (stored == null) {
+      return false;
+    }
+
+    long code = realEstate.getPropertyCode();
+    long price = realEstate.getPriceRecords().get(0).getPrice();
+    return stored.contains(code, price) || !listingsPendingCommit.add(code, price);
   }
 
   public record IdealistaRealEstateResult<T extends IdealistaRealEstate<?>>(
@@ -108,33 +358,37 @@ public class IdealistaRealEstateCollector<
 
   private static <T extends IdealistaRealEstate<? extends IdealistaPriceRecordBase>>
       IdealistaRealEstateResult<T> establishProperty(
-          T newRealEstate, IdealistaRealEstateDAO<T> realEstateDAO) {
+          T newRealEstate, Optional<T> maybeRealEstate, Optional<Long> latestPrice) {
     final long code = newRealEstate.getPropertyCode();
-    Optional<T> maybeRealEstate = realEstateDAO.findByPropertyCode(code);
 
     return maybeRealEstate
-        .map(existingRealEstate -> mergeRealEstate(newRealEstate, existingRealEstate, code))
+        .map(
+            existingRealEstate ->
+                mergeRealEstate(newRealEstate, existingRealEstate, latestPrice, code))
         .orElseGet(
             () ->
                 new IdealistaRealEstateResult<>(
                     newRealEstate, IdealistaRealEstateResult.Result.NEW));
   }
 
+  /**
+   * Compares against the prefetched latest price; a new price record is only appended to the
+   * existing listing's price records, which Hibernate queues without loading the collection.
+   */
   private static <T extends IdealistaRealEstate<? extends IdealistaPriceRecordBase>>
       IdealistaRealEstateResult<T> mergeRealEstate(
-          T newRealEstate, T existingRealEstate, long code) {
+          T newRealEstate, T existingRealEstate, Optional<Long> latestPrice, long code) {
     final long currentTimestamp = Instant.now().toEpochMilli();
     existingRealEstate.setLastSeen(currentTimestamp);
 
     boolean priceHasChanged = false;
-    List<? extends IdealistaPriceRecordBase> priceRecords = existingRealEstate.getPriceRecords();
 
-    if (priceRecords.isEmpty()) {
+    if (latestPrice.isEmpty()) {
       LOGGER.error(
           "Found existing real estate but no existing price record {}", existingRealEstate);
     } else {
       final long newPrice = newRealEstate.getPriceRecords().get(0).getPrice();
-      if (priceRecords.get(0).getPrice() != newPrice) {
+      if (latestPrice.get() != newPrice) {
         LOGGER.debug("Price has changed! {}", code);
         priceHasChanged = true;
 
@@ -161,20 +415,4 @@ public class IdealistaRealEstateCollector<
             ? IdealistaRealEstateResult.Result.PRICE_CHANGE
             : IdealistaRealEstateResult.Result.EXISTING_IDENTICAL);
   }
-
-  private static IdealistaContactInformation establishContactInformation(
-      IdealistaContactInformation newContactInformation,
-      IdealistaContactInformationDAO contactInformationDAO) {
-    IdealistaContactInformation definitiveContactInformation;
-
-    if (newContactInformation.getPhoneNumber() == 0) {
-      definitiveContactInformation = contactInformationDAO.create(newContactInformation);
-    } else {
-      definitiveContactInformation =
-          contactInformationDAO
-              .findByPhoneNumber(newContactInformation.getPhoneNumber())
-              .orElse(contactInformationDAO.create(newContactInformation));
-    }
-    return definitiveContactInformation;
-  }
 }
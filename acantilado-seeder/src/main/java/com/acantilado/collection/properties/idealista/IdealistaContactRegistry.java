@@ -0,0 +1,95 @@
+package com.acantilado.collection.properties.idealista;
+
+import com.acantilado.core.idealista.IdealistaContactInformation;
+import com.acantilado.core.idealista.IdealistaContactInformation.PhoneContact;
+import com.acantilado.core.idealista.IdealistaContactInformationDAO;
+import com.acantilado.core.idealista.realEstate.IdealistaRealEstate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stores each contact, identified by phone prefix and number, once. An agency advertising
+ * thousands of listings used to gain a contact row per listing; now a batch's unknown phone
+ * contacts are looked up together, only those still missing are inserted, and every resolved
+ * contact is remembered for the rest of the run. Another registry may insert the same contact in
+ * the meantime, so missing contacts are inserted through {@link
+ * IdealistaContactInformationDAO#createIfAbsent}, which reads back rather than fails on them.
+ * Contacts without a phone number cannot be told apart and are still stored per listing.
+ *
+ * <p>Contacts inserted in a transaction are only remembered once it commits, so a rolled back
+ * batch cannot leave listings pointing at contacts that were never stored.
+ */
+public final class IdealistaContactRegistry {
+  private final IdealistaContactInformationDAO contactInformationDAO;
+
+  private final Map<PhoneContact, IdealistaContactInformation> contactsStored =
+      new ConcurrentHashMap<>();
+  private final Map<PhoneContact, IdealistaContactInformation> contactsPendingCommit =
+      new HashMap<>();
+
+  public IdealistaContactRegistry(IdealistaContactInformationDAO contactInformationDAO) {
+    this.contactInformationDAO = contactInformationDAO;
+  }
+
+  /** Replaces the contact of each listing by its stored counterpart, storing it if need be. */
+  public void resolve(Collection<? extends IdealistaRealEstate<?>> realEstates) {
+    Map<PhoneContact, IdealistaContactInformation> unknown = new LinkedHashMap<>();
+    for (IdealistaRealEstate<?> realEstate : realEstates) {
+      IdealistaContactInformation contact = realEstate.getContactInfo();
+      if (contact.getPhoneNumber() != 0 && lookUp(phoneContactOf(contact)) == null) {
+        unknown.putIfAbsent(phoneContactOf(contact), contact);
+      }
+    }
+
+    if (!unknown.isEmpty()) {
+      contactsStored.putAll(contactInformationDAO.findByPhoneContacts(unknown.keySet()));
+      List<IdealistaContactInformation> missing =
+          unknown.entrySet().stream()
+              .filter(entry -> lookUp(entry.getKey()) == null)
+              .map(Map.Entry::getValue)
+              .toList();
+      if (!missing.isEmpty()) {
+        contactsPendingCommit.putAll(contactInformationDAO.createIfAbsent(missing));
+      }
+    }
+
+    for (IdealistaRealEstate<?> realEstate : realEstates) {
+      IdealistaContactInformation contact = realEstate.getContactInfo();
+      realEstate.setContactInfo(
+          contact.getPhoneNumber() == 0
+              ? contactInformationDAO.create(contact)
+              : lookUp(phoneContactOf(contact)));
+    }
+  }
+
+  /** Remembers the contacts inserted in the transaction if it committed, forgets them if not. */
+  public void onTransactionFinished(boolean committed) {
+    if (committed) {
+      contactsStored.putAll(contactsPendingCommit);
+    }
+    contactsPendingCommit.clear();
+  }
+
+  /** Forgets every contact, e.g. between runs. */
+  public void clear() {
+    contactsStored.clear();
+    contactsPendingCommit.clear();
+  }
+
+  public int size() {
+    return contactsStored.size();
+  }
+
+  private IdealistaContactInformation lookUp(PhoneContact phoneContact) {
+    IdealistaContactInformation pending = contactsPendingCommit.get(phoneContact);
+    return pending != null ? pending : contactsStored.get(phoneContact);
+  }
+
+  private static PhoneContact phoneContactOf(IdealistaContactInformation contact) {
+    return new PhoneContact(contact.getPrefix(), contact.getPhoneNumber());
+  }
+}
@@ -0,0 +1,269 @@
+package com.acantilado.collection.properties.idealista;
+
+import com.acantilado.collection.utils.HttpUtils;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Splits searches that returned more listings than a single run can hold into smaller searches.
+ *
+ * <p>For every location and property type, the planner keeps a histogram of listings per size
+ * bucket, learned from searches whose results were complete. Once the histogram covers an
+ * over-limit search, the search is cut into as few consecutive size ranges as fit under {@link
+ * #TARGET_RESULTS}, so sparse ranges are merged and each run lands near the cap. Without a
+ * histogram, the search is split in two at the median size of the listings it did return, and
+ * halves that are still over the limit are split again in the next round. A search that cannot be
+ * narrowed further on size is split on price instead. A search that cannot be narrowed on price
+ * either is given up on and counted, keeping only the listings its run returned.
+ */
+public final class IdealistaFragmentationPlanner {
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(IdealistaFragmentationPlanner.class);
+
+  /**
+   * Listings a planned search is expected to return, kept below the actor's 2400 item cap to leave
+   * room for listings published since the histogram was learned.
+   */
+  static final int TARGET_RESULTS = 2000;
+
+  /**
+   * Lower edges of the size buckets in square metres, limited to the size bounds the actor accepts;
+   * the last bucket is unbounded.
+   */
+  static final int[] SIZE_EDGES = {0, 60, 80, 100, 140, 160, 180, 200, 220, 240, 260, 280, 300};
+
+  private static final long UNKNOWN = -1;
+  private static final long PRICE_STEP = 1000;
+
+  private final Map<HistogramKey, long[]> sizeHistograms = new ConcurrentHashMap<>();
+  private final Map<IdealistaSearchRequest, Sample> overLimitSamples = new ConcurrentHashMap<>();
+  private final Counter requestsGivenUp =
+      SharedMetricRegistries.getOrCreate(HttpUtils.METRIC_REGISTRY)
+          .counter(MetricRegistry.name(IdealistaFragmentationPlanner.class, "requests-given-up"));
+
+  private record HistogramKey(String location, IdealistaPropertyType propertyType) {
+    static HistogramKey of(IdealistaSearchRequest request) {
+      return new HistogramKey(request.getLocation(), request.getPropertyType());
+    }
+  }
+
+  /** Sizes and prices of the listings an over-limit search returned before it was cut off. */
+  private record Sample(long[] sizes, long[] prices) {}
+
+  /** The size of a returned listing, which may be unknown, and its asking price. */
+  public record Listing(Long size, long price) {}
+
+  /**
+   * Records the listings a search returned. Complete results replace the histogram buckets the
+   * search covers; results of an over-limit search are kept as a sample for {@link #plan}.
+   */
+  public void observe(
+      IdealistaSearchRequest request, Collection<Listing> listings, boolean overLimit) {
+    if (overLimit) {
+      overLimitSamples.put(
+          request,
+          new Sample(
+              listings.stream().filter(l -> l.size() != null).mapToLong(Listing::size).toArray(),
+              listings.stream().mapToLong(Listing::price).toArray()));
+      return;
+    }
+
+    // A price-bounded search only saw part of each size bucket it covers
+    if (request.hasPriceBounds()) {
+      return;
+    }
+
+    int fromBucket = bucketOf(request.getMinSize());
+    int toBucket = upperBucketOf(request.getMaxSize());
+    if (SIZE_EDGES[fromBucket] != request.getMinSize() || toBucket <= fromBucket) {
+      return;
+    }
+
+    long[] counts = new long[toBucket - fromBucket];
+    for (Listing listing : listings) {
+      if (listing.size() != null) {
+        int bucket = bucketOf(listing.size());
+        if (bucket >= fromBucket && bucket < toBucket) {
+          counts[bucket - fromBucket]++;
+        }
+      }
+    }
+
+    long[] histogram =
+        sizeHistograms.computeIfAbsent(
+            HistogramKey.of(request),
+            key -> {
+              long[] empty = new long[SIZE_EDGES.length];
+              Arrays.fill(empty, UNKNOWN);
+              return empty;
+            });
+    synchronized (histogram) {
+      System.arraycopy(counts, 0, histogram, fromBucket, counts.length);
+    }
+  }
+
+  /**
+   * Returns the searches that replace the given over-limit ones. Searches that cannot be narrowed
+   * any further are logged, counted and not replaced; the listings their run returned were stored.
+   */
+  public Set<IdealistaSearchRequest> plan(Set<IdealistaSearchRequest> overLimitRequests) {
+    Set<IdealistaSearchRequest> planned = new HashSet<>();
+    Set<IdealistaSearchRequest> givenUp = new HashSet<>();
+    overLimitRequests.forEach(
+        request -> {
+          List<IdealistaSearchRequest> fragments = plan(request);
+          if (fragments.isEmpty()) {
+            givenUp.add(request);
+          }
+          planned.addAll(fragments);
+        });
+
+    if (!givenUp.isEmpty()) {
+      requestsGivenUp.inc(givenUp.size());
+      LOGGER.warn(
+          "Giving up on {} requests that cannot be narrowed further, keeping only their first {}"
+              + " listings: {}",
+          givenUp.size(),
+          IdealistaSearchRequest.MAX_ITEMS,
+          givenUp);
+    }
+    LOGGER.info("Fragmented {} into {} requests", overLimitRequests.size(), planned.size());
+    return planned;
+  }
+
+  private List<IdealistaSearchRequest> plan(IdealistaSearchRequest request) {
+    Sample sample = overLimitSamples.remove(request);
+    int fromBucket = bucketOf(request.getMinSize());
+    int toBucket = upperBucketOf(request.getMaxSize());
+
+    if (!request.hasPriceBounds() && toBucket - fromBucket > 1) {
+      List<IdealistaSearchRequest> fromHistogram = planFromHistogram(request, fromBucket, toBucket);
+      if (!fromHistogram.isEmpty()) {
+        return fromHistogram;
+      }
+      return splitOnSize(request, sample, fromBucket, toBucket);
+    }
+
+    return splitOnPrice(request, sample);
+  }
+
+  /**
+   * Packs consecutive size buckets into searches of at most {@link #TARGET_RESULTS} listings. A
+   * bucket holding more than that on its own becomes a search of its own, to be split on price if
+   * it is still over the limit. Returns nothing if part of the range has not been observed yet.
+   */
+  private List<IdealistaSearchRequest> planFromHistogram(
+      IdealistaSearchRequest request, int fromBucket, int toBucket) {
+    long[] histogram = sizeHistograms.get(HistogramKey.of(request));
+    if (histogram == null) {
+      return List.of();
+    }
+
+    long[] counts;
+    synchronized (histogram) {
+      counts = Arrays.copyOfRange(histogram, fromBucket, toBucket);
+    }
+    if (Arrays.stream(counts).anyMatch(count -> count == UNKNOWN)) {
+      return List.of();
+    }
+
+    List<IdealistaSearchRequest> fragments = new ArrayList<>();
+    int start = fromBucket;
+    long runningCount = 0;
+    for (int bucket = fromBucket; bucket < toBucket; bucket++) {
+      long count = counts[bucket - fromBucket];
+      if (bucket > start && runningCount + count > TARGET_RESULTS) {
+        fragments.add(withSizeBuckets(request, start, bucket));
+        start = bucket;
+        runningCount = 0;
+      }
+      runningCount += count;
+    }
+    fragments.add(withSizeBuckets(request, start, toBucket));
+
+    // The histogram is out of date if the whole range was expected to fit in one search
+    if (fragments.size() == 1) {
+      return List.of();
+    }
+
+    LOGGER.debug("Planned {} size ranges from histogram for {}", fragments.size(), request);
+    return fragments;
+  }
+
+  /** Splits the size range in two at the median size of the sample, or halfway without one. */
+  private static List<IdealistaSearchRequest> splitOnSize(
+      IdealistaSearchRequest request, Sample sample, int fromBucket, int toBucket) {
+    int splitBucket = fromBucket + (toBucket - fromBucket) / 2;
+    if (sample != null && sample.sizes().length > 0) {
+      splitBucket = bucketOf(median(sample.sizes()));
+      splitBucket = Math.max(fromBucket + 1, Math.min(toBucket - 1, splitBucket));
+    }
+
+    return List.of(
+        withSizeBuckets(request, fromBucket, splitBucket),
+        withSizeBuckets(request, splitBucket, toBucket));
+  }
+
+  /** Splits the price range in two at the median price of the sample. */
+  private static List<IdealistaSearchRequest> splitOnPrice(
+      IdealistaSearchRequest request, Sample sample) {
+    long minPrice = request.getMinPrice();
+    long maxPrice = request.getMaxPrice();
+
+    long splitPrice;
+    if (sample != null && sample.prices().length > 0) {
+      splitPrice = median(sample.prices()) / PRICE_STEP * PRICE_STEP;
+    } else if (maxPrice != 0) {
+      splitPrice = (minPrice + maxPrice) / 2 / PRICE_STEP * PRICE_STEP;
+    } else {
+      LOGGER.debug("No listings to split the price range of {} on", request);
+      return List.of();
+    }
+
+    if (splitPrice <= minPrice || (maxPrice != 0 && splitPrice >= maxPrice)) {
+      LOGGER.debug("No price within the bounds of {} to split on", request);
+      return List.of();
+    }
+
+    return List.of(
+        request.withPriceBounds(minPrice, splitPrice),
+        request.withPriceBounds(splitPrice, maxPrice));
+  }
+
+  private static IdealistaSearchRequest withSizeBuckets(
+      IdealistaSearchRequest request, int fromBucket, int toBucket) {
+    int maxSize = toBucket == SIZE_EDGES.length ? 0 : SIZE_EDGES[toBucket];
+    return request.withSizeBounds(SIZE_EDGES[fromBucket], maxSize);
+  }
+
+  static int bucketOf(long size) {
+    int index = Arrays.binarySearch(SIZE_EDGES, (int) Math.min(size, Integer.MAX_VALUE));
+    return index >= 0 ? index : Math.max(0, -index - 2);
+  }
+
+  /** Returns the exclusive upper bucket of a range ending at the given size, 0 being unbounded. */
+  private static int upperBucketOf(int maxSize) {
+    if (maxSize == 0) {
+      return SIZE_EDGES.length;
+    }
+    int index = Arrays.binarySearch(SIZE_EDGES, maxSize);
+    return index >= 0 ? index : -index - 1;
+  }
+
+  private static long median(long[] values) {
+    long[] sorted = values.clone();
+    Arrays.sort(sorted);
+    return sorted[sorted.length / 2];
+  }
+}
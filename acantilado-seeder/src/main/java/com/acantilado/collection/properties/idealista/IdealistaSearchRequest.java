@@ -1,35 +1,28 @@
 package com.acantilado.collection.properties.idealista;
 
 import com.acantilado.collection.utils.RequestBodyData;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import java.net.http.HttpRequest;
 import java.util.*;
 import java.util.stream.Collectors;
-import org.apache.commons.lang3.tuple.Pair;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
+/** The request body is built from the annotated fields only; the getters are for callers. */
+@JsonAutoDetect(
+    getterVisibility = JsonAutoDetect.Visibility.NONE,
+    isGetterVisibility = JsonAutoDetect.Visibility.NONE)
 public class IdealistaSearchRequest implements RequestBodyData {
-  private static final Logger LOGGER = LoggerFactory.getLogger(IdealistaSearchRequest.class);
-  private static final int MAX_SURFACE_AREA = 300;
+  /** The most listings a single run of the actor returns. */
+  public static final int MAX_ITEMS = 2400;
+
   private static final ProxyConfiguration DEFAULT_PROXY_CONFIGURATION =
       ProxyConfiguration.datacenter();
 
   public record BaseIdealistaSearch(
       IdealistaOperation operation, IdealistaPropertyType type, String location) {}
 
-  private static List<Pair<Integer, Integer>> PERMITTED_SIZE_VALUES() {
-    List<Integer> values =
-        Arrays.asList(0, 60, 80, 100, 140, 160, 180, 200, 220, 240, 260, 280, 300);
-    List<Pair<Integer, Integer>> pairs = new ArrayList<>();
-    for (int i = 0; i < values.size() - 1; i++) {
-      pairs.add(Pair.of(values.get(i), values.get(i + 1)));
-    }
-    return pairs;
-  }
-
   @JsonProperty("country")
   private final String country;
 
@@ -54,6 +47,15 @@ public class IdealistaSearchRequest implements RequestBodyData {
   @JsonProperty("maxSize")
   private final String maxSize;
 
+  /** Null when unbounded, so that searches without price bounds never send them. */
+  @JsonProperty("minPrice")
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private final String minPrice;
+
+  @JsonProperty("maxPrice")
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private final String maxPrice;
+
   @JsonProperty("proxyConfiguration")
   private final ProxyConfiguration proxyConfiguration;
 
@@ -67,6 +69,33 @@ public class IdealistaSearchRequest implements RequestBodyData {
       String minSize,
       String maxSize,
       ProxyConfiguration proxyConfiguration) {
+    this(
+        country,
+        operation,
+        propertyType,
+        sortBy,
+        location,
+        maxItems,
+        minSize,
+        maxSize,
+        null,
+        null,
+        proxyConfiguration);
+  }
+
+  /** Price bounds of 0 or null leave the search unbounded on that side. */
+  public IdealistaSearchRequest(
+      IdealistaCountry country,
+      IdealistaOperation operation,
+      IdealistaPropertyType propertyType,
+      IdealistaSortBy sortBy,
+      String location,
+      int maxItems,
+      String minSize,
+      String maxSize,
+      String minPrice,
+      String maxPrice,
+      ProxyConfiguration proxyConfiguration) {
     this.country = country.getName();
     this.operation = operation.getName();
     this.propertyType = propertyType.getName();
@@ -77,6 +106,8 @@ public class IdealistaSearchRequest implements RequestBodyData {
 
     this.minSize = minSize;
     this.maxSize = maxSize;
+    this.minPrice = unlessUnbounded(minPrice);
+    this.maxPrice = unlessUnbounded(maxPrice);
 
     this.proxyConfiguration = proxyConfiguration;
   }
@@ -85,12 +116,47 @@ public class IdealistaSearchRequest implements RequestBodyData {
     return this.location;
   }
 
+  public int getMaxItems() {
+    return this.maxItems;
+  }
+
+  public IdealistaPropertyType getPropertyType() {
+    return IdealistaPropertyType.fromTypeCode(this.propertyType);
+  }
+
+  public int getMinSize() {
+    return Integer.parseInt(this.minSize);
+  }
+
+  /** Returns 0 if the search has no upper size bound. */
+  public int getMaxSize() {
+    return Integer.parseInt(this.maxSize);
+  }
+
+  /** Returns 0 if the search has no lower price bound. */
+  public long getMinPrice() {
+    return this.minPrice == null ? 0 : Long.parseLong(this.minPrice);
+  }
+
+  /** Returns 0 if the search has no upper price bound. */
+  public long getMaxPrice() {
+    return this.maxPrice == null ? 0 : Long.parseLong(this.maxPrice);
+  }
+
+  private static String unlessUnbounded(String priceBound) {
+    return priceBound == null || Long.parseLong(priceBound) == 0 ? null : priceBound;
+  }
+
+  public boolean hasPriceBounds() {
+    return getMinPrice() != 0 || getMaxPrice() != 0;
+  }
+
   @Override
-  public HttpRequest.BodyPublisher toRequestBodyString() {
+  public String toRequestBodyJson() {
     ObjectMapper mapper = new ObjectMapper();
 
     try {
-      return HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(this));
+      return mapper.writeValueAsString(this);
     } catch (JsonProcessingException exception) {
       throw new RuntimeException(exception);
     }
@@ -113,6 +179,8 @@ public class IdealistaSearchRequest implements RequestBodyData {
         request.maxItems,
         request.minSize,
         request.maxSize,
+        request.minPrice,
+        request.maxPrice,
         ProxyConfiguration.residential());
   }
 
@@ -123,50 +191,54 @@ public class IdealistaSearchRequest implements RequestBodyData {
         search.type(),
         IdealistaSortBy.PROXIMITY,
         search.location,
-        2400,
+        MAX_ITEMS,
         String.valueOf(0),
         String.valueOf(0),
         ProxyConfiguration.datacenter());
   }
 
-  public static Set<IdealistaSearchRequest> fragment(Set<IdealistaSearchRequest> requests) {
-    if (requests.isEmpty()) {
-      return requests;
-    }
+  /** Copies the search with the given size bounds, keeping its price bounds. */
+  public IdealistaSearchRequest withSizeBounds(int minSize, int maxSize) {
+    return withBounds(
+        String.valueOf(minSize), String.valueOf(maxSize), this.minPrice, this.maxPrice);
+  }
 
-    Set<IdealistaSearchRequest> fragmentedRequests = new HashSet<>();
-    requests.forEach(
-        request -> {
-          if (isFragmentable(request)) {
-            PERMITTED_SIZE_VALUES()
-                .forEach(
-                    pair -> {
-                      fragmentedRequests.add(
-                          IdealistaSearchRequest.withSurfaceAreaBounds(
-                              request, pair.getLeft(), pair.getRight()));
-                    });
-            fragmentedRequests.add(
-                IdealistaSearchRequest.withSurfaceAreaBounds(request, MAX_SURFACE_AREA, 0));
-          }
-        });
-
-    LOGGER.info("Fragmented {} into {} requests", requests.size(), fragmentedRequests.size());
-
-    return fragmentedRequests;
+  /** Copies the search with the given price bounds, keeping its size bounds. */
+  public IdealistaSearchRequest withPriceBounds(long minPrice, long maxPrice) {
+    return withBounds(
+        this.minSize, this.maxSize, String.valueOf(minPrice), String.valueOf(maxPrice));
   }
 
-  private static IdealistaSearchRequest withSurfaceAreaBounds(
-      IdealistaSearchRequest request, int minSize, int maxSize) {
+  /** Copies the search with a different number of listings to return. */
+  public IdealistaSearchRequest withMaxItems(int maxItems) {
     return new IdealistaSearchRequest(
-        IdealistaCountry.SPAIN,
-        IdealistaOperation.fromOperationCode(request.operation),
-        IdealistaPropertyType.fromTypeCode(request.propertyType),
-        IdealistaSortBy.PROXIMITY,
-        request.getLocation(),
-        2400,
-        String.valueOf(minSize),
-        String.valueOf(maxSize),
-        request.proxyConfiguration);
+        IdealistaCountry.fromCountryCode(this.country),
+        IdealistaOperation.fromOperationCode(this.operation),
+        IdealistaPropertyType.fromTypeCode(this.propertyType),
+        IdealistaSortBy.fromSortBy(this.sortBy),
+        this.location,
+        maxItems,
+        this.minSize,
+        this.maxSize,
+        this.minPrice,
+        this.maxPrice,
+        this.proxyConfiguration);
+  }
+
+  private IdealistaSearchRequest withBounds(
+      String minSize, String maxSize, String minPrice, String maxPrice) {
+    return new IdealistaSearchRequest(
+        IdealistaCountry.fromCountryCode(this.country),
+        IdealistaOperation.fromOperationCode(this.operation),
+        IdealistaPropertyType.fromTypeCode(this.propertyType),
+        IdealistaSortBy.fromSortBy(this.sortBy),
+        this.location,
+        this.maxItems,
+        minSize,
+        maxSize,
+        minPrice,
+        maxPrice,
+        this.proxyConfiguration);
   }
 
   @Override
@@ -195,6 +267,12 @@ public class IdealistaSearchRequest implements RequestBodyData {
         + ", maxSize='"
         + maxSize
         + '\''
+        + ", minPrice='"
+        + minPrice
+        + '\''
+        + ", maxPrice='"
+        + maxPrice
+        + '\''
         + ", proxyConfiguration="
         + proxyConfiguration
         + '}';
@@ -207,11 +285,10 @@ public class IdealistaSearchRequest implements RequestBodyData {
     return IdealistaSearchRequest.fromSearch(search);
   }
 
-  public static boolean isFragmentable(IdealistaSearchRequest searchRequest) {
-    boolean minIsZero = Objects.equals(searchRequest.minSize, "0");
-    boolean maxIsZero = Objects.equals(searchRequest.maxSize, "0");
-
-    return minIsZero && maxIsZero;
+  /** The most recently published sale listings of the location, newest first. */
+  public static IdealistaSearchRequest recencySaleSearch(
+      String location, IdealistaPropertyType propertyType, int maxItems) {
+    return locationBasedSaleSearch(location, propertyType).withMaxItems(maxItems);
   }
 
   public static IdealistaSearchRequest homeSaleSearch(String location) {
@@ -230,7 +307,7 @@ public class IdealistaSearchRequest implements RequestBodyData {
         propertyType,
         IdealistaSortBy.RECENCY,
         location,
-        2400,
+        MAX_ITEMS,
         String.valueOf(0),
         String.valueOf(0),
         ProxyConfiguration.datacenter());
@@ -247,12 +324,23 @@ public class IdealistaSearchRequest implements RequestBodyData {
         && Objects.equals(propertyType, request.propertyType)
         && Objects.equals(sortBy, request.sortBy)
         && Objects.equals(minSize, request.minSize)
-        && Objects.equals(maxSize, request.maxSize);
+        && Objects.equals(maxSize, request.maxSize)
+        && Objects.equals(minPrice, request.minPrice)
+        && Objects.equals(maxPrice, request.maxPrice);
   }
 
   @Override
   public int hashCode() {
     return Objects.hash(
-        country, location, operation, propertyType, maxItems, sortBy, minSize, maxSize);
+        country,
+        location,
+        operation,
+        propertyType,
+        maxItems,
+        sortBy,
+        minSize,
+        maxSize,
+        minPrice,
+        maxPrice);
   }
 }
@@ -1,30 +1,164 @@
 package com.acantilado.collection.utils;
 
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.codahale.metrics.Timer;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import javax.net.ssl.SSLSession;
 
+/**
+ * Sends requests to external APIs through a single long-lived {@link HttpClient}, so that
+ * connections, TLS sessions and the selector thread are shared by every collector.
+ *
+ * <p>Latency is recorded in the {@value #METRIC_REGISTRY} metric registry, together with how many
+ * responses arrived over a connection that had been used before. The client does not expose its
+ * pool, so connections are told apart by their TLS session.
+ */
 public final class HttpUtils {
+  public static final String METRIC_REGISTRY = "acantilado";
 
-  public static JsonNode makeApiCall(HttpRequest request) {
-    HttpClient httpClient = HttpClient.newBuilder().build();
+  private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
 
-    HttpResponse<InputStream> response;
-    try {
-      response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
-    } catch (IOException | InterruptedException e) {
-      throw new RuntimeException(e);
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+  private static final ObjectReader JSON_READER = OBJECT_MAPPER.reader();
+
+  // Virtual threads are still a preview feature on Java 19, so handlers run on a cached pool.
+  private static final HttpClient HTTP_CLIENT =
+      HttpClient.newBuilder()
+          .version(HttpClient.Version.HTTP_2)
+          .connectTimeout(CONNECT_TIMEOUT)
+          .followRedirects(HttpClient.Redirect.NORMAL)
+          .executor(
+              Executors.newCachedThreadPool(
+                  new ThreadFactoryBuilder()
+                      .setNameFormat("http-client-%d")
+                      .setDaemon(true)
+                      .build()))
+          .build();
+
+  private static final Set<SSLSession> SEEN_SESSIONS =
+      Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+  public static JsonNode makeApiCall(HttpRequest request) {
+    try (InputStream inputStream = send(request).body()) {
+      return JSON_READER.readTree(inputStream);
+    } catch (IOException ioException) {
+      throw new RuntimeException("Failed to read data returned by external source", ioException);
     }
+  }
+
+  /** Reads the array element a parser is positioned at, returning false to stop reading. */
+  @FunctionalInterface
+  public interface ElementReader {
+    boolean read(JsonParser parser) throws IOException;
+  }
 
-    try (InputStream inputStream = response.body()) {
-      return new ObjectMapper().readTree(inputStream);
+  /**
+   * Reads a response whose body is a JSON array one element at a time, handing the parser to the
+   * element reader at the start of each element, and returns how many elements were read. Only a
+   * single element is ever held in memory, and it can be bound straight into a typed object
+   * without first being materialized as a tree. Reading stops early, leaving the rest of the body
+   * unread, once the reader returns false.
+   */
+  public static int streamApiCall(HttpRequest request, ElementReader elementReader) {
+    int elementsRead = 0;
+    try (InputStream inputStream = send(request).body();
+        JsonParser parser = OBJECT_MAPPER.createParser(inputStream)) {
+      if (parser.nextToken() != JsonToken.START_ARRAY) {
+        throw new RuntimeException("Expected a JSON array from external source for " + request);
+      }
+
+      JsonToken token;
+      while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+        if (token == null) {
+          throw new RuntimeException("Truncated JSON array from external source for " + request);
+        }
+        elementsRead++;
+        if (!elementReader.read(parser)) {
+          break;
+        }
+      }
     } catch (IOException ioException) {
       throw new RuntimeException("Failed to read data returned by external source", ioException);
     }
+    return elementsRead;
+  }
+
+  public static CompletableFuture<JsonNode> makeApiCallAsync(HttpRequest request) {
+    Timer.Context timer = metrics().timer(metricName("requests")).time();
+
+    return HTTP_CLIENT
+        .sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+        .whenComplete(
+            (response, throwable) -> {
+              timer.stop();
+              if (throwable != null) {
+                metrics().meter(metricName("failures")).mark();
+              } else {
+                recordConnection(response);
+              }
+            })
+        .thenApply(
+            response -> {
+              try {
+                return JSON_READER.readTree(response.body());
+              } catch (IOException ioException) {
+                throw new UncheckedIOException(
+                    "Failed to read data returned by external source", ioException);
+              }
+            });
+  }
+
+  private static HttpResponse<InputStream> send(HttpRequest request) {
+    HttpResponse<InputStream> response;
+    try (Timer.Context ignored = metrics().timer(metricName("requests")).time()) {
+      response = HTTP_CLIENT.send(request, HttpResponse.BodyHandlers.ofInputStream());
+    } catch (IOException e) {
+      metrics().meter(metricName("failures")).mark();
+      throw new RuntimeException(e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    }
+    recordConnection(response);
+    return response;
+  }
+
+  private static void recordConnection(HttpResponse<?> response) {
+    metrics().meter(metricName("responses", response.version().name())).mark();
+
+    response
+        .sslSession()
+        .ifPresent(
+            session -> {
+              String outcome = SEEN_SESSIONS.add(session) ? "opened" : "reused";
+              metrics().meter(metricName("connections", outcome)).mark();
+            });
+  }
+
+  private static MetricRegistry metrics() {
+    return SharedMetricRegistries.getOrCreate(METRIC_REGISTRY);
+  }
+
+  private static String metricName(String... names) {
+    return MetricRegistry.name(HttpUtils.class, names);
   }
 
   private HttpUtils() {}
@@ -3,5 +3,9 @@ package com.acantilado.collection.utils;
 import java.net.http.HttpRequest;
 
 public interface RequestBodyData {
-  HttpRequest.BodyPublisher toRequestBodyString();
+  String toRequestBodyJson();
+
+  default HttpRequest.BodyPublisher toRequestBodyString() {
+    return HttpRequest.BodyPublishers.ofString(toRequestBodyJson());
+  }
 }
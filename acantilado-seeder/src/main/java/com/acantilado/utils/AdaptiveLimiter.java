@@ -0,0 +1,108 @@
+package com.acantilado.utils;
+
+/**
+ * Limits both how many operations are in flight and how fast new ones start.
+ *
+ * <p>The concurrency limit adapts AIMD-style: every success raises it by roughly one per window of
+ * {@code limit} successes, and every overload signal (a 429, a memory limit) halves it, at most
+ * once per cooldown so that a burst of rejections caused by the same overload only counts once.
+ * Independently, a token bucket caps the rate at which permits are handed out.
+ *
+ * <p>A single instance is meant to be shared by everything that draws from the same external
+ * budget, e.g. all collectors starting runs on one Apify account.
+ */
+public final class AdaptiveLimiter {
+  private static final double BACKOFF_RATIO = 0.5;
+  private static final long DECREASE_COOLDOWN_NANOS = 5_000_000_000L;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final double permitsPerSecond;
+  private final double burst;
+
+  private double limit;
+  private int inFlight;
+  private double tokens;
+  private long lastRefillNanos;
+  private long lastDecreaseNanos;
+
+  public AdaptiveLimiter(
+      int initialLimit, int minLimit, int maxLimit, double permitsPerSecond, int burst) {
+    if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+      throw new IllegalArgumentException(
+          "Limits must satisfy 1 <= min <= initial <= max, got "
+              + minLimit
+              + ", "
+              + initialLimit
+              + ", "
+              + maxLimit);
+    }
+    if (permitsPerSecond <= 0 || burst < 1) {
+      throw new IllegalArgumentException("Rate and burst must be positive");
+    }
+
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.permitsPerSecond = permitsPerSecond;
+    this.burst = burst;
+
+    this.limit = initialLimit;
+    this.tokens = burst;
+    this.lastRefillNanos = System.nanoTime();
+    this.lastDecreaseNanos = lastRefillNanos - DECREASE_COOLDOWN_NANOS;
+  }
+
+  /** Blocks until both a concurrency slot and a rate token are available. */
+  public synchronized void acquire() throws InterruptedException {
+    while (true) {
+      refill();
+      boolean slotAvailable = inFlight < (int) limit;
+      if (slotAvailable && tokens >= 1) {
+        tokens -= 1;
+        inFlight++;
+        return;
+      }
+
+      if (slotAvailable) {
+        long millisUntilToken = (long) Math.ceil((1 - tokens) * 1000 / permitsPerSecond);
+        wait(Math.max(1, millisUntilToken));
+      } else {
+        wait();
+      }
+    }
+  }
+
+  /** Frees the slot taken by {@link #acquire()}. */
+  public synchronized void release() {
+    inFlight = Math.max(0, inFlight - 1);
+    notifyAll();
+  }
+
+  public synchronized void onSuccess() {
+    limit = Math.min(maxLimit, limit + 1 / limit);
+    notifyAll();
+  }
+
+  public synchronized void onOverload() {
+    long now = System.nanoTime();
+    if (now - lastDecreaseNanos < DECREASE_COOLDOWN_NANOS) {
+      return;
+    }
+    lastDecreaseNanos = now;
+    limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+  }
+
+  public synchronized int getLimit() {
+    return (int) limit;
+  }
+
+  public synchronized int getInFlight() {
+    return inFlight;
+  }
+
+  private void refill() {
+    long now = System.nanoTime();
+    tokens = Math.min(burst, tokens + (now - lastRefillNanos) / 1e9 * permitsPerSecond);
+    lastRefillNanos = now;
+  }
+}
@@ -0,0 +1,134 @@
+package com.acantilado.utils;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash set of {@code (long, long)} pairs, stored side by side in a single
+ * {@code long[]} with linear probing. Meant for tracking millions of small keys without boxing
+ * them or allocating an entry per key. Not thread-safe.
+ *
+ * <p>{@link Long#MIN_VALUE} marks an empty slot and cannot be used as the first element of a pair.
+ */
+public final class LongPairHashSet {
+  private static final long EMPTY = Long.MIN_VALUE;
+  private static final float LOAD_FACTOR = 0.5f;
+  private static final int MIN_CAPACITY = 16;
+
+  private long[] slots;
+  private int mask;
+  private int size;
+  private int resizeThreshold;
+
+  public LongPairHashSet() {
+    this(MIN_CAPACITY);
+  }
+
+  public LongPairHashSet(int expectedSize) {
+    allocate(capacityFor(expectedSize));
+  }
+
+  /** Adds the pair, returning false if it was already present. */
+  public boolean add(long first, long second) {
+    checkFirst(first);
+    int slot = findSlot(slots, mask, first, second);
+    if (slots[slot] != EMPTY) {
+      return false;
+    }
+
+    slots[slot] = first;
+    slots[slot + 1] = second;
+    if (++size > resizeThreshold) {
+      resize();
+    }
+    return true;
+  }
+
+  public boolean contains(long first, long second) {
+    checkFirst(first);
+    return slots[findSlot(slots, mask, first, second)] != EMPTY;
+  }
+
+  /** Adds every pair of the other set. */
+  public void addAll(LongPairHashSet other) {
+    long[] otherSlots = other.slots;
+    for (int slot = 0; slot < otherSlots.length; slot += 2) {
+      if (otherSlots[slot] != EMPTY) {
+        add(otherSlots[slot], otherSlots[slot + 1]);
+      }
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /** Empties the set, keeping its current capacity. */
+  public void clear() {
+    if (size > 0) {
+      Arrays.fill(slots, EMPTY);
+      size = 0;
+    }
+  }
+
+  private void resize() {
+    long[] oldSlots = slots;
+    allocate((mask + 1) * 2);
+    for (int slot = 0; slot < oldSlots.length; slot += 2) {
+      long first = oldSlots[slot];
+      if (first != EMPTY) {
+        int newSlot = findSlot(slots, mask, first, oldSlots[slot + 1]);
+        slots[newSlot] = first;
+        slots[newSlot + 1] = oldSlots[slot + 1];
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    slots = new long[capacity * 2];
+    Arrays.fill(slots, EMPTY);
+    mask = capacity - 1;
+    resizeThreshold = (int) (capacity * LOAD_FACTOR);
+  }
+
+  /** Returns the index of the pair's slot, or of the empty slot where it would go. */
+  private static int findSlot(long[] slots, int mask, long first, long second) {
+    int index = mix(first, second) & mask;
+    while (true) {
+      int slot = index * 2;
+      long current = slots[slot];
+      if (current == EMPTY || (current == first && slots[slot + 1] == second)) {
+        return slot;
+      }
+      index = (index + 1) & mask;
+    }
+  }
+
+  /** Spreads both halves of the pair over the low bits used for indexing (murmur3 finalizer). */
+  private static int mix(long first, long second) {
+    long hash = first * 0x9E3779B97F4A7C15L + second;
+    hash ^= hash >>> 33;
+    hash *= 0xFF51AFD7ED558CCDL;
+    hash ^= hash >>> 33;
+    hash *= 0xC4CEB9FE1A85EC53L;
+    hash ^= hash >>> 33;
+    return (int) hash;
+  }
+
+  private static int capacityFor(int expectedSize) {
+    long required = (long) Math.ceil(Math.max(expectedSize, 1) / LOAD_FACTOR);
+    if (required > 1 << 29) {
+      throw new IllegalArgumentException("Too many elements: " + expectedSize);
+    }
+    return Math.max(MIN_CAPACITY, Integer.highestOneBit((int) required - 1) << 1);
+  }
+
+  private static void checkFirst(long first) {
+    if (first == EMPTY) {
+      throw new IllegalArgumentException("Long.MIN_VALUE is reserved for empty slots");
+    }
+  }
+}
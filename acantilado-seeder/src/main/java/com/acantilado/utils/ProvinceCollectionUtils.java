@@ -2,10 +2,10 @@ package com.acantilado.utils;
 
 import static com.acantilado.utils.RetryableBatchedExecutor.executeCallableInSessionWithoutTransaction;
 
-import com.acantilado.collection.location.CityAyuntamientoCode;
 import com.acantilado.core.administrative.*;
 import com.acantilado.core.idealista.IdealistaLocationDAO;
 import com.acantilado.core.idealista.realEstate.IdealistaAyuntamientoLocation;
+import com.acantilado.core.location.CityAyuntamientoCode;
 import java.util.*;
 import java.util.stream.Collectors;
 import org.hibernate.SessionFactory;
@@ -2,6 +2,7 @@ package com.acantilado.utils;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
@@ -14,124 +15,160 @@ public class RetryableBatchedExecutor {
   private static final Logger LOGGER = LoggerFactory.getLogger(RetryableBatchedExecutor.class);
   private static final int INITIAL_RETRY_DELAY_MS = 10000;
   private static final int MAX_RETRY_DELAY_MS = 100000;
+  private static final int POLL_INTERVAL_MS = 50;
 
-  private record SingleRunStats(
-      int totalToRun,
-      int totalExecuted,
-      int executedThisRun,
-      int totalRetryCount,
-      long waitTimeMs) {
-    SingleRunStats refreshRetryCount(int executedThisRun) {
-      return new SingleRunStats(
-          this.totalToRun,
-          this.totalExecuted + executedThisRun,
-          executedThisRun,
-          this.totalRetryCount + 1,
-          adjustWaitTime(this.waitTimeMs, this.executedThisRun(), executedThisRun));
-    }
-
-    static long adjustWaitTime(long current, int numPrevResults, int numCurrentResults) {
-      long waitTime =
-          numPrevResults > numCurrentResults || numCurrentResults == 0
-              ? (long) (current * 1.5)
-              : (long) (current * 0.8);
-
-      return waitTime > MAX_RETRY_DELAY_MS ? MAX_RETRY_DELAY_MS : waitTime;
+  private record ScheduledAttempt<S>(S request, int attempt, long dueAtNanos) implements Delayed {
+    @Override
+    public long getDelay(TimeUnit unit) {
+      return unit.convert(dueAtNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
     }
 
     @Override
-    public String toString() {
-      return "SingleRunStats{"
-          + "totalToRun="
-          + totalToRun
-          + ", totalExecuted="
-          + totalExecuted
-          + ", executedThisRun="
-          + executedThisRun
-          + ", totalRetryCount="
-          + totalRetryCount
-          + ", waitTimeMs="
-          + waitTimeMs
-          + '}';
+    public int compareTo(Delayed other) {
+      return Long.compare(dueAtNanos, ((ScheduledAttempt<?>) other).dueAtNanos);
     }
   }
 
-  private record BatchResult<S, T>(Set<T> successful, Set<S> failed) {}
+  /** Bounds how many attempts are in flight; a slot is acquired before every attempt. */
+  public interface AttemptWindow {
+    void acquire() throws InterruptedException;
 
+    void release();
+  }
+
+  /**
+   * Keeps up to {@code batchSize} requests in flight until every request has either produced a
+   * non-null result or failed {@code retryCount} times; a slot is refilled as soon as any request
+   * finishes. A failed request is retried on its own after an exponential backoff with full jitter,
+   * so one slow or failing request holds up neither the others nor their retries. Returns the
+   * results of the requests that succeeded.
+   */
   public static <S, T> Set<T> executeUntilAllSuccessful(
       Set<S> toRun,
       int batchSize,
       int retryCount,
       ExecutorService executorService,
       Function<S, T> resultFunction) {
-    Queue<S> requestsToRun = new ConcurrentLinkedQueue<>(toRun);
-    Set<T> requestsThatSucceeded = ConcurrentHashMap.newKeySet();
-
-    SingleRunStats currentRun = new SingleRunStats(toRun.size(), 0, 0, 0, INITIAL_RETRY_DELAY_MS);
-    while (!requestsToRun.isEmpty()) {
-      Set<S> nextBatch = new HashSet<>();
-      for (int i = 0; i < batchSize && !requestsToRun.isEmpty(); i++) {
-        nextBatch.add(requestsToRun.poll());
-      }
-
-      BatchResult<S, T> batchResult = processBatch(nextBatch, resultFunction, executorService);
-
-      requestsThatSucceeded.addAll(batchResult.successful);
-      requestsToRun.addAll(batchResult.failed);
+    Semaphore slots = new Semaphore(batchSize);
+    return executeUntilAllSuccessful(
+        toRun,
+        retryCount,
+        executorService,
+        new AttemptWindow() {
+          @Override
+          public void acquire() throws InterruptedException {
+            slots.acquire();
+          }
+
+          @Override
+          public void release() {
+            slots.release();
+          }
+        },
+        resultFunction,
+        result -> CompletableFuture.completedFuture(null));
+  }
 
-      if (!requestsToRun.isEmpty()) {
-        currentRun = currentRun.refreshRetryCount(batchResult.successful.size());
-        LOGGER.info("Single run stats {}", currentRun);
+  /**
+   * As {@link #executeUntilAllSuccessful(Set, int, int, ExecutorService, Function)}, but attempts
+   * are admitted by {@code window}, and a successful attempt keeps its slot until the stage {@code
+   * holdSlotUntil} returns for its result completes, for results that keep using what the slot
+   * stands for after the attempt itself has returned.
+   */
+  public static <S, T> Set<T> executeUntilAllSuccessful(
+      Set<S> toRun,
+      int retryCount,
+      ExecutorService executorService,
+      AttemptWindow window,
+      Function<S, T> resultFunction,
+      Function<T, ? extends CompletionStage<?>> holdSlotUntil) {
+    DelayQueue<ScheduledAttempt<S>> dueAttempts = new DelayQueue<>();
+    long now = System.nanoTime();
+    toRun.forEach(request -> dueAttempts.add(new ScheduledAttempt<>(request, 0, now)));
+
+    AtomicInteger unresolved = new AtomicInteger(toRun.size());
+    AtomicInteger givenUp = new AtomicInteger();
+    Set<T> requestsThatSucceeded = ConcurrentHashMap.newKeySet();
 
-        if (currentRun.totalRetryCount >= retryCount) {
-          LOGGER.error("Giving up on retries, {} remaining requests", requestsToRun.size());
-          return requestsThatSucceeded;
+    try {
+      while (unresolved.get() > 0) {
+        ScheduledAttempt<S> attempt = dueAttempts.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        if (attempt == null) {
+          continue;
         }
 
-        try {
-          Thread.sleep(currentRun.waitTimeMs);
-        } catch (InterruptedException exception) {
-          Thread.currentThread().interrupt();
-          throw new RuntimeException(exception);
-        }
+        window.acquire();
+        CompletableFuture.runAsync(
+            () -> {
+              T response;
+              try {
+                response = resultFunction.apply(attempt.request());
+              } catch (Exception e) {
+                LOGGER.debug(
+                    "Request {} threw exception and will be retried", attempt.request(), e);
+                response = null;
+              }
+
+              if (Objects.isNull(response)) {
+                LOGGER.debug("Request {} failed to run and will be retried", attempt.request());
+                scheduleRetry(attempt, retryCount, dueAttempts, unresolved, givenUp);
+                window.release();
+                return;
+              }
+
+              requestsThatSucceeded.add(response);
+              unresolved.decrementAndGet();
+              holdSlot(response, holdSlotUntil, window);
+            },
+            executorService);
       }
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(exception);
+    }
+
+    if (givenUp.get() > 0) {
+      LOGGER.error("Gave up on retries for {} of {} requests", givenUp.get(), toRun.size());
     }
     return requestsThatSucceeded;
   }
 
-  private static <S, T> BatchResult<S, T> processBatch(
-      Set<S> batch, Function<S, T> resultFunction, ExecutorService executorService) {
-
-    Set<T> successful = ConcurrentHashMap.newKeySet();
-    Set<S> failed = ConcurrentHashMap.newKeySet();
-
-    List<CompletableFuture<Void>> futures =
-        batch.stream()
-            .map(
-                request ->
-                    CompletableFuture.runAsync(
-                        () -> {
-                          try {
-                            T response = resultFunction.apply(request);
-                            if (Objects.isNull(response)) {
-                              LOGGER.debug("Request {} failed to run and will be retried", request);
-                              failed.add(request);
-                            } else {
-                              successful.add(response);
-                            }
-                          } catch (Exception e) {
-                            LOGGER.debug(
-                                "Request {} threw exception and will be retried", request, e);
-                            failed.add(request);
-                          }
-                        },
-                        executorService))
-            .toList();
-
-    // Wait for ALL futures to complete
-    CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-
-    return new BatchResult<>(successful, failed);
+  private static <T> void holdSlot(
+      T result, Function<T, ? extends CompletionStage<?>> holdSlotUntil, AttemptWindow window) {
+    try {
+      holdSlotUntil.apply(result).whenComplete((ignored, throwable) -> window.release());
+    } catch (Exception e) {
+      LOGGER.warn("Releasing the slot of {} early", result, e);
+      window.release();
+    }
+  }
+
+  private static <S> void scheduleRetry(
+      ScheduledAttempt<S> failedAttempt,
+      int retryCount,
+      DelayQueue<ScheduledAttempt<S>> dueAttempts,
+      AtomicInteger unresolved,
+      AtomicInteger givenUp) {
+    int nextAttempt = failedAttempt.attempt() + 1;
+    if (nextAttempt >= retryCount) {
+      LOGGER.warn(
+          "Giving up on request {} after {} failed attempts", failedAttempt.request(), nextAttempt);
+      givenUp.incrementAndGet();
+      unresolved.decrementAndGet();
+      return;
+    }
+
+    long delayMs = ThreadLocalRandom.current().nextLong(backoffCeilingMs(nextAttempt) + 1);
+    dueAttempts.add(
+        new ScheduledAttempt<>(
+            failedAttempt.request(),
+            nextAttempt,
+            System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs)));
+  }
+
+  static long backoffCeilingMs(int retry) {
+    long ceiling = (long) INITIAL_RETRY_DELAY_MS << Math.min(retry - 1, 16);
+    return Math.min(ceiling, MAX_RETRY_DELAY_MS);
   }
 
   public static <T> T executeCallableInSessionWithoutTransaction(
@@ -0,0 +1,127 @@
+package com.acantilado.collection.apify;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ApifyDatasetSpoolTest {
+  private static final String ACTOR = "actor";
+  private static final String REQUEST =
+      "{\"location\": \"0-EU-ES-28\", \"propertyType\": \"homes\"}";
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @TempDir Path spoolDirectory;
+
+  @Test
+  void committedDataset_isReplayedItemByItem() throws IOException {
+    // Given: a dataset read through the spool in full
+    ApifyDatasetSpool spool = new ApifyDatasetSpool(spoolDirectory);
+    String dataset = "[{\"id\": 1, \"tags\": [\"a\"]}, {\"id\": 2}, {\"id\": 3}]";
+    List<JsonNode> readWhileSpooling = spoolItems(spool, "run", dataset, true);
+
+    // When
+    List<ApifyDatasetSpool.SpooledDataset> datasets = spool.list(ACTOR);
+    List<JsonNode> replayed = new ArrayList<>();
+    int itemsRead =
+        spool.replay(
+            datasets.get(0),
+            parser -> {
+              replayed.add(parser.readValueAsTree());
+              return true;
+            });
+
+    // Then
+    assertEquals(1, datasets.size());
+    assertEquals("run", datasets.get(0).runId());
+    assertEquals("homes", datasets.get(0).request().path("propertyType").asText());
+    assertEquals(3, itemsRead);
+    assertEquals(readWhileSpooling, replayed);
+    assertEquals("a", replayed.get(0).path("tags").get(0).asText());
+  }
+
+  @Test
+  void uncommittedDataset_isDiscarded() throws IOException {
+    // Given
+    ApifyDatasetSpool spool = new ApifyDatasetSpool(spoolDirectory);
+
+    // When: reading stops before the end of the dataset
+    spoolItems(spool, "run", "[{\"id\": 1}, {\"id\": 2}]", false);
+
+    // Then
+    assertTrue(spool.list(ACTOR).isEmpty());
+    assertEquals(0, spoolDirectory.resolve(ACTOR).toFile().list().length);
+  }
+
+  @Test
+  void datasets_areListedOldestFetchFirst() throws IOException, InterruptedException {
+    // Given: runs whose ids sort opposite to the order they were fetched in
+    ApifyDatasetSpool spool = new ApifyDatasetSpool(spoolDirectory);
+    for (String runId : List.of("c", "b", "a")) {
+      spoolItems(spool, runId, "[{\"id\": 1}]", true);
+      Thread.sleep(5);
+    }
+
+    // When
+    List<ApifyDatasetSpool.SpooledDataset> datasets = spool.list(ACTOR);
+
+    // Then
+    assertEquals(
+        List.of("c", "b", "a"),
+        datasets.stream().map(ApifyDatasetSpool.SpooledDataset::runId).toList());
+  }
+
+  @Test
+  void unreadableDataset_isLeftOutOfList() throws IOException {
+    // Given: a complete dataset next to a file that is not gzip at all
+    ApifyDatasetSpool spool = new ApifyDatasetSpool(spoolDirectory);
+    spoolItems(spool, "run", "[{\"id\": 1}]", true);
+    Files.writeString(spoolDirectory.resolve(ACTOR).resolve("corrupt.ndjson.gz"), "not gzip");
+
+    // When
+    List<ApifyDatasetSpool.SpooledDataset> datasets = spool.list(ACTOR);
+
+    // Then
+    assertEquals(1, datasets.size());
+    assertEquals("run", datasets.get(0).runId());
+  }
+
+  @Test
+  void disabledSpool_passesParserThrough() throws IOException {
+    // Given
+    ApifyDatasetSpool spool = ApifyDatasetSpool.disabled();
+
+    // When
+    List<JsonNode> items = spoolItems(spool, "run", "[{\"id\": 1}]", true);
+
+    // Then
+    assertEquals(1, items.size());
+    assertTrue(spool.list(ACTOR).isEmpty());
+  }
+
+  private List<JsonNode> spoolItems(
+      ApifyDatasetSpool spool, String runId, String dataset, boolean commit) throws IOException {
+    List<JsonNode> items = new ArrayList<>();
+    try (ApifyDatasetSpool.DatasetWriter writer = spool.openWriter(ACTOR, REQUEST, runId);
+        JsonParser parser = objectMapper.createParser(dataset)) {
+      parser.nextToken();
+      while (parser.nextToken() != JsonToken.END_ARRAY) {
+        items.add(writer.tee(parser).readValueAsTree());
+      }
+      if (commit) {
+        writer.commit();
+      }
+    }
+    return items;
+  }
+}
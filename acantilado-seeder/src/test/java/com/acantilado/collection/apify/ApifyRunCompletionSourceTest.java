@@ -0,0 +1,161 @@
+package com.acantilado.collection.apify;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ApifyRunCompletionSourceTest {
+  private HttpServer apifyStub;
+  private URI apifyUri;
+  private final AtomicInteger pollsUntilFinished = new AtomicInteger();
+  private final List<String> requestedPaths = new CopyOnWriteArrayList<>();
+
+  @BeforeEach
+  void setUp() throws IOException {
+    // Given: a stub of api.apify.com whose run keeps RUNNING for a number of polls
+    apifyStub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    apifyStub.createContext(
+        "/v2/actor-runs/",
+        exchange -> {
+          requestedPaths.add(exchange.getRequestURI().toString());
+          String status = pollsUntilFinished.getAndDecrement() > 0 ? "RUNNING" : "SUCCEEDED";
+          byte[] body =
+              ("{\"data\": {\"id\": \"run\", \"status\": \"" + status + "\"}}")
+                  .getBytes(StandardCharsets.UTF_8);
+          exchange.sendResponseHeaders(200, body.length);
+          try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+          }
+        });
+    apifyStub.start();
+    apifyUri = URI.create("http://localhost:" + apifyStub.getAddress().getPort());
+  }
+
+  @AfterEach
+  void tearDown() {
+    apifyStub.stop(0);
+  }
+
+  @Test
+  void longPoll_completesOnceRunHasFinished() throws Exception {
+    // Given
+    pollsUntilFinished.set(2);
+    ApifyLongPollCompletionSource source = new ApifyLongPollCompletionSource(apifyUri, "");
+
+    // When
+    ApifySearchStatus status = source.awaitCompletion("run").get(10, TimeUnit.SECONDS);
+
+    // Then
+    assertEquals(ApifySearchStatus.SUCCEEDED, status);
+    assertEquals(3, requestedPaths.size());
+    assertTrue(requestedPaths.get(0).contains("waitForFinish="));
+  }
+
+  @Test
+  void webhook_completesWithStatusFromApify_whenNotified() throws Exception {
+    // Given: Apify reports the run as failed, whatever the webhook claims
+    List<String> runsChecked = new CopyOnWriteArrayList<>();
+    ApifyWebhookCompletionSource source =
+        new ApifyWebhookCompletionSource(
+            "https://acantilado.example/apify/webhooks",
+            runId -> {
+              runsChecked.add(runId);
+              return CompletableFuture.completedFuture(ApifySearchStatus.FAILED);
+            },
+            Duration.ofMinutes(5));
+    CompletableFuture<ApifySearchStatus> completion = source.awaitCompletion("run");
+
+    // When
+    source.onRunFinished("run", ApifySearchStatus.RUNNING);
+    source.onRunFinished("otherRun", ApifySearchStatus.SUCCEEDED);
+    assertFalse(completion.isDone());
+    source.onRunFinished("run", ApifySearchStatus.SUCCEEDED);
+
+    // Then
+    assertEquals(ApifySearchStatus.FAILED, completion.get(1, TimeUnit.SECONDS));
+    assertEquals(List.of("run"), runsChecked);
+  }
+
+  @Test
+  void webhook_arrivingBeforeRunIsAwaited_isKept() throws Exception {
+    // Given
+    ApifyWebhookCompletionSource source =
+        new ApifyWebhookCompletionSource(
+            "https://acantilado.example/apify/webhooks",
+            runId -> CompletableFuture.completedFuture(ApifySearchStatus.SUCCEEDED),
+            Duration.ofMinutes(5));
+
+    // When: the run finishes before the collector got to await it
+    source.onRunFinished("run", ApifySearchStatus.SUCCEEDED);
+    CompletableFuture<ApifySearchStatus> completion = source.awaitCompletion("run");
+
+    // Then
+    assertEquals(ApifySearchStatus.SUCCEEDED, completion.get(1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void webhook_urlCarriesSecret() throws Exception {
+    // Given
+    ApifyWebhookCompletionSource source =
+        new ApifyWebhookCompletionSource(
+            "https://acantilado.example/apify/webhooks",
+            runId -> new CompletableFuture<>(),
+            Duration.ofMinutes(5));
+    ApifyWebhookCompletionSource otherSource =
+        new ApifyWebhookCompletionSource(
+            "https://acantilado.example/apify/webhooks",
+            runId -> new CompletableFuture<>(),
+            Duration.ofMinutes(5));
+
+    // When
+    String secret = webhookSecret(source);
+
+    // Then
+    assertTrue(source.isAuthentic(secret));
+    assertFalse(source.isAuthentic(webhookSecret(otherSource)));
+    assertFalse(source.isAuthentic(null));
+    assertFalse(source.isAuthentic(""));
+  }
+
+  @Test
+  void webhook_fallsBackWhenNoWebhookArrives() throws Exception {
+    // Given
+    ApifyWebhookCompletionSource source =
+        new ApifyWebhookCompletionSource(
+            "https://acantilado.example/apify/webhooks",
+            new ApifyLongPollCompletionSource(apifyUri, ""),
+            Duration.ofMillis(50));
+
+    // When
+    ApifySearchStatus status = source.awaitCompletion("run").get(10, TimeUnit.SECONDS);
+
+    // Then
+    assertEquals(ApifySearchStatus.SUCCEEDED, status);
+    assertEquals(1, requestedPaths.size());
+  }
+
+  /** The secret in the request URL of the webhook a source registers runs with. */
+  private static String webhookSecret(ApifyWebhookCompletionSource source) throws IOException {
+    String encodedWebhooks = source.getRunStartQuery().substring("webhooks=".length());
+    JsonNode webhooks = new ObjectMapper().readTree(Base64.getUrlDecoder().decode(encodedWebhooks));
+    String requestUrl = webhooks.get(0).get("requestUrl").textValue();
+    return requestUrl.substring(requestUrl.indexOf("secret=") + "secret=".length());
+  }
+}
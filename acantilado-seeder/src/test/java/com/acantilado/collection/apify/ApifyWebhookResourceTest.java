@@ -0,0 +1,97 @@
+package com.acantilado.collection.apify;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.dropwizard.testing.junit5.DropwizardExtensionsSupport;
+import io.dropwizard.testing.junit5.ResourceExtension;
+import jakarta.ws.rs.client.Entity;
+import jakarta.ws.rs.core.Response;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(DropwizardExtensionsSupport.class)
+class ApifyWebhookResourceTest {
+  private static final String PAYLOAD =
+      "{\"eventType\": \"ACTOR.RUN.SUCCEEDED\","
+          + " \"resource\": {\"id\": \"%s\", \"status\": \"SUCCEEDED\"}}";
+
+  private static final ApifyWebhookCompletionSource COMPLETION_SOURCE =
+      new ApifyWebhookCompletionSource(
+          "https://acantilado.example/apify/webhooks",
+          runId -> CompletableFuture.completedFuture(ApifySearchStatus.SUCCEEDED),
+          Duration.ofMinutes(5));
+  private static final ResourceExtension RESOURCES =
+      ResourceExtension.builder().addResource(new ApifyWebhookResource(COMPLETION_SOURCE)).build();
+
+  @Test
+  void runFinished_withRegisteredSecret_completesAwaitedRun() throws Exception {
+    // Given
+    CompletableFuture<ApifySearchStatus> completion =
+        COMPLETION_SOURCE.awaitCompletion("authenticRun");
+
+    // When
+    Response response =
+        RESOURCES
+            .target("/apify/webhooks")
+            .queryParam("secret", webhookSecret())
+            .request()
+            .post(Entity.json(PAYLOAD.formatted("authenticRun")));
+
+    // Then
+    assertEquals(204, response.getStatus());
+    assertEquals(ApifySearchStatus.SUCCEEDED, completion.get(1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void runFinished_withoutRegisteredSecret_isRejected() {
+    // Given
+    CompletableFuture<ApifySearchStatus> completion =
+        COMPLETION_SOURCE.awaitCompletion("forgedRun");
+
+    // When
+    Response withoutSecret =
+        RESOURCES
+            .target("/apify/webhooks")
+            .request()
+            .post(Entity.json(PAYLOAD.formatted("forgedRun")));
+    Response withWrongSecret =
+        RESOURCES
+            .target("/apify/webhooks")
+            .queryParam("secret", "guessed")
+            .request()
+            .post(Entity.json(PAYLOAD.formatted("forgedRun")));
+
+    // Then
+    assertEquals(403, withoutSecret.getStatus());
+    assertEquals(403, withWrongSecret.getStatus());
+    assertFalse(completion.isDone());
+  }
+
+  @Test
+  void runFinished_withoutRun_isBadRequest() throws Exception {
+    // When
+    Response response =
+        RESOURCES
+            .target("/apify/webhooks")
+            .queryParam("secret", webhookSecret())
+            .request()
+            .post(Entity.json("{\"eventType\": \"ACTOR.RUN.SUCCEEDED\"}"));
+
+    // Then
+    assertEquals(400, response.getStatus());
+  }
+
+  private static String webhookSecret() throws IOException {
+    String encodedWebhooks = COMPLETION_SOURCE.getRunStartQuery().substring("webhooks=".length());
+    JsonNode webhooks = new ObjectMapper().readTree(Base64.getUrlDecoder().decode(encodedWebhooks));
+    String requestUrl = webhooks.get(0).get("requestUrl").textValue();
+    return requestUrl.substring(requestUrl.indexOf("secret=") + "secret=".length());
+  }
+}
@@ -0,0 +1,383 @@
+package com.acantilado.collection.apify.fake;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+
+import com.acantilado.collection.apify.ApifyCollector;
+import com.acantilado.collection.apify.ApifyDatasetSpool;
+import com.acantilado.collection.apify.ApifyLongPollCompletionSource;
+import com.acantilado.collection.apify.ApifyRuntime;
+import com.acantilado.collection.apify.ApifySearchResults;
+import com.acantilado.collection.properties.idealista.IdealistaPropertyType;
+import com.acantilado.collection.properties.idealista.IdealistaSearchRequest;
+import com.acantilado.utils.AdaptiveLimiter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FakeApifyServerTest {
+  private static final String ACTOR_ID = "fake-idealista";
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  /** The page size ApifyCollector fetches datasets with. */
+  private static final int DATASET_PAGE_SIZE = 250;
+
+  private final ExecutorService executorService = Executors.newCachedThreadPool();
+
+  @AfterEach
+  void tearDown() {
+    executorService.shutdownNow();
+  }
+
+  @Test
+  void collection_storesEveryServedListing_despiteRejectedStarts() {
+    // Given: a fake rejecting a fifth of run starts, with locations too small to fragment
+    Set<IdealistaSearchRequest> requests =
+        IntStream.range(0, 20)
+            .mapToObj(
+                i ->
+                    IdealistaSearchRequest.saleSearch(
+                        "0-EU-ES-28-07-001-" + i, IdealistaPropertyType.HOMES))
+            .collect(Collectors.toSet());
+    FakeApifyServer.Behaviour behaviour =
+        new FakeApifyServer.Behaviour(Duration.ofMillis(2), 0.2, Duration.ofMillis(50), 0);
+
+    try (FakeApifyServer server =
+        FakeApifyServer.start(behaviour, Map.of(ACTOR_ID, new IdealistaDatasetGenerator(500)))) {
+      RecordingCollector collector = new RecordingCollector(server);
+
+      // When
+      ApifySearchResults<IdealistaSearchRequest> results = collector.startCollection(requests);
+
+      // Then
+      assertEquals(requests, results.requestsSucceeded());
+      assertTrue(server.getStartsRejected() > 0);
+      assertEquals(server.getItemsServed(), collector.storedPropertyCodes.size());
+    }
+  }
+
+  @Test
+  void failedRuns_areReportedForRetry() {
+    // Given
+    IdealistaSearchRequest request =
+        IdealistaSearchRequest.saleSearch("0-EU-ES-28-07-001-079", IdealistaPropertyType.HOMES);
+    FakeApifyServer.Behaviour behaviour =
+        new FakeApifyServer.Behaviour(Duration.ZERO, 0, Duration.ZERO, 1);
+
+    try (FakeApifyServer server =
+        FakeApifyServer.start(behaviour, Map.of(ACTOR_ID, new IdealistaDatasetGenerator(10)))) {
+      // When
+      ApifySearchResults<IdealistaSearchRequest> results =
+          new RecordingCollector(server).startCollection(Set.of(request));
+
+      // Then
+      assertEquals(Set.of(request), results.requestsToRetryDueToFailure());
+      assertEquals(0, server.getItemsServed());
+    }
+  }
+
+  @Test
+  void failedChunk_isRolledBackAlone_andSearchReportedForRetry() {
+    // Given: a search of hundreds of listings stored in chunks of 50, the third of which fails
+    IdealistaSearchRequest request =
+        IdealistaSearchRequest.saleSearch("0-EU-ES-28-07-001-079", IdealistaPropertyType.HOMES);
+
+    try (FakeApifyServer server =
+        FakeApifyServer.start(
+            FakeApifyServer.Behaviour.instant(),
+            Map.of(ACTOR_ID, new IdealistaDatasetGenerator(5000)))) {
+      RecordingCollector collector = new RecordingCollector(server, 50, 2);
+
+      // When
+      ApifySearchResults<IdealistaSearchRequest> results =
+          collector.startCollection(Set.of(request));
+
+      // Then
+      assertEquals(Set.of(request), results.requestsToRetryDueToFailure());
+      assertTrue(results.requestsSucceeded().isEmpty());
+      assertTrue(server.getItemsServed() > 150);
+      assertEquals(server.getItemsServed() - 50, collector.storedPropertyCodes.size());
+      assertEquals(List.of(true, true, false), collector.chunksCommitted.subList(0, 3));
+    }
+  }
+
+  @Test
+  void interruptedTriggering_stopsTheStoreThread_andLeavesNoHandOverBlocked() throws Exception {
+    // Given: more searches than run slots, with eight runs going at a time
+    Set<IdealistaSearchRequest> requests =
+        IntStream.range(0, 100)
+            .mapToObj(
+                i ->
+                    IdealistaSearchRequest.saleSearch(
+                        "0-EU-ES-28-07-001-" + i, IdealistaPropertyType.HOMES))
+            .collect(Collectors.toSet());
+    FakeApifyServer.Behaviour behaviour =
+        new FakeApifyServer.Behaviour(Duration.ZERO, 0, Duration.ofMillis(300), 0);
+
+    try (FakeApifyServer server =
+        FakeApifyServer.start(behaviour, Map.of(ACTOR_ID, new IdealistaDatasetGenerator(10)))) {
+      RecordingCollector collector =
+          new RecordingCollector(
+              server, 0, -1, ApifyDatasetSpool.disabled(), new AdaptiveLimiter(8, 1, 8, 1000, 8));
+      CompletableFuture<Throwable> failure = new CompletableFuture<>();
+      CompletableFuture<Boolean> interruptKept = new CompletableFuture<>();
+      Thread collecting =
+          new Thread(
+              () -> {
+                try {
+                  collector.startCollection(requests);
+                  failure.complete(null);
+                } catch (RuntimeException e) {
+                  failure.complete(e);
+                }
+                interruptKept.complete(Thread.currentThread().isInterrupted());
+              });
+      collecting.start();
+      while (server.getRunsStarted() < 8) {
+        Thread.sleep(10);
+      }
+
+      // When: triggering is interrupted while runs are still going
+      collecting.interrupt();
+      collecting.join(TimeUnit.MINUTES.toMillis(1));
+
+      // Then: the collection gave up, and every run still going was dropped rather than left
+      // waiting to be handed to a store thread that has stopped
+      assertFalse(collecting.isAlive());
+      assertNotNull(failure.get());
+      assertTrue(interruptKept.get());
+      executorService.shutdown();
+      assertTrue(executorService.awaitTermination(1, TimeUnit.MINUTES));
+    }
+  }
+
+  @Test
+  void datasetOfExactlyWholePages_isStoredInFull() {
+    // Given: a dataset ending exactly on a page boundary, so only an empty page reveals its end
+    IdealistaSearchRequest request =
+        IdealistaSearchRequest.saleSearch("0-EU-ES-28-07-001-079", IdealistaPropertyType.HOMES);
+    NumberedDatasetGenerator generator = new NumberedDatasetGenerator(2 * DATASET_PAGE_SIZE, -1);
+
+    try (FakeApifyServer server =
+        FakeApifyServer.start(FakeApifyServer.Behaviour.instant(), Map.of(ACTOR_ID, generator))) {
+      RecordingCollector collector = new RecordingCollector(server);
+
+      // When
+      ApifySearchResults<IdealistaSearchRequest> results =
+          collector.startCollection(Set.of(request));
+
+      // Then
+      assertEquals(Set.of(request), results.requestsSucceeded());
+      assertEquals(2 * DATASET_PAGE_SIZE, collector.storedPropertyCodes.size());
+      assertEquals(2 * DATASET_PAGE_SIZE, server.getItemsServed());
+    }
+  }
+
+  @Test
+  void unconstructableItem_stopsFetchingFurtherPages() {
+    // Given: a four page dataset with an item on the second page that cannot be constructed
+    IdealistaSearchRequest request =
+        IdealistaSearchRequest.saleSearch("0-EU-ES-28-07-001-079", IdealistaPropertyType.HOMES);
+    NumberedDatasetGenerator generator =
+        new NumberedDatasetGenerator(4 * DATASET_PAGE_SIZE, DATASET_PAGE_SIZE + 50);
+
+    try (FakeApifyServer server =
+        FakeApifyServer.start(FakeApifyServer.Behaviour.instant(), Map.of(ACTOR_ID, generator))) {
+      RecordingCollector collector = new RecordingCollector(server);
+
+      // When
+      ApifySearchResults<IdealistaSearchRequest> results =
+          collector.startCollection(Set.of(request));
+
+      // Then: nothing of the dataset is stored, and the pages after the item were never fetched
+      assertTrue(results.requestsSucceeded().isEmpty());
+      assertTrue(collector.storedPropertyCodes.isEmpty());
+      assertTrue(generator.highestIndexGenerated.get() < 2 * DATASET_PAGE_SIZE);
+    }
+  }
+
+  @Test
+  void unconstructableItem_stillSpoolsTheWholeDataset(@TempDir Path spoolDirectory) {
+    // Given: a spooling collector, and a three page dataset with an unconstructable item
+    IdealistaSearchRequest request =
+        IdealistaSearchRequest.saleSearch("0-EU-ES-28-07-001-079", IdealistaPropertyType.HOMES);
+    NumberedDatasetGenerator generator =
+        new NumberedDatasetGenerator(3 * DATASET_PAGE_SIZE, DATASET_PAGE_SIZE + 50);
+    ApifyDatasetSpool spool = new ApifyDatasetSpool(spoolDirectory);
+
+    try (FakeApifyServer server =
+        FakeApifyServer.start(FakeApifyServer.Behaviour.instant(), Map.of(ACTOR_ID, generator))) {
+      RecordingCollector collector = new RecordingCollector(server, 0, -1, spool);
+
+      // When
+      ApifySearchResults<IdealistaSearchRequest> results =
+          collector.startCollection(Set.of(request));
+
+      // Then: nothing is stored, but the whole dataset is kept for a replay after a fix
+      assertTrue(results.requestsSucceeded().isEmpty());
+      assertTrue(collector.storedPropertyCodes.isEmpty());
+      assertEquals(3 * DATASET_PAGE_SIZE - 1, generator.highestIndexGenerated.get());
+      assertEquals(1, spool.list(ACTOR_ID).size());
+    }
+  }
+
+  @Test
+  void idealistaGenerator_honoursBoundsAndRepeatsListings() throws Exception {
+    // Given
+    IdealistaSearchRequest request =
+        IdealistaSearchRequest.saleSearch("0-EU-ES-28-07-001-079", IdealistaPropertyType.HOMES);
+    IdealistaDatasetGenerator generator = new IdealistaDatasetGenerator(5000);
+
+    // When
+    FakeDatasetGenerator.FakeDataset all =
+        generator.generate(MAPPER.readTree(request.toRequestBodyJson()));
+    FakeDatasetGenerator.FakeDataset bounded =
+        generator.generate(
+            MAPPER.readTree(
+                request.withSizeBounds(80, 100).withPriceBounds(0, 300_000).toRequestBodyJson()));
+
+    // Then: the unbounded search is capped at maxItems, the bounded one returns matching items
+    assertEquals(IdealistaSearchRequest.MAX_ITEMS, all.itemCount());
+    assertTrue(bounded.itemCount() > 0);
+    for (int i = 0; i < bounded.itemCount(); i++) {
+      JsonNode item = bounded.item(i);
+      assertTrue(item.get("size").asDouble() >= 80 && item.get("size").asDouble() < 100);
+      assertTrue(item.get("price").asDouble() < 300_000);
+    }
+    assertEquals(all.item(7), all.item(7));
+  }
+
+  /** Items numbered by their index, except for an optional one without a property code. */
+  private static final class NumberedDatasetGenerator implements FakeDatasetGenerator {
+    private final int itemCount;
+    private final int unconstructableIndex;
+    private final AtomicInteger highestIndexGenerated = new AtomicInteger(-1);
+
+    NumberedDatasetGenerator(int itemCount, int unconstructableIndex) {
+      this.itemCount = itemCount;
+      this.unconstructableIndex = unconstructableIndex;
+    }
+
+    @Override
+    public FakeDataset generate(JsonNode input) {
+      return new FakeDataset() {
+        @Override
+        public int itemCount() {
+          return itemCount;
+        }
+
+        @Override
+        public JsonNode item(int index) {
+          highestIndexGenerated.accumulateAndGet(index, Math::max);
+          ObjectNode item = MAPPER.createObjectNode();
+          if (index != unconstructableIndex) {
+            item.put("propertyCode", String.valueOf(index));
+          }
+          return item;
+        }
+      };
+    }
+  }
+
+  private class RecordingCollector extends ApifyCollector<IdealistaSearchRequest, JsonNode> {
+    private final Set<String> storedPropertyCodes = ConcurrentHashMap.newKeySet();
+    private final List<Boolean> chunksCommitted = new ArrayList<>();
+    private final int failingChunk;
+    private Set<String> pendingPropertyCodes = new HashSet<>();
+
+    RecordingCollector(FakeApifyServer server) {
+      this(server, 0, -1, ApifyDatasetSpool.disabled());
+    }
+
+    /** Stores in chunks of the given size, failing the chunk at the given index. */
+    RecordingCollector(FakeApifyServer server, int storeChunkSize, int failingChunk) {
+      this(server, storeChunkSize, failingChunk, ApifyDatasetSpool.disabled());
+    }
+
+    RecordingCollector(
+        FakeApifyServer server, int storeChunkSize, int failingChunk, ApifyDatasetSpool spool) {
+      this(server, storeChunkSize, failingChunk, spool, new AdaptiveLimiter(4, 1, 8, 100, 8));
+    }
+
+    RecordingCollector(
+        FakeApifyServer server,
+        int storeChunkSize,
+        int failingChunk,
+        ApifyDatasetSpool spool,
+        AdaptiveLimiter runLimiter) {
+      super(
+          executorService,
+          mock(SessionFactory.class, RETURNS_DEEP_STUBS),
+          new ApifyRuntime(
+              server.getUri(),
+              new ApifyLongPollCompletionSource(server.getUri(), ""),
+              runLimiter,
+              spool,
+              storeChunkSize));
+      this.failingChunk = failingChunk;
+    }
+
+    @Override
+    protected String getActorId() {
+      return ACTOR_ID;
+    }
+
+    @Override
+    protected int getRetryCount() {
+      return 20;
+    }
+
+    @Override
+    protected int getConcurrentRunCount() {
+      return 8;
+    }
+
+    @Override
+    protected void storeResult(JsonNode result) {
+      pendingPropertyCodes.add(result.get("propertyCode").asText());
+    }
+
+    @Override
+    protected void storeResultBatch(Collection<JsonNode> results) {
+      super.storeResultBatch(results);
+      if (chunksCommitted.size() == failingChunk) {
+        throw new IllegalStateException("Chunk failed to store");
+      }
+    }
+
+    @Override
+    protected void onChunkStored(boolean committed) {
+      if (committed) {
+        storedPropertyCodes.addAll(pendingPropertyCodes);
+      }
+      pendingPropertyCodes = new HashSet<>();
+      chunksCommitted.add(committed);
+    }
+
+    @Override
+    protected Optional<JsonNode> constructObject(JsonNode jsonNode) {
+      return jsonNode.has("propertyCode") ? Optional.of(jsonNode) : Optional.empty();
+    }
+  }
+}
@@ -0,0 +1,150 @@
+package com.acantilado.collection.location;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+import com.acantilado.core.administrative.Ayuntamiento;
+import com.acantilado.core.administrative.AyuntamientoDAO;
+import com.acantilado.core.administrative.Barrio;
+import com.acantilado.core.administrative.CodigoPostal;
+import com.acantilado.core.administrative.IdealistaLocationMappingDAO;
+import com.acantilado.core.location.AcantiladoLocation;
+import com.acantilado.core.location.ProvinceLocationIndex;
+import java.util.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.Polygon;
+
+class AcantiladoLocationEstablisherTest {
+  private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+  private static final int GRID_SIZE = 20;
+  private static final int SAMPLE_COUNT = 20_000;
+
+  private final Random random = new Random(42);
+
+  private Set<Ayuntamiento> ayuntamientos;
+  private Map<String, Set<CodigoPostal>> postcodes;
+  private AcantiladoLocationEstablisher establisher;
+
+  @BeforeEach
+  void setUp() {
+    ayuntamientos = new HashSet<>();
+    postcodes = new HashMap<>();
+
+    // Given: a grid of ayuntamientos separated by gaps of varying width, so that some points fall
+    // inside an ayuntamiento and others need the closest-ayuntamiento fallback
+    for (int x = 0; x < GRID_SIZE; x++) {
+      for (int y = 0; y < GRID_SIZE; y++) {
+        String id = String.format("%02d%03d", x, y);
+        Polygon polygon = randomCell(x, y);
+
+        ayuntamientos.add(new Ayuntamiento(id, "ayuntamiento-" + id, "01", "01", polygon));
+        postcodes.put(id, Set.of(new CodigoPostal("cp-" + id, "01" + id, polygon)));
+      }
+    }
+
+    establisher =
+        new AcantiladoLocationEstablisher(
+            new ProvinceLocationIndex("01", ayuntamientos, postcodes, Set.of()),
+            mock(AyuntamientoDAO.class),
+            mock(IdealistaLocationMappingDAO.class));
+  }
+
+  @Test
+  void establishForLocation_matchesLinearScan() {
+    for (int i = 0; i < SAMPLE_COUNT; i++) {
+      // Given: a point anywhere in or slightly around the grid
+      Point point =
+          GEOMETRY_FACTORY.createPoint(
+              new Coordinate(
+                  random.nextDouble() * (GRID_SIZE + 2) - 1,
+                  random.nextDouble() * (GRID_SIZE + 2) - 1));
+
+      // When
+      AcantiladoLocation location = establisher.establishForLocation(point);
+
+      // Then
+      assertEquals(
+          linearScan(point).getId(),
+          location.getAyuntamiento().getId(),
+          "Different ayuntamiento assigned for " + point);
+    }
+  }
+
+  @Test
+  void establishForLocation_pointInsideAyuntamiento_returnsContainingAyuntamiento() {
+    // Given: the centre of a grid cell is always inside its ayuntamiento
+    Point point = GEOMETRY_FACTORY.createPoint(new Coordinate(3.5, 7.5));
+
+    // When
+    AcantiladoLocation location = establisher.establishForLocation(point);
+
+    // Then
+    assertEquals("03007", location.getAyuntamiento().getId());
+  }
+
+  @Test
+  void establishForLocation_barriosOnlyMatchedWithinTheirAyuntamiento() {
+    // Given: a barrio that covers two grid cells but belongs to only one of them
+    Polygon barrioGeometry =
+        GEOMETRY_FACTORY.createPolygon(
+            new Coordinate[] {
+              new Coordinate(3, 7), new Coordinate(5, 7), new Coordinate(5, 8),
+              new Coordinate(3, 8), new Coordinate(3, 7)
+            });
+    Barrio barrio = new Barrio("someBarrio", "03007", barrioGeometry);
+    barrio.setId(7L);
+
+    AcantiladoLocationEstablisher establisherWithBarrios =
+        new AcantiladoLocationEstablisher(
+            new ProvinceLocationIndex("01", ayuntamientos, postcodes, Set.of(barrio)),
+            mock(AyuntamientoDAO.class),
+            mock(IdealistaLocationMappingDAO.class));
+
+    // When
+    AcantiladoLocation insideOwnAyuntamiento =
+        establisherWithBarrios.establishForLocation(
+            GEOMETRY_FACTORY.createPoint(new Coordinate(3.5, 7.5)));
+    AcantiladoLocation insideOtherAyuntamiento =
+        establisherWithBarrios.establishForLocation(
+            GEOMETRY_FACTORY.createPoint(new Coordinate(4.5, 7.5)));
+
+    // Then
+    assertTrue(insideOwnAyuntamiento.getIdentifier().endsWith("-7"));
+    assertEquals("04007", insideOtherAyuntamiento.getAyuntamiento().getId());
+    assertTrue(insideOtherAyuntamiento.getIdentifier().endsWith("-XXX"));
+  }
+
+  /** The contains-then-closest scan the establisher used before the geometry index. */
+  private Ayuntamiento linearScan(Point point) {
+    for (Ayuntamiento ayuntamiento : ayuntamientos) {
+      if (ayuntamiento.getGeometry().contains(point)) {
+        return ayuntamiento;
+      }
+    }
+
+    return ayuntamientos.stream()
+        .min(Comparator.comparingDouble(a -> a.getGeometry().distance(point)))
+        .orElseThrow();
+  }
+
+  private Polygon randomCell(int x, int y) {
+    double minX = x + random.nextDouble() * 0.2;
+    double minY = y + random.nextDouble() * 0.2;
+    double maxX = x + 1 - random.nextDouble() * 0.2;
+    double maxY = y + 1 - random.nextDouble() * 0.2;
+
+    return GEOMETRY_FACTORY.createPolygon(
+        new Coordinate[] {
+          new Coordinate(minX, minY),
+          new Coordinate(maxX, minY),
+          new Coordinate(maxX, (minY + maxY) / 2 + random.nextDouble() * 0.1),
+          new Coordinate(maxX, maxY),
+          new Coordinate(minX, maxY),
+          new Coordinate(minX, minY)
+        });
+  }
+}
@@ -0,0 +1,151 @@
+package com.acantilado.collection.properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.*;
+
+import com.acantilado.collection.apify.ApifySearchResults;
+import com.acantilado.collection.properties.collectors.IdealistaRealEstateCollector;
+import com.acantilado.collection.properties.collectors.IdealistaRealEstateCollector.SearchFreshness;
+import com.acantilado.collection.properties.idealista.IdealistaPropertyType;
+import com.acantilado.collection.properties.idealista.IdealistaSearchRequest;
+import com.acantilado.core.idealista.realEstate.IdealistaProperty;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class IdealistaRecencyCrawlerTest {
+  private static final int PAGE_SIZE = 40;
+
+  /** Listings of a location, newest first; the first {@code changed} are new or repriced. */
+  private record Location(int listings, int changed) {}
+
+  @SuppressWarnings("unchecked")
+  private final IdealistaRealEstateCollector<IdealistaProperty> collector =
+      mock(IdealistaRealEstateCollector.class);
+
+  private final IdealistaRecencyCrawler crawler = new IdealistaRecencyCrawler(PAGE_SIZE);
+
+  private final Map<String, Location> locations = new HashMap<>();
+  private final Set<String> fragmentingLocations = new HashSet<>();
+  private final Map<String, List<Integer>> pagesRequested = new HashMap<>();
+  private final Map<String, Integer> listingsSeen = new HashMap<>();
+  private final Map<IdealistaSearchRequest, SearchFreshness> freshness = new HashMap<>();
+
+  @BeforeEach
+  void setUp() {
+    // A fake collector: a page returns the location's newest listings, and counts as changed only
+    // those changed listings the run has not stored yet, as deduplication within a run does
+    when(collector.startCollection(anySet()))
+        .thenAnswer(
+            invocation -> {
+              Set<IdealistaSearchRequest> requests = invocation.getArgument(0);
+              ApifySearchResults<IdealistaSearchRequest> results =
+                  new ApifySearchResults<>(
+                      new HashSet<>(), new HashSet<>(), new HashSet<>(), new HashSet<>());
+              for (IdealistaSearchRequest request : requests) {
+                String id = request.getLocation();
+                pagesRequested
+                    .computeIfAbsent(id, key -> new ArrayList<>())
+                    .add(request.getMaxItems());
+                if (fragmentingLocations.contains(id)) {
+                  results.requestsToFragment().add(request);
+                  continue;
+                }
+
+                Location location = locations.get(id);
+                int page = Math.min(request.getMaxItems(), location.listings());
+                int seen = listingsSeen.getOrDefault(id, 0);
+                int changed = Math.max(0, Math.min(page, location.changed()) - seen);
+                freshness.put(request, new SearchFreshness(page, changed));
+                listingsSeen.put(id, Math.max(seen, page));
+                results.requestsSucceeded().add(request);
+              }
+              return results;
+            });
+    when(collector.takeSearchFreshness(any()))
+        .thenAnswer(invocation -> Optional.ofNullable(freshness.remove(invocation.getArgument(0))));
+  }
+
+  @Test
+  void crawl_entirelyKnownPage_stopsTheLocation() {
+    // Given
+    locations.put("0-EU-ES-28-07-001-079", new Location(5_000, 0));
+
+    // When
+    Set<String> toSweep = crawl();
+
+    // Then
+    assertEquals(List.of(PAGE_SIZE), pagesRequested.get("0-EU-ES-28-07-001-079"));
+    assertTrue(toSweep.isEmpty());
+  }
+
+  @Test
+  void crawl_pageHoldingEveryListing_stopsTheLocation() {
+    // Given: every listing changed, but there are fewer than a page
+    locations.put("0-EU-ES-28-07-001-079", new Location(30, 30));
+
+    // When
+    Set<String> toSweep = crawl();
+
+    // Then
+    assertEquals(List.of(PAGE_SIZE), pagesRequested.get("0-EU-ES-28-07-001-079"));
+    assertTrue(toSweep.isEmpty());
+  }
+
+  @Test
+  void crawl_changedPage_growsFourfold_untilAPageIsKnown() {
+    // Given: the newest hundred listings changed
+    locations.put("0-EU-ES-28-07-001-079", new Location(5_000, 100));
+
+    // When
+    Set<String> toSweep = crawl();
+
+    // Then: the third page holds the last changed listings only as ones already stored
+    assertEquals(List.of(40, 160, 640), pagesRequested.get("0-EU-ES-28-07-001-079"));
+    assertTrue(toSweep.isEmpty());
+  }
+
+  @Test
+  void crawl_stillChangingAtItemCap_fallsBackToFullSearch() {
+    // Given: a location where everything changed, next to one where nothing did
+    locations.put("0-EU-ES-28-07-001-079", new Location(10_000, 10_000));
+    locations.put("0-EU-ES-28-07-001-014", new Location(10_000, 0));
+
+    // When
+    Set<String> toSweep = crawl();
+
+    // Then: the page grows no further than the item cap
+    assertEquals(
+        List.of(40, 160, 640, IdealistaSearchRequest.MAX_ITEMS),
+        pagesRequested.get("0-EU-ES-28-07-001-079"));
+    assertEquals(List.of(PAGE_SIZE), pagesRequested.get("0-EU-ES-28-07-001-014"));
+    assertEquals(Set.of("0-EU-ES-28-07-001-079"), toSweep);
+  }
+
+  @Test
+  void crawl_locationToFragment_fallsBackToFullSearch() {
+    // Given
+    fragmentingLocations.add("0-EU-ES-28-07-001-079");
+
+    // When
+    Set<String> toSweep = crawl();
+
+    // Then
+    assertEquals(List.of(PAGE_SIZE), pagesRequested.get("0-EU-ES-28-07-001-079"));
+    assertEquals(Set.of("0-EU-ES-28-07-001-079"), toSweep);
+  }
+
+  private Set<String> crawl() {
+    Set<String> ids = new HashSet<>(locations.keySet());
+    ids.addAll(fragmentingLocations);
+    return crawler.crawl(ids, IdealistaPropertyType.HOMES, collector);
+  }
+}
@@ -0,0 +1,373 @@
+package com.acantilado.collection.properties.collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import com.acantilado.collection.apify.ApifyDatasetSpool;
+import com.acantilado.collection.apify.ApifyLongPollCompletionSource;
+import com.acantilado.collection.apify.ApifyRunCompletionSource;
+import com.acantilado.collection.apify.ApifyRuntime;
+import com.acantilado.collection.apify.ApifySearchResults;
+import com.acantilado.collection.apify.fake.FakeApifyServer;
+import com.acantilado.collection.apify.fake.IdealistaDatasetGenerator;
+import com.acantilado.collection.location.AcantiladoLocationEstablisher;
+import com.acantilado.collection.properties.collectors.IdealistaRealEstateCollector.SearchFreshness;
+import com.acantilado.collection.properties.idealista.IdealistaFragmentationPlanner;
+import com.acantilado.collection.properties.idealista.IdealistaPropertyType;
+import com.acantilado.collection.properties.idealista.IdealistaSearchRequest;
+import com.acantilado.core.administrative.Ayuntamiento;
+import com.acantilado.core.administrative.CodigoPostal;
+import com.acantilado.core.idealista.IdealistaContactInformation;
+import com.acantilado.core.idealista.IdealistaContactInformation.PhoneContact;
+import com.acantilado.core.idealista.IdealistaContactInformationDAO;
+import com.acantilado.core.idealista.IdealistaPropertyDAO;
+import com.acantilado.core.idealista.priceRecords.IdealistaPropertyPriceRecord;
+import com.acantilado.core.idealista.priceRecords.IdealistaTerrainPriceRecord;
+import com.acantilado.core.idealista.realEstate.IdealistaProperty;
+import com.acantilado.core.idealista.realEstate.IdealistaTerrain;
+import com.acantilado.core.location.AcantiladoLocation;
+import com.acantilado.utils.AdaptiveLimiter;
+import java.net.URI;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.Environment;
+import org.hibernate.context.internal.ManagedSessionContext;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Stores listings through the per-listing path, the one taken without a bulk writer. */
+class IdealistaRealEstateCollectorTest {
+  private static final String ACTOR_ID = "REcGj6dyoIJ9Z7aE6";
+  private static final IdealistaSearchRequest SEARCH =
+      IdealistaSearchRequest.saleSearch("0-EU-ES-28-07-001-079", IdealistaPropertyType.HOMES);
+
+  private static StandardServiceRegistry serviceRegistry;
+  private static SessionFactory sessionFactory;
+
+  private final ExecutorService executorService = Executors.newCachedThreadPool();
+  private StoringCollector collector;
+
+  @BeforeAll
+  static void setUpDatabase() {
+    serviceRegistry =
+        new StandardServiceRegistryBuilder()
+            .applySetting(Environment.URL, "jdbc:h2:mem:collector;DB_CLOSE_DELAY=-1")
+            .applySetting(Environment.USER, "sa")
+            .applySetting(Environment.HBM2DDL_AUTO, "create-drop")
+            .applySetting(Environment.CURRENT_SESSION_CONTEXT_CLASS, "managed")
+            .build();
+    sessionFactory =
+        new MetadataSources(serviceRegistry)
+            .addAnnotatedClass(IdealistaProperty.class)
+            .addAnnotatedClass(IdealistaPropertyPriceRecord.class)
+            .addAnnotatedClass(IdealistaTerrain.class)
+            .addAnnotatedClass(IdealistaTerrainPriceRecord.class)
+            .addAnnotatedClass(IdealistaContactInformation.class)
+            .buildMetadata()
+            .buildSessionFactory();
+  }
+
+  @AfterAll
+  static void tearDownDatabase() {
+    sessionFactory.close();
+    StandardServiceRegistryBuilder.destroy(serviceRegistry);
+  }
+
+  @BeforeEach
+  void setUp() {
+    collector =
+        new StoringCollector(
+            new ApifyRuntime(
+                URI.create("http://localhost"),
+                mock(ApifyRunCompletionSource.class),
+                new AdaptiveLimiter(1, 1, 1, 1, 1),
+                ApifyDatasetSpool.disabled(),
+                0),
+            -1);
+  }
+
+  @AfterEach
+  void tearDown() {
+    executorService.shutdownNow();
+    inTransaction(
+        () -> {
+          Session session = sessionFactory.getCurrentSession();
+          session.createMutationQuery("DELETE FROM IdealistaPropertyPriceRecord").executeUpdate();
+          session.createMutationQuery("DELETE FROM IdealistaProperty").executeUpdate();
+          return session
+              .createMutationQuery("DELETE FROM IdealistaContactInformation")
+              .executeUpdate();
+        });
+  }
+
+  @Test
+  void store_newListing_isStoredWithItsPrice() {
+    // When
+    SearchFreshness freshness = store(property(1L, 250_000L, 10L));
+
+    // Then
+    assertEquals(new SearchFreshness(1, 1), freshness);
+    assertEquals(List.of(250_000L), prices(1L));
+  }
+
+  @Test
+  void store_knownListingWithNewPrice_recordsExactlyOneNewPrice() {
+    // Given
+    store(property(1L, 250_000L, 10L));
+
+    // When: the stored listing is loaded with its price records left uninitialized
+    SearchFreshness freshness = store(property(1L, 240_000L, 20L));
+
+    // Then
+    assertEquals(new SearchFreshness(1, 1), freshness);
+    assertEquals(List.of(240_000L, 250_000L), prices(1L));
+  }
+
+  @Test
+  void store_knownListingWithSamePrice_recordsNothing() {
+    // Given
+    store(property(1L, 250_000L, 10L));
+
+    // When
+    SearchFreshness freshness = store(property(1L, 250_000L, 20L));
+
+    // Then
+    assertEquals(new SearchFreshness(1, 0), freshness);
+    assertEquals(List.of(250_000L), prices(1L));
+  }
+
+  @Test
+  void store_listingRepricedWithinTheBatch_isMergedIntoTheOneStoredEarlierInIt() {
+    // When: a new listing comes back twice in one batch, repriced the second time
+    SearchFreshness freshness =
+        store(property(1L, 250_000L, 10L), property(1L, 240_000L, 20L), property(2L, 5L, 20L));
+
+    // Then: the second sighting adds its price to the listing rather than storing it again
+    assertEquals(new SearchFreshness(3, 3), freshness);
+    assertEquals(List.of(240_000L, 250_000L), prices(1L));
+    assertEquals(List.of(5L), prices(2L));
+    assertEquals(
+        1L,
+        inTransaction(
+            () ->
+                sessionFactory
+                    .getCurrentSession()
+                    .createQuery(
+                        "SELECT COUNT(p) FROM IdealistaProperty p WHERE p.propertyCode = 1",
+                        Long.class)
+                    .getSingleResult()));
+  }
+
+  @Test
+  void collection_failedChunk_rollsBackAlone_andForgetsItsListingsAndContacts() {
+    // Given: a search of at least ten listings stored in chunks of three, the second of which
+    // fails once its listings and their contacts have been written
+    try (FakeApifyServer server =
+        FakeApifyServer.start(
+            FakeApifyServer.Behaviour.instant(),
+            Map.of(ACTOR_ID, new IdealistaDatasetGenerator(100)))) {
+      collector =
+          new StoringCollector(
+              new ApifyRuntime(
+                  server.getUri(),
+                  new ApifyLongPollCompletionSource(server.getUri(), ""),
+                  new AdaptiveLimiter(1, 1, 1, 100, 1),
+                  ApifyDatasetSpool.disabled(),
+                  3),
+              1);
+      collector.startDeduplicationRun();
+
+      // When
+      ApifySearchResults<IdealistaSearchRequest> results =
+          collector.startCollection(Set.of(SEARCH));
+
+      // Then: only the failed chunk is missing, and the search is to be retried
+      assertEquals(Set.of(SEARCH), results.requestsToRetryDueToFailure());
+      assertTrue(results.requestsSucceeded().isEmpty());
+      assertEquals(3, collector.failedChunk.size());
+      assertTrue(collector.chunksStored >= 4);
+      Set<Long> expected = new HashSet<>(collector.offered);
+      expected.removeAll(collector.failedChunk);
+      assertEquals(expected, storedPropertyCodes());
+      assertTrue(collector.takeSearchFreshness(SEARCH).isEmpty());
+
+      // When: the search is retried within the same run
+      ApifySearchResults<IdealistaSearchRequest> retried =
+          collector.startCollection(results.requestsToRetryDueToFailure());
+
+      // Then: the rolled back listings were not taken for duplicates, nor their contacts for
+      // stored ones, and the listings stored before are not recorded twice
+      assertEquals(Set.of(SEARCH), retried.requestsSucceeded());
+      assertEquals(collector.offered, storedPropertyCodes());
+      assertEquals(
+          (long) collector.offered.size(),
+          inTransaction(
+              () ->
+                  sessionFactory
+                      .getCurrentSession()
+                      .createQuery(
+                          "SELECT COUNT(r) FROM IdealistaPropertyPriceRecord r", Long.class)
+                      .getSingleResult()));
+      assertEquals(
+          0L,
+          inTransaction(
+              () ->
+                  sessionFactory
+                      .getCurrentSession()
+                      .createQuery(
+                          "SELECT COUNT(p) FROM IdealistaProperty p WHERE p.contactInfo IS NULL",
+                          Long.class)
+                      .getSingleResult()));
+    } finally {
+      collector.finishDeduplicationRun();
+    }
+  }
+
+  /** Stores the listings as one search of a run, in one chunk, and returns its freshness. */
+  private SearchFreshness store(IdealistaProperty... properties) {
+    collector.startDeduplicationRun();
+    try {
+      collector.onSearchResults(SEARCH, new HashSet<>(List.of(properties)), false);
+      inTransaction(
+          () -> {
+            collector.storeResultBatch(List.of(properties));
+            return null;
+          });
+      collector.onChunkStored(true);
+      collector.onResultsStored(true);
+      return collector.takeSearchFreshness(SEARCH).orElseThrow();
+    } finally {
+      collector.finishDeduplicationRun();
+    }
+  }
+
+  private static IdealistaProperty property(long propertyCode, long price, long seenAt) {
+    IdealistaProperty property =
+        new IdealistaProperty(
+            propertyCode,
+            "sale",
+            "A flat",
+            90,
+            "flat",
+            "Calle Mayor 2",
+            new IdealistaContactInformation(
+                Optional.of(new PhoneContact(34, 600_000_000L + propertyCode)),
+                "Inmobiliaria",
+                "professional"),
+            "Madrid",
+            "0-EU-ES-28-07-001-079",
+            40.4168,
+            -3.7038,
+            seenAt,
+            seenAt);
+    property.setPropertyType("flat");
+    IdealistaPropertyPriceRecord priceRecord =
+        new IdealistaPropertyPriceRecord(propertyCode, price, seenAt);
+    priceRecord.setProperty(property);
+    property.getPriceRecords().add(priceRecord);
+    return property;
+  }
+
+  private static Set<Long> storedPropertyCodes() {
+    return new HashSet<>(
+        inTransaction(
+            () ->
+                sessionFactory
+                    .getCurrentSession()
+                    .createQuery("SELECT p.propertyCode FROM IdealistaProperty p", Long.class)
+                    .getResultList()));
+  }
+
+  /** Recorded prices of the listing, newest first. */
+  private static List<Long> prices(long propertyCode) {
+    return inTransaction(
+        () ->
+            sessionFactory
+                .getCurrentSession()
+                .createQuery(
+                    "SELECT r.price FROM IdealistaPropertyPriceRecord r"
+                        + " WHERE r.propertyCode = :propertyCode"
+                        + " ORDER BY r.recordedAt DESC, r.id DESC",
+                    Long.class)
+                .setParameter("propertyCode", propertyCode)
+                .getResultList());
+  }
+
+  private static <T> T inTransaction(Supplier<T> work) {
+    Session session = sessionFactory.openSession();
+    Transaction transaction = session.beginTransaction();
+    ManagedSessionContext.bind(session);
+
+    try {
+      T result = work.get();
+      transaction.commit();
+      return result;
+    } catch (RuntimeException e) {
+      transaction.rollback();
+      throw e;
+    } finally {
+      ManagedSessionContext.unbind(sessionFactory);
+      session.close();
+    }
+  }
+
+  /** Fails the chunk at the given index after storing it, so that its transaction rolls back. */
+  private class StoringCollector extends IdealistaRealEstateCollector<IdealistaProperty> {
+    private final int failingChunk;
+    private final Set<Long> offered = new HashSet<>();
+    private final Set<Long> failedChunk = new HashSet<>();
+    private int chunksStored;
+
+    StoringCollector(ApifyRuntime apifyRuntime, int failingChunk) {
+      super(
+          locationEstablisher(),
+          new IdealistaContactInformationDAO(sessionFactory),
+          new IdealistaPropertyDAO(sessionFactory),
+          IdealistaProperty::constructFromItem,
+          mock(IdealistaFragmentationPlanner.class),
+          Optional.empty(),
+          executorService,
+          sessionFactory,
+          apifyRuntime);
+      this.failingChunk = failingChunk;
+    }
+
+    @Override
+    protected void storeResultBatch(Collection<IdealistaProperty> realEstates) {
+      realEstates.forEach(realEstate -> offered.add(realEstate.getPropertyCode()));
+      super.storeResultBatch(realEstates);
+      if (chunksStored++ == failingChunk) {
+        realEstates.forEach(realEstate -> failedChunk.add(realEstate.getPropertyCode()));
+        sessionFactory.getCurrentSession().flush();
+        throw new IllegalStateException("Chunk failed to store");
+      }
+    }
+  }
+
+  private static AcantiladoLocationEstablisher locationEstablisher() {
+    AcantiladoLocationEstablisher locationEstablisher = mock(AcantiladoLocationEstablisher.class);
+    when(locationEstablisher.establish(any(), any(), any()))
+        .thenReturn(
+            new AcantiladoLocation(
+                new Ayuntamiento("28079", "Madrid", "28", "13", null),
+                new CodigoPostal("28079", "28001", null)));
+    return locationEstablisher;
+  }
+}
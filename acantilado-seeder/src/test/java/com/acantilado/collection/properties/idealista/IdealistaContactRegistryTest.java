@@ -0,0 +1,152 @@
+package com.acantilado.collection.properties.idealista;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+import com.acantilado.core.idealista.IdealistaContactInformation;
+import com.acantilado.core.idealista.IdealistaContactInformation.PhoneContact;
+import com.acantilado.core.idealista.IdealistaContactInformationDAO;
+import com.acantilado.core.idealista.realEstate.IdealistaProperty;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class IdealistaContactRegistryTest {
+  private final IdealistaContactInformationDAO contactInformationDAO =
+      mock(IdealistaContactInformationDAO.class);
+  private final IdealistaContactRegistry registry =
+      new IdealistaContactRegistry(contactInformationDAO);
+  private final AtomicLong nextId = new AtomicLong(1);
+
+  @BeforeEach
+  void setUp() {
+    when(contactInformationDAO.findByPhoneContacts(anyCollection())).thenReturn(Map.of());
+    when(contactInformationDAO.create(any()))
+        .thenAnswer(
+            invocation -> {
+              IdealistaContactInformation contact = invocation.getArgument(0);
+              contact.setId(nextId.getAndIncrement());
+              return contact;
+            });
+    when(contactInformationDAO.createIfAbsent(anyCollection()))
+        .thenAnswer(
+            invocation -> {
+              Map<PhoneContact, IdealistaContactInformation> created = new HashMap<>();
+              for (IdealistaContactInformation contact :
+                  invocation.<Collection<IdealistaContactInformation>>getArgument(0)) {
+                contact.setId(nextId.getAndIncrement());
+                created.put(
+                    new PhoneContact(contact.getPrefix(), contact.getPhoneNumber()), contact);
+              }
+              return created;
+            });
+  }
+
+  @Test
+  void resolve_storesAgencyOnce_acrossBatchesOfATransaction() {
+    // Given: an agency advertising a thousand listings over two batches
+    List<IdealistaProperty> first = listingsOf(500, 34, 911_000_000);
+    List<IdealistaProperty> second = listingsOf(500, 34, 911_000_000);
+
+    // When
+    registry.resolve(first);
+    registry.resolve(second);
+
+    // Then
+    verify(contactInformationDAO, times(1))
+        .createIfAbsent(argThat(contacts -> contacts.size() == 1));
+    verify(contactInformationDAO, times(1)).findByPhoneContacts(anyCollection());
+    assertTrue(
+        IntStream.range(0, 500)
+            .allMatch(i -> second.get(i).getContactInfo() == first.get(0).getContactInfo()));
+  }
+
+  @Test
+  void resolve_reusesStoredContact_ofSamePrefixOnly() {
+    // Given: the number is stored under the Spanish prefix only
+    IdealistaContactInformation stored = contact(34, 600_000_000);
+    stored.setId(42);
+    when(contactInformationDAO.findByPhoneContacts(anyCollection()))
+        .thenReturn(Map.of(new PhoneContact(34, 600_000_000), stored));
+    List<IdealistaProperty> spanish = listingsOf(1, 34, 600_000_000);
+    List<IdealistaProperty> french = listingsOf(1, 33, 600_000_000);
+
+    // When
+    registry.resolve(spanish);
+    registry.resolve(french);
+
+    // Then
+    assertSame(stored, spanish.get(0).getContactInfo());
+    assertNotEquals(42, french.get(0).getContactInfo().getId());
+    verify(contactInformationDAO, times(1)).createIfAbsent(anyCollection());
+  }
+
+  @Test
+  void rolledBackTransaction_forgetsContactsItInserted() {
+    // Given
+    registry.resolve(listingsOf(1, 34, 700_000_000));
+    registry.onTransactionFinished(false);
+
+    // When
+    registry.resolve(listingsOf(1, 34, 700_000_000));
+    registry.onTransactionFinished(true);
+    registry.resolve(listingsOf(1, 34, 700_000_000));
+
+    // Then: inserted again after the rollback, but not once committed
+    verify(contactInformationDAO, times(2)).createIfAbsent(anyCollection());
+    assertEquals(1, registry.size());
+  }
+
+  @Test
+  void resolve_storesContactsWithoutPhoneNumber_perListing() {
+    // When
+    registry.resolve(listingsOf(3, 0, 0));
+
+    // Then
+    verify(contactInformationDAO, times(3)).create(any());
+    verify(contactInformationDAO, never()).findByPhoneContacts(anyCollection());
+  }
+
+  @Test
+  void resolve_usesContactStoredConcurrently_insteadOfTheOneItInserted() {
+    // Given: another registry stored the agency between the lookup and the insert
+    IdealistaContactInformation storedElsewhere = contact(34, 800_000_000);
+    storedElsewhere.setId(99);
+    when(contactInformationDAO.createIfAbsent(anyCollection()))
+        .thenReturn(Map.of(new PhoneContact(34, 800_000_000), storedElsewhere));
+    List<IdealistaProperty> listings = listingsOf(2, 34, 800_000_000);
+
+    // When
+    registry.resolve(listings);
+
+    // Then
+    assertSame(storedElsewhere, listings.get(0).getContactInfo());
+    assertSame(storedElsewhere, listings.get(1).getContactInfo());
+  }
+
+  private static List<IdealistaProperty> listingsOf(int count, long prefix, long phoneNumber) {
+    return IntStream.range(0, count)
+        .mapToObj(
+            i -> {
+              IdealistaProperty property = new IdealistaProperty();
+              property.setContactInfo(contact(prefix, phoneNumber));
+              return property;
+            })
+        .toList();
+  }
+
+  private static IdealistaContactInformation contact(long prefix, long phoneNumber) {
+    return new IdealistaContactInformation(
+        phoneNumber == 0 ? Optional.empty() : Optional.of(new PhoneContact(prefix, phoneNumber)),
+        "Inmobiliaria",
+        "professional");
+  }
+}
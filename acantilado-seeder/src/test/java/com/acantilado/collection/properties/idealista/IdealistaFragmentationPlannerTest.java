@@ -0,0 +1,117 @@
+package com.acantilado.collection.properties.idealista;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class IdealistaFragmentationPlannerTest {
+  private static final String LOCATION = "0-EU-ES-28-07-001-079";
+
+  private final IdealistaFragmentationPlanner planner = new IdealistaFragmentationPlanner();
+  private final IdealistaSearchRequest request =
+      IdealistaSearchRequest.saleSearch(LOCATION, IdealistaPropertyType.HOMES);
+
+  @Test
+  void plan_withoutHistory_splitsAtMedianSize() {
+    // Given: an over-limit search whose listings are mostly around 90 square metres
+    planner.observe(request, listings(2400, 90, 200_000), true);
+
+    // When
+    Set<IdealistaSearchRequest> planned = planner.plan(Set.of(request));
+
+    // Then
+    assertEquals(Set.of(request.withSizeBounds(0, 80), request.withSizeBounds(80, 0)), planned);
+  }
+
+  @Test
+  void plan_withHistogram_packsSizeRangesUpToTarget() {
+    // Given: complete results covering every size, 1500 listings between 60 and 80, 1500
+    // between 80 and 100 square metres and a handful everywhere else
+    List<IdealistaFragmentationPlanner.Listing> smaller = new ArrayList<>(listings(1500, 70, 1));
+    smaller.addAll(listings(10, 30, 1));
+    planner.observe(request.withSizeBounds(0, 80), smaller, false);
+    List<IdealistaFragmentationPlanner.Listing> larger = new ArrayList<>(listings(1500, 90, 1));
+    larger.addAll(listings(10, 400, 1));
+    planner.observe(request.withSizeBounds(80, 0), larger, false);
+
+    // When
+    Set<IdealistaSearchRequest> planned = planner.plan(Set.of(request));
+
+    // Then: two searches instead of one per fixed range
+    assertEquals(Set.of(request.withSizeBounds(0, 80), request.withSizeBounds(80, 0)), planned);
+  }
+
+  @Test
+  void plan_singleSizeBucket_splitsOnPrice() {
+    // Given
+    IdealistaSearchRequest narrow = request.withSizeBounds(80, 100);
+    List<IdealistaFragmentationPlanner.Listing> listings = new ArrayList<>();
+    for (int i = 0; i < 2400; i++) {
+      listings.add(new IdealistaFragmentationPlanner.Listing(90L, 100_000L + i * 100L));
+    }
+    planner.observe(narrow, listings, true);
+
+    // When
+    Set<IdealistaSearchRequest> planned = planner.plan(Set.of(narrow));
+
+    // Then
+    assertEquals(
+        Set.of(narrow.withPriceBounds(0, 220_000), narrow.withPriceBounds(220_000, 0)), planned);
+  }
+
+  @Test
+  void plan_priceRangeExhausted_dropsRequest() {
+    // Given: every listing at the same price, already bounded below it
+    IdealistaSearchRequest narrow = request.withSizeBounds(80, 100).withPriceBounds(150_000, 0);
+    planner.observe(narrow, listings(2400, 90, 150_000), true);
+
+    // When / Then
+    assertTrue(planner.plan(Set.of(narrow)).isEmpty());
+  }
+
+  @Test
+  void requestWithoutPriceBounds_doesNotSendThem() throws Exception {
+    // When
+    JsonNode unbounded = new ObjectMapper().readTree(request.toRequestBodyJson());
+    JsonNode bounded =
+        new ObjectMapper().readTree(request.withPriceBounds(0, 100_000).toRequestBodyJson());
+
+    // Then
+    assertFalse(unbounded.has("minPrice"));
+    assertFalse(unbounded.has("maxPrice"));
+    assertFalse(bounded.has("minPrice"));
+    assertEquals("100000", bounded.path("maxPrice").asText());
+    assertEquals(request, request.withPriceBounds(0, 0));
+  }
+
+  @Test
+  void sizeEdges_areAcceptedSizeBounds() {
+    assertArrayEquals(
+        new int[] {0, 60, 80, 100, 140, 160, 180, 200, 220, 240, 260, 280, 300},
+        IdealistaFragmentationPlanner.SIZE_EDGES);
+  }
+
+  @Test
+  void bucketOf_roundsDownToEdge() {
+    assertEquals(0, IdealistaFragmentationPlanner.bucketOf(0));
+    assertEquals(2, IdealistaFragmentationPlanner.bucketOf(95));
+    assertEquals(3, IdealistaFragmentationPlanner.bucketOf(100));
+    assertEquals(
+        IdealistaFragmentationPlanner.SIZE_EDGES.length - 1,
+        IdealistaFragmentationPlanner.bucketOf(Long.MAX_VALUE));
+  }
+
+  private static List<IdealistaFragmentationPlanner.Listing> listings(
+      int count, long size, long price) {
+    List<IdealistaFragmentationPlanner.Listing> listings = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      listings.add(new IdealistaFragmentationPlanner.Listing(size, price));
+    }
+    return listings;
+  }
+}
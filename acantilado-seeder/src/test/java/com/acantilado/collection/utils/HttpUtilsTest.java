@@ -0,0 +1,140 @@
+package com.acantilado.collection.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class HttpUtilsTest {
+  private HttpServer server;
+  private volatile String responseBody;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext(
+        "/",
+        exchange -> {
+          byte[] body = responseBody.getBytes(StandardCharsets.UTF_8);
+          exchange.sendResponseHeaders(200, body.length);
+          try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+          }
+        });
+    server.start();
+  }
+
+  @AfterEach
+  void tearDown() {
+    server.stop(0);
+  }
+
+  @Test
+  void streamApiCall_readsEveryElement() {
+    // Given
+    responseBody = "[{\"id\": 1}, {\"id\": 2}, {\"id\": 3}]";
+    List<JsonNode> elements = new ArrayList<>();
+
+    // When
+    int elementsRead = HttpUtils.streamApiCall(request(), collectingInto(elements));
+
+    // Then
+    assertEquals(3, elementsRead);
+    assertEquals(List.of(1, 2, 3), elements.stream().map(e -> e.get("id").asInt()).toList());
+  }
+
+  @Test
+  void streamApiCall_ofEmptyArray_readsNothing() {
+    // Given
+    responseBody = "[]";
+    List<JsonNode> elements = new ArrayList<>();
+
+    // When
+    int elementsRead = HttpUtils.streamApiCall(request(), collectingInto(elements));
+
+    // Then
+    assertEquals(0, elementsRead);
+    assertTrue(elements.isEmpty());
+  }
+
+  @Test
+  void streamApiCall_stopsEarly_onceConsumerDeclines() {
+    // Given
+    responseBody = "[{\"id\": 1}, {\"id\": 2}, {\"id\": 3}, {\"id\": 4}]";
+    List<JsonNode> elements = new ArrayList<>();
+
+    // When
+    int elementsRead =
+        HttpUtils.streamApiCall(
+            request(),
+            parser -> {
+              elements.add(parser.readValueAsTree());
+              return elements.size() < 2;
+            });
+
+    // Then: the declined element counts as read, the rest of the body is never parsed
+    assertEquals(2, elementsRead);
+    assertEquals(2, elements.size());
+  }
+
+  @Test
+  void streamApiCall_throws_forTruncatedArray() {
+    // Given: the connection ended mid-array, both between and within elements
+    for (String truncated : List.of("[{\"id\": 1}, {\"id\": 2}", "[{\"id\": 1}, {\"id\"")) {
+      responseBody = truncated;
+      List<JsonNode> elements = new ArrayList<>();
+
+      // When / Then
+      assertThrows(
+          RuntimeException.class,
+          () -> HttpUtils.streamApiCall(request(), collectingInto(elements)));
+      assertTrue(elements.size() <= 2, truncated);
+    }
+  }
+
+  @Test
+  void streamApiCall_throws_forNonArrayBody() {
+    // Given
+    responseBody = "{\"error\": {\"type\": \"record-not-found\"}}";
+
+    // When / Then
+    assertThrows(
+        RuntimeException.class,
+        () -> HttpUtils.streamApiCall(request(), collectingInto(new ArrayList<>())));
+  }
+
+  @Test
+  void makeApiCallAsync_completesWithTheBody() {
+    // Given
+    responseBody = "{\"data\": {\"status\": \"SUCCEEDED\"}}";
+
+    // When
+    JsonNode body = HttpUtils.makeApiCallAsync(request()).join();
+
+    // Then
+    assertEquals("SUCCEEDED", body.path("data").path("status").asText());
+  }
+
+  private static HttpUtils.ElementReader collectingInto(List<JsonNode> elements) {
+    return parser -> elements.add(parser.readValueAsTree());
+  }
+
+  private HttpRequest request() {
+    return HttpRequest.newBuilder()
+        .GET()
+        .uri(URI.create("http://localhost:" + server.getAddress().getPort() + "/items"))
+        .build();
+  }
+}
@@ -0,0 +1,82 @@
+package com.acantilado.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveLimiterTest {
+
+  @Test
+  void acquire_atLimit_blocksUntilReleased() throws Exception {
+    // Given: a limiter allowing a single operation, with plenty of rate
+    AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1, 1, 1000, 10);
+    limiter.acquire();
+
+    CountDownLatch acquired = new CountDownLatch(1);
+    Thread waiter =
+        new Thread(
+            () -> {
+              try {
+                limiter.acquire();
+                acquired.countDown();
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+            });
+    waiter.start();
+
+    // When / Then
+    assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+    limiter.release();
+    assertTrue(acquired.await(5, TimeUnit.SECONDS));
+    assertEquals(1, limiter.getInFlight());
+  }
+
+  @Test
+  void onSuccess_growsLimitAdditively() {
+    // Given
+    AdaptiveLimiter limiter = new AdaptiveLimiter(4, 1, 8, 1000, 10);
+
+    // When: one window's worth of successes
+    for (int i = 0; i < 4; i++) {
+      limiter.onSuccess();
+    }
+
+    // Then
+    assertEquals(4, limiter.getLimit());
+    limiter.onSuccess();
+    assertEquals(5, limiter.getLimit());
+  }
+
+  @Test
+  void onOverload_halvesLimitOncePerCooldown() {
+    // Given
+    AdaptiveLimiter limiter = new AdaptiveLimiter(16, 2, 32, 1000, 10);
+
+    // When: a burst of rejections caused by the same overload
+    limiter.onOverload();
+    limiter.onOverload();
+    limiter.onOverload();
+
+    // Then
+    assertEquals(8, limiter.getLimit());
+  }
+
+  @Test
+  void acquire_withoutTokens_waitsForRefill() throws Exception {
+    // Given: a burst of 2 refilled at 10 per second
+    AdaptiveLimiter limiter = new AdaptiveLimiter(10, 1, 10, 10, 2);
+
+    // When
+    long start = System.nanoTime();
+    for (int i = 0; i < 4; i++) {
+      limiter.acquire();
+    }
+    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+    // Then: the two permits beyond the burst took about 100ms each
+    assertTrue(elapsedMillis >= 150, "Took " + elapsedMillis + "ms");
+  }
+}
@@ -0,0 +1,81 @@
+package com.acantilado.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class LongPairHashSetTest {
+
+  @Test
+  void add_samePairTwice_isRejected() {
+    // Given
+    LongPairHashSet set = new LongPairHashSet();
+
+    // When
+    boolean first = set.add(101L, 250_000L);
+    boolean second = set.add(101L, 250_000L);
+
+    // Then
+    assertTrue(first);
+    assertFalse(second);
+    assertEquals(1, set.size());
+  }
+
+  @Test
+  void add_samePropertyAtNewPrice_isAccepted() {
+    // Given
+    LongPairHashSet set = new LongPairHashSet();
+    set.add(101L, 250_000L);
+
+    // When / Then
+    assertTrue(set.add(101L, 240_000L));
+    assertTrue(set.contains(101L, 250_000L));
+    assertTrue(set.contains(101L, 240_000L));
+    assertFalse(set.contains(240_000L, 101L));
+  }
+
+  @Test
+  void add_manyPairs_matchesHashSetAcrossResizes() {
+    // Given: more pairs than the initial capacity, with plenty of repeats
+    LongPairHashSet set = new LongPairHashSet();
+    Set<String> expected = new HashSet<>();
+    Random random = new Random(42);
+
+    // When / Then
+    for (int i = 0; i < 100_000; i++) {
+      long code = random.nextInt(40_000);
+      long price = random.nextInt(3) * 1_000L;
+      assertEquals(expected.add(code + ":" + price), set.add(code, price));
+    }
+    assertEquals(expected.size(), set.size());
+  }
+
+  @Test
+  void addAll_thenClear() {
+    // Given
+    LongPairHashSet pending = new LongPairHashSet();
+    pending.add(0L, 0L);
+    pending.add(-7L, 5L);
+    LongPairHashSet stored = new LongPairHashSet();
+    stored.add(-7L, 5L);
+
+    // When
+    stored.addAll(pending);
+    pending.clear();
+
+    // Then
+    assertEquals(2, stored.size());
+    assertTrue(stored.contains(0L, 0L));
+    assertTrue(pending.isEmpty());
+    assertFalse(pending.contains(0L, 0L));
+  }
+
+  @Test
+  void add_reservedValue_throws() {
+    assertThrows(
+        IllegalArgumentException.class, () -> new LongPairHashSet().add(Long.MIN_VALUE, 1L));
+  }
+}
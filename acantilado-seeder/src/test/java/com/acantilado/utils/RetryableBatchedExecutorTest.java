@@ -2,9 +2,15 @@ package com.acantilado.utils;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import org.junit.jupiter.api.AfterEach;
@@ -224,6 +230,98 @@ class RetryableBatchedExecutorTest {
     assertTrue(results.isEmpty(), "Should return empty set when all requests permanently fail");
   }
 
+  @Test
+  void executeUntilAllSuccessful_slowRequest_doesNotHoldUpOtherSlots() {
+    // Given: many fast requests sharing a window of 2 with one that only finishes once every fast
+    // one has, which cannot happen if it holds up the other slot
+    Set<String> requests = new HashSet<>(Set.of("slow"));
+    for (int i = 0; i < 20; i++) {
+      requests.add("fast" + i);
+    }
+    CountDownLatch fastRequestsLeft = new CountDownLatch(20);
+    AtomicBoolean fastFinishedFirst = new AtomicBoolean();
+    AtomicInteger inFlight = new AtomicInteger();
+    AtomicInteger maxInFlight = new AtomicInteger();
+
+    Function<String, String> slowOrFast =
+        req -> {
+          maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+          try {
+            if ("slow".equals(req)) {
+              // Bounded only so that a regression fails rather than hangs
+              fastFinishedFirst.set(fastRequestsLeft.await(1, TimeUnit.MINUTES));
+            } else {
+              fastRequestsLeft.countDown();
+            }
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          } finally {
+            inFlight.decrementAndGet();
+          }
+          return "result-" + req;
+        };
+
+    // When
+    Set<String> results =
+        RetryableBatchedExecutor.executeUntilAllSuccessful(
+            requests, 2, 1, executorService, slowOrFast);
+
+    // Then: the fast requests all completed while the slow one was still running
+    assertEquals(21, results.size());
+    assertTrue(fastFinishedFirst.get());
+    assertTrue(maxInFlight.get() <= 2);
+  }
+
+  @Test
+  void executeUntilAllSuccessful_successfulAttempt_keepsSlotUntilHoldCompletes() {
+    // Given: a single slot, which every successful attempt keeps for another 50ms
+    Semaphore slots = new Semaphore(1);
+    AtomicInteger held = new AtomicInteger();
+    AtomicInteger maxHeld = new AtomicInteger();
+    RetryableBatchedExecutor.AttemptWindow window =
+        new RetryableBatchedExecutor.AttemptWindow() {
+          @Override
+          public void acquire() throws InterruptedException {
+            slots.acquire();
+            maxHeld.accumulateAndGet(held.incrementAndGet(), Math::max);
+          }
+
+          @Override
+          public void release() {
+            held.decrementAndGet();
+            slots.release();
+          }
+        };
+
+    // When
+    long start = System.nanoTime();
+    Set<String> results =
+        RetryableBatchedExecutor.executeUntilAllSuccessful(
+            Set.of("req1", "req2", "req3"),
+            1,
+            executorService,
+            window,
+            req -> "result-" + req,
+            result ->
+                CompletableFuture.runAsync(
+                    () -> {}, CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS)));
+    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+    // Then: the last attempt only started once the two before it released their slot
+    assertEquals(3, results.size());
+    assertEquals(1, maxHeld.get());
+    assertTrue(elapsedMillis >= 100, "Took " + elapsedMillis + "ms");
+  }
+
+  @Test
+  void backoffCeilingMs_doublesUpToMaximum() {
+    assertEquals(10000, RetryableBatchedExecutor.backoffCeilingMs(1));
+    assertEquals(20000, RetryableBatchedExecutor.backoffCeilingMs(2));
+    assertEquals(80000, RetryableBatchedExecutor.backoffCeilingMs(4));
+    assertEquals(100000, RetryableBatchedExecutor.backoffCeilingMs(5));
+    assertEquals(100000, RetryableBatchedExecutor.backoffCeilingMs(40));
+  }
+
   //    @Test
   //    void executeUntilAllSuccessful_exactlyAtRetryLimit_returnsPartialSuccesses() {
   //        // Given: Setup that will hit exactly the retry limit
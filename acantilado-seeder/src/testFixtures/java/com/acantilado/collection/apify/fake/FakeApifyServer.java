@@ -0,0 +1,298 @@
+package com.acantilado.collection.apify.fake;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An in-process stand-in for the parts of the Apify API the collectors use: starting actor runs,
+ * reading their status, with or without {@code waitForFinish}, and paging through their datasets.
+ * Point {@code apify.apiUrl} at {@link #getUri()} to run collectors against it without network
+ * access, e.g. to measure ingestion throughput.
+ *
+ * <p>Runs finish after the configured duration and produce the dataset of the generator
+ * registered for their actor. Every response is delayed by the configured latency, and a share of
+ * run starts are rejected as rate limited, or of runs fail, so that retry paths are exercised too.
+ */
+public final class FakeApifyServer implements AutoCloseable {
+  private static final Logger LOGGER = LoggerFactory.getLogger(FakeApifyServer.class);
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  /**
+   * How the fake behaves. Latency and run duration vary by up to half their value either way.
+   *
+   * @param latency added to every response
+   * @param startRejectionRate share of run starts rejected with {@code rate-limit-exceeded}
+   * @param runDuration how long a run takes to finish
+   * @param runFailureRate share of runs that end as {@code FAILED}
+   */
+  public record Behaviour(
+      Duration latency, double startRejectionRate, Duration runDuration, double runFailureRate) {
+    public static Behaviour instant() {
+      return new Behaviour(Duration.ZERO, 0, Duration.ZERO, 0);
+    }
+  }
+
+  private record FakeRun(
+      String id,
+      String actorId,
+      String datasetId,
+      FakeDatasetGenerator.FakeDataset dataset,
+      Instant startedAt,
+      Instant finishesAt,
+      boolean fails) {
+    String status() {
+      if (Instant.now().isBefore(finishesAt)) {
+        return "RUNNING";
+      }
+      return fails ? "FAILED" : "SUCCEEDED";
+    }
+  }
+
+  private final Behaviour behaviour;
+  private final Map<String, FakeDatasetGenerator> generatorsByActor;
+  private final Map<String, FakeRun> runsById = new ConcurrentHashMap<>();
+  private final Map<String, FakeRun> runsByDatasetId = new ConcurrentHashMap<>();
+
+  private final AtomicLong runsStarted = new AtomicLong();
+  private final AtomicLong startsRejected = new AtomicLong();
+  private final AtomicLong itemsServed = new AtomicLong();
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+
+  private FakeApifyServer(Behaviour behaviour, Map<String, FakeDatasetGenerator> generatorsByActor)
+      throws IOException {
+    this.behaviour = behaviour;
+    this.generatorsByActor = Map.copyOf(generatorsByActor);
+
+    // Long-polls hold a thread each, as they do a connection on the real API
+    this.executor = Executors.newCachedThreadPool();
+    this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    this.server.createContext("/v2/", this::handle);
+    this.server.setExecutor(executor);
+  }
+
+  /** Starts a server on a free loopback port, with a generator for each actor id. */
+  public static FakeApifyServer start(
+      Behaviour behaviour, Map<String, FakeDatasetGenerator> generatorsByActor) {
+    try {
+      FakeApifyServer fakeApifyServer = new FakeApifyServer(behaviour, generatorsByActor);
+      fakeApifyServer.server.start();
+      LOGGER.info("Fake Apify API listening on {}", fakeApifyServer.getUri());
+      return fakeApifyServer;
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to start fake Apify API", e);
+    }
+  }
+
+  public URI getUri() {
+    return URI.create("http://localhost:" + server.getAddress().getPort());
+  }
+
+  public long getRunsStarted() {
+    return runsStarted.get();
+  }
+
+  public long getStartsRejected() {
+    return startsRejected.get();
+  }
+
+  public long getItemsServed() {
+    return itemsServed.get();
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      sleep(jittered(behaviour.latency()));
+
+      String[] path = exchange.getRequestURI().getPath().split("/");
+      Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+      boolean post = "POST".equals(exchange.getRequestMethod());
+
+      // ["", "v2", "acts", actorId, "runs"(, runId)]
+      if (path.length >= 5 && path[2].equals("acts") && path[4].equals("runs")) {
+        if (post && path.length == 5) {
+          startRun(exchange, path[3]);
+        } else if (path.length == 6) {
+          respondWithRun(exchange, path[5], 0);
+        } else {
+          respondWithError(exchange, 404, "page-not-found", "Unknown path");
+        }
+      } else if (path.length == 4 && path[2].equals("actor-runs")) {
+        int waitForFinish = Integer.parseInt(query.getOrDefault("waitForFinish", "0"));
+        respondWithRun(exchange, path[3], waitForFinish);
+      } else if (path.length == 5 && path[2].equals("datasets") && path[4].equals("items")) {
+        respondWithItems(
+            exchange,
+            path[3],
+            Integer.parseInt(query.getOrDefault("offset", "0")),
+            Integer.parseInt(query.getOrDefault("limit", String.valueOf(Integer.MAX_VALUE))));
+      } else {
+        respondWithError(exchange, 404, "page-not-found", "Unknown path");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException e) {
+      LOGGER.warn("Fake Apify API failed to handle {}", exchange.getRequestURI(), e);
+    }
+  }
+
+  private void startRun(HttpExchange exchange, String actorId) throws IOException {
+    FakeDatasetGenerator generator = generatorsByActor.get(actorId);
+    if (generator == null) {
+      respondWithError(exchange, 404, "record-not-found", "Actor was not found");
+      return;
+    }
+    if (ThreadLocalRandom.current().nextDouble() < behaviour.startRejectionRate()) {
+      startsRejected.incrementAndGet();
+      respondWithError(
+          exchange, 429, "rate-limit-exceeded", "You have exceeded the rate limit of runs");
+      return;
+    }
+
+    JsonNode input;
+    try (InputStream body = exchange.getRequestBody()) {
+      input = MAPPER.readTree(body);
+    }
+
+    Instant now = Instant.now();
+    FakeRun run =
+        new FakeRun(
+            UUID.randomUUID().toString(),
+            actorId,
+            UUID.randomUUID().toString(),
+            generator.generate(input),
+            now,
+            now.plus(jittered(behaviour.runDuration())),
+            ThreadLocalRandom.current().nextDouble() < behaviour.runFailureRate());
+    runsById.put(run.id(), run);
+    runsByDatasetId.put(run.datasetId(), run);
+    runsStarted.incrementAndGet();
+
+    respond(exchange, 201, runJson(run));
+  }
+
+  private void respondWithRun(HttpExchange exchange, String runId, int waitForFinishSeconds)
+      throws IOException, InterruptedException {
+    FakeRun run = runsById.get(runId);
+    if (run == null) {
+      respondWithError(exchange, 404, "record-not-found", "Actor run was not found");
+      return;
+    }
+
+    Instant waitUntil = Instant.now().plusSeconds(waitForFinishSeconds);
+    Instant wakeUp = run.finishesAt().isBefore(waitUntil) ? run.finishesAt() : waitUntil;
+    sleep(Duration.between(Instant.now(), wakeUp));
+
+    respond(exchange, 200, runJson(run));
+  }
+
+  private void respondWithItems(HttpExchange exchange, String datasetId, int offset, int limit)
+      throws IOException {
+    FakeRun run = runsByDatasetId.get(datasetId);
+    if (run == null) {
+      respondWithError(exchange, 404, "record-not-found", "Dataset was not found");
+      return;
+    }
+
+    FakeDatasetGenerator.FakeDataset dataset = run.dataset();
+    int end = (int) Math.min(dataset.itemCount(), (long) offset + limit);
+
+    exchange.getResponseHeaders().add("Content-Type", "application/json");
+    exchange.sendResponseHeaders(200, 0);
+    try (OutputStream body = exchange.getResponseBody();
+        JsonGenerator generator = MAPPER.getFactory().createGenerator(body)) {
+      generator.writeStartArray();
+      for (int index = offset; index < end; index++) {
+        MAPPER.writeTree(generator, dataset.item(index));
+      }
+      generator.writeEndArray();
+    }
+    itemsServed.addAndGet(Math.max(0, end - offset));
+  }
+
+  private static ObjectNode runJson(FakeRun run) {
+    ObjectNode response = MAPPER.createObjectNode();
+    ObjectNode data = response.putObject("data");
+    data.put("id", run.id());
+    data.put("actId", run.actorId());
+    data.put("status", run.status());
+    data.put("startedAt", run.startedAt().toString());
+    data.put("defaultDatasetId", run.datasetId());
+    return response;
+  }
+
+  private static void respondWithError(
+      HttpExchange exchange, int statusCode, String type, String message) throws IOException {
+    ObjectNode response = MAPPER.createObjectNode();
+    response.putObject("error").put("type", type).put("message", message);
+    respond(exchange, statusCode, response);
+  }
+
+  private static void respond(HttpExchange exchange, int statusCode, JsonNode json)
+      throws IOException {
+    byte[] body = MAPPER.writeValueAsBytes(json);
+    exchange.getResponseHeaders().add("Content-Type", "application/json");
+    exchange.sendResponseHeaders(statusCode, body.length);
+    try (OutputStream responseBody = exchange.getResponseBody()) {
+      responseBody.write(body);
+    }
+  }
+
+  private static Map<String, String> parseQuery(String rawQuery) {
+    Map<String, String> query = new HashMap<>();
+    Optional.ofNullable(rawQuery)
+        .ifPresent(
+            present -> {
+              for (String parameter : present.split("&")) {
+                String[] keyValue = parameter.split("=", 2);
+                query.put(keyValue[0], keyValue.length == 2 ? keyValue[1] : "");
+              }
+            });
+    return query;
+  }
+
+  private static Duration jittered(Duration duration) {
+    if (duration.isZero()) {
+      return duration;
+    }
+    double factor = 0.5 + ThreadLocalRandom.current().nextDouble();
+    return Duration.ofNanos((long) (duration.toNanos() * factor));
+  }
+
+  private static void sleep(Duration duration) throws InterruptedException {
+    if (!duration.isNegative() && !duration.isZero()) {
+      TimeUnit.NANOSECONDS.sleep(duration.toNanos());
+    }
+  }
+}
@@ -0,0 +1,19 @@
+package com.acantilado.collection.apify.fake;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/** Produces the dataset a fake actor run would have written for its input. */
+public interface FakeDatasetGenerator {
+  /**
+   * Called once per run. Items are generated on demand by index rather than held in memory, so
+   * every page of a dataset can be generated independently.
+   */
+  FakeDataset generate(JsonNode input);
+
+  interface FakeDataset {
+    int itemCount();
+
+    /** The item at the index, where {@code 0 <= index < itemCount()}. */
+    JsonNode item(int index);
+  }
+}
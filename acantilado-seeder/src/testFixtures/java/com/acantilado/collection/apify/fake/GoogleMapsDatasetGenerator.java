@@ -0,0 +1,91 @@
+package com.acantilado.collection.apify.fake;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Places shaped like the Google Maps actor's output, scattered around the first coordinate of the
+ * search's custom geolocation. The same input always yields the same places.
+ */
+public final class GoogleMapsDatasetGenerator implements FakeDatasetGenerator {
+  private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+  private static final String[] DAYS = {
+    "Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"
+  };
+  private static final String[] NAMES = {
+    "Farmacia Central", "Farmacia del Carmen", "Farmacia Lda. Garcia", "Farmacia 24 horas"
+  };
+
+  private final int maxPlacesPerSearch;
+
+  public GoogleMapsDatasetGenerator(int maxPlacesPerSearch) {
+    this.maxPlacesPerSearch = maxPlacesPerSearch;
+  }
+
+  @Override
+  public FakeDataset generate(JsonNode input) {
+    long seed = input.toString().hashCode();
+    int places = Math.floorMod(seed, maxPlacesPerSearch + 1);
+    double[] centre = centreOf(input.path("customGeolocation"));
+    String category = input.path("searchStringsArray").path(0).asText("pharmacy");
+
+    return new FakeDataset() {
+      @Override
+      public int itemCount() {
+        return places;
+      }
+
+      @Override
+      public JsonNode item(int index) {
+        return place(new Random(seed * 31 + index), centre, category);
+      }
+    };
+  }
+
+  private static JsonNode place(Random random, double[] centre, String category) {
+    ObjectNode place = NODES.objectNode();
+    place.put("title", NAMES[random.nextInt(NAMES.length)]);
+    place.put("placeId", "ChIJ" + Long.toHexString(random.nextLong()));
+    place.put(
+        "categoryName", category.substring(0, 1).toUpperCase(Locale.ROOT) + category.substring(1));
+    place.put("address", "Calle de Prueba, " + random.nextInt(200) + ", Espana");
+    place.put("phone", "+34 9" + (10_000_000 + random.nextInt(89_999_999)));
+    place.put("totalScore", random.nextInt(5) == 0 ? null : 3 + random.nextInt(21) / 10.0);
+    place.put("reviewsCount", random.nextInt(400));
+    place.put("permanentlyClosed", random.nextInt(50) == 0);
+    place.put("temporarilyClosed", random.nextInt(50) == 0);
+    place.put("url", "https://www.google.com/maps/place/?q=place_id:" + random.nextInt());
+
+    ObjectNode location = place.putObject("location");
+    location.put("lat", centre[1] + (random.nextDouble() - 0.5) / 50);
+    location.put("lng", centre[0] + (random.nextDouble() - 0.5) / 50);
+
+    ArrayNode openingHours = place.putArray("openingHours");
+    for (String day : DAYS) {
+      String hours =
+          switch (day) {
+            case "Sunday" -> random.nextBoolean() ? "Closed" : "Open 24 hours";
+            case "Saturday" -> "9:30 AM to 2 PM";
+            default -> "9 AM to 2 PM, 5 to 8:30 PM";
+          };
+      openingHours.addObject().put("day", day).put("hours", hours);
+    }
+    return place;
+  }
+
+  /** The first [longitude, latitude] pair found in a GeoJSON geometry, or Madrid without one. */
+  private static double[] centreOf(JsonNode geometry) {
+    JsonNode coordinates = geometry.path("coordinates");
+    while (coordinates.isArray() && coordinates.path(0).isArray()) {
+      coordinates = coordinates.path(0);
+    }
+    if (coordinates.size() >= 2) {
+      return new double[] {coordinates.get(0).asDouble(), coordinates.get(1).asDouble()};
+    }
+    return new double[] {-3.70, 40.42};
+  }
+}
@@ -0,0 +1,171 @@
+package com.acantilado.collection.apify.fake;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.Locale;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Listings shaped like the Idealista actor's output. Every location holds a fixed population of
+ * listings derived from its id, so repeated and overlapping searches return the same property
+ * codes and prices; a search returns those matching its size and price bounds, up to maxItems.
+ */
+public final class IdealistaDatasetGenerator implements FakeDatasetGenerator {
+  private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+  private static final String[] SUB_TYPOLOGIES = {"flat", "penthouse", "duplex", "studio"};
+  private static final String[] ENERGY_CERTIFICATES = {"A", "B", "C", "D", "E", "F", "G"};
+
+  private final int maxListingsPerLocation;
+
+  /** Locations hold between a tenth of and the given number of listings. */
+  public IdealistaDatasetGenerator(int maxListingsPerLocation) {
+    if (maxListingsPerLocation < 1 || maxListingsPerLocation > 10_000) {
+      throw new IllegalArgumentException("Between 1 and 10000 listings per location");
+    }
+    this.maxListingsPerLocation = maxListingsPerLocation;
+  }
+
+  private record Listing(long propertyCode, long size, long price, Random random) {}
+
+  @Override
+  public FakeDataset generate(JsonNode input) {
+    int[] matchingListings = matchingListings(input);
+    return new FakeDataset() {
+      @Override
+      public int itemCount() {
+        return matchingListings.length;
+      }
+
+      @Override
+      public JsonNode item(int index) {
+        return IdealistaDatasetGenerator.item(input, matchingListings[index]);
+      }
+    };
+  }
+
+  private static JsonNode item(JsonNode input, int listingIndex) {
+    String location = input.path("location").asText();
+    Listing listing = listing(input, listingIndex);
+    Random random = listing.random();
+    double latitude =
+        36 + Math.floorMod(location.hashCode(), 700) / 100.0 + random.nextDouble() / 50;
+    double longitude =
+        -9 + Math.floorMod(location.hashCode(), 1200) / 100.0 + random.nextDouble() / 50;
+
+    ObjectNode item = NODES.objectNode();
+    item.put("propertyCode", String.valueOf(listing.propertyCode()));
+    item.put("thumbnail", "https://img3.idealista.com/blur/" + listing.propertyCode() + ".jpg");
+    item.put("numPhotos", 5 + random.nextInt(30));
+    item.put("floor", String.valueOf(random.nextInt(10)));
+    item.put("price", (double) listing.price());
+    item.put("propertyType", input.path("propertyType").asText("homes"));
+    item.put("operation", input.path("operation").asText("sale"));
+    item.put("size", (double) listing.size());
+    item.put("exterior", random.nextBoolean());
+    item.put("rooms", 1 + random.nextInt(5));
+    item.put("bathrooms", 1 + random.nextInt(3));
+    item.put("address", "Calle de Prueba, " + random.nextInt(200));
+    item.put("municipality", "Municipio " + Math.floorMod(location.hashCode(), 100));
+    item.put("country", "es");
+    item.put(
+        "locationId", location + "-" + String.format(Locale.ROOT, "%02d", random.nextInt(20)));
+    item.put("latitude", latitude);
+    item.put("longitude", longitude);
+    item.put("showAddress", random.nextBoolean());
+    item.put("url", "https://www.idealista.com/inmueble/" + listing.propertyCode() + "/");
+    item.put(
+        "description",
+        "Vivienda luminosa con ascensor, cerca de todos los servicios y del transporte publico.");
+    item.put("status", "good");
+    item.put("newDevelopment", false);
+    item.put("newProperty", false);
+    item.put("hasLift", random.nextBoolean());
+    item.put("priceByArea", (double) (listing.price() / Math.max(1, listing.size())));
+    item.put(
+        "energyCertificate", ENERGY_CERTIFICATES[random.nextInt(ENERGY_CERTIFICATES.length)]);
+
+    ObjectNode detailedType = item.putObject("detailedType");
+    detailedType.put("typology", "flat");
+    detailedType.put("subTypology", SUB_TYPOLOGIES[random.nextInt(SUB_TYPOLOGIES.length)]);
+
+    ObjectNode parkingSpace = item.putObject("parkingSpace");
+    parkingSpace.put("hasParkingSpace", random.nextBoolean());
+    parkingSpace.put("isParkingSpaceIncludedInPrice", random.nextBoolean());
+
+    ObjectNode features = item.putObject("features");
+    features.put("hasSwimmingPool", random.nextInt(5) == 0);
+    features.put("hasTerrace", random.nextBoolean());
+    features.put("hasAirConditioning", random.nextBoolean());
+    features.put("hasBoxRoom", random.nextBoolean());
+    features.put("hasGarden", random.nextInt(4) == 0);
+
+    ObjectNode contactInfo = item.putObject("contactInfo");
+    boolean professional = random.nextInt(3) > 0;
+    contactInfo.put("userType", professional ? "professional" : "private");
+    contactInfo.put(
+        "contactName", professional ? "Inmobiliaria " + random.nextInt(500) : "Particular");
+    ObjectNode phone = contactInfo.putObject("phone1");
+    phone.put("prefix", 34);
+    // Agencies list many properties, so their phone numbers repeat across listings
+    phone.put(
+        "phoneNumber",
+        600_000_000L + (professional ? random.nextInt(500) : random.nextInt(1_000_000)));
+
+    ObjectNode multimedia = item.putObject("multimedia");
+    multimedia
+        .putArray("images")
+        .addObject()
+        .put("url", "https://img3.idealista.com/" + listing.propertyCode() + "/1.jpg")
+        .put("tag", "living");
+    return item;
+  }
+
+  /** Indices, within the location's population, of the listings the search returns. */
+  private int[] matchingListings(JsonNode input) {
+    long minSize = input.path("minSize").asLong(0);
+    long maxSize = input.path("maxSize").asLong(0);
+    long minPrice = input.path("minPrice").asLong(0);
+    long maxPrice = input.path("maxPrice").asLong(0);
+    int maxItems = input.path("maxItems").asInt(Integer.MAX_VALUE);
+
+    int population = populationOf(input);
+    return IntStream.range(0, population)
+        .filter(
+            index -> {
+              Listing listing = listing(input, index);
+              return listing.size() >= minSize
+                  && (maxSize == 0 || listing.size() < maxSize)
+                  && listing.price() >= minPrice
+                  && (maxPrice == 0 || listing.price() < maxPrice);
+            })
+        .limit(maxItems)
+        .toArray();
+  }
+
+  private int populationOf(JsonNode input) {
+    int minimum = Math.max(1, maxListingsPerLocation / 10);
+    return minimum + Math.floorMod(seedOf(input), maxListingsPerLocation - minimum + 1);
+  }
+
+  private static Listing listing(JsonNode input, int index) {
+    long seed = seedOf(input);
+    Random random = new Random(seed * 31 + index);
+    boolean land = "lands".equals(input.path("propertyType").asText());
+
+    // Sizes are roughly log-normal, around 90 square metres for homes and 2000 for land
+    double median = land ? 2000 : 90;
+    long size = Math.max(15, Math.round(median * Math.exp(random.nextGaussian() * 0.5)));
+    long pricePerSquareMetre = land ? 20 + random.nextInt(80) : 1200 + random.nextInt(3000);
+    long price = Math.round(size * pricePerSquareMetre / 1000.0) * 1000;
+
+    long propertyCode = 100_000_000L + Math.floorMod(seed, 100_000L) * 10_000L + index;
+    return new Listing(propertyCode, size, price, random);
+  }
+
+  private static long seedOf(JsonNode input) {
+    return (input.path("location").asText() + "|" + input.path("propertyType").asText())
+        .hashCode();
+  }
+}
@@ -1,18 +1,18 @@
-create table ayuntamiento (ayuntamientoId varchar(255) not null, comunidadAutonomaId varchar(255) not null, geometry CLOB not null, name varchar(255) not null, phone varchar(255), provinciaId varchar(255) not null, primary key (ayuntamientoId));;
+create table ayuntamiento (ayuntamientoId varchar(255) not null, comunidadAutonomaId varchar(255) not null, geometry CLOB, geometry_simplified BYTEA, geometry_wkb BYTEA, name varchar(255) not null, phone varchar(255), provinciaId varchar(255) not null, primary key (ayuntamientoId));;
 
-create table barrio (barrio_id bigint generated by default as identity, ayuntamientoId varchar(255) not null, geometry CLOB not null, name varchar(255) not null, primary key (barrio_id));;
+create table barrio (barrio_id bigint generated by default as identity, ayuntamientoId varchar(255) not null, geometry CLOB, geometry_simplified BYTEA, geometry_wkb BYTEA, name varchar(255) not null, primary key (barrio_id));;
 
-create table codigo_postal (codigo_ine varchar(255) not null, codigo_postal varchar(5) not null, geometry CLOB not null, primary key (codigo_ine));;
+create table codigo_postal (codigo_ine varchar(255) not null, codigo_postal varchar(5) not null, geometry CLOB, geometry_simplified BYTEA, geometry_wkb BYTEA, primary key (codigo_ine));;
 
 create table CODIGO_POSTAL_AYUNTAMIENTO (codigo_ine varchar(255) not null, ayuntamientoId varchar(255) not null, primary key (codigo_ine, ayuntamientoId));;
 
-create table comunidad_autonoma (comunidadAutonomaId varchar(255) not null, geometry CLOB, name varchar(255) not null, primary key (comunidadAutonomaId));;
+create table comunidad_autonoma (comunidadAutonomaId varchar(255) not null, geometry CLOB, geometry_wkb BYTEA, name varchar(255) not null, primary key (comunidadAutonomaId));;
 
 create table google_amenity (place_id varchar(255) not null, acantilado_location_id varchar(255) not null, chain varchar(100), created_at timestamp(6) with time zone not null, google_category varchar(100) not null, latitude float(53) not null, longitude float(53) not null, name varchar(500) not null, previous_place_id varchar(255), primary key (place_id));;
 
 create table google_amenity_snapshot (id bigint generated by default as identity, first_seen timestamp(6) with time zone not null, last_seen timestamp(6) with time zone not null, opening_hours jsonb not null, place_id varchar(255) not null, rating float(53), status varchar(50) not null, user_rating_count integer, primary key (id));;
 
-create table idealist_terrain_price_records (id bigint generated by default as identity, price bigint not null, property_code bigint not null, recorded_at bigint not null, primary key (id));;
+create table idealista_terrain_price_records (id bigint generated by default as identity, price bigint not null, property_code bigint not null, recorded_at bigint not null, primary key (id));;
 
 create table idealista_ayuntamiento_location (idealista_ayuntamiento_location_id varchar(255) not null, provinciaId varchar(255), primary key (idealista_ayuntamiento_location_id));;
 
@@ -26,13 +26,13 @@ create table idealista_property_price_records (id bigint generated by default as
 
 create table idealista_terrain (property_code bigint not null, acantilado_location_id varchar(255) not null, address varchar(255), description TEXT, first_seen bigint not null, last_seen bigint not null, latitude float(53) not null, location_id varchar(255), longitude float(53) not null, municipality varchar(255) not null, operation varchar(255) not null, size bigint, sub_typology varchar(255), contact_phone_number bigint, primary key (property_code));;
 
-create table provincia (provinciaId varchar(255) not null, comunidadAutonomaId varchar(255) not null, geometry CLOB, name varchar(255) not null, primary key (provinciaId));;
+create table provincia (provinciaId varchar(255) not null, comunidadAutonomaId varchar(255) not null, geometry CLOB, geometry_simplified BYTEA, geometry_wkb BYTEA, name varchar(255) not null, primary key (provinciaId));;
 
 alter table if exists CODIGO_POSTAL_AYUNTAMIENTO add constraint FKjc2hbo45yyiy6r1vg8h2nhg9h foreign key (ayuntamientoId) references ayuntamiento;;
 
 alter table if exists CODIGO_POSTAL_AYUNTAMIENTO add constraint FKgby69w96lrisnogf1hxmqang4 foreign key (codigo_ine) references codigo_postal;;
 
-alter table if exists idealist_terrain_price_records add constraint FK5v5jd6aa2y20sytfrvmfiiago foreign key (property_code) references idealista_terrain;;
+alter table if exists idealista_terrain_price_records add constraint FK5v5jd6aa2y20sytfrvmfiiago foreign key (property_code) references idealista_terrain;;
 
 alter table if exists idealista_property add constraint FKrm59qov0emp46gs87gw5gn4ln foreign key (contact_phone_number) references idealista_contact_information;;
 
@@ -0,0 +1,205 @@
+package com.acantilado.benchmark;
+
+import com.acantilado.collection.apify.ApifyDatasetSpool;
+import com.acantilado.collection.apify.ApifyLongPollCompletionSource;
+import com.acantilado.collection.apify.ApifyRuntime;
+import com.acantilado.collection.apify.ApifySearchResults;
+import com.acantilado.collection.apify.fake.FakeApifyServer;
+import com.acantilado.collection.apify.fake.IdealistaDatasetGenerator;
+import com.acantilado.collection.location.AcantiladoLocationEstablisher;
+import com.acantilado.collection.properties.collectors.IdealistaRealEstateCollector;
+import com.acantilado.collection.properties.idealista.IdealistaFragmentationPlanner;
+import com.acantilado.collection.properties.idealista.IdealistaPropertyType;
+import com.acantilado.collection.properties.idealista.IdealistaSearchRequest;
+import com.acantilado.core.administrative.Ayuntamiento;
+import com.acantilado.core.administrative.AyuntamientoDAO;
+import com.acantilado.core.administrative.CodigoPostal;
+import com.acantilado.core.administrative.IdealistaLocationMappingDAO;
+import com.acantilado.core.idealista.IdealistaContactInformation;
+import com.acantilado.core.idealista.IdealistaContactInformationDAO;
+import com.acantilado.core.idealista.IdealistaPropertyDAO;
+import com.acantilado.core.idealista.priceRecords.IdealistaPropertyPriceRecord;
+import com.acantilado.core.idealista.priceRecords.IdealistaTerrainPriceRecord;
+import com.acantilado.core.idealista.realEstate.IdealistaProperty;
+import com.acantilado.core.idealista.realEstate.IdealistaTerrain;
+import com.acantilado.core.location.ProvinceLocationIndex;
+import com.acantilado.utils.AdaptiveLimiter;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.Environment;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Measures how fast a whole province of home listings is ingested: runs are started against a
+ * {@link FakeApifyServer}, awaited, paged through, bound and stored in an in-memory H2 database,
+ * and over-limit searches are fragmented and collected again, as a full sweep does. Nothing
+ * leaves the machine, so the result reflects the collector rather than Apify or the network.
+ *
+ * <p>Every invocation collects a province whose locations have not been seen before, so all
+ * listings are inserted. {@code latencyMillis}, {@code runMillis} and {@code startRejectionRate}
+ * shape the fake; {@code runStartsPerSecond} is the shared run limiter's rate, which bounds the
+ * throughput once runs finish quickly. {@code storeChunkSize} compares storing every search in one
+ * transaction with committing it in chunks. The {@code items} counter gives dataset items ingested per
+ * second. Bulk writes need PostgreSQL, so listings take the per-listing path here. Run with
+ * {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class ApifyIngestBenchmark {
+    private static final String IDEALISTA_ACTOR_ID = "REcGj6dyoIJ9Z7aE6";
+    private static final int MAX_FRAGMENTATION_ROUNDS = 6;
+
+    @Param("200")
+    private int locations;
+
+    @Param("3000")
+    private int maxListingsPerLocation;
+
+    @Param("20")
+    private int latencyMillis;
+
+    @Param("2000")
+    private int runMillis;
+
+    @Param("0.05")
+    private double startRejectionRate;
+
+    @Param("50")
+    private double runStartsPerSecond;
+
+    @Param({"0", "500"})
+    private int storeChunkSize;
+
+    private StandardServiceRegistry serviceRegistry;
+    private SessionFactory sessionFactory;
+    private FakeApifyServer apifyServer;
+    private ExecutorService executorService;
+    private IdealistaFragmentationPlanner fragmentationPlanner;
+    private IdealistaRealEstateCollector<IdealistaProperty> collector;
+    private int provincesCollected;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Ingested {
+        public long items;
+        public long runs;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            items = 0;
+            runs = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        serviceRegistry = new StandardServiceRegistryBuilder()
+                .applySetting(Environment.URL, "jdbc:h2:mem:ingest;DB_CLOSE_DELAY=-1")
+                .applySetting(Environment.USER, "sa")
+                .applySetting(Environment.HBM2DDL_AUTO, "create-drop")
+                .applySetting(Environment.CURRENT_SESSION_CONTEXT_CLASS, "managed")
+                .build();
+        sessionFactory = new MetadataSources(serviceRegistry)
+                .addAnnotatedClass(IdealistaProperty.class)
+                .addAnnotatedClass(IdealistaPropertyPriceRecord.class)
+                .addAnnotatedClass(IdealistaTerrain.class)
+                .addAnnotatedClass(IdealistaTerrainPriceRecord.class)
+                .addAnnotatedClass(IdealistaContactInformation.class)
+                .buildMetadata()
+                .buildSessionFactory();
+
+        apifyServer = FakeApifyServer.start(
+                new FakeApifyServer.Behaviour(
+                        Duration.ofMillis(latencyMillis),
+                        startRejectionRate,
+                        Duration.ofMillis(runMillis),
+                        0.01),
+                Map.of(IDEALISTA_ACTOR_ID, new IdealistaDatasetGenerator(maxListingsPerLocation)));
+        executorService = Executors.newCachedThreadPool();
+
+        // One ayuntamiento spanning every coordinate the fake hands out
+        Geometry spain = new GeometryFactory().toGeometry(new Envelope(-10, 4, 35, 44));
+        Ayuntamiento ayuntamiento = new Ayuntamiento("28079", "Madrid", "28", "13", spain);
+        ProvinceLocationIndex locationIndex = new ProvinceLocationIndex(
+                "28",
+                Set.of(ayuntamiento),
+                Map.of("28079", Set.of(new CodigoPostal("28079", "28001", spain))),
+                Set.of());
+        AcantiladoLocationEstablisher locationEstablisher = new AcantiladoLocationEstablisher(
+                locationIndex,
+                new AyuntamientoDAO(sessionFactory),
+                new IdealistaLocationMappingDAO(sessionFactory));
+        locationEstablisher.setBootstrapMode(true);
+
+        fragmentationPlanner = new IdealistaFragmentationPlanner();
+        collector = new IdealistaRealEstateCollector<>(
+                locationEstablisher,
+                new IdealistaContactInformationDAO(sessionFactory),
+                new IdealistaPropertyDAO(sessionFactory),
+                IdealistaProperty::constructFromItem,
+                fragmentationPlanner,
+                Optional.empty(),
+                executorService,
+                sessionFactory,
+                new ApifyRuntime(
+                        apifyServer.getUri(),
+                        new ApifyLongPollCompletionSource(apifyServer.getUri(), ""),
+                        new AdaptiveLimiter(32, 1, 64, runStartsPerSecond, 32),
+                        ApifyDatasetSpool.disabled(),
+                        storeChunkSize));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        apifyServer.close();
+        executorService.shutdownNow();
+        sessionFactory.close();
+        StandardServiceRegistryBuilder.destroy(serviceRegistry);
+    }
+
+    @Benchmark
+    public void collectProvince(Ingested ingested) {
+        long itemsBefore = apifyServer.getItemsServed();
+        long runsBefore = apifyServer.getRunsStarted();
+        int province = provincesCollected++;
+
+        Set<IdealistaSearchRequest> requests = IntStream.range(0, locations)
+                .mapToObj(location -> IdealistaSearchRequest.saleSearch(
+                        String.format("0-EU-ES-%02d-07-001-%04d", province % 100, location),
+                        IdealistaPropertyType.HOMES))
+                .collect(Collectors.toSet());
+
+        collector.startDeduplicationRun();
+        try {
+            for (int round = 0; round < MAX_FRAGMENTATION_ROUNDS && !requests.isEmpty(); round++) {
+                ApifySearchResults<IdealistaSearchRequest> results =
+                        collector.startCollection(requests);
+                requests = fragmentationPlanner.plan(results.requestsToFragment());
+            }
+        } finally {
+            collector.finishDeduplicationRun();
+        }
+
+        ingested.items += apifyServer.getItemsServed() - itemsBefore;
+        ingested.runs += apifyServer.getRunsStarted() - runsBefore;
+    }
+}
@@ -0,0 +1,133 @@
+package com.acantilado.benchmark;
+
+import com.acantilado.core.administrative.Ayuntamiento;
+import com.acantilado.core.administrative.AyuntamientoDAO;
+import com.acantilado.core.administrative.CodigoPostal;
+import com.acantilado.core.administrative.GeometryCodec;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.Environment;
+import org.hibernate.context.internal.ManagedSessionContext;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.util.GeometricShapeFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link AyuntamientoDAO#findAll()} against an in-memory H2 database holding as many
+ * ayuntamientos as Spain has, stored either as legacy GeoJSON rows or as WKB rows.
+ *
+ * <p>{@code touchGeometry=true} decodes every geometry after loading, which for GeoJSON rows is
+ * what every load used to cost when parsing happened in {@code @PostLoad}. Run with
+ * {@code ./gradlew jmh}; the gc profiler reports the allocated bytes per load.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AyuntamientoLoadBenchmark {
+    public enum Encoding {
+        GEOJSON,
+        WKB
+    }
+
+    @Param({"GEOJSON", "WKB"})
+    private Encoding encoding;
+
+    @Param({"false", "true"})
+    private boolean touchGeometry;
+
+    @Param("8132")
+    private int ayuntamientos;
+
+    @Param("256")
+    private int pointsPerPolygon;
+
+    private StandardServiceRegistry serviceRegistry;
+    private SessionFactory sessionFactory;
+    private AyuntamientoDAO ayuntamientoDAO;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        serviceRegistry = new StandardServiceRegistryBuilder()
+                .applySetting(Environment.URL, "jdbc:h2:mem:ayuntamientos;DB_CLOSE_DELAY=-1")
+                .applySetting(Environment.USER, "sa")
+                .applySetting(Environment.HBM2DDL_AUTO, "create-drop")
+                .applySetting(Environment.CURRENT_SESSION_CONTEXT_CLASS, "managed")
+                .build();
+        sessionFactory = new MetadataSources(serviceRegistry)
+                .addAnnotatedClass(Ayuntamiento.class)
+                .addAnnotatedClass(CodigoPostal.class)
+                .buildMetadata()
+                .buildSessionFactory();
+        ayuntamientoDAO = new AyuntamientoDAO(sessionFactory);
+
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.doWork(connection -> {
+                try (PreparedStatement insert = connection.prepareStatement(
+                        "INSERT INTO ayuntamiento (ayuntamientoId, provinciaId, "
+                                + "comunidadAutonomaId, name, geometry, geometry_wkb) "
+                                + "VALUES (?, ?, ?, ?, ?, ?)")) {
+                    for (int i = 0; i < ayuntamientos; i++) {
+                        Geometry geometry = polygon(i);
+                        String id = String.format("%05d", i);
+
+                        insert.setString(1, id);
+                        insert.setString(2, id.substring(0, 2));
+                        insert.setString(3, "01");
+                        insert.setString(4, "Ayuntamiento " + id);
+                        insert.setString(5, encoding == Encoding.GEOJSON
+                                ? GeometryCodec.toGeoJson(geometry)
+                                : null);
+                        insert.setBytes(6, encoding == Encoding.WKB
+                                ? GeometryCodec.toWkb(geometry)
+                                : null);
+                        insert.addBatch();
+                    }
+                    insert.executeBatch();
+                }
+            });
+            session.getTransaction().commit();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+        StandardServiceRegistryBuilder.destroy(serviceRegistry);
+    }
+
+    @Benchmark
+    public void findAll(Blackhole blackhole) {
+        try (Session session = sessionFactory.openSession()) {
+            ManagedSessionContext.bind(session);
+            try {
+                List<Ayuntamiento> loaded = ayuntamientoDAO.findAll();
+                if (touchGeometry) {
+                    loaded.forEach(ayuntamiento -> blackhole.consume(ayuntamiento.getGeometry()));
+                }
+                blackhole.consume(loaded);
+            } finally {
+                ManagedSessionContext.unbind(sessionFactory);
+            }
+        }
+    }
+
+    private Geometry polygon(int index) {
+        GeometricShapeFactory shapeFactory = new GeometricShapeFactory();
+        shapeFactory.setNumPoints(pointsPerPolygon);
+        shapeFactory.setCentre(
+                new Coordinate(-9.0 + (index % 100) * 0.12, 36.0 + (index / 100) * 0.1));
+        shapeFactory.setWidth(0.1);
+        shapeFactory.setHeight(0.08);
+        return shapeFactory.createEllipse();
+    }
+}
@@ -0,0 +1,116 @@
+package com.acantilado.benchmark;
+
+import com.acantilado.core.idealista.realEstate.IdealistaItem;
+import com.acantilado.core.idealista.realEstate.IdealistaProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares ways of turning one Apify dataset page of Idealista listings into
+ * {@link IdealistaProperty} entities: materializing the whole page as a tree, streaming one tree
+ * per item, and binding every item straight into an {@link IdealistaItem}.
+ *
+ * <p>Point {@code dataset} at a recorded dataset (a JSON array of items) to measure real data;
+ * left empty, {@code items} synthetic listings shaped like the actor's output are used. Run with
+ * {@code ./gradlew jmh}; the gc profiler reports the allocated bytes per page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class IdealistaItemBindingBenchmark {
+    @Param("")
+    private String dataset;
+
+    @Param("2400")
+    private int items;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] page;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        page = dataset.isEmpty()
+                ? syntheticPage(items).getBytes(StandardCharsets.UTF_8)
+                : Files.readAllBytes(Path.of(dataset));
+    }
+
+    @Benchmark
+    public void wholePageTree(Blackhole blackhole) throws IOException {
+        for (JsonNode item : objectMapper.readTree(page)) {
+            blackhole.consume(IdealistaProperty.constructFromJson(item));
+        }
+    }
+
+    @Benchmark
+    public void treePerItem(Blackhole blackhole) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(page)) {
+            parser.nextToken();
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                JsonNode item = parser.readValueAsTree();
+                blackhole.consume(IdealistaProperty.constructFromJson(item));
+            }
+        }
+    }
+
+    @Benchmark
+    public void boundItems(Blackhole blackhole) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(page)) {
+            parser.nextToken();
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                IdealistaItem item = IdealistaItem.READER.readValue(parser);
+                blackhole.consume(IdealistaProperty.constructFromItem(item));
+            }
+        }
+    }
+
+    private static String syntheticPage(int items) {
+        StringBuilder page = new StringBuilder("[");
+        for (int i = 0; i < items; i++) {
+            if (i > 0) {
+                page.append(',');
+            }
+            page.append(syntheticItem(i));
+        }
+        return page.append(']').toString();
+    }
+
+    /** Mirrors the actor's output, including the fields no entity uses. */
+    private static String syntheticItem(int i) {
+        return String.format(Locale.ROOT, """
+                {"propertyCode": "%d", "thumbnail": "https://img3.idealista.com/blur/WEB_LISTING/0/id.pro.es.image.master/%d.jpg",
+                 "externalReference": "REF-%d", "numPhotos": 24, "floor": "%d", "price": %d.0,
+                 "priceInfo": {"price": {"amount": %d.0, "currencySuffix": "€"}},
+                 "propertyType": "flat", "operation": "sale", "size": %d.0, "exterior": true,
+                 "rooms": %d, "bathrooms": %d, "address": "Calle de Ejemplo, %d", "province": "Madrid",
+                 "municipality": "Madrid", "district": "Centro", "country": "es",
+                 "locationId": "0-EU-ES-28-07-001-079-01-%03d", "latitude": %f, "longitude": %f,
+                 "showAddress": false, "url": "https://www.idealista.com/inmueble/%d/", "distance": "1200",
+                 "description": "Piso exterior luminoso con ascensor, a reformar, cerca de todos los servicios y del transporte público.",
+                 "hasVideo": true, "status": "good", "newDevelopment": false, "hasLift": true,
+                 "parkingSpace": {"hasParkingSpace": true, "isParkingSpaceIncludedInPrice": false, "parkingSpacePrice": 25000.0},
+                 "priceByArea": 4200.0, "detailedType": {"typology": "flat", "subTypology": "penthouse"},
+                 "suggestedTexts": {"subtitle": "Centro, Madrid", "title": "Ático en Calle de Ejemplo"},
+                 "hasPlan": true, "has3DTour": false, "has360": false, "hasStaging": false, "topNewDevelopment": false,
+                 "features": {"hasSwimmingPool": false, "hasTerrace": true, "hasAirConditioning": true, "hasBoxRoom": false, "hasGarden": false},
+                 "contactInfo": {"commercialName": "Inmobiliaria Ejemplo", "phone1": {"phoneNumber": 912345678, "formattedPhone": "912 34 56 78", "prefix": 34},
+                   "contactName": "Agente", "userType": "professional", "agencyLogo": "https://st3.idealista.com/logo.jpg"},
+                 "multimedia": {"images": [{"url": "https://img3.idealista.com/1.jpg", "tag": "living"},
+                   {"url": "https://img3.idealista.com/2.jpg", "tag": "kitchen"}, {"url": "https://img3.idealista.com/3.jpg", "tag": "bedroom"}]},
+                 "newProperty": false, "energyCertificate": "E"}
+                """,
+                100_000_000 + i, i, i, i % 12, 150_000 + i * 10, 150_000 + i * 10, 60 + i % 90,
+                1 + i % 5, 1 + i % 3, i % 200, i % 1000,
+                40.40 + (i % 100) * 0.001, -3.70 - (i % 100) * 0.001, 100_000_000 + i);
+    }
+}
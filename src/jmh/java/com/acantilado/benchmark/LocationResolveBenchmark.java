@@ -0,0 +1,109 @@
+package com.acantilado.benchmark;
+
+import com.acantilado.core.administrative.Ayuntamiento;
+import com.acantilado.core.administrative.Barrio;
+import com.acantilado.core.administrative.CodigoPostal;
+import com.acantilado.core.location.LocationGrid;
+import com.acantilado.core.location.ProvinceLocationIndex;
+import org.locationtech.jts.densify.Densifier;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many points per second a single thread turns into location identifiers, which is
+ * the work behind {@code POST /locations/resolve} once the province indexes are loaded.
+ *
+ * <p>The synthetic province is a grid of ayuntamientos split into two postcodes each, with a
+ * barrio in every fourth ayuntamiento, and boundaries densified to {@code pointsPerEdge} vertices
+ * per edge so that polygon tests cost roughly what real boundaries do. Run with
+ * {@code ./gradlew jmh}; scores are in points per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LocationResolveBenchmark {
+    private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+    private static final int POINTS = 10_000;
+    private static final double AYUNTAMIENTO_SIZE = 0.1;
+
+    @Param({"false", "true"})
+    private boolean withGrid;
+
+    @Param("20")
+    private int ayuntamientosPerSide;
+
+    @Param("64")
+    private int pointsPerEdge;
+
+    private ProvinceLocationIndex index;
+    private Point[] points;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Set<Ayuntamiento> ayuntamientos = new HashSet<>();
+        Map<String, Set<CodigoPostal>> postcodes = new HashMap<>();
+        Set<Barrio> barrios = new HashSet<>();
+
+        for (int x = 0; x < ayuntamientosPerSide; x++) {
+            for (int y = 0; y < ayuntamientosPerSide; y++) {
+                String id = String.format("%02d%03d", x, y);
+                double minX = x * AYUNTAMIENTO_SIZE;
+                double minY = y * AYUNTAMIENTO_SIZE;
+                double midX = minX + AYUNTAMIENTO_SIZE / 2;
+                double maxX = minX + AYUNTAMIENTO_SIZE;
+                double maxY = minY + AYUNTAMIENTO_SIZE;
+
+                ayuntamientos.add(
+                        new Ayuntamiento(id, id, "01", "01", box(minX, minY, maxX, maxY)));
+                postcodes.put(id, Set.of(
+                        new CodigoPostal(id + "-a", id + "a", box(minX, minY, midX, maxY)),
+                        new CodigoPostal(id + "-b", id + "b", box(midX, minY, maxX, maxY))));
+
+                if ((x + y) % 4 == 0) {
+                    Barrio barrio = new Barrio("Barrio " + id, id,
+                            box(minX + 0.01, minY + 0.01, midX - 0.01, maxY - 0.01));
+                    barrio.setId((long) barrios.size());
+                    barrios.add(barrio);
+                }
+            }
+        }
+
+        index = new ProvinceLocationIndex("01", ayuntamientos, postcodes, barrios);
+        if (withGrid) {
+            index = index.withGrid(LocationGrid.build(index, 0.002));
+        }
+
+        Random random = new Random(3);
+        double extent = ayuntamientosPerSide * AYUNTAMIENTO_SIZE;
+        points = new Point[POINTS];
+        for (int i = 0; i < POINTS; i++) {
+            points[i] = GEOMETRY_FACTORY.createPoint(
+                    new Coordinate(random.nextDouble() * extent, random.nextDouble() * extent));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public void resolve(Blackhole blackhole) {
+        for (Point point : points) {
+            blackhole.consume(index.resolve(point).getIdentifier());
+        }
+    }
+
+    private Geometry box(double minX, double minY, double maxX, double maxY) {
+        Geometry box = GEOMETRY_FACTORY.toGeometry(new Envelope(minX, maxX, minY, maxY));
+        return Densifier.densify(box, (maxY - minY) / pointsPerEdge);
+    }
+}
@@ -4,8 +4,12 @@ import com.acantilado.collection.administration.AdministrativeCollectorScheduler
 import com.acantilado.collection.administration.GeographicCollectorService;
 import com.acantilado.collection.amenity.AmenityCollectorScheduler;
 import com.acantilado.collection.amenity.AmenityCollectorServiceFactory;
+import com.acantilado.collection.apify.ApifyRuntime;
+import com.acantilado.collection.apify.ApifyWebhookCompletionSource;
+import com.acantilado.collection.apify.ApifyWebhookResource;
 import com.acantilado.collection.properties.IdealistaCollectorScheduler;
 import com.acantilado.collection.properties.IdealistaCollectorServiceFactory;
+import com.acantilado.collection.utils.HttpUtils;
 import com.acantilado.core.administrative.*;
 import com.acantilado.core.amenity.GoogleAmenity;
 import com.acantilado.core.amenity.GoogleAmenityDAO;
@@ -17,13 +21,18 @@ import com.acantilado.core.idealista.priceRecords.IdealistaTerrainPriceRecord;
 import com.acantilado.core.idealista.realEstate.IdealistaAyuntamientoLocation;
 import com.acantilado.core.idealista.realEstate.IdealistaProperty;
 import com.acantilado.core.idealista.realEstate.IdealistaTerrain;
+import com.acantilado.core.location.LocationResolver;
 import com.acantilado.core.resources.administrative.*;
 import com.acantilado.core.resources.amenity.GoogleAmenityResource;
 import com.acantilado.core.resources.amenity.GoogleAmenitySnapshotResource;
+import com.acantilado.core.resources.location.LocationResolveResource;
 import com.acantilado.core.resources.properties.IdealistaLocationResource;
 import com.acantilado.core.resources.properties.IdealistaRealEstateResource;
 import com.acantilado.core.resources.properties.LocationMappingResource;
 import com.acantilado.tasks.EchoTask;
+import com.acantilado.tasks.ReplayApifySpoolTask;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.SharedMetricRegistries;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import io.dropwizard.assets.AssetsBundle;
@@ -114,45 +123,62 @@ public class AcantiladoApplication extends Application<AcantiladoConfiguration>
 
     @Override
     public void run(AcantiladoConfiguration configuration, Environment environment) {
-        final AyuntamientoDAO ayuntamientoDao = new AyuntamientoDAO(hibernateBundle.getSessionFactory());
+        SharedMetricRegistries.add(HttpUtils.METRIC_REGISTRY, environment.metrics());
+
+        final AyuntamientoDAO ayuntamientoDao = new AyuntamientoDAO(hibernateBundle.getSessionFactory(), configuration.isPostgis());
         final ComunidadAutonomaDAO comunidadAutonomaDao = new ComunidadAutonomaDAO(hibernateBundle.getSessionFactory());
         final ProvinciaDAO provinciaDao = new ProvinciaDAO(hibernateBundle.getSessionFactory());
-        final CodigoPostalDAO codigoPostalDAO = new CodigoPostalDAO(hibernateBundle.getSessionFactory());
-        final BarrioDAO barrioDAO = new BarrioDAO(hibernateBundle.getSessionFactory());
+        final CodigoPostalDAO codigoPostalDAO = new CodigoPostalDAO(hibernateBundle.getSessionFactory(), configuration.isPostgis());
+        final BarrioDAO barrioDAO = new BarrioDAO(hibernateBundle.getSessionFactory(), configuration.isPostgis());
 
         final IdealistaContactInformationDAO idealistaContactInformationDAO = new IdealistaContactInformationDAO(hibernateBundle.getSessionFactory());
         final IdealistaPropertyPriceRecordDAO idealistaPropertyPriceRecordDAO = new IdealistaPropertyPriceRecordDAO(hibernateBundle.getSessionFactory());
         final IdealistaTerrainPriceRecordDAO idealistaTerrainPriceRecordDAO = new IdealistaTerrainPriceRecordDAO(hibernateBundle.getSessionFactory());
 
-        final IdealistaTerrainDAO idealistaTerrainDAO = new IdealistaTerrainDAO(hibernateBundle.getSessionFactory());
-        final IdealistaPropertyDAO idealistaPropertyDAO = new IdealistaPropertyDAO(hibernateBundle.getSessionFactory());
+        final IdealistaTerrainDAO idealistaTerrainDAO = new IdealistaTerrainDAO(hibernateBundle.getSessionFactory(), configuration.isPostgis());
+        final IdealistaPropertyDAO idealistaPropertyDAO = new IdealistaPropertyDAO(hibernateBundle.getSessionFactory(), configuration.isPostgis());
         final IdealistaLocationDAO locationDAO = new IdealistaLocationDAO(hibernateBundle.getSessionFactory());
         final IdealistaLocationMappingDAO locationMappingDAO = new IdealistaLocationMappingDAO(hibernateBundle.getSessionFactory());
 
-        final GoogleAmenityDAO amenityDAO = new GoogleAmenityDAO(hibernateBundle.getSessionFactory());
+        final GoogleAmenityDAO amenityDAO = new GoogleAmenityDAO(hibernateBundle.getSessionFactory(), configuration.isPostgis());
         final GoogleAmenitySnapshotDAO amenitySnapshotDAO = new GoogleAmenitySnapshotDAO(hibernateBundle.getSessionFactory());
 
         final IdealistaLocationMappingDAO idealistaAyuntamientoMappingDAO = new IdealistaLocationMappingDAO(hibernateBundle.getSessionFactory());
+
+        final LocationResolver locationResolver = new LocationResolver(
+                provinciaDao,
+                ayuntamientoDao,
+                codigoPostalDAO,
+                barrioDAO,
+                hibernateBundle.getSessionFactory(),
+                configuration.getCollectorConfiguration().getLocationResolver());
+
+        final ApifyRuntime apifyRuntime = configuration.getCollectorConfiguration().getApify().buildRuntime();
+        environment.metrics().register("apify.runs.limit", (Gauge<Integer>) apifyRuntime.runLimiter()::getLimit);
+        environment.metrics().register("apify.runs.inFlight", (Gauge<Integer>) apifyRuntime.runLimiter()::getInFlight);
+
         final IdealistaCollectorServiceFactory collectorServiceFactory = new IdealistaCollectorServiceFactory(
                 idealistaContactInformationDAO,
                 idealistaPropertyDAO,
                 idealistaTerrainDAO,
                 locationDAO,
                 provinciaDao,
-                codigoPostalDAO,
                 ayuntamientoDao,
-                barrioDAO,
                 idealistaAyuntamientoMappingDAO,
-                hibernateBundle.getSessionFactory());
+                locationResolver,
+                hibernateBundle.getSessionFactory(),
+                configuration.getCollectorConfiguration().getIdealistaCollector(),
+                apifyRuntime);
         final AmenityCollectorServiceFactory amenityServiceFactory = new AmenityCollectorServiceFactory(
                 amenityDAO,
                 amenitySnapshotDAO,
                 provinciaDao,
-                codigoPostalDAO,
                 ayuntamientoDao,
-                barrioDAO,
                 locationMappingDAO,
-                hibernateBundle.getSessionFactory());
+                locationResolver,
+                hibernateBundle.getSessionFactory(),
+                configuration.getCollectorConfiguration().getAmenityCollector().getSearchGeometryResolution(),
+                apifyRuntime);
 
         final GeographicCollectorService geographicCollectorService = new GeographicCollectorService(
                 codigoPostalDAO,
@@ -160,8 +186,10 @@ public class AcantiladoApplication extends Application<AcantiladoConfiguration>
                 provinciaDao,
                 barrioDAO,
                 hibernateBundle.getSessionFactory());
+        geographicCollectorService.addSeedListener(locationResolver::rebuild);
 
         environment.admin().addTask(new EchoTask());
+        environment.admin().addTask(new ReplayApifySpoolTask(collectorServiceFactory));
         environment.jersey().register(RolesAllowedDynamicFeature.class);
 
         // Administration
@@ -174,6 +202,10 @@ public class AcantiladoApplication extends Application<AcantiladoConfiguration>
         environment.jersey().register(new GoogleAmenitySnapshotResource(amenitySnapshotDAO));
         environment.jersey().register(new LocationMappingResource(locationMappingDAO));
         environment.jersey().register(new IdealistaLocationResource(locationDAO));
+        environment.jersey().register(new LocationResolveResource(locationResolver));
+        if (apifyRuntime.completionSource() instanceof ApifyWebhookCompletionSource webhookCompletionSource) {
+            environment.jersey().register(new ApifyWebhookResource(webhookCompletionSource));
+        }
 
         environment.lifecycle().manage(
                 new AdministrativeCollectorScheduler(
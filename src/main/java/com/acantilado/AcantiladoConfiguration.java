@@ -19,6 +19,12 @@ public class AcantiladoConfiguration extends Configuration {
     @JsonProperty("collector")
     private CollectorConfiguration collectorConfiguration = new CollectorConfiguration();
 
+    /**
+     * Whether spatial DAO queries run in PostGIS. Requires the postgis changesets to have been
+     * applied; without it, spatial predicates are evaluated in Java.
+     */
+    private boolean postgis = false;
+
     @JsonProperty("database")
     public DataSourceFactory getDataSourceFactory() {
         return database;
@@ -36,4 +42,14 @@ public class AcantiladoConfiguration extends Configuration {
     public void setCollectorConfiguration(CollectorConfiguration collectorConfiguration) {
         this.collectorConfiguration = collectorConfiguration;
     }
+
+    @JsonProperty("postgis")
+    public boolean isPostgis() {
+        return postgis;
+    }
+
+    @JsonProperty("postgis")
+    public void setPostgis(boolean postgis) {
+        this.postgis = postgis;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,108 @@
+package com.acantilado.migrations;
+
+import com.acantilado.core.administrative.GeometryCodec;
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+import org.locationtech.jts.geom.Geometry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Converts the GeoJSON geometry of every row in a table to WKB, clearing the GeoJSON column
+ * afterwards. Rows that already have WKB are left alone, so the change can safely be re-run.
+ */
+public class GeoJsonToWkbMigration implements CustomTaskChange {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GeoJsonToWkbMigration.class);
+    private static final int FETCH_SIZE = 100;
+    private static final int BATCH_SIZE = 100;
+
+    private String tableName;
+    private String idColumn;
+    private int convertedRows;
+
+    public void setTableName(String tableName) {
+        this.tableName = tableName;
+    }
+
+    public void setIdColumn(String idColumn) {
+        this.idColumn = idColumn;
+    }
+
+    @Override
+    public void execute(Database database) throws CustomChangeException {
+        JdbcConnection connection = (JdbcConnection) database.getConnection();
+
+        String table = database.escapeTableName(null, null, tableName);
+        String id = database.escapeColumnName(null, null, tableName, idColumn);
+        String geoJson = database.escapeColumnName(null, null, tableName, "geometry");
+        String wkb = database.escapeColumnName(null, null, tableName, "geometry_wkb");
+
+        String select = "SELECT " + id + ", " + geoJson + " FROM " + table
+                + " WHERE " + geoJson + " IS NOT NULL AND " + wkb + " IS NULL";
+        String update = "UPDATE " + table + " SET " + wkb + " = ?, " + geoJson + " = NULL"
+                + " WHERE " + id + " = ?";
+
+        try (Statement selectStatement = connection.createStatement();
+             PreparedStatement updateStatement = connection.prepareStatement(update)) {
+            selectStatement.setFetchSize(FETCH_SIZE);
+
+            int pending = 0;
+            try (ResultSet rows = selectStatement.executeQuery(select)) {
+                while (rows.next()) {
+                    Object rowId = rows.getObject(1);
+                    try {
+                        Geometry geometry = GeometryCodec.fromGeoJson(rows.getString(2));
+                        updateStatement.setBytes(1, GeometryCodec.toWkb(geometry));
+                    } catch (IllegalArgumentException e) {
+                        throw new CustomChangeException(
+                                "Unable to convert geometry of " + tableName + " " + rowId, e);
+                    }
+                    updateStatement.setObject(2, rowId);
+                    updateStatement.addBatch();
+                    convertedRows++;
+
+                    if (++pending == BATCH_SIZE) {
+                        updateStatement.executeBatch();
+                        pending = 0;
+                    }
+                }
+            }
+            if (pending > 0) {
+                updateStatement.executeBatch();
+            }
+        } catch (CustomChangeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CustomChangeException("Failed to convert geometries in " + tableName, e);
+        }
+
+        LOGGER.info("Converted {} {} geometries from GeoJSON to WKB", convertedRows, tableName);
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return "Converted " + convertedRows + " " + tableName + " geometries to WKB";
+    }
+
+    @Override
+    public void setUp() {}
+
+    @Override
+    public void setFileOpener(ResourceAccessor resourceAccessor) {}
+
+    @Override
+    public ValidationErrors validate(Database database) {
+        ValidationErrors errors = new ValidationErrors();
+        errors.checkRequiredField("tableName", tableName);
+        errors.checkRequiredField("idColumn", idColumn);
+        return errors;
+    }
+}
@@ -0,0 +1,100 @@
+package com.acantilado.migrations;
+
+import com.acantilado.core.administrative.GeometryCodec;
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+import org.locationtech.jts.geom.Geometry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Precomputes the simplified geometry variants of every row in a table that has a WKB geometry
+ * but no variants yet. Entities compute missing variants on the fly, so this only moves that
+ * cost out of request handling.
+ */
+public class SimplifiedGeometryMigration implements CustomTaskChange {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SimplifiedGeometryMigration.class);
+    private static final int FETCH_SIZE = 100;
+    private static final int BATCH_SIZE = 100;
+
+    private String tableName;
+    private String idColumn;
+    private int simplifiedRows;
+
+    public void setTableName(String tableName) {
+        this.tableName = tableName;
+    }
+
+    public void setIdColumn(String idColumn) {
+        this.idColumn = idColumn;
+    }
+
+    @Override
+    public void execute(Database database) throws CustomChangeException {
+        JdbcConnection connection = (JdbcConnection) database.getConnection();
+
+        String table = database.escapeTableName(null, null, tableName);
+        String id = database.escapeColumnName(null, null, tableName, idColumn);
+        String wkb = database.escapeColumnName(null, null, tableName, "geometry_wkb");
+        String simplified = database.escapeColumnName(null, null, tableName, "geometry_simplified");
+
+        String select = "SELECT " + id + ", " + wkb + " FROM " + table
+                + " WHERE " + wkb + " IS NOT NULL AND " + simplified + " IS NULL";
+        String update = "UPDATE " + table + " SET " + simplified + " = ? WHERE " + id + " = ?";
+
+        try (Statement selectStatement = connection.createStatement();
+             PreparedStatement updateStatement = connection.prepareStatement(update)) {
+            selectStatement.setFetchSize(FETCH_SIZE);
+
+            int pending = 0;
+            try (ResultSet rows = selectStatement.executeQuery(select)) {
+                while (rows.next()) {
+                    Geometry geometry = GeometryCodec.fromWkb(rows.getBytes(2));
+                    updateStatement.setBytes(1, GeometryCodec.encodeSimplified(geometry));
+                    updateStatement.setObject(2, rows.getObject(1));
+                    updateStatement.addBatch();
+                    simplifiedRows++;
+
+                    if (++pending == BATCH_SIZE) {
+                        updateStatement.executeBatch();
+                        pending = 0;
+                    }
+                }
+            }
+            if (pending > 0) {
+                updateStatement.executeBatch();
+            }
+        } catch (Exception e) {
+            throw new CustomChangeException("Failed to simplify geometries in " + tableName, e);
+        }
+
+        LOGGER.info("Precomputed simplified geometries for {} {} rows", simplifiedRows, tableName);
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return "Simplified " + simplifiedRows + " " + tableName + " geometries";
+    }
+
+    @Override
+    public void setUp() {}
+
+    @Override
+    public void setFileOpener(ResourceAccessor resourceAccessor) {}
+
+    @Override
+    public ValidationErrors validate(Database database) {
+        ValidationErrors errors = new ValidationErrors();
+        errors.checkRequiredField("tableName", tableName);
+        errors.checkRequiredField("idColumn", idColumn);
+        return errors;
+    }
+}
@@ -0,0 +1,49 @@
+package com.acantilado.tasks;
+
+import com.acantilado.collection.properties.IdealistaCollectorServiceFactory;
+import com.acantilado.collection.properties.IdealistaProvinceCollectorService;
+import com.acantilado.collection.properties.idealista.IdealistaPropertyType;
+import io.dropwizard.servlets.tasks.Task;
+
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores spooled Idealista datasets again without starting any Apify runs, e.g.
+ * {@code POST /tasks/replay-apify-spool?province=28&propertyType=homes}. Without a property
+ * type, both homes and lands are replayed. A province's replay waits for its running collection,
+ * if any, to finish.
+ */
+public class ReplayApifySpoolTask extends Task {
+    private final IdealistaCollectorServiceFactory collectorServiceFactory;
+
+    public ReplayApifySpoolTask(IdealistaCollectorServiceFactory collectorServiceFactory) {
+        super("replay-apify-spool");
+        this.collectorServiceFactory = collectorServiceFactory;
+    }
+
+    @Override
+    public void execute(Map<String, List<String>> parameters, PrintWriter output) {
+        List<String> provinces = parameters.getOrDefault("province", List.of());
+        if (provinces.isEmpty()) {
+            output.println("Missing province parameter");
+            return;
+        }
+
+        List<IdealistaPropertyType> propertyTypes = parameters.containsKey("propertyType")
+                ? parameters.get("propertyType").stream().map(IdealistaPropertyType::fromTypeCode).toList()
+                : Arrays.asList(IdealistaPropertyType.values());
+
+        for (String province : provinces) {
+            IdealistaProvinceCollectorService collectorService =
+                    collectorServiceFactory.getCollectorService(province);
+            for (IdealistaPropertyType propertyType : propertyTypes) {
+                int stored = collectorService.replaySpooledRealEstate(propertyType);
+                output.printf("Province %s, %s: replayed %d listings%n", province, propertyType, stored);
+                output.flush();
+            }
+        }
+    }
+}